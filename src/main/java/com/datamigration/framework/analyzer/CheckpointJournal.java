@@ -0,0 +1,402 @@
+package com.datamigration.framework.analyzer;
+
+import com.datamigration.framework.connector.KeyRange;
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Durable progress journal of one comparison job, so that a rerun with the same job id resumes
+ * where the previous run stopped instead of starting over.
+ *
+ * <p>The journal is a file of JSON lines in the checkpoint directory, named after the job id.
+ * Every entry is flushed to disk before {@code record...} returns. An entry records either a
+ * completed table with its result, or a completed key range {@code (lower, upper]} of a table with
+ * the partial result of that range. Entries for the same lower bound supersede each other, so a
+ * long range can be checkpointed repeatedly as it grows. A torn last line left by a crash is
+ * ignored when the journal is read back.</p>
+ *
+ * <p>Partial results keep their sample differences with typed values (see {@link StoredValue}),
+ * and {@link #assembleTable} merges them in key order, so a resumed table produces the same
+ * result as an uninterrupted sequential run.</p>
+ */
+public class CheckpointJournal implements AutoCloseable {
+    private static final Logger logger = LoggerFactory.getLogger(CheckpointJournal.class);
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private final String jobId;
+    private final Path file;
+    private final FileChannel channel;
+    private final Map<String, Entry> completedTables = new LinkedHashMap<>();
+    private final Map<String, List<Entry>> completedRanges = new LinkedHashMap<>();
+
+    private CheckpointJournal(String jobId, Path file, FileChannel channel) {
+        this.jobId = jobId;
+        this.file = file;
+        this.channel = channel;
+    }
+
+    /**
+     * Opens the journal of a job, reading back the entries of earlier runs.
+     *
+     * @param directory Checkpoint directory
+     * @param jobId Job id; must be usable as a file name
+     */
+    public static CheckpointJournal open(Path directory, String jobId) throws IOException {
+        if (!jobId.matches("[A-Za-z0-9._-]+")) {
+            throw new IllegalArgumentException("Job id may only contain letters, digits, '.', '_' and '-': " + jobId);
+        }
+        Files.createDirectories(directory);
+        Path file = directory.resolve(jobId + ".journal");
+        List<String> lines = Files.isRegularFile(file)
+            ? Files.readAllLines(file, StandardCharsets.UTF_8) : Collections.emptyList();
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+            StandardOpenOption.APPEND);
+        CheckpointJournal journal = new CheckpointJournal(jobId, file, channel);
+        int entries = 0;
+        for (int i = 0; i < lines.size(); i++) {
+            if (lines.get(i).isEmpty()) {
+                continue;
+            }
+            try {
+                journal.apply(MAPPER.readValue(lines.get(i), Entry.class));
+                entries++;
+            } catch (IOException e) {
+                logger.warn("Ignoring unreadable line {} of checkpoint journal {}: {}", i + 1, file, e.getMessage());
+            }
+        }
+        if (entries > 0) {
+            logger.info("Resuming job {} from {} checkpoints ({} tables complete)", jobId, entries,
+                journal.completedTables.size());
+        }
+        return journal;
+    }
+
+    public String getJobId() {
+        return jobId;
+    }
+
+    public Path getFile() {
+        return file;
+    }
+
+    /**
+     * Gets the result of a table completed by an earlier run, or null if the table is not complete.
+     */
+    public synchronized RowDiffResult getCompletedTable(String tableName, int maxRecordedDifferences) {
+        Entry entry = completedTables.get(tableName.toLowerCase());
+        return entry != null ? entry.result.toResult(tableName, maxRecordedDifferences) : null;
+    }
+
+    /**
+     * Records a completed table.
+     */
+    public void recordTable(String tableName, RowDiffResult result) throws IOException {
+        append(new Entry(Entry.TABLE, tableName, null, null, PartialResult.of(result)));
+    }
+
+    /**
+     * Records a completed key range of a table. Row counts are taken from {@code result}.
+     */
+    public void recordRange(String tableName, KeyRange range, RowDiffResult result) throws IOException {
+        append(new Entry(Entry.RANGE, tableName, StoredValue.ofAll(range.getLowerExclusive()),
+            StoredValue.ofAll(range.getUpperInclusive()), PartialResult.of(result)));
+    }
+
+    /**
+     * Drops the completed ranges of a table, for example when its diff has to start over another way.
+     */
+    public void resetTable(String tableName) throws IOException {
+        append(new Entry(Entry.RESET, tableName, null, null, null));
+    }
+
+    /**
+     * Returns the parts of {@code range} that are not covered by completed ranges of the table, in key order.
+     */
+    public synchronized List<KeyRange> remainingRanges(String tableName, KeyRange range) {
+        List<KeyRange> remaining = new ArrayList<>();
+        Object[] position = range.getLowerExclusive();
+        for (Entry entry : sortedRanges(tableName)) {
+            Object[] lower = entry.lowerKey();
+            Object[] upper = entry.upperKey();
+            if (compareUpper(range.getUpperInclusive(), position, false) <= 0) {
+                break;
+            }
+            if (compareUpper(upper, position, false) <= 0) {
+                continue;
+            }
+            if (compareLower(lower, position) > 0) {
+                Object[] gapEnd = compareUpper(range.getUpperInclusive(), lower, false) < 0
+                    ? range.getUpperInclusive() : lower;
+                remaining.add(new KeyRange(position, gapEnd));
+            }
+            if (upper == null) {
+                return remaining;
+            }
+            position = upper;
+        }
+        if (compareUpper(range.getUpperInclusive(), position, false) > 0) {
+            remaining.add(new KeyRange(position, range.getUpperInclusive()));
+        }
+        return remaining;
+    }
+
+    /**
+     * Checks whether the completed ranges of a table cover all of {@code range}.
+     */
+    public boolean isCovered(String tableName, KeyRange range) {
+        return remainingRanges(tableName, range).isEmpty();
+    }
+
+    /**
+     * Checks whether nothing of {@code range} has been completed yet.
+     */
+    public boolean isUntouched(String tableName, KeyRange range) {
+        List<KeyRange> remaining = remainingRanges(tableName, range);
+        return remaining.size() == 1 && sameRange(remaining.get(0), range);
+    }
+
+    /**
+     * Builds the result of a table by merging the partial results of all its completed ranges in key order.
+     */
+    public synchronized RowDiffResult assembleTable(String tableName, int maxRecordedDifferences) {
+        RowDiffResult result = new RowDiffResult(tableName, maxRecordedDifferences);
+        for (Entry entry : sortedRanges(tableName)) {
+            result.merge(entry.result.toResult(tableName, maxRecordedDifferences));
+        }
+        return result;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        channel.close();
+    }
+
+    private synchronized void append(Entry entry) throws IOException {
+        byte[] line = (MAPPER.writeValueAsString(entry) + "\n").getBytes(StandardCharsets.UTF_8);
+        ByteBuffer buffer = ByteBuffer.wrap(line);
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        channel.force(false);
+        apply(entry);
+    }
+
+    private void apply(Entry entry) {
+        String table = entry.table.toLowerCase();
+        switch (entry.type) {
+            case Entry.TABLE:
+                completedTables.put(table, entry);
+                break;
+            case Entry.RESET:
+                completedTables.remove(table);
+                completedRanges.remove(table);
+                break;
+            default:
+                List<Entry> ranges = completedRanges.computeIfAbsent(table, t -> new ArrayList<>());
+                ranges.removeIf(existing -> compareLower(existing.lowerKey(), entry.lowerKey()) == 0);
+                ranges.add(entry);
+                break;
+        }
+    }
+
+    private List<Entry> sortedRanges(String tableName) {
+        List<Entry> ranges = new ArrayList<>(completedRanges.getOrDefault(tableName.toLowerCase(),
+            Collections.emptyList()));
+        ranges.sort((left, right) -> compareLower(left.lowerKey(), right.lowerKey()));
+        return ranges;
+    }
+
+    private static boolean sameRange(KeyRange left, KeyRange right) {
+        return compareLower(left.getLowerExclusive(), right.getLowerExclusive()) == 0
+            && compareUpper(left.getUpperInclusive(), right.getUpperInclusive(), true) == 0;
+    }
+
+    /**
+     * Compares two lower bounds; null is the open end below every key.
+     */
+    private static int compareLower(Object[] left, Object[] right) {
+        if (left == null || right == null) {
+            return left == null ? (right == null ? 0 : -1) : 1;
+        }
+        return KeyComparator.INSTANCE.compare(left, right);
+    }
+
+    /**
+     * Compares an upper bound with another bound, where null is the open end above every key.
+     * A null {@code other} is read as an upper bound if {@code otherIsUpper}, otherwise as a lower bound.
+     */
+    private static int compareUpper(Object[] upper, Object[] other, boolean otherIsUpper) {
+        if (upper == null) {
+            return other == null && otherIsUpper ? 0 : 1;
+        }
+        if (other == null) {
+            return otherIsUpper ? -1 : 1;
+        }
+        return KeyComparator.INSTANCE.compare(upper, other);
+    }
+
+    /**
+     * One line of the journal.
+     */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public static final class Entry {
+        static final String TABLE = "TABLE";
+        static final String RANGE = "RANGE";
+        static final String RESET = "RESET";
+
+        private final String type;
+        private final String table;
+        private final List<StoredValue> lower;
+        private final List<StoredValue> upper;
+        private final PartialResult result;
+
+        @JsonCreator
+        public Entry(@JsonProperty("type") String type,
+                     @JsonProperty("table") String table,
+                     @JsonProperty("lower") List<StoredValue> lower,
+                     @JsonProperty("upper") List<StoredValue> upper,
+                     @JsonProperty("result") PartialResult result) {
+            this.type = type;
+            this.table = table;
+            this.lower = lower;
+            this.upper = upper;
+            this.result = result;
+        }
+
+        public String getType() { return type; }
+        public String getTable() { return table; }
+        public List<StoredValue> getLower() { return lower; }
+        public List<StoredValue> getUpper() { return upper; }
+        public PartialResult getResult() { return result; }
+
+        Object[] lowerKey() {
+            return StoredValue.toObjects(lower);
+        }
+
+        Object[] upperKey() {
+            return StoredValue.toObjects(upper);
+        }
+    }
+
+    /**
+     * Counts and sample differences of a table or key range.
+     */
+    public static final class PartialResult {
+        private final long sourceRows;
+        private final long targetRows;
+        private final long missingInTarget;
+        private final long extraInTarget;
+        private final long changedRows;
+        private final List<StoredDifference> differences;
+
+        @JsonCreator
+        public PartialResult(@JsonProperty("sourceRows") long sourceRows,
+                             @JsonProperty("targetRows") long targetRows,
+                             @JsonProperty("missingInTarget") long missingInTarget,
+                             @JsonProperty("extraInTarget") long extraInTarget,
+                             @JsonProperty("changedRows") long changedRows,
+                             @JsonProperty("differences") List<StoredDifference> differences) {
+            this.sourceRows = sourceRows;
+            this.targetRows = targetRows;
+            this.missingInTarget = missingInTarget;
+            this.extraInTarget = extraInTarget;
+            this.changedRows = changedRows;
+            this.differences = differences != null ? differences : Collections.emptyList();
+        }
+
+        static PartialResult of(RowDiffResult result) {
+            List<StoredDifference> differences = new ArrayList<>();
+            for (RowDifference difference : result.getSampleDifferences()) {
+                differences.add(StoredDifference.of(difference));
+            }
+            return new PartialResult(result.getSourceRows(), result.getTargetRows(), result.getMissingInTarget(),
+                result.getExtraInTarget(), result.getChangedRows(), differences);
+        }
+
+        RowDiffResult toResult(String tableName, int maxRecordedDifferences) {
+            List<RowDifference> samples = new ArrayList<>();
+            for (StoredDifference difference : differences) {
+                samples.add(difference.toDifference(tableName));
+            }
+            RowDiffResult result = new RowDiffResult(tableName, maxRecordedDifferences);
+            result.restore(sourceRows, targetRows, missingInTarget, extraInTarget, changedRows, samples);
+            return result;
+        }
+
+        public long getSourceRows() { return sourceRows; }
+        public long getTargetRows() { return targetRows; }
+        public long getMissingInTarget() { return missingInTarget; }
+        public long getExtraInTarget() { return extraInTarget; }
+        public long getChangedRows() { return changedRows; }
+        public List<StoredDifference> getDifferences() { return differences; }
+    }
+
+    /**
+     * A sample {@link RowDifference} with typed values.
+     */
+    public static final class StoredDifference {
+        private final RowDifference.Type type;
+        private final List<String> keyColumns;
+        private final List<StoredValue> key;
+        private final List<String> changedColumns;
+        private final List<StoredValue> sourceValues;
+        private final List<StoredValue> targetValues;
+
+        @JsonCreator
+        public StoredDifference(@JsonProperty("type") RowDifference.Type type,
+                                @JsonProperty("keyColumns") List<String> keyColumns,
+                                @JsonProperty("key") List<StoredValue> key,
+                                @JsonProperty("changedColumns") List<String> changedColumns,
+                                @JsonProperty("sourceValues") List<StoredValue> sourceValues,
+                                @JsonProperty("targetValues") List<StoredValue> targetValues) {
+            this.type = type;
+            this.keyColumns = keyColumns;
+            this.key = key;
+            this.changedColumns = changedColumns;
+            this.sourceValues = sourceValues;
+            this.targetValues = targetValues;
+        }
+
+        static StoredDifference of(RowDifference difference) {
+            return new StoredDifference(difference.getType(), difference.getKeyColumns(),
+                StoredValue.ofAll(difference.getKey()), difference.getChangedColumns(),
+                StoredValue.ofAll(difference.getChangedSourceValues().toArray()),
+                StoredValue.ofAll(difference.getChangedTargetValues().toArray()));
+        }
+
+        RowDifference toDifference(String tableName) {
+            return new RowDifference(tableName, type, keyColumns, StoredValue.toObjects(key), changedColumns,
+                toList(sourceValues), toList(targetValues));
+        }
+
+        private static List<Object> toList(List<StoredValue> values) {
+            Object[] objects = StoredValue.toObjects(values);
+            return objects != null ? new ArrayList<>(Arrays.asList(objects)) : null;
+        }
+
+        public RowDifference.Type getType() { return type; }
+        public List<String> getKeyColumns() { return keyColumns; }
+        public List<StoredValue> getKey() { return key; }
+        public List<String> getChangedColumns() { return changedColumns; }
+        public List<StoredValue> getSourceValues() { return sourceValues; }
+        public List<StoredValue> getTargetValues() { return targetValues; }
+    }
+}
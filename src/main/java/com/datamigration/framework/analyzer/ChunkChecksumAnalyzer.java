@@ -0,0 +1,320 @@
+package com.datamigration.framework.analyzer;
+
+import com.datamigration.framework.config.ConfigurationManager;
+import com.datamigration.framework.connector.ChunkChecksum;
+import com.datamigration.framework.connector.ColumnType;
+import com.datamigration.framework.connector.DatabaseConnector;
+import com.datamigration.framework.connector.Deadline;
+import com.datamigration.framework.connector.DeadlineExceededException;
+import com.datamigration.framework.connector.KeyRange;
+import com.datamigration.framework.connector.KeysetCursor;
+import com.datamigration.framework.connector.dialect.HashColumn;
+import com.datamigration.framework.connector.dialect.SqlDialect;
+import com.datamigration.framework.reporting.ComparisonReportGenerator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Merkle-style table comparison that pushes hashing down to the databases.
+ * Each side hashes a key range in SQL and returns a single checksum row. Ranges whose
+ * checksums differ are split into {@code chunkFanout} sub-ranges and compared again, until
+ * they hold at most {@code leafChunkRows} rows; only those leaf ranges are streamed and
+ * merge-joined row by row. Network transfer is therefore proportional to the number of
+ * differences rather than the table size.
+ *
+ * <p>Values are hashed over a text rendering chosen per column from the types on both sides
+ * (see {@link HashColumn}), such as ISO 8601 timestamps and {@code 1}/{@code 0} for booleans.
+ * A checksum mismatch that is caused only by the two databases rendering equal values
+ * differently still costs speed, not correctness: the affected leaf ranges are resolved by the
+ * row-level merge-join.</p>
+ *
+ * <p>If either database cannot hash rows in SQL (SQL Server before 2019), or a column pair has no
+ * common rendering (such as floating-point columns), the whole table is merge-joined row by row.
+ * Like {@link RowDiffAnalyzer}, a table whose keys one database sorts differently from the
+ * merge-join is diffed with {@link HashPartitionDiff} instead once a leaf range detects it.</p>
+ *
+ * <p>With a job id (see {@link #setJobId}), every matching chunk and every leaf range diffed row by
+ * row is checkpointed in the job's {@link CheckpointJournal}. A rerun with the same job id skips the
+ * ranges already completed and assembles the table result from the journal.</p>
+ */
+public class ChunkChecksumAnalyzer extends ComparisonAnalyzer {
+    private static final Logger logger = LoggerFactory.getLogger(ChunkChecksumAnalyzer.class);
+
+    private final List<String> tablesToCompare;
+    private final RowMergeDiff.RowDiffListener listener;
+    private final int pageSize;
+    private final int maxReportedDifferences;
+    private final int chunkFanout;
+    private final long leafChunkRows;
+    private final long checkpointIntervalNanos;
+    private final Path spillDir;
+    private final long spillMemoryBudget;
+
+    public ChunkChecksumAnalyzer(ConfigurationManager config, List<String> tablesToCompare) {
+        this(config, tablesToCompare, null);
+    }
+
+    /**
+     * @param config Configuration manager
+     * @param tablesToCompare Tables to compare; each must have a primary key on the source
+     * @param listener Optional listener receiving every row difference found in leaf ranges
+     */
+    public ChunkChecksumAnalyzer(ConfigurationManager config, List<String> tablesToCompare,
+                                 RowMergeDiff.RowDiffListener listener) {
+        super(config);
+        ConfigurationManager.ComparisonConfig comparisonConfig = config.getComparisonConfig();
+        this.tablesToCompare = tablesToCompare;
+        this.listener = listener;
+        this.pageSize = comparisonConfig.getPageSize();
+        this.maxReportedDifferences = comparisonConfig.getMaxReportedDifferences();
+        this.chunkFanout = Math.max(2, comparisonConfig.getChunkFanout());
+        this.leafChunkRows = Math.max(1, comparisonConfig.getLeafChunkRows());
+        this.checkpointIntervalNanos = TimeUnit.SECONDS.toNanos(comparisonConfig.getCheckpointInterval());
+        this.spillDir = Paths.get(comparisonConfig.getSpillDir());
+        this.spillMemoryBudget = comparisonConfig.getSpillMemoryBudget() * 1024L * 1024L;
+    }
+
+    @Override
+    public List<ComparisonReportGenerator.ComparisonResult> compare() throws Exception {
+        List<ComparisonReportGenerator.ComparisonResult> results = new ArrayList<>();
+
+        for (String tableName : tablesToCompare) {
+            RowDiffResult result = compareTable(tableName);
+            results.add(result);
+            logger.info("Chunk checksum comparison {}", result);
+        }
+
+        reportGenerator.generateComparisonReport(
+            sourceConnector.getDatabaseName(),
+            targetConnector.getDatabaseName(),
+            results,
+            "chunk_checksum_report.html"
+        );
+
+        return results;
+    }
+
+    @Override
+    public boolean supportsCheckpoints() {
+        return true;
+    }
+
+    /**
+     * Compares a single table.
+     */
+    public RowDiffResult compareTable(String tableName) {
+        RowDiffResult result = new RowDiffResult(tableName, maxReportedDifferences);
+        Deadline deadline = startTableDeadline("table " + tableName);
+        try (Deadline.Scope ignored = deadline.bind()) {
+            CheckpointJournal journal = getJournal();
+            if (journal != null) {
+                RowDiffResult completed = journal.getCompletedTable(tableName, maxReportedDifferences);
+                if (completed != null) {
+                    logger.info("Table {} was completed by an earlier run of job {}", tableName, journal.getJobId());
+                    return completed;
+                }
+            }
+            ColumnMapping mapping = ColumnMapping.resolve(sourceConnector, targetConnector, tableName);
+            try {
+                compareChunks(mapping, result, journal);
+                if (journal != null) {
+                    result.merge(journal.assembleTable(tableName, maxReportedDifferences));
+                }
+            } catch (KeyOrderException e) {
+                logger.warn("Table {} cannot be merge-joined, diffing by hash partitions: {}", tableName,
+                    e.getMessage());
+                if (journal != null) {
+                    journal.resetTable(tableName);
+                }
+                result = new RowDiffResult(tableName, maxReportedDifferences);
+                new HashPartitionDiff(sourceConnector, targetConnector, mapping, comparatorFor(mapping), listener,
+                    spillDir, spillMemoryBudget).diff(result);
+            }
+            if (journal != null) {
+                journal.recordTable(tableName, result);
+            }
+        } catch (Exception e) {
+            if (DeadlineExceededException.isCause(e, deadline)) {
+                logger.warn("Chunk checksum comparison of table {} timed out: {}", tableName, e.getMessage());
+                result.setTimedOut(e.getMessage());
+            } else {
+                logger.error("Chunk checksum comparison of table {} failed: {}", tableName, e.getMessage());
+                result.setError(e.getMessage());
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Compares the chunk checksums of a table, or diffs all its rows if they cannot be hashed alike.
+     *
+     * @throws KeyOrderException If a diffed range is not in the same key order on both databases
+     */
+    private void compareChunks(ColumnMapping mapping, RowDiffResult result, CheckpointJournal journal)
+            throws SQLException, IOException {
+        String tableName = mapping.getTableName();
+        TableComparison comparison = new TableComparison(mapping, result, journal);
+        if (!supportsRowHash(sourceConnector) || !supportsRowHash(targetConnector)) {
+            logger.info("Table {}: row hashing is not supported by {} / {}, diffing all rows", tableName,
+                sourceConnector.getDialect().getName(), targetConnector.getDialect().getName());
+            comparison.diffRows(KeyRange.ALL);
+        } else if (!comparison.unhashableColumns.isEmpty()) {
+            logger.info("Table {}: columns {} cannot be hashed alike on both databases, diffing all rows",
+                tableName, comparison.unhashableColumns);
+            comparison.diffRows(KeyRange.ALL);
+        } else {
+            comparison.compareRange(KeyRange.ALL);
+            logger.info("Table {}: {} chunks checksummed, {} leaf ranges diffed row by row",
+                tableName, comparison.chunksCompared, comparison.leafRangesDiffed);
+        }
+    }
+
+    private static boolean supportsRowHash(DatabaseConnector connector) throws SQLException {
+        return connector.supports(SqlDialect.Capability.ROW_HASH);
+    }
+
+    /**
+     * State of the recursive comparison of one table.
+     */
+    private class TableComparison {
+        private final ColumnMapping mapping;
+        private final RowDiffResult result;
+        private final CheckpointJournal journal;
+        private final List<String> sourceColumns;
+        private final List<HashColumn> sourceHashColumns = new ArrayList<>();
+        private final List<HashColumn> targetHashColumns = new ArrayList<>();
+        private final List<String> unhashableColumns = new ArrayList<>();
+        private final ValueComparator comparator;
+        private long chunksCompared;
+        private long leafRangesDiffed;
+
+        /**
+         * @param journal Optional journal; completed ranges are then recorded there instead of in {@code result}
+         */
+        TableComparison(ColumnMapping mapping, RowDiffResult result, CheckpointJournal journal) {
+            this.mapping = mapping;
+            this.result = result;
+            this.journal = journal;
+            this.sourceColumns = mapping.getSourceColumns();
+            this.comparator = comparatorFor(mapping);
+            resolveHashColumns();
+        }
+
+        /**
+         * Chooses the hash rendering of each column pair, collecting the pairs without one.
+         * Without known types, columns are hashed over each database's own text rendering.
+         */
+        private void resolveHashColumns() {
+            if (!mapping.hasColumnTypes()) {
+                for (String column : sourceColumns) {
+                    sourceHashColumns.add(HashColumn.text(column));
+                }
+                for (String column : mapping.getTargetColumns()) {
+                    targetHashColumns.add(HashColumn.text(column));
+                }
+                return;
+            }
+            List<ColumnType> sourceTypes = mapping.getSourceColumnTypes();
+            List<ColumnType> targetTypes = mapping.getTargetColumnTypes();
+            for (int i = 0; i < sourceTypes.size(); i++) {
+                ColumnType sourceType = sourceTypes.get(i);
+                ColumnType targetType = targetTypes.get(i);
+                HashColumn source = HashColumn.forPair(sourceType, targetType);
+                if (source == null) {
+                    unhashableColumns.add(sourceType.getName() + " (" + sourceType.getTypeName() + " / "
+                        + targetType.getTypeName() + ")");
+                    continue;
+                }
+                sourceHashColumns.add(source);
+                targetHashColumns.add(HashColumn.forPair(targetType, sourceType));
+            }
+        }
+
+        void compareRange(KeyRange range) throws SQLException, IOException {
+            String tableName = mapping.getTableName();
+            if (journal != null && !journal.isUntouched(tableName, range)) {
+                for (KeyRange remaining : journal.remainingRanges(tableName, range)) {
+                    compareRange(remaining);
+                }
+                return;
+            }
+            ChunkChecksum source = sourceConnector.computeChunkChecksum(
+                tableName, mapping.getSourceKeyColumns(), sourceHashColumns, range);
+            ChunkChecksum target = targetConnector.computeChunkChecksum(
+                tableName, mapping.getTargetKeyColumns(), targetHashColumns, range);
+            chunksCompared++;
+
+            if (source.matches(target)) {
+                if (journal != null) {
+                    RowDiffResult partial = new RowDiffResult(tableName, maxReportedDifferences);
+                    partial.addRowCounts(source.getRowCount(), target.getRowCount());
+                    journal.recordRange(tableName, range, partial);
+                } else {
+                    result.addRowCounts(source.getRowCount(), target.getRowCount());
+                }
+                return;
+            }
+            logger.debug("Range {} of {} differs: source {} / target {}", range, tableName, source, target);
+
+            long rows = Math.max(source.getRowCount(), target.getRowCount());
+            if (rows <= leafChunkRows) {
+                diffRows(range);
+                return;
+            }
+
+            long rowsPerChunk = Math.max(leafChunkRows, (rows + chunkFanout - 1) / chunkFanout);
+            boolean splitOnSource = source.getRowCount() >= target.getRowCount();
+            DatabaseConnector splitter = splitOnSource ? sourceConnector : targetConnector;
+            List<String> splitKeys = splitOnSource ? mapping.getSourceKeyColumns() : mapping.getTargetKeyColumns();
+            List<Object[]> boundaries = splitter.getKeyBoundaries(tableName, splitKeys, range, rowsPerChunk);
+            if (boundaries.isEmpty()) {
+                diffRows(range);
+                return;
+            }
+
+            Object[] lower = range.getLowerExclusive();
+            for (Object[] boundary : boundaries) {
+                compareRange(new KeyRange(lower, boundary));
+                lower = boundary;
+            }
+            compareRange(new KeyRange(lower, range.getUpperInclusive()));
+        }
+
+        private void diffRows(KeyRange range) throws SQLException {
+            String tableName = mapping.getTableName();
+            if (journal == null) {
+                diffRows(range, result, null);
+                return;
+            }
+            for (KeyRange remaining : journal.remainingRanges(tableName, range)) {
+                RowDiffResult partial = new RowDiffResult(tableName, maxReportedDifferences);
+                RangeCheckpointer checkpointer = new RangeCheckpointer(journal, tableName, remaining, partial,
+                    checkpointIntervalNanos);
+                diffRows(remaining, partial, checkpointer);
+                checkpointer.complete();
+            }
+        }
+
+        private void diffRows(KeyRange range, RowDiffResult into, RowMergeDiff.ProgressListener progress)
+                throws SQLException {
+            leafRangesDiffed++;
+            String tableName = mapping.getTableName();
+            RowMergeDiff mergeDiff = new RowMergeDiff(tableName, sourceColumns,
+                mapping.getSourceKeyColumns().size(), listener, comparator);
+            try (KeysetCursor source = new KeysetCursor(sourceConnector, tableName,
+                     mapping.getSourceKeyColumns(), mapping.getSourceValueColumns(), range, pageSize);
+                 KeysetCursor target = new KeysetCursor(targetConnector, tableName,
+                     mapping.getTargetKeyColumns(), mapping.getTargetValueColumns(), range, pageSize)) {
+                mergeDiff.diff(source, target, into, progress);
+            }
+        }
+    }
+}
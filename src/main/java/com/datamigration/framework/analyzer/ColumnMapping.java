@@ -0,0 +1,269 @@
+package com.datamigration.framework.analyzer;
+
+import com.datamigration.framework.connector.ColumnType;
+import com.datamigration.framework.connector.DatabaseConnector;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Pairs up the columns of a table on the source and target databases.
+ * Names are matched case-insensitively because migrations often change identifier case;
+ * columns present on only one side are left out of the comparison. Mappings resolved from the
+ * database also carry the column types, from which {@link ValueComparator} derives its comparison
+ * rules and chunk checksums their hash renderings.
+ */
+public class ColumnMapping {
+    private static final Logger logger = LoggerFactory.getLogger(ColumnMapping.class);
+
+    private final String tableName;
+    private final List<String> sourceKeyColumns;
+    private final List<String> targetKeyColumns;
+    private final List<String> sourceValueColumns;
+    private final List<String> targetValueColumns;
+    private final List<ColumnType> sourceKeyTypes;
+    private final List<ColumnType> targetKeyTypes;
+    private final List<ColumnType> sourceValueTypes;
+    private final List<ColumnType> targetValueTypes;
+
+    public ColumnMapping(String tableName, List<String> sourceKeyColumns, List<String> targetKeyColumns,
+                         List<String> sourceValueColumns, List<String> targetValueColumns) {
+        this(tableName, sourceKeyColumns, targetKeyColumns, sourceValueColumns, targetValueColumns,
+            new ArrayList<>(), new ArrayList<>());
+    }
+
+    /**
+     * @param sourceValueTypes Types of the source value columns in the same order, or empty if unknown
+     * @param targetValueTypes Types of the target value columns in the same order, or empty if unknown
+     */
+    public ColumnMapping(String tableName, List<String> sourceKeyColumns, List<String> targetKeyColumns,
+                         List<String> sourceValueColumns, List<String> targetValueColumns,
+                         List<ColumnType> sourceValueTypes, List<ColumnType> targetValueTypes) {
+        this(tableName, sourceKeyColumns, targetKeyColumns, sourceValueColumns, targetValueColumns,
+            new ArrayList<>(), new ArrayList<>(), sourceValueTypes, targetValueTypes);
+    }
+
+    /**
+     * @param sourceKeyTypes Types of the source key columns in the same order, or empty if unknown
+     * @param targetKeyTypes Types of the target key columns in the same order, or empty if unknown
+     * @param sourceValueTypes Types of the source value columns in the same order, or empty if unknown
+     * @param targetValueTypes Types of the target value columns in the same order, or empty if unknown
+     */
+    public ColumnMapping(String tableName, List<String> sourceKeyColumns, List<String> targetKeyColumns,
+                         List<String> sourceValueColumns, List<String> targetValueColumns,
+                         List<ColumnType> sourceKeyTypes, List<ColumnType> targetKeyTypes,
+                         List<ColumnType> sourceValueTypes, List<ColumnType> targetValueTypes) {
+        this.tableName = tableName;
+        this.sourceKeyColumns = Collections.unmodifiableList(sourceKeyColumns);
+        this.targetKeyColumns = Collections.unmodifiableList(targetKeyColumns);
+        this.sourceValueColumns = Collections.unmodifiableList(sourceValueColumns);
+        this.targetValueColumns = Collections.unmodifiableList(targetValueColumns);
+        this.sourceKeyTypes = Collections.unmodifiableList(sourceKeyTypes);
+        this.targetKeyTypes = Collections.unmodifiableList(targetKeyTypes);
+        this.sourceValueTypes = Collections.unmodifiableList(sourceValueTypes);
+        this.targetValueTypes = Collections.unmodifiableList(targetValueTypes);
+    }
+
+    /**
+     * Resolves the mapping from the source primary key and the columns both sides have in common.
+     *
+     * @throws IllegalStateException If the source table has no primary key or the target lacks a key column
+     */
+    public static ColumnMapping resolve(DatabaseConnector source, DatabaseConnector target, String tableName)
+            throws SQLException {
+        List<String> sourceKeys = source.getPrimaryKeyColumns(tableName);
+        if (sourceKeys.isEmpty()) {
+            throw new IllegalStateException("Table " + tableName + " has no primary key on the source database");
+        }
+        return resolve(source, target, tableName, sourceKeys);
+    }
+
+    /**
+     * Resolves a mapping without key columns, in which every common column is a value column.
+     * Used for tables without a primary key, whose rows are compared as a whole.
+     */
+    public static ColumnMapping resolveWithoutKey(DatabaseConnector source, DatabaseConnector target,
+                                                  String tableName) throws SQLException {
+        return resolve(source, target, tableName, new ArrayList<>());
+    }
+
+    private static ColumnMapping resolve(DatabaseConnector source, DatabaseConnector target, String tableName,
+                                         List<String> sourceKeys) throws SQLException {
+        List<ColumnType> sourceTypes = source.getColumnTypes(tableName);
+        List<ColumnType> targetTypes = target.getColumnTypes(tableName);
+        List<String> sourceColumns = namesOf(sourceTypes);
+        List<String> targetColumns = namesOf(targetTypes);
+
+        List<String> targetKeys = new ArrayList<>();
+        List<ColumnType> sourceKeyTypes = new ArrayList<>();
+        List<ColumnType> targetKeyTypes = new ArrayList<>();
+        for (String key : sourceKeys) {
+            String match = findIgnoreCase(targetColumns, key);
+            if (match == null) {
+                throw new IllegalStateException("Key column " + key + " of " + tableName + " is missing on the target");
+            }
+            targetKeys.add(match);
+            sourceKeyTypes.add(sourceTypes.get(sourceColumns.indexOf(findIgnoreCase(sourceColumns, key))));
+            targetKeyTypes.add(targetTypes.get(targetColumns.indexOf(match)));
+        }
+
+        List<String> sourceValues = new ArrayList<>();
+        List<String> targetValues = new ArrayList<>();
+        List<ColumnType> sourceValueTypes = new ArrayList<>();
+        List<ColumnType> targetValueTypes = new ArrayList<>();
+        for (ColumnType sourceType : sourceTypes) {
+            String column = sourceType.getName();
+            if (findIgnoreCase(sourceKeys, column) != null) {
+                continue;
+            }
+            String match = findIgnoreCase(targetColumns, column);
+            if (match == null) {
+                logger.warn("Column {}.{} is missing on the target and will not be compared", tableName, column);
+                continue;
+            }
+            sourceValues.add(column);
+            targetValues.add(match);
+            sourceValueTypes.add(sourceType);
+            targetValueTypes.add(targetTypes.get(targetColumns.indexOf(match)));
+        }
+        for (String column : targetColumns) {
+            if (findIgnoreCase(sourceColumns, column) == null) {
+                logger.warn("Column {}.{} exists only on the target and will not be compared", tableName, column);
+            }
+        }
+        return new ColumnMapping(tableName, sourceKeys, targetKeys, sourceValues, targetValues,
+            sourceKeyTypes, targetKeyTypes, sourceValueTypes, targetValueTypes);
+    }
+
+    private static List<String> namesOf(List<ColumnType> columns) {
+        List<String> names = new ArrayList<>();
+        for (ColumnType column : columns) {
+            names.add(column.getName());
+        }
+        return names;
+    }
+
+    /**
+     * Checks whether the mapping has key columns; see {@link #resolveWithoutKey}.
+     */
+    public boolean hasKey() {
+        return !sourceKeyColumns.isEmpty();
+    }
+
+    /**
+     * Returns a copy of this mapping that does not compare the given value column, matched ignoring case.
+     * Used for bookkeeping columns such as row versions, whose values differ between databases.
+     */
+    public ColumnMapping withoutValueColumn(String column) {
+        List<String> sourceValues = new ArrayList<>();
+        List<String> targetValues = new ArrayList<>();
+        List<ColumnType> sourceTypes = new ArrayList<>();
+        List<ColumnType> targetTypes = new ArrayList<>();
+        boolean typed = hasValueTypes();
+        for (int i = 0; i < sourceValueColumns.size(); i++) {
+            if (!sourceValueColumns.get(i).equalsIgnoreCase(column)) {
+                sourceValues.add(sourceValueColumns.get(i));
+                targetValues.add(targetValueColumns.get(i));
+                if (typed) {
+                    sourceTypes.add(sourceValueTypes.get(i));
+                    targetTypes.add(targetValueTypes.get(i));
+                }
+            }
+        }
+        return new ColumnMapping(tableName, sourceKeyColumns, targetKeyColumns, sourceValues, targetValues,
+            sourceKeyTypes, targetKeyTypes, sourceTypes, targetTypes);
+    }
+
+    private static String findIgnoreCase(List<String> names, String name) {
+        for (String candidate : names) {
+            if (candidate.equalsIgnoreCase(name)) {
+                return candidate;
+            }
+        }
+        return null;
+    }
+
+    public String getTableName() {
+        return tableName;
+    }
+
+    public List<String> getSourceKeyColumns() {
+        return sourceKeyColumns;
+    }
+
+    public List<String> getTargetKeyColumns() {
+        return targetKeyColumns;
+    }
+
+    public List<String> getSourceValueColumns() {
+        return sourceValueColumns;
+    }
+
+    public List<String> getTargetValueColumns() {
+        return targetValueColumns;
+    }
+
+    /**
+     * Checks whether the types of the value columns are known, as for mappings resolved from the database.
+     */
+    public boolean hasValueTypes() {
+        return sourceValueTypes.size() == sourceValueColumns.size() && !sourceValueTypes.isEmpty();
+    }
+
+    public List<ColumnType> getSourceValueTypes() {
+        return sourceValueTypes;
+    }
+
+    public List<ColumnType> getTargetValueTypes() {
+        return targetValueTypes;
+    }
+
+    /**
+     * Checks whether the types of all columns are known, as for mappings resolved from the database.
+     */
+    public boolean hasColumnTypes() {
+        return sourceKeyTypes.size() == sourceKeyColumns.size()
+            && sourceValueTypes.size() == sourceValueColumns.size()
+            && (!sourceKeyTypes.isEmpty() || !sourceValueTypes.isEmpty());
+    }
+
+    /**
+     * Gets the source column types in cursor order, if {@link #hasColumnTypes() known}.
+     */
+    public List<ColumnType> getSourceColumnTypes() {
+        List<ColumnType> types = new ArrayList<>(sourceKeyTypes);
+        types.addAll(sourceValueTypes);
+        return types;
+    }
+
+    /**
+     * Gets the target column types in the same order as {@link #getSourceColumnTypes()}.
+     */
+    public List<ColumnType> getTargetColumnTypes() {
+        List<ColumnType> types = new ArrayList<>(targetKeyTypes);
+        types.addAll(targetValueTypes);
+        return types;
+    }
+
+    /**
+     * Gets the source column names in cursor order: key columns followed by value columns.
+     */
+    public List<String> getSourceColumns() {
+        List<String> columns = new ArrayList<>(sourceKeyColumns);
+        columns.addAll(sourceValueColumns);
+        return columns;
+    }
+
+    /**
+     * Gets the target column names in the same order as {@link #getSourceColumns()}.
+     */
+    public List<String> getTargetColumns() {
+        List<String> columns = new ArrayList<>(targetKeyColumns);
+        columns.addAll(targetValueColumns);
+        return columns;
+    }
+}
@@ -0,0 +1,144 @@
+package com.datamigration.framework.analyzer;
+
+import com.datamigration.framework.connector.ColumnType;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.sql.Types;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Aggregate statistics of one column, as computed by a {@link TableProfile} query.
+ * Which metrics are present depends on the column's {@link Kind}.
+ */
+public class ColumnProfile {
+
+    /**
+     * Column categories, derived from the JDBC type, that decide which metrics are computed.
+     */
+    public enum Kind {
+        INTEGER(Metric.MIN, Metric.MAX, Metric.SUM, Metric.DISTINCT_COUNT),
+        DECIMAL(Metric.MIN, Metric.MAX, Metric.SUM, Metric.DISTINCT_COUNT),
+        FLOATING(Metric.MIN, Metric.MAX, Metric.SUM, Metric.DISTINCT_COUNT),
+        STRING(Metric.MIN_LENGTH, Metric.MAX_LENGTH, Metric.DISTINCT_COUNT),
+        TEMPORAL(Metric.MIN, Metric.MAX, Metric.DISTINCT_COUNT),
+        BOOLEAN(Metric.DISTINCT_COUNT),
+        /** Large objects and types that cannot be aggregated; only nulls are counted. */
+        OTHER();
+
+        private final Set<Metric> metrics;
+
+        Kind(Metric... metrics) {
+            this.metrics = Collections.unmodifiableSet(EnumSet.of(Metric.NULL_COUNT, metrics));
+        }
+
+        public Set<Metric> getMetrics() {
+            return metrics;
+        }
+
+        public boolean isNumeric() {
+            return this == INTEGER || this == DECIMAL || this == FLOATING;
+        }
+
+        /**
+         * Maps a {@link java.sql.Types} code to a kind.
+         */
+        public static Kind of(int sqlType) {
+            switch (sqlType) {
+                case Types.TINYINT:
+                case Types.SMALLINT:
+                case Types.INTEGER:
+                case Types.BIGINT:
+                    return INTEGER;
+                case Types.DECIMAL:
+                case Types.NUMERIC:
+                    return DECIMAL;
+                case Types.REAL:
+                case Types.FLOAT:
+                case Types.DOUBLE:
+                    return FLOATING;
+                case Types.CHAR:
+                case Types.VARCHAR:
+                case Types.NCHAR:
+                case Types.NVARCHAR:
+                    return STRING;
+                case Types.DATE:
+                case Types.TIME:
+                case Types.TIMESTAMP:
+                case Types.TIME_WITH_TIMEZONE:
+                case Types.TIMESTAMP_WITH_TIMEZONE:
+                    return TEMPORAL;
+                case Types.BIT:
+                case Types.BOOLEAN:
+                    return BOOLEAN;
+                default:
+                    return OTHER;
+            }
+        }
+    }
+
+    /**
+     * Statistics computed per column.
+     */
+    public enum Metric {
+        NULL_COUNT, DISTINCT_COUNT, MIN, MAX, SUM, MIN_LENGTH, MAX_LENGTH
+    }
+
+    private final ColumnType column;
+    private final Kind kind;
+    private final long rowCount;
+    private final boolean approximateDistinct;
+    private final Map<Metric, Object> values;
+
+    public ColumnProfile(ColumnType column, Kind kind, long rowCount, boolean approximateDistinct,
+                         Map<Metric, Object> values) {
+        this.column = column;
+        this.kind = kind;
+        this.rowCount = rowCount;
+        this.approximateDistinct = approximateDistinct;
+        Map<Metric, Object> copy = new EnumMap<>(Metric.class);
+        copy.putAll(values);
+        this.values = Collections.unmodifiableMap(copy);
+    }
+
+    public String getName() { return column.getName(); }
+    public String getTypeName() { return column.getTypeName(); }
+    public ColumnType getColumnType() { return column; }
+    public Kind getKind() { return kind; }
+    public boolean isApproximateDistinct() { return approximateDistinct; }
+    public Map<Metric, Object> getValues() { return values; }
+
+    /**
+     * Gets a metric value; {@code null} if the metric was not computed or all values are null.
+     */
+    public Object get(Metric metric) {
+        return values.get(metric);
+    }
+
+    public long getNullCount() {
+        Object nulls = values.get(Metric.NULL_COUNT);
+        return nulls != null ? ((Number) nulls).longValue() : 0;
+    }
+
+    /**
+     * Gets the mean of the non-null values of a numeric column, derived from the sum so that
+     * engines that average integers with integer division do not skew it.
+     */
+    public BigDecimal getAverage() {
+        Object sum = values.get(Metric.SUM);
+        long nonNull = rowCount - getNullCount();
+        if (sum == null || nonNull <= 0) {
+            return null;
+        }
+        return KeyComparator.toBigDecimal((Number) sum).divide(BigDecimal.valueOf(nonNull), MathContext.DECIMAL64);
+    }
+
+    @Override
+    public String toString() {
+        return getName() + " " + getTypeName() + " " + values + (kind.isNumeric() ? " avg=" + getAverage() : "");
+    }
+}
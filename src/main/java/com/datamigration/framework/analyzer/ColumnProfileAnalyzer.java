@@ -0,0 +1,207 @@
+package com.datamigration.framework.analyzer;
+
+import com.datamigration.framework.config.ConfigurationManager;
+import com.datamigration.framework.connector.ColumnType;
+import com.datamigration.framework.connector.DatabaseConnector;
+import com.datamigration.framework.connector.Deadline;
+import com.datamigration.framework.connector.DeadlineExceededException;
+import com.datamigration.framework.reporting.ComparisonReportGenerator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Compares tables by column profiles instead of rows. Each table is profiled on both
+ * databases with one aggregate query (see {@link TableProfile#load}), so a single scan per
+ * side checks null counts, value ranges, sums, string lengths and distinct counts of every
+ * column. Source and target profiles are computed concurrently.
+ *
+ * <p>Minimums and maximums are compared like row values (see {@link ValueComparator}), so
+ * {@code numericTolerance}, {@code temporalTolerance} and {@code columnTolerances} apply to them.
+ * String lengths leave out trailing spaces unless {@code ignoreTrailingSpaces} is off. Sums of
+ * floating-point columns are compared with a small relative tolerance because the engines add
+ * values in different orders. Approximate distinct counts are compared within
+ * {@code profileDistinctTolerance}.</p>
+ */
+public class ColumnProfileAnalyzer extends ComparisonAnalyzer {
+    private static final Logger logger = LoggerFactory.getLogger(ColumnProfileAnalyzer.class);
+
+    private static final BigDecimal FLOATING_SUM_TOLERANCE = new BigDecimal("1e-9");
+
+    private final List<String> tablesToCompare;
+    private final double distinctTolerance;
+    private final boolean ignoreTrailingSpaces;
+
+    public ColumnProfileAnalyzer(ConfigurationManager config, List<String> tablesToCompare) {
+        super(config);
+        this.tablesToCompare = tablesToCompare;
+        this.distinctTolerance = config.getComparisonConfig().getProfileDistinctTolerance();
+        this.ignoreTrailingSpaces = config.getComparisonConfig().isIgnoreTrailingSpaces();
+    }
+
+    @Override
+    public List<ComparisonReportGenerator.ComparisonResult> compare() throws Exception {
+        List<ComparisonReportGenerator.ComparisonResult> results = new ArrayList<>(profileTables());
+
+        reportGenerator.generateComparisonReport(
+            sourceConnector.getDatabaseName(),
+            targetConnector.getDatabaseName(),
+            results,
+            "column_profile_report.html"
+        );
+
+        return results;
+    }
+
+    /**
+     * Profiles all tables on both databases and compares the profiles, in the order the tables were given.
+     */
+    public List<ColumnProfileResult> profileTables() {
+        ExecutorService sourcePool = newWorkerPool("source-profile", sourceConnector.getMaxPoolSize());
+        ExecutorService targetPool = newWorkerPool("target-profile", targetConnector.getMaxPoolSize());
+        try {
+            Map<String, CompletableFuture<TableProfile>> sourceProfiles = new LinkedHashMap<>();
+            Map<String, CompletableFuture<TableProfile>> targetProfiles = new LinkedHashMap<>();
+            for (String tableName : tablesToCompare) {
+                sourceProfiles.put(tableName, CompletableFuture.supplyAsync(
+                    () -> loadProfile(sourceConnector, tableName), sourcePool));
+                targetProfiles.put(tableName, CompletableFuture.supplyAsync(
+                    () -> loadProfile(targetConnector, tableName), targetPool));
+            }
+
+            List<ColumnProfileResult> results = new ArrayList<>();
+            for (String tableName : tablesToCompare) {
+                ColumnProfileResult result;
+                try {
+                    result = compareProfiles(tableName, sourceProfiles.get(tableName).join(),
+                        targetProfiles.get(tableName).join());
+                } catch (CompletionException e) {
+                    Throwable cause = e.getCause() != null ? e.getCause() : e;
+                    if (cause instanceof DeadlineExceededException) {
+                        logger.warn("Profiling table {} timed out: {}", tableName, cause.getMessage());
+                        result = ColumnProfileResult.timedOut(tableName, cause.getMessage());
+                    } else {
+                        logger.error("Profiling table {} failed: {}", tableName, cause.getMessage());
+                        result = ColumnProfileResult.failed(tableName, cause.getMessage());
+                    }
+                }
+                logger.info("Profile comparison {}", result);
+                results.add(result);
+            }
+            return results;
+        } finally {
+            sourcePool.shutdownNow();
+            targetPool.shutdownNow();
+        }
+    }
+
+    /**
+     * Compares two profiles of the same table, pairing columns by name ignoring case.
+     */
+    ColumnProfileResult compareProfiles(String tableName, TableProfile source, TableProfile target) {
+        List<ColumnProfileResult.ProfileDifference> differences = new ArrayList<>();
+        if (source.getRowCount() != target.getRowCount()) {
+            differences.add(new ColumnProfileResult.ProfileDifference("*", "ROW_COUNT",
+                source.getRowCount(), target.getRowCount()));
+        }
+
+        List<ColumnProfile> sourceColumns = new ArrayList<>();
+        List<ColumnProfile> targetColumns = new ArrayList<>();
+        for (ColumnProfile sourceColumn : source.getColumns()) {
+            ColumnProfile targetColumn = target.getColumn(sourceColumn.getName());
+            if (targetColumn == null) {
+                differences.add(new ColumnProfileResult.ProfileDifference(sourceColumn.getName(), "COLUMN",
+                    sourceColumn.getTypeName(), null));
+            } else {
+                sourceColumns.add(sourceColumn);
+                targetColumns.add(targetColumn);
+            }
+        }
+        ValueComparator comparator = ValueComparator.forColumns(tableName, columnTypes(sourceColumns),
+            columnTypes(targetColumns), config.getComparisonConfig());
+
+        for (int i = 0; i < sourceColumns.size(); i++) {
+            ColumnProfile sourceColumn = sourceColumns.get(i);
+            ColumnProfile targetColumn = targetColumns.get(i);
+            for (ColumnProfile.Metric metric : sourceColumn.getKind().getMetrics()) {
+                if (!targetColumn.getKind().getMetrics().contains(metric)) {
+                    continue;
+                }
+                Object sourceValue = sourceColumn.get(metric);
+                Object targetValue = targetColumn.get(metric);
+                boolean equal = metric == ColumnProfile.Metric.MIN || metric == ColumnProfile.Metric.MAX
+                    ? comparator.equal(i, sourceValue, targetValue)
+                    : metricEqual(metric, sourceColumn, targetColumn, sourceValue, targetValue);
+                if (!equal) {
+                    differences.add(new ColumnProfileResult.ProfileDifference(sourceColumn.getName(),
+                        metric.name(), sourceValue, targetValue));
+                }
+            }
+        }
+        for (ColumnProfile targetColumn : target.getColumns()) {
+            if (source.getColumn(targetColumn.getName()) == null) {
+                differences.add(new ColumnProfileResult.ProfileDifference(targetColumn.getName(), "COLUMN",
+                    null, targetColumn.getTypeName()));
+            }
+        }
+        return new ColumnProfileResult(tableName, source, target, differences);
+    }
+
+    private static List<ColumnType> columnTypes(List<ColumnProfile> columns) {
+        List<ColumnType> types = new ArrayList<>();
+        for (ColumnProfile column : columns) {
+            types.add(column.getColumnType());
+        }
+        return types;
+    }
+
+    private boolean metricEqual(ColumnProfile.Metric metric, ColumnProfile source, ColumnProfile target,
+                                Object sourceValue, Object targetValue) {
+        if (sourceValue instanceof Number && targetValue instanceof Number) {
+            BigDecimal left = KeyComparator.toBigDecimal((Number) sourceValue);
+            BigDecimal right = KeyComparator.toBigDecimal((Number) targetValue);
+            if (metric == ColumnProfile.Metric.DISTINCT_COUNT
+                    && (source.isApproximateDistinct() || target.isApproximateDistinct())) {
+                return withinTolerance(left, right, BigDecimal.valueOf(distinctTolerance));
+            }
+            if (metric == ColumnProfile.Metric.SUM && (source.getKind() == ColumnProfile.Kind.FLOATING
+                    || target.getKind() == ColumnProfile.Kind.FLOATING)) {
+                return withinTolerance(left, right, FLOATING_SUM_TOLERANCE);
+            }
+        }
+        return RowMergeDiff.valuesEqual(sourceValue, targetValue);
+    }
+
+    /**
+     * Checks whether two values differ by at most {@code tolerance} relative to the larger magnitude.
+     */
+    private static boolean withinTolerance(BigDecimal left, BigDecimal right, BigDecimal tolerance) {
+        BigDecimal larger = left.abs().max(right.abs());
+        return left.subtract(right).abs().compareTo(larger.multiply(tolerance)) <= 0;
+    }
+
+    /**
+     * Loads the profile of one side of a table within a table deadline started when the task runs.
+     */
+    private TableProfile loadProfile(DatabaseConnector connector, String tableName) {
+        Deadline deadline = startTableDeadline("table " + tableName);
+        try (Deadline.Scope ignored = deadline.bind()) {
+            return TableProfile.load(connector, tableName, ignoreTrailingSpaces);
+        } catch (Exception e) {
+            if (DeadlineExceededException.isCause(e, deadline)) {
+                throw new CompletionException(new DeadlineExceededException(deadline,
+                    connector.getDatabaseType() + " profile query"));
+            }
+            throw new CompletionException(new IllegalStateException(connector.getDatabaseType()
+                + " profile query failed: " + e.getMessage(), e));
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package com.datamigration.framework.analyzer;
+
+import com.datamigration.framework.reporting.ComparisonReportGenerator;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Outcome of comparing the column profiles of one table on the source and target databases.
+ */
+public class ColumnProfileResult implements ComparisonReportGenerator.ComparisonResult {
+    private static final int DETAILED_DIFFERENCES = 5;
+
+    private final String tableName;
+    private final TableProfile sourceProfile;
+    private final TableProfile targetProfile;
+    private final List<ProfileDifference> differences;
+    private final String error;
+    private final boolean timedOut;
+
+    public ColumnProfileResult(String tableName, TableProfile sourceProfile, TableProfile targetProfile,
+                               List<ProfileDifference> differences) {
+        this.tableName = tableName;
+        this.sourceProfile = sourceProfile;
+        this.targetProfile = targetProfile;
+        this.differences = Collections.unmodifiableList(new ArrayList<>(differences));
+        this.error = null;
+        this.timedOut = false;
+    }
+
+    private ColumnProfileResult(String tableName, String error, boolean timedOut) {
+        this.tableName = tableName;
+        this.sourceProfile = null;
+        this.targetProfile = null;
+        this.differences = Collections.emptyList();
+        this.error = error;
+        this.timedOut = timedOut;
+    }
+
+    /**
+     * Creates the result of a table whose profiling failed.
+     */
+    public static ColumnProfileResult failed(String tableName, String error) {
+        return new ColumnProfileResult(tableName, error, false);
+    }
+
+    /**
+     * Creates the result of a table whose profiling was stopped by its deadline.
+     */
+    public static ColumnProfileResult timedOut(String tableName, String error) {
+        return new ColumnProfileResult(tableName, error, true);
+    }
+
+    public String getTableName() { return tableName; }
+    public TableProfile getSourceProfile() { return sourceProfile; }
+    public TableProfile getTargetProfile() { return targetProfile; }
+    public List<ProfileDifference> getDifferences() { return differences; }
+    public String getError() { return error; }
+
+    @Override
+    public String getItemName() {
+        return tableName;
+    }
+
+    /**
+     * Gets the source row count.
+     */
+    @Override
+    public Object getSourceValue() {
+        return sourceProfile != null ? sourceProfile.getRowCount() : -1L;
+    }
+
+    /**
+     * Gets the target row count.
+     */
+    @Override
+    public Object getTargetValue() {
+        return targetProfile != null ? targetProfile.getRowCount() : -1L;
+    }
+
+    @Override
+    public boolean isMatch() {
+        return error == null && differences.isEmpty();
+    }
+
+    @Override
+    public boolean isTimedOut() {
+        return timedOut;
+    }
+
+    @Override
+    public String getDetails() {
+        if (error != null) {
+            return (timedOut ? "Timed out: " : "Error: ") + error;
+        }
+        if (differences.isEmpty()) {
+            return "All " + sourceProfile.getColumns().size() + " column profiles match";
+        }
+        StringBuilder details = new StringBuilder(differences.size() + " profile differences: ");
+        for (int i = 0; i < Math.min(DETAILED_DIFFERENCES, differences.size()); i++) {
+            details.append(i > 0 ? "; " : "").append(differences.get(i));
+        }
+        if (differences.size() > DETAILED_DIFFERENCES) {
+            details.append("; ...");
+        }
+        return details.toString();
+    }
+
+    @Override
+    public String toString() {
+        return tableName + ": " + getDetails();
+    }
+
+    /**
+     * A metric of one column whose source and target values differ.
+     */
+    public static class ProfileDifference {
+        private final String column;
+        private final String metric;
+        private final Object sourceValue;
+        private final Object targetValue;
+
+        public ProfileDifference(String column, String metric, Object sourceValue, Object targetValue) {
+            this.column = column;
+            this.metric = metric;
+            this.sourceValue = sourceValue;
+            this.targetValue = targetValue;
+        }
+
+        public String getColumn() { return column; }
+        public String getMetric() { return metric; }
+        public Object getSourceValue() { return sourceValue; }
+        public Object getTargetValue() { return targetValue; }
+
+        @Override
+        public String toString() {
+            return column + " " + metric + ": " + sourceValue + " vs " + targetValue;
+        }
+    }
+}
@@ -2,18 +2,29 @@ package com.datamigration.framework.analyzer;
 
 import com.datamigration.framework.config.ConfigurationManager;
 import com.datamigration.framework.connector.DatabaseConnector;
+import com.datamigration.framework.connector.Deadline;
 import com.datamigration.framework.reporting.ComparisonReportGenerator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
+import java.nio.file.Paths;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
 
 /**
  * Base class for comparison analyzers that compare data between source and target systems.
  */
 public abstract class ComparisonAnalyzer implements DataAnalyzer {
+    private static final Logger logger = LoggerFactory.getLogger(ComparisonAnalyzer.class);
+
     protected final ConfigurationManager config;
     protected final DatabaseConnector sourceConnector;
     protected final DatabaseConnector targetConnector;
     protected final ComparisonReportGenerator reportGenerator;
+    private String jobId;
+    private CheckpointJournal journal;
+    private Deadline jobDeadline;
 
     public ComparisonAnalyzer(ConfigurationManager config) {
         this.config = config;
@@ -35,6 +46,87 @@ public abstract class ComparisonAnalyzer implements DataAnalyzer {
      */
     public abstract List<ComparisonReportGenerator.ComparisonResult> compare() throws Exception;
 
+    /**
+     * Checks whether this analyzer records its progress in a checkpoint journal when it has a job id.
+     */
+    public boolean supportsCheckpoints() {
+        return false;
+    }
+
+    /**
+     * Sets the id of this comparison job. Analyzers that {@link #supportsCheckpoints() support
+     * checkpoints} then record their progress in a journal under {@code checkpointDir}, and a later
+     * run with the same id resumes from it; other analyzers ignore the id. Must be called before the
+     * comparison starts.
+     */
+    public void setJobId(String jobId) {
+        if (jobId != null && !supportsCheckpoints()) {
+            logger.warn("{} does not support checkpoints, ignoring job id {}", getClass().getSimpleName(), jobId);
+            return;
+        }
+        this.jobId = jobId;
+    }
+
+    public String getJobId() {
+        return jobId;
+    }
+
+    /**
+     * Gets the checkpoint journal of this job, opening it on first use.
+     *
+     * @return The journal, or null if no job id is set
+     */
+    protected synchronized CheckpointJournal getJournal() throws IOException {
+        if (jobId == null) {
+            return null;
+        }
+        if (journal == null) {
+            journal = CheckpointJournal.open(Paths.get(config.getComparisonConfig().getCheckpointDir()), jobId);
+        }
+        return journal;
+    }
+
+    /**
+     * Starts the deadline of one table or query: {@code tableTimeout} from now, but no later than the
+     * deadline of the whole job, which starts with the first table and lasts {@code jobTimeout}, or any
+     * deadline already bound to the calling thread. Bind it around the work with {@link Deadline#bind()};
+     * once the job deadline has passed, the remaining tables time out as soon as they start.
+     *
+     * @param name Table or query name, used in timeout messages
+     */
+    protected Deadline startTableDeadline(String name) {
+        ConfigurationManager.ComparisonConfig comparisonConfig = config.getComparisonConfig();
+        Deadline job;
+        synchronized (this) {
+            if (jobDeadline == null) {
+                jobDeadline = comparisonConfig.getJobTimeout() > 0
+                    ? Deadline.after("the job", comparisonConfig.getJobTimeout() * 1000L) : Deadline.unbounded();
+            }
+            job = jobDeadline;
+        }
+        Deadline table = comparisonConfig.getTableTimeout() > 0
+            ? Deadline.after(name, comparisonConfig.getTableTimeout() * 1000L) : Deadline.unbounded();
+        return table.earliest(job).earliest(Deadline.current());
+    }
+
+    /**
+     * Creates a worker pool running up to {@code threads} tasks at once, on virtual threads if
+     * {@code comparison.virtualThreads} is set.
+     *
+     * @see ComparisonExecutors#newWorkerPool(String, int, boolean)
+     */
+    protected ExecutorService newWorkerPool(String name, int threads) {
+        return ComparisonExecutors.newWorkerPool(name, threads, config.getComparisonConfig().isVirtualThreads());
+    }
+
+    /**
+     * Creates the value comparator of a table from the column types of its mapping and the
+     * tolerances in {@code comparison}.
+     */
+    protected ValueComparator comparatorFor(ColumnMapping mapping) {
+        return ValueComparator.forMapping(mapping, config.getComparisonConfig());
+    }
+
     @Override
     public AnalysisResult analyze() throws Exception {
         List<ComparisonReportGenerator.ComparisonResult> results = compare();
@@ -48,6 +140,11 @@ public abstract class ComparisonAnalyzer implements DataAnalyzer {
 
     @Override
     public void close() throws Exception {
+        synchronized (this) {
+            if (journal != null) {
+                journal.close();
+            }
+        }
         if (sourceConnector != null) {
             sourceConnector.close();
         }
@@ -0,0 +1,127 @@
+package com.datamigration.framework.analyzer;
+
+import com.datamigration.framework.connector.Deadline;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Creates the worker pools used by the comparison engines.
+ */
+public final class ComparisonExecutors {
+    private static final Logger logger = LoggerFactory.getLogger(ComparisonExecutors.class);
+
+    private static final AtomicBoolean fallbackLogged = new AtomicBoolean();
+
+    private ComparisonExecutors() {
+    }
+
+    /**
+     * Creates a worker pool on virtual threads if requested and available, otherwise a fixed-size
+     * pool of platform threads like {@link #newWorkerPool(String, int)}.
+     *
+     * <p>On virtual threads every task gets its own thread, and at most {@code threads} tasks run
+     * at once; the others wait for a permit on their parked virtual thread instead of in a queue.
+     * Virtual threads need Java 21 and the multi-release JAR built with the {@code java21}
+     * profile. Without them, the platform pool is used and a warning is logged once.</p>
+     *
+     * @param name Pool name, used as thread name prefix
+     * @param threads Number of tasks running at once, usually the connections of a backend
+     * @param virtualThreads Whether to run the tasks on virtual threads
+     */
+    public static ExecutorService newWorkerPool(String name, int threads, boolean virtualThreads) {
+        if (virtualThreads) {
+            if (VirtualThreads.isSupported()) {
+                return newVirtualWorkerPool(name, threads);
+            }
+            if (fallbackLogged.compareAndSet(false, true)) {
+                logger.warn("Virtual threads need Java 21 and the multi-release build (java {}), "
+                    + "using platform worker threads", System.getProperty("java.version"));
+            }
+        }
+        return newWorkerPool(name, threads);
+    }
+
+    /**
+     * Creates a fixed-size pool of daemon worker threads named {@code <name>-worker-<n>}.
+     * Tasks run with the {@link Deadline} of the thread that submitted them.
+     *
+     * @param name Pool name, used as thread name prefix
+     * @param threads Number of worker threads
+     */
+    public static ExecutorService newWorkerPool(String name, int threads) {
+        int size = Math.max(1, threads);
+        return new ThreadPoolExecutor(size, size, 0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(),
+            namedThreadFactory(name)) {
+            @Override
+            public void execute(Runnable command) {
+                super.execute(Deadline.propagate(command));
+            }
+        };
+    }
+
+    /**
+     * Starts a virtual thread per task that waits for one of {@code permits} permits before it
+     * runs. Tasks still waiting when the pool is shut down with {@code shutdownNow} are dropped.
+     */
+    private static ExecutorService newVirtualWorkerPool(String name, int permits) {
+        Semaphore running = new Semaphore(Math.max(1, permits));
+        return new ThreadPoolExecutor(0, Integer.MAX_VALUE, 0L, TimeUnit.MILLISECONDS, new SynchronousQueue<>(),
+            VirtualThreads.newThreadFactory(name)) {
+            @Override
+            public void execute(Runnable command) {
+                Runnable task = Deadline.propagate(command);
+                super.execute(() -> {
+                    try {
+                        running.acquire();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+                    try {
+                        task.run();
+                    } finally {
+                        running.release();
+                    }
+                });
+            }
+        };
+    }
+
+    /**
+     * Creates a work-stealing pool whose threads are named {@code <name>-worker-<n>}.
+     * Idle workers take queued tasks from busy ones, so forked sub-tasks spread across the pool.
+     * Forked tasks do not inherit a {@link Deadline}; bind it in the task.
+     *
+     * @param name Pool name, used as thread name prefix
+     * @param threads Parallelism of the pool
+     */
+    public static ForkJoinPool newWorkStealingPool(String name, int threads) {
+        AtomicInteger counter = new AtomicInteger();
+        return new ForkJoinPool(Math.max(1, threads), pool -> {
+            ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+            thread.setName(name + "-worker-" + counter.incrementAndGet());
+            return thread;
+        }, null, false);
+    }
+
+    private static ThreadFactory namedThreadFactory(String name) {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, name + "-worker-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
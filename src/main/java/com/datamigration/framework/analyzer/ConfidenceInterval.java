@@ -0,0 +1,106 @@
+package com.datamigration.framework.analyzer;
+
+/**
+ * Confidence interval for a proportion, such as the mismatch rate of a sample.
+ * Uses the Wilson score interval, which stays inside [0, 1] and remains meaningful
+ * when no or very few mismatches are observed, unlike the normal approximation.
+ */
+public class ConfidenceInterval {
+    private final double estimate;
+    private final double lower;
+    private final double upper;
+    private final double confidence;
+
+    public ConfidenceInterval(double estimate, double lower, double upper, double confidence) {
+        this.estimate = estimate;
+        this.lower = lower;
+        this.upper = upper;
+        this.confidence = confidence;
+    }
+
+    /**
+     * Computes the Wilson score interval for {@code successes} out of {@code trials}.
+     *
+     * @param confidence Confidence level, e.g. 0.95
+     */
+    public static ConfidenceInterval wilson(long successes, long trials, double confidence) {
+        if (trials == 0) {
+            return new ConfidenceInterval(0, 0, 1, confidence);
+        }
+        double z = zScore(confidence);
+        double n = trials;
+        double p = successes / n;
+        double z2 = z * z;
+        double denominator = 1 + z2 / n;
+        double center = (p + z2 / (2 * n)) / denominator;
+        double halfWidth = z * Math.sqrt(p * (1 - p) / n + z2 / (4 * n * n)) / denominator;
+        return new ConfidenceInterval(p, Math.max(0, center - halfWidth), Math.min(1, center + halfWidth), confidence);
+    }
+
+    /**
+     * Gets the sample size at which the interval half-width is at most {@code errorBound}
+     * for any true proportion (worst case p = 0.5).
+     */
+    public static long requiredSampleSize(double errorBound, double confidence) {
+        double z = zScore(confidence);
+        return (long) Math.ceil(z * z * 0.25 / (errorBound * errorBound));
+    }
+
+    /**
+     * Gets the two-sided standard normal quantile for a confidence level, e.g. 1.96 for 0.95.
+     */
+    public static double zScore(double confidence) {
+        if (confidence <= 0 || confidence >= 1) {
+            throw new IllegalArgumentException("Confidence must be between 0 and 1, got " + confidence);
+        }
+        return inverseNormal(1 - (1 - confidence) / 2);
+    }
+
+    /**
+     * Acklam's rational approximation of the standard normal quantile (relative error below 1.2e-9).
+     */
+    private static double inverseNormal(double p) {
+        final double[] a = {-3.969683028665376e+01, 2.209460984245205e+02, -2.759285104469687e+02,
+            1.383577518672690e+02, -3.066479806614716e+01, 2.506628277459239e+00};
+        final double[] b = {-5.447609879822406e+01, 1.615858368580409e+02, -1.556989798598866e+02,
+            6.680131188771972e+01, -1.328068155288572e+01};
+        final double[] c = {-7.784894002430293e-03, -3.223964580411365e-01, -2.400758277161838e+00,
+            -2.549732539343734e+00, 4.374664141464968e+00, 2.938163982698783e+00};
+        final double[] d = {7.784695709041462e-03, 3.224671290700398e-01, 2.445134137142996e+00,
+            3.754408661907416e+00};
+        final double low = 0.02425;
+
+        if (p < low) {
+            double q = Math.sqrt(-2 * Math.log(p));
+            return (((((c[0] * q + c[1]) * q + c[2]) * q + c[3]) * q + c[4]) * q + c[5])
+                / ((((d[0] * q + d[1]) * q + d[2]) * q + d[3]) * q + 1);
+        }
+        if (p > 1 - low) {
+            double q = Math.sqrt(-2 * Math.log(1 - p));
+            return -(((((c[0] * q + c[1]) * q + c[2]) * q + c[3]) * q + c[4]) * q + c[5])
+                / ((((d[0] * q + d[1]) * q + d[2]) * q + d[3]) * q + 1);
+        }
+        double q = p - 0.5;
+        double r = q * q;
+        return (((((a[0] * r + a[1]) * r + a[2]) * r + a[3]) * r + a[4]) * r + a[5]) * q
+            / (((((b[0] * r + b[1]) * r + b[2]) * r + b[3]) * r + b[4]) * r + 1);
+    }
+
+    public double getEstimate() { return estimate; }
+    public double getLower() { return lower; }
+    public double getUpper() { return upper; }
+    public double getConfidence() { return confidence; }
+
+    /**
+     * Gets half the width of the interval, the error bound it achieves.
+     */
+    public double getHalfWidth() {
+        return (upper - lower) / 2;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%.4f%% (%.0f%% CI %.4f%% - %.4f%%)",
+            estimate * 100, confidence * 100, lower * 100, upper * 100);
+    }
+}
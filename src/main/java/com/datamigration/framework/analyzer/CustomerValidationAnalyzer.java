@@ -0,0 +1,258 @@
+package com.datamigration.framework.analyzer;
+
+import com.datamigration.framework.config.ConfigurationManager;
+import com.datamigration.framework.connector.DatabaseConnector;
+import com.datamigration.framework.connector.Deadline;
+import com.datamigration.framework.connector.DeadlineExceededException;
+import com.datamigration.framework.connector.dialect.SqlDialect;
+import com.datamigration.framework.reporting.ComparisonReportGenerator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.math.BigDecimal;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Validates the {@code customerValidation} query pairs separately for each customer, without
+ * running every query once per customer.
+ *
+ * <p>Customers are split into batches of {@code batchSize}. Each query runs once per batch and
+ * side, restricted to the batch with {@code WHERE ... IN ({customerIds})}: dialects with
+ * {@link SqlDialect.Capability#ARRAY_PARAMETERS} bind the ids as one array, others as an IN list
+ * of at most {@value SqlDialect#MAX_BIND_PARAMETERS} parameters. The two results are streamed side by
+ * side and fanned back out by their {@code customerColumn}, so each customer gets its own result
+ * per query with row numbers counted within the customer. Queries must order their rows by the
+ * customer column first, then by their {@code keyColumns} if any.</p>
+ *
+ * <p>Batches and queries share one worker pool like {@link QueryPairAnalyzer}. A summary of all
+ * customers is rendered with {@code database_comparison_report.ftl}, and each customer with a
+ * failed or erroneous query gets its own {@code customer_association_report.ftl} report.</p>
+ */
+public class CustomerValidationAnalyzer extends ComparisonAnalyzer {
+    private static final Logger logger = LoggerFactory.getLogger(CustomerValidationAnalyzer.class);
+
+    /** Placeholder for the customer ids of a batch, used inside {@code IN (...)}. */
+    public static final String CUSTOMER_IDS_PLACEHOLDER = "{customerIds}";
+
+    private final ConfigurationManager.CustomerValidationConfig customerConfig;
+    private final List<ConfigurationManager.QueryPairConfig> queries;
+    private final int threads;
+    private final int maxReportedDifferences;
+
+    public CustomerValidationAnalyzer(ConfigurationManager config) {
+        this(config, config.getCustomerValidationConfig());
+    }
+
+    public CustomerValidationAnalyzer(ConfigurationManager config,
+                                      ConfigurationManager.CustomerValidationConfig customerConfig) {
+        super(config);
+        ConfigurationManager.ComparisonConfig comparisonConfig = config.getComparisonConfig();
+        this.customerConfig = customerConfig;
+        this.queries = customerConfig.getQueries();
+        this.threads = Math.min(comparisonConfig.getQueryPairThreads(),
+            Math.min(sourceConnector.getMaxPoolSize(), targetConnector.getMaxPoolSize()));
+        this.maxReportedDifferences = comparisonConfig.getMaxReportedDifferences();
+    }
+
+    @Override
+    public List<ComparisonReportGenerator.ComparisonResult> compare() throws Exception {
+        List<CustomerValidationResult> customers = validateCustomers();
+        List<QueryComparisonResult> results = new ArrayList<>();
+        for (CustomerValidationResult customer : customers) {
+            results.addAll(customer.getQueryResults());
+            if (!customer.isMatch()) {
+                generateCustomerReport(customer);
+            }
+        }
+        QueryPairAnalyzer.writeReport(reportGenerator, sourceConnector.getDatabaseName(),
+            targetConnector.getDatabaseName(), results, "customer_validation_report.html");
+        return new ArrayList<>(results);
+    }
+
+    /**
+     * Validates every customer with every query and returns the customers in the order they were
+     * listed or returned by {@code customerQuery}.
+     */
+    public List<CustomerValidationResult> validateCustomers() throws SQLException {
+        if (customerConfig.getCustomerColumn() == null) {
+            throw new IllegalStateException("customerValidation.customerColumn is not configured");
+        }
+        Map<Object, String> customerNames = loadCustomers();
+        List<CustomerValidationResult> customers = new ArrayList<>();
+        for (Map.Entry<Object, String> customer : customerNames.entrySet()) {
+            customers.add(new CustomerValidationResult(customer.getKey(), customer.getValue(), queries.size()));
+        }
+        int batchSize = effectiveBatchSize();
+        int batches = (customers.size() + batchSize - 1) / batchSize;
+        logger.info("Validating {} customers with {} queries in {} batches of up to {} customers on {} workers",
+            customers.size(), queries.size(), batches, batchSize, threads);
+
+        ExecutorService workers = newWorkerPool("customer-batch", threads);
+        ExecutorService targetQueries = newWorkerPool("target-query", threads);
+        try {
+            List<CompletableFuture<Void>> futures = new ArrayList<>();
+            for (int from = 0; from < customers.size(); from += batchSize) {
+                List<CustomerValidationResult> batch = customers.subList(from, Math.min(from + batchSize, customers.size()));
+                for (int i = 0; i < queries.size(); i++) {
+                    int queryIndex = i;
+                    futures.add(CompletableFuture.runAsync(
+                        () -> compareBatch(batch, queryIndex, targetQueries), workers));
+                }
+            }
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
+        } finally {
+            workers.shutdownNow();
+            targetQueries.shutdownNow();
+        }
+
+        long passed = customers.stream().filter(CustomerValidationResult::isMatch).count();
+        logger.info("{} of {} customers passed all queries", passed, customers.size());
+        return customers;
+    }
+
+    /**
+     * Runs one query for a batch of customers and records a result per customer.
+     */
+    private void compareBatch(List<CustomerValidationResult> batch, int queryIndex, Executor targetQueries) {
+        ConfigurationManager.QueryPairConfig query = queries.get(queryIndex);
+        Map<Object, QueryComparisonResult> results = new HashMap<>();
+        List<Object> customerIds = new ArrayList<>();
+        for (CustomerValidationResult customer : batch) {
+            QueryComparisonResult result = new QueryComparisonResult(queryIndex + 1, query,
+                customer.getCustomerName(), maxReportedDifferences);
+            customer.setQueryResult(queryIndex, result);
+            results.put(normalizeId(customer.getCustomerId()), result);
+            customerIds.add(customer.getCustomerId());
+        }
+        if (query.getSourceQuery() == null) {
+            results.values().forEach(result -> result.setError("No sourceQuery configured"));
+            return;
+        }
+
+        Deadline deadline = startTableDeadline("query " + query.getName() + " for customers from "
+            + batch.get(0).getCustomerId());
+        try (Deadline.Scope ignored = deadline.bind()) {
+            new ResultStreamDiff(sourceConnector, targetConnector, targetQueries).diff(query.getSourceQuery(),
+                query.getTargetQuery(),
+                (connector, sql) -> connector.streamRowsForKeys(sql, CUSTOMER_IDS_PLACEHOLDER, customerIds),
+                customerConfig.getCustomerColumn(), query.getKeyColumns(), customerId -> {
+                    QueryComparisonResult result = results.get(normalizeId(customerId));
+                    if (result == null) {
+                        throw new IllegalStateException("Query returned rows of customer " + customerId
+                            + ", which is not in the batch; does it use " + CUSTOMER_IDS_PLACEHOLDER + "?");
+                    }
+                    return result;
+                });
+        } catch (RuntimeException e) {
+            if (DeadlineExceededException.isCause(e, deadline)) {
+                logger.warn("Query {} for {} customers starting with {} timed out: {}", query.getName(),
+                    batch.size(), batch.get(0).getCustomerId(), e.getMessage());
+                results.values().forEach(result -> result.setTimedOut(e.getMessage()));
+            } else {
+                logger.error("Error validating query {} for {} customers starting with {}: {}", query.getName(),
+                    batch.size(), batch.get(0).getCustomerId(), e.getMessage());
+                results.values().forEach(result -> result.setError(e.getMessage()));
+            }
+        }
+    }
+
+    /**
+     * Reads the customers to validate from the configuration, or from {@code customerQuery} on the source.
+     */
+    private Map<Object, String> loadCustomers() throws SQLException {
+        Map<Object, String> customers = customerConfig.getCustomers();
+        if (!customers.isEmpty()) {
+            return customers;
+        }
+        if (customerConfig.getCustomerQuery() == null) {
+            throw new IllegalStateException("customerValidation needs customers or a customerQuery");
+        }
+        Map<Object, String> loaded = new LinkedHashMap<>();
+        sourceConnector.streamQuery(customerConfig.getCustomerQuery(), row -> loaded.put(row.getObject(1),
+            row.getMetaData().getColumnCount() > 1 ? row.getString(2) : null));
+        return loaded;
+    }
+
+    /**
+     * Caps the batch size at the parameter limit when either database binds ids as an IN list.
+     */
+    private int effectiveBatchSize() {
+        int batchSize = Math.max(1, customerConfig.getBatchSize());
+        if (supportsArrays(sourceConnector) && supportsArrays(targetConnector)) {
+            return batchSize;
+        }
+        int placeholders = 1;
+        for (ConfigurationManager.QueryPairConfig query : queries) {
+            placeholders = Math.max(placeholders, Math.max(countPlaceholders(query.getSourceQuery()),
+                countPlaceholders(query.getTargetQuery())));
+        }
+        return Math.min(batchSize, Math.max(1, SqlDialect.MAX_BIND_PARAMETERS / placeholders));
+    }
+
+    private static boolean supportsArrays(DatabaseConnector connector) {
+        return connector.getDialect().supports(SqlDialect.Capability.ARRAY_PARAMETERS);
+    }
+
+    private static int countPlaceholders(String sql) {
+        if (sql == null) {
+            return 0;
+        }
+        return (sql.length() - sql.replace(CUSTOMER_IDS_PLACEHOLDER, "").length()) / CUSTOMER_IDS_PLACEHOLDER.length();
+    }
+
+    /**
+     * Maps a customer id to a value equal for equal ids of any numeric JDBC type, so ids from the
+     * configuration match those read from either database.
+     */
+    private static Object normalizeId(Object customerId) {
+        if (customerId instanceof Number) {
+            BigDecimal value = KeyComparator.toBigDecimal((Number) customerId);
+            return value.signum() == 0 ? BigDecimal.ZERO : value.stripTrailingZeros();
+        }
+        return customerId;
+    }
+
+    private void generateCustomerReport(CustomerValidationResult customer) throws Exception {
+        List<QueryComparisonResult> results = customer.getQueryResults();
+        long passed = customer.countByStatus(QueryComparisonResult.Status.PASS);
+
+        Map<String, Map<String, Object>> countValidations = new LinkedHashMap<>();
+        for (QueryComparisonResult result : results) {
+            Map<String, Object> validation = new HashMap<>();
+            validation.put("queryName", result.getQueryName());
+            validation.put("sourceCount", result.getSourceRowCount());
+            validation.put("targetCount", result.getTargetRowCount());
+            validation.put("status", result.getStatus().name());
+            validation.put("mismatchCount", result.getMismatchedRows());
+            validation.put("detailCount", result.getMismatchedColumns().size());
+            countValidations.put(result.getQueryName(), validation);
+        }
+
+        Map<String, Object> dataModel = reportGenerator.createBaseDataModel();
+        dataModel.put("reportTitle", "Customer Validation Report");
+        dataModel.put("customerName", customer.getCustomerName());
+        dataModel.put("customerId", String.valueOf(customer.getCustomerId()));
+        dataModel.put("sourceDatabase", sourceConnector.getDatabaseName());
+        dataModel.put("targetDatabase", targetConnector.getDatabaseName());
+        dataModel.put("totalTests", results.size());
+        dataModel.put("passedTests", passed);
+        dataModel.put("failedTests", customer.countByStatus(QueryComparisonResult.Status.FAIL));
+        dataModel.put("errorTests", customer.countByStatus(QueryComparisonResult.Status.ERROR)
+            + customer.countByStatus(QueryComparisonResult.Status.TIMED_OUT));
+        dataModel.put("passRate", String.format("%.1f%%", results.isEmpty() ? 0.0 : passed * 100.0 / results.size()));
+        dataModel.put("countValidations", countValidations);
+        dataModel.put("queryResults", results);
+
+        String fileName = "customer_" + String.valueOf(customer.getCustomerId()).replaceAll("[^A-Za-z0-9._-]", "_")
+            + "_report.html";
+        reportGenerator.generateReport("customer_association_report.ftl", fileName, dataModel);
+    }
+}
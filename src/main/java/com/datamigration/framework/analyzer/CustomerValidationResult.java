@@ -0,0 +1,50 @@
+package com.datamigration.framework.analyzer;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Results of all customer validation queries for one customer, in query order.
+ */
+public class CustomerValidationResult {
+    private final Object customerId;
+    private final String customerName;
+    private final QueryComparisonResult[] queryResults;
+
+    CustomerValidationResult(Object customerId, String customerName, int queries) {
+        this.customerId = customerId;
+        this.customerName = customerName;
+        this.queryResults = new QueryComparisonResult[queries];
+    }
+
+    void setQueryResult(int index, QueryComparisonResult result) {
+        queryResults[index] = result;
+    }
+
+    public Object getCustomerId() {
+        return customerId;
+    }
+
+    /**
+     * Gets the customer name, or the id if no name is known.
+     */
+    public String getCustomerName() {
+        return customerName != null ? customerName : String.valueOf(customerId);
+    }
+
+    public List<QueryComparisonResult> getQueryResults() {
+        return new ArrayList<>(Arrays.asList(queryResults));
+    }
+
+    public long countByStatus(QueryComparisonResult.Status status) {
+        return Arrays.stream(queryResults).filter(result -> result.getStatus() == status).count();
+    }
+
+    /**
+     * Checks whether every query passed for this customer.
+     */
+    public boolean isMatch() {
+        return countByStatus(QueryComparisonResult.Status.PASS) == queryResults.length;
+    }
+}
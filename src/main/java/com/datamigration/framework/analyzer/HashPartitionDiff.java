@@ -0,0 +1,484 @@
+package com.datamigration.framework.analyzer;
+
+import com.datamigration.framework.connector.DatabaseConnector;
+import com.datamigration.framework.connector.Deadline;
+import com.datamigration.framework.connector.Murmur3;
+import com.datamigration.framework.connector.RowEncoder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Diffs a table whose two sides cannot be merge-joined: tables without a primary key, and
+ * tables whose key collation orders rows differently on the two databases.
+ *
+ * <p>Both sides are streamed once in any order. Each row becomes a record of its encoded key
+ * and the 128-bit hash of its values (see {@link RowEncoder}), and the record is appended to
+ * one of {@value #PARTITIONS} spill files chosen by the key hash. Partitions are then diffed
+ * one at a time: the source partition is memory-mapped and loaded into a hash table, and the
+ * target partition is mapped and probed against it. A partition too large for
+ * {@code spillMemoryBudget} is partitioned again with a different hash seed, up to
+ * {@value #MAX_LEVELS} times. Heap use is therefore bounded by the budget rather than by the
+ * table size, except for a partition that is still too large after the last level, which takes
+ * very many rows with the same key; it is loaded whole.</p>
+ *
+ * <p>Without a key, the whole row is the key and rows are compared as a multiset: surplus
+ * copies on either side are reported as missing or extra, and copies of a row share one
+ * entry of the hash table. With a key, string keys are matched ignoring trailing spaces and
+ * ASCII case, as under the case-insensitive collations that usually cause the fallback, and
+ * each record also carries the whole row. Rows whose value hashes differ are compared with
+ * the table's {@link ValueComparator}, like in a merge-join, so both paths report the same
+ * changed columns.</p>
+ */
+class HashPartitionDiff {
+    private static final Logger logger = LoggerFactory.getLogger(HashPartitionDiff.class);
+
+    private static final int PARTITIONS = 64;
+    private static final int MAX_LEVELS = 4;
+    private static final int WRITE_BUFFER_BYTES = 64 * 1024;
+    /** Approximate heap used per loaded record on top of its key bytes. */
+    private static final int ENTRY_OVERHEAD_BYTES = 112;
+
+    private final DatabaseConnector sourceConnector;
+    private final DatabaseConnector targetConnector;
+    private final ColumnMapping mapping;
+    private final RowMergeDiff rowComparer;
+    private final RowMergeDiff.RowDiffListener listener;
+    private final Path spillDir;
+    private final long memoryBudget;
+
+    /**
+     * @param comparator Comparator of the value columns of a table with a key
+     * @param spillDir Directory for the spill files, which are deleted when the diff ends
+     * @param memoryBudget Heap in bytes a single partition may occupy while being diffed
+     */
+    HashPartitionDiff(DatabaseConnector sourceConnector, DatabaseConnector targetConnector, ColumnMapping mapping,
+                      ValueComparator comparator, RowMergeDiff.RowDiffListener listener, Path spillDir,
+                      long memoryBudget) {
+        this.sourceConnector = sourceConnector;
+        this.targetConnector = targetConnector;
+        this.mapping = mapping;
+        this.rowComparer = mapping.hasKey() ? new RowMergeDiff(mapping.getTableName(), mapping.getSourceColumns(),
+            mapping.getSourceKeyColumns().size(), null, comparator) : null;
+        this.listener = listener;
+        this.spillDir = spillDir;
+        this.memoryBudget = memoryBudget;
+    }
+
+    /**
+     * Diffs the whole table and records the outcome into {@code result}.
+     */
+    void diff(RowDiffResult result) throws SQLException, IOException {
+        Files.createDirectories(spillDir);
+        Path workDir = Files.createTempDirectory(spillDir, "diff-");
+        try {
+            SpillPartitions source;
+            SpillPartitions target;
+            try (SpillPartitions sourcePartitions = new SpillPartitions(workDir.resolve("source"), 0);
+                 SpillPartitions targetPartitions = new SpillPartitions(workDir.resolve("target"), 0)) {
+                long sourceRows = spill(sourceConnector, mapping.getSourceKeyColumns().size(),
+                    mapping.getSourceColumns(), sourcePartitions);
+                long targetRows = spill(targetConnector, mapping.getTargetKeyColumns().size(),
+                    mapping.getTargetColumns(), targetPartitions);
+                result.addRowCounts(sourceRows, targetRows);
+                logger.info("Table {}: spilled {} source and {} target rows to {}",
+                    mapping.getTableName(), sourceRows, targetRows, workDir);
+                source = sourcePartitions;
+                target = targetPartitions;
+            }
+
+            for (int partition = 0; partition < PARTITIONS; partition++) {
+                diffPartition(source.getFile(partition), target.getFile(partition), 0, result);
+            }
+        } finally {
+            deleteRecursively(workDir);
+        }
+    }
+
+    /**
+     * Streams one side of the table into spill partitions. A table with a key is spilled with its
+     * folded key and the whole row; a keyless table with the whole row as key and no row.
+     */
+    private long spill(DatabaseConnector connector, int keyCount, List<String> columns, SpillPartitions partitions)
+            throws SQLException, IOException {
+        StringBuilder sql = new StringBuilder("SELECT ");
+        for (int i = 0; i < columns.size(); i++) {
+            sql.append(i > 0 ? ", " : "").append(connector.quoteIdentifier(columns.get(i)));
+        }
+        sql.append(" FROM ").append(connector.quoteTableName(mapping.getTableName()));
+
+        RowEncoder[] encoders = new RowEncoder[3];
+        try {
+            return connector.streamQuery(sql.toString(), rs -> {
+                if (encoders[0] == null) {
+                    if (keyCount > 0) {
+                        encoders[0] = new RowEncoder(rs.getMetaData(), 1, keyCount).foldText();
+                        encoders[1] = new RowEncoder(rs.getMetaData(), keyCount + 1);
+                        encoders[2] = new RowEncoder(rs.getMetaData(), 1);
+                    } else {
+                        encoders[0] = new RowEncoder(rs.getMetaData(), 1);
+                        encoders[1] = new RowEncoder(rs.getMetaData(), columns.size() + 1);
+                    }
+                }
+                RowEncoder key = encoders[0];
+                RowEncoder values = encoders[1];
+                RowEncoder row = encoders[2];
+                key.encode(rs);
+                values.encode(rs);
+                if (row != null) {
+                    row.encode(rs);
+                }
+                try {
+                    partitions.append(key.getBuffer(), key.getLength(),
+                        row != null ? row.getBuffer() : null, row != null ? row.getLength() : 0,
+                        key.getHashHigh(), values.getHashHigh(), values.getHashLow());
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private void diffPartition(Path sourceFile, Path targetFile, int level, RowDiffResult result)
+            throws IOException {
+        Deadline.current().check("diffing spilled partitions of " + mapping.getTableName());
+        long sourceBytes = Files.size(sourceFile);
+        long targetBytes = Files.size(targetFile);
+        if (sourceBytes == 0 && targetBytes == 0) {
+            return;
+        }
+        long heap = estimateHeap(sourceFile);
+        if (heap > memoryBudget && level < MAX_LEVELS) {
+            logger.debug("Partition {} ({} bytes) exceeds the memory budget, repartitioning", sourceFile, sourceBytes);
+            Path dir = sourceFile.resolveSibling(sourceFile.getFileName() + "-" + (level + 1));
+            SpillPartitions source = repartition(sourceFile, dir.resolve("source"), level + 1);
+            SpillPartitions target = repartition(targetFile, dir.resolve("target"), level + 1);
+            for (int partition = 0; partition < PARTITIONS; partition++) {
+                diffPartition(source.getFile(partition), target.getFile(partition), level + 1, result);
+            }
+            deleteRecursively(dir);
+            return;
+        }
+
+        if (heap > memoryBudget) {
+            logger.warn("Partition {} of {} still needs about {} bytes of heap after {} repartitionings; " +
+                "loading it whole", sourceFile, mapping.getTableName(), heap, MAX_LEVELS);
+        }
+
+        Map<RecordKey, List<SpilledRow>> sourceRecords = new HashMap<>();
+        forEachRecord(sourceFile, (key, row, hashHigh, hashLow) -> {
+            List<SpilledRow> rows = sourceRecords.computeIfAbsent(key, k -> new ArrayList<>(1));
+            if (!mapping.hasKey() && !rows.isEmpty()) {
+                rows.get(0).copies++;
+            } else {
+                rows.add(new SpilledRow(row, hashHigh, hashLow));
+            }
+        });
+
+        forEachRecord(targetFile, (key, row, hashHigh, hashLow) -> {
+            List<SpilledRow> rows = sourceRecords.get(key);
+            if (rows == null) {
+                emit(result, RowDifference.Type.EXTRA_IN_TARGET, keyOf(key, row));
+            } else if (!mapping.hasKey()) {
+                if (--rows.get(0).copies == 0) {
+                    sourceRecords.remove(key);
+                }
+            } else {
+                Object[] targetRow = RowEncoder.decodeAll(row, 0, row.length);
+                SpilledRow sourceRow = takeMatch(rows, targetRow);
+                if (rows.isEmpty()) {
+                    sourceRecords.remove(key);
+                }
+                if (sourceRow.hashHigh != hashHigh || sourceRow.hashLow != hashLow) {
+                    Object[] sourceValues = RowEncoder.decodeAll(sourceRow.row, 0, sourceRow.row.length);
+                    RowDifference difference = rowComparer.compareRow(
+                        Arrays.copyOf(sourceValues, mapping.getSourceKeyColumns().size()), sourceValues, targetRow);
+                    if (difference != null) {
+                        emit(result, difference);
+                    }
+                }
+            }
+        });
+
+        for (Map.Entry<RecordKey, List<SpilledRow>> remaining : sourceRecords.entrySet()) {
+            for (SpilledRow row : remaining.getValue()) {
+                for (long i = 0; i < row.copies; i++) {
+                    emit(result, RowDifference.Type.MISSING_IN_TARGET, keyOf(remaining.getKey(), row.row));
+                }
+            }
+        }
+    }
+
+    /**
+     * Removes and returns the source row to pair with a target row of the same folded key: the one
+     * whose key is equal exactly if keys of this table differ only in case or trailing spaces, else the first.
+     */
+    private SpilledRow takeMatch(List<SpilledRow> rows, Object[] targetRow) {
+        int match = 0;
+        if (rows.size() > 1) {
+            int keyCount = mapping.getSourceKeyColumns().size();
+            for (int i = 0; i < rows.size(); i++) {
+                Object[] sourceRow = RowEncoder.decodeAll(rows.get(i).row, 0, rows.get(i).row.length);
+                if (Arrays.equals(Arrays.copyOf(sourceRow, keyCount), Arrays.copyOf(targetRow, keyCount))) {
+                    match = i;
+                    break;
+                }
+            }
+        }
+        return rows.remove(match);
+    }
+
+    /**
+     * Gets the key values to report: those of the row if spilled with one, otherwise the keyless record's.
+     */
+    private Object[] keyOf(RecordKey key, byte[] row) {
+        if (row.length == 0) {
+            return RowEncoder.decodeAll(key.bytes, 0, key.bytes.length);
+        }
+        return Arrays.copyOf(RowEncoder.decodeAll(row, 0, row.length), mapping.getSourceKeyColumns().size());
+    }
+
+    private long estimateHeap(Path file) throws IOException {
+        long[] estimate = {0};
+        long size = Files.size(file);
+        if (size <= memoryBudget / 4) {
+            return size * 2;
+        }
+        forEachRecord(file, (key, row, hashHigh, hashLow) ->
+            estimate[0] += key.bytes.length + row.length + ENTRY_OVERHEAD_BYTES);
+        return estimate[0];
+    }
+
+    private SpillPartitions repartition(Path file, Path dir, int level) throws IOException {
+        try (SpillPartitions partitions = new SpillPartitions(dir, level)) {
+            long[] hash = new long[2];
+            forEachRecord(file, (key, row, hashHigh, hashLow) -> {
+                Murmur3.hash128(key.bytes, 0, key.bytes.length, level, hash);
+                try {
+                    partitions.append(key.bytes, key.bytes.length, row, row.length, hash[0], hashHigh, hashLow);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            Files.delete(file);
+            return partitions;
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private void emit(RowDiffResult result, RowDifference.Type type, Object[] key) {
+        List<String> keyColumns = mapping.hasKey() ? mapping.getSourceKeyColumns() : mapping.getSourceColumns();
+        emit(result, new RowDifference(mapping.getTableName(), type, keyColumns, key, null, null, null));
+    }
+
+    private void emit(RowDiffResult result, RowDifference difference) {
+        result.record(difference);
+        if (listener != null) {
+            listener.onDifference(difference);
+        }
+    }
+
+    /**
+     * Reads the records of a spill file through a read-only memory mapping. Records are
+     * {@code [int keyLength][key bytes][int rowLength][row bytes][long valueHashHigh][long valueHashLow]}.
+     */
+    private static void forEachRecord(Path file, RecordHandler handler) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            long position = 0;
+            while (position < size) {
+                // Map at most 1 GiB at a time; records never span windows because each window
+                // ends at the last complete record
+                long windowSize = Math.min(size - position, 1L << 30);
+                MappedByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, position, windowSize);
+                int consumed = 0;
+                while (window.remaining() >= 4) {
+                    int start = window.position();
+                    int keyLength = window.getInt();
+                    if (window.remaining() < keyLength + 4) {
+                        window.position(start);
+                        break;
+                    }
+                    byte[] key = new byte[keyLength];
+                    window.get(key);
+                    int rowLength = window.getInt();
+                    if (window.remaining() < rowLength + 16) {
+                        window.position(start);
+                        break;
+                    }
+                    byte[] row = new byte[rowLength];
+                    window.get(row);
+                    handler.handle(new RecordKey(key), row, window.getLong(), window.getLong());
+                    consumed = window.position();
+                }
+                if (consumed == 0) {
+                    throw new IOException("Corrupt spill file " + file + " at offset " + position);
+                }
+                position += consumed;
+            }
+        }
+    }
+
+    private static void deleteRecursively(Path path) throws IOException {
+        if (!Files.exists(path)) {
+            return;
+        }
+        List<Path> paths = new ArrayList<>();
+        try (java.util.stream.Stream<Path> walk = Files.walk(path)) {
+            walk.forEach(paths::add);
+        }
+        for (int i = paths.size() - 1; i >= 0; i--) {
+            Files.deleteIfExists(paths.get(i));
+        }
+    }
+
+    @FunctionalInterface
+    private interface RecordHandler {
+        void handle(RecordKey key, byte[] row, long valueHashHigh, long valueHashLow);
+    }
+
+    /**
+     * Source record loaded into the hash table: its row, if spilled with one, its value hash and,
+     * for keyless tables, the number of copies not yet matched.
+     */
+    private static final class SpilledRow {
+        private final byte[] row;
+        private final long hashHigh;
+        private final long hashLow;
+        private long copies = 1;
+
+        SpilledRow(byte[] row, long hashHigh, long hashLow) {
+            this.row = row;
+            this.hashHigh = hashHigh;
+            this.hashLow = hashLow;
+        }
+    }
+
+    /**
+     * Encoded key bytes with value semantics, for use as a hash table key.
+     */
+    private static final class RecordKey {
+        private final byte[] bytes;
+        private final int hash;
+
+        RecordKey(byte[] bytes) {
+            this.bytes = bytes;
+            this.hash = Arrays.hashCode(bytes);
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof RecordKey && Arrays.equals(bytes, ((RecordKey) other).bytes);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    /**
+     * A set of spill files written through per-partition buffers. Closing flushes and closes them;
+     * the files stay until the work directory is deleted.
+     */
+    private static final class SpillPartitions implements AutoCloseable {
+        private final Path dir;
+        private final int level;
+        private final FileChannel[] channels = new FileChannel[PARTITIONS];
+        private final ByteBuffer[] buffers = new ByteBuffer[PARTITIONS];
+
+        SpillPartitions(Path dir, int level) throws IOException {
+            this.dir = Files.createDirectories(dir);
+            this.level = level;
+            try {
+                for (int i = 0; i < PARTITIONS; i++) {
+                    buffers[i] = ByteBuffer.allocate(WRITE_BUFFER_BYTES);
+                    channels[i] = FileChannel.open(getFile(i), StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                        StandardOpenOption.TRUNCATE_EXISTING);
+                }
+            } catch (IOException e) {
+                try {
+                    close();
+                } catch (IOException suppressed) {
+                    e.addSuppressed(suppressed);
+                }
+                throw e;
+            }
+        }
+
+        Path getFile(int partition) {
+            return dir.resolve("p" + level + "-" + partition + ".spill");
+        }
+
+        /**
+         * Appends a record to the partition selected by {@code partitionHash}.
+         */
+        void append(byte[] key, int keyLength, byte[] row, int rowLength, long partitionHash, long valueHashHigh,
+                    long valueHashLow) throws IOException {
+            int partition = (int) Long.remainderUnsigned(partitionHash, PARTITIONS);
+            ByteBuffer buffer = buffers[partition];
+            int recordLength = 4 + keyLength + 4 + rowLength + 16;
+            if (buffer.remaining() < recordLength) {
+                flush(partition);
+                if (buffer.capacity() < recordLength) {
+                    buffer = ByteBuffer.allocate(recordLength);
+                    buffers[partition] = buffer;
+                }
+            }
+            buffer.putInt(keyLength).put(key, 0, keyLength).putInt(rowLength);
+            if (rowLength > 0) {
+                buffer.put(row, 0, rowLength);
+            }
+            buffer.putLong(valueHashHigh).putLong(valueHashLow);
+        }
+
+        private void flush(int partition) throws IOException {
+            ByteBuffer buffer = buffers[partition];
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                channels[partition].write(buffer);
+            }
+            buffer.clear();
+        }
+
+        @Override
+        public void close() throws IOException {
+            IOException failure = null;
+            for (int i = 0; i < PARTITIONS; i++) {
+                if (channels[i] == null || !channels[i].isOpen()) {
+                    continue;
+                }
+                try {
+                    flush(i);
+                } catch (IOException e) {
+                    failure = failure != null ? failure : e;
+                }
+                try {
+                    channels[i].close();
+                } catch (IOException e) {
+                    failure = failure != null ? failure : e;
+                }
+            }
+            if (failure != null) {
+                throw failure;
+            }
+        }
+    }
+}
@@ -0,0 +1,436 @@
+package com.datamigration.framework.analyzer;
+
+import com.datamigration.framework.config.ConfigurationManager;
+import com.datamigration.framework.connector.DatabaseConnector;
+import com.datamigration.framework.connector.Deadline;
+import com.datamigration.framework.connector.DeadlineExceededException;
+import com.datamigration.framework.connector.dialect.SqlDialect;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.Date;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * Row-level comparison that re-validates only rows changed since the previous run.
+ *
+ * <p>Each table listed under {@code watermarkColumns} is tracked by a column that grows whenever
+ * a row is written: an update timestamp, a SQL Server {@code rowversion}, or a version column kept
+ * by a trigger. The PostgreSQL {@code xmin} system column does not qualify: it is a 32-bit
+ * transaction id that wraps around and is frozen by VACUUM. After a table has been validated, the
+ * watermark of each side and the keys of all outstanding differences are stored in a state file
+ * under {@code incrementalStateDir}.
+ * The next run reads the rows whose watermark has moved on either side, together with the rows
+ * that differed last time, and compares only those by key. Every other row matched before and
+ * has not been written since, so the result is the verdict for the whole table.</p>
+ *
+ * <p>Watermarks are read before the changed rows, so rows written during a run are picked up
+ * again by the next one. Changed rows are read from the saved watermark inclusive, less
+ * {@code watermarkSafetyLag}, so a row committed after the watermark was read but stamped with
+ * the same or a slightly earlier value is not missed. Deleted rows leave no watermark behind; they
+ * are caught by checking the verdict against the row counts of both sides, which falls back to a
+ * full diff. The counts are catalog estimates, and {@code COUNT(*)} runs only when the estimates
+ * disagree. Deletions that estimates have not caught up with yet, or of different rows on both
+ * sides that cancel out, are not detected, so close a cutover with a full comparison. The
+ * watermark column itself is not compared, and tables without a watermark column or primary key
+ * are always diffed in full.</p>
+ */
+public class IncrementalRowDiffAnalyzer extends RowDiffAnalyzer {
+    private static final Logger logger = LoggerFactory.getLogger(IncrementalRowDiffAnalyzer.class);
+
+    /** Keys re-checked or tracked per table above which a full diff is cheaper and needs less memory. */
+    private static final int MAX_TRACKED_KEYS = 500000;
+
+    private static final long SECONDS_PER_DAY = 86400;
+
+    private final Map<String, String> watermarkColumns;
+    private final RowMergeDiff.RowDiffListener listener;
+    private final int maxReportedDifferences;
+    private final int lookupBatchSize;
+    private final long watermarkSafetyLag;
+    private final Path stateFile;
+    private final IncrementalState state;
+
+    public IncrementalRowDiffAnalyzer(ConfigurationManager config, List<String> tablesToCompare) {
+        this(config, tablesToCompare, null);
+    }
+
+    /**
+     * @param config Configuration manager
+     * @param tablesToCompare Tables to diff
+     * @param listener Optional listener receiving every difference as it is found
+     */
+    public IncrementalRowDiffAnalyzer(ConfigurationManager config, List<String> tablesToCompare,
+                                      RowMergeDiff.RowDiffListener listener) {
+        super(config, tablesToCompare, listener);
+        ConfigurationManager.ComparisonConfig comparisonConfig = config.getComparisonConfig();
+        this.watermarkColumns = comparisonConfig.getWatermarkColumns();
+        this.listener = listener;
+        this.maxReportedDifferences = comparisonConfig.getMaxReportedDifferences();
+        this.lookupBatchSize = Math.max(1, comparisonConfig.getLookupBatchSize());
+        this.watermarkSafetyLag = Math.max(0, comparisonConfig.getWatermarkSafetyLag());
+        this.stateFile = Paths.get(comparisonConfig.getIncrementalStateDir()).resolve(stateFileName());
+        this.state = IncrementalState.load(stateFile);
+    }
+
+    /**
+     * Not supported: differences restored from a checkpoint journal never reach the tracker that
+     * builds the incremental state, so a resumed run would forget them.
+     */
+    @Override
+    public boolean supportsCheckpoints() {
+        return false;
+    }
+
+    /**
+     * Diffs a single table, incrementally if it has a watermark column and was validated before.
+     */
+    @Override
+    public RowDiffResult diffTable(String tableName) {
+        String watermarkColumn = findWatermarkColumn(tableName);
+        if (watermarkColumn == null) {
+            return super.diffTable(tableName);
+        }
+        Deadline deadline = startTableDeadline("table " + tableName);
+        try (Deadline.Scope ignored = deadline.bind()) {
+            if (sourceConnector.getPrimaryKeyColumns(tableName).isEmpty()) {
+                logger.warn("Table {} has no primary key and cannot be compared incrementally", tableName);
+                return super.diffTable(tableName);
+            }
+            ColumnMapping mapping = resolveMapping(tableName, null);
+            String[] watermarks = resolveWatermarkColumns(mapping, watermarkColumn);
+            IncrementalState.TableState previous = state.getTable(tableName);
+            if (previous != null && watermarks[0].equalsIgnoreCase(previous.getWatermarkColumn())) {
+                RowDiffResult result = incrementalDiff(mapping.withoutValueColumn(watermarks[0]), watermarks,
+                    previous);
+                if (result != null) {
+                    return result;
+                }
+            }
+            return fullDiff(tableName, watermarks);
+        } catch (Exception e) {
+            RowDiffResult result = new RowDiffResult(tableName, maxReportedDifferences);
+            if (DeadlineExceededException.isCause(e, deadline)) {
+                logger.warn("Incremental diff of table {} timed out: {}", tableName, e.getMessage());
+                result.setTimedOut(e.getMessage());
+            } else {
+                logger.error("Incremental diff of table {} failed: {}", tableName, e.getMessage());
+                result.setError(e.getMessage());
+            }
+            return result;
+        }
+    }
+
+    /**
+     * Gets the file this analyzer keeps its state in.
+     */
+    public Path getStateFile() {
+        return stateFile;
+    }
+
+    private RowDiffResult fullDiff(String tableName, String[] watermarks) throws SQLException {
+        Object sourceWatermark = sourceConnector.getWatermark(tableName, watermarks[0]);
+        Object targetWatermark = targetConnector.getWatermark(tableName, watermarks[1]);
+        DifferenceTracker tracker = new DifferenceTracker(listener);
+        RowDiffResult result = diffTable(tableName, watermarks[0], tracker);
+        if (result.getError() == null) {
+            saveTableState(tableName, watermarks[0], sourceWatermark, targetWatermark, tracker);
+            logger.info("Table {} fully validated at watermarks {} / {}", tableName, sourceWatermark, targetWatermark);
+        }
+        return result;
+    }
+
+    /**
+     * Re-checks the rows changed since the previous run and the rows that differed then.
+     *
+     * @return The merged verdict, or null if a full diff is needed instead
+     */
+    private RowDiffResult incrementalDiff(ColumnMapping mapping, String[] watermarks,
+                                          IncrementalState.TableState previous) throws SQLException {
+        String tableName = mapping.getTableName();
+        Object sourceWatermark = sourceConnector.getWatermark(tableName, watermarks[0]);
+        Object targetWatermark = targetConnector.getWatermark(tableName, watermarks[1]);
+
+        TreeSet<Object[]> keys = new TreeSet<>(KeyComparator.INSTANCE);
+        for (IncrementalState.TrackedDifference difference : previous.getDifferences()) {
+            keys.add(difference.toKey());
+        }
+        if (!addChangedKeys(keys, sourceConnector, tableName, mapping.getSourceKeyColumns(), watermarks[0],
+                minusLag(previous.getSourceWatermark().toObject(), watermarkSafetyLag))
+            || !addChangedKeys(keys, targetConnector, tableName, mapping.getTargetKeyColumns(), watermarks[1],
+                minusLag(previous.getTargetWatermark().toObject(), watermarkSafetyLag))) {
+            logger.info("Table {}: more than {} rows to re-check, running a full diff instead", tableName,
+                MAX_TRACKED_KEYS);
+            return null;
+        }
+
+        RowDiffResult result = new RowDiffResult(tableName, maxReportedDifferences);
+        DifferenceTracker tracker = new DifferenceTracker(listener);
+        int batchSize = Math.max(1, lookupBatchSize);
+        List<Object[]> batch = new ArrayList<>(batchSize);
+        for (Object[] key : keys) {
+            batch.add(key);
+            if (batch.size() == batchSize) {
+                compareBatch(mapping, batch, result, tracker);
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) {
+            compareBatch(mapping, batch, result, tracker);
+        }
+
+        long[] rowCounts = checkRowCounts(tableName, result);
+        if (rowCounts == null) {
+            return null;
+        }
+        result.addRowCounts(rowCounts[0], rowCounts[1]);
+        saveTableState(tableName, watermarks[0], sourceWatermark, targetWatermark, tracker);
+        logger.info("Table {}: re-checked {} changed or previously differing rows ({} differed before), "
+            + "{} differences outstanding", tableName, keys.size(), previous.getDifferences().size(),
+            result.getDifferenceCount());
+        return result;
+    }
+
+    /**
+     * Checks that the row counts of both sides agree with the verdict, which they do not when rows
+     * were deleted since the last run. Catalog estimates are checked first; both sides are counted
+     * exactly only if the estimates disagree, as they may merely be stale.
+     *
+     * @return {@code {source rows, target rows}}, or null if rows were deleted and a full diff is needed
+     */
+    private long[] checkRowCounts(String tableName, RowDiffResult result) throws SQLException {
+        long expectedGap = result.getMissingInTarget() - result.getExtraInTarget();
+        long sourceRows = sourceConnector.estimateRowCount(tableName);
+        long targetRows = targetConnector.estimateRowCount(tableName);
+        if (sourceRows - targetRows == expectedGap) {
+            return new long[]{sourceRows, targetRows};
+        }
+        if (sourceConnector.supports(SqlDialect.Capability.CATALOG_STATISTICS)
+                || targetConnector.supports(SqlDialect.Capability.CATALOG_STATISTICS)) {
+            logger.debug("Table {}: row estimates {} and {} disagree with the changed rows, counting exactly",
+                tableName, sourceRows, targetRows);
+            sourceRows = sourceConnector.getTableRowCount(tableName);
+            targetRows = targetConnector.getTableRowCount(tableName);
+            if (sourceRows - targetRows == expectedGap) {
+                return new long[]{sourceRows, targetRows};
+            }
+        }
+        logger.warn("Table {}: row counts {} and {} do not agree with the changed rows, rows were deleted "
+            + "since the last run; running a full diff", tableName, sourceRows, targetRows);
+        return null;
+    }
+
+    /**
+     * Moves a saved watermark back by the safety lag: seconds for dates and times (whole days for
+     * dates), otherwise units of the value. Row versions read as binary are treated as unsigned
+     * big-endian numbers. Values of other types are returned unchanged.
+     */
+    static Object minusLag(Object watermark, long lag) {
+        if (lag == 0 || watermark == null) {
+            return watermark;
+        }
+        if (watermark instanceof Integer || watermark instanceof Long || watermark instanceof Short) {
+            return ((Number) watermark).longValue() - lag;
+        }
+        if (watermark instanceof BigInteger) {
+            return ((BigInteger) watermark).subtract(BigInteger.valueOf(lag));
+        }
+        if (watermark instanceof BigDecimal) {
+            return ((BigDecimal) watermark).subtract(BigDecimal.valueOf(lag));
+        }
+        if (watermark instanceof Double || watermark instanceof Float) {
+            return ((Number) watermark).doubleValue() - lag;
+        }
+        if (watermark instanceof byte[]) {
+            byte[] version = (byte[]) watermark;
+            BigInteger lagged = new BigInteger(1, version).subtract(BigInteger.valueOf(lag)).max(BigInteger.ZERO);
+            byte[] bytes = lagged.toByteArray();
+            byte[] result = new byte[version.length];
+            int length = Math.min(bytes.length, result.length);
+            System.arraycopy(bytes, bytes.length - length, result, result.length - length, length);
+            return result;
+        }
+        if (watermark instanceof Timestamp) {
+            return Timestamp.valueOf(((Timestamp) watermark).toLocalDateTime().minusSeconds(lag));
+        }
+        if (watermark instanceof LocalDateTime) {
+            return ((LocalDateTime) watermark).minusSeconds(lag);
+        }
+        if (watermark instanceof OffsetDateTime) {
+            return ((OffsetDateTime) watermark).minusSeconds(lag);
+        }
+        if (watermark instanceof Instant) {
+            return ((Instant) watermark).minusSeconds(lag);
+        }
+        long days = (lag + SECONDS_PER_DAY - 1) / SECONDS_PER_DAY;
+        if (watermark instanceof Date) {
+            return Date.valueOf(((Date) watermark).toLocalDate().minusDays(days));
+        }
+        if (watermark instanceof LocalDate) {
+            return ((LocalDate) watermark).minusDays(days);
+        }
+        return watermark;
+    }
+
+    /**
+     * Adds the keys of the rows changed on one side since its previous watermark. Keys stamped with
+     * the previous watermark itself come back as well and are deduplicated by the set.
+     *
+     * @return false if more than {@link #MAX_TRACKED_KEYS} keys would have to be re-checked; reading
+     *         stops as soon as that is known
+     */
+    private static boolean addChangedKeys(TreeSet<Object[]> keys, DatabaseConnector connector, String tableName,
+                                          List<String> keyColumns, String watermarkColumn, Object since)
+            throws SQLException {
+        int budget = Math.max(0, MAX_TRACKED_KEYS - keys.size());
+        List<Object[]> changed = connector.getKeysChangedSince(tableName, keyColumns, watermarkColumn, since, budget);
+        if (changed.size() > budget) {
+            return false;
+        }
+        keys.addAll(changed);
+        return keys.size() <= MAX_TRACKED_KEYS;
+    }
+
+    private void compareBatch(ColumnMapping mapping, List<Object[]> keys, RowDiffResult result,
+                              DifferenceTracker tracker) throws SQLException {
+        String tableName = mapping.getTableName();
+        int keyCount = mapping.getSourceKeyColumns().size();
+        TreeMap<Object[], Object[]> sourceRows = lookUp(sourceConnector, mapping.getSourceKeyColumns(),
+            mapping.getSourceValueColumns(), tableName, keys);
+        TreeMap<Object[], Object[]> targetRows = lookUp(targetConnector, mapping.getTargetKeyColumns(),
+            mapping.getTargetValueColumns(), tableName, keys);
+        RowMergeDiff rowComparer = new RowMergeDiff(tableName, mapping.getSourceColumns(), keyCount, null,
+            comparatorFor(mapping));
+        List<String> keyColumns = mapping.getSourceKeyColumns();
+
+        for (Object[] key : keys) {
+            Object[] sourceRow = sourceRows.get(key);
+            Object[] targetRow = targetRows.get(key);
+            RowDifference difference = null;
+            if (sourceRow != null && targetRow != null) {
+                difference = rowComparer.compareRow(key, sourceRow, targetRow);
+            } else if (sourceRow != null) {
+                difference = RowDifference.missingInTarget(tableName, keyColumns, key);
+            } else if (targetRow != null) {
+                difference = RowDifference.extraInTarget(tableName, keyColumns, key);
+            }
+            if (difference != null) {
+                result.record(difference);
+                tracker.onDifference(difference);
+            }
+        }
+    }
+
+    private static TreeMap<Object[], Object[]> lookUp(DatabaseConnector connector, List<String> keyColumns,
+                                                      List<String> valueColumns, String tableName,
+                                                      List<Object[]> keys) throws SQLException {
+        TreeMap<Object[], Object[]> rows = new TreeMap<>(KeyComparator.INSTANCE);
+        for (Object[] row : connector.lookupRows(tableName, keyColumns, valueColumns, keys)) {
+            rows.put(DatabaseConnector.keyOf(row, keyColumns.size()), row);
+        }
+        return rows;
+    }
+
+    private void saveTableState(String tableName, String watermarkColumn, Object sourceWatermark,
+                                Object targetWatermark, DifferenceTracker tracker) {
+        if (tracker.isOverflowed()) {
+            logger.warn("Table {} has more than {} differences; the next run will diff it in full",
+                tableName, MAX_TRACKED_KEYS);
+            state.removeTable(tableName);
+        } else {
+            state.putTable(tableName, new IncrementalState.TableState(watermarkColumn,
+                StoredValue.of(sourceWatermark), StoredValue.of(targetWatermark),
+                System.currentTimeMillis(), tracker.getDifferences()));
+        }
+        try {
+            state.save(stateFile);
+        } catch (IOException e) {
+            logger.warn("Could not save incremental state to {}: {}", stateFile, e.getMessage());
+        }
+    }
+
+    private String findWatermarkColumn(String tableName) {
+        for (Map.Entry<String, String> entry : watermarkColumns.entrySet()) {
+            if (entry.getKey().equalsIgnoreCase(tableName)) {
+                return entry.getValue();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Matches the configured watermark column to the column names of both sides. A column not found
+     * among the value columns is used as configured on both sides.
+     *
+     * @return {@code {source column, target column}}
+     */
+    private static String[] resolveWatermarkColumns(ColumnMapping mapping, String watermarkColumn) {
+        List<String> sourceColumns = mapping.getSourceValueColumns();
+        for (int i = 0; i < sourceColumns.size(); i++) {
+            if (sourceColumns.get(i).equalsIgnoreCase(watermarkColumn)) {
+                return new String[]{sourceColumns.get(i), mapping.getTargetValueColumns().get(i)};
+            }
+        }
+        return new String[]{watermarkColumn, watermarkColumn};
+    }
+
+    private String stateFileName() {
+        String name = sourceConnector.getDatabaseHost() + "_" + sourceConnector.getDatabaseName() + "_"
+            + targetConnector.getDatabaseHost() + "_" + targetConnector.getDatabaseName();
+        return "incremental_" + name.replaceAll("[^A-Za-z0-9._-]", "_") + ".json";
+    }
+
+    /**
+     * Collects the key of every difference, deduplicated by key, and forwards it to the caller's listener.
+     * Called from several threads during a parallel diff.
+     */
+    private static final class DifferenceTracker implements RowMergeDiff.RowDiffListener {
+        private final RowMergeDiff.RowDiffListener delegate;
+        private final TreeMap<Object[], IncrementalState.TrackedDifference> differences =
+            new TreeMap<>(KeyComparator.INSTANCE);
+        private boolean overflowed;
+
+        DifferenceTracker(RowMergeDiff.RowDiffListener delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public void onDifference(RowDifference difference) {
+            synchronized (this) {
+                if (!overflowed) {
+                    differences.put(difference.getKey(), IncrementalState.TrackedDifference.of(difference));
+                    if (differences.size() > MAX_TRACKED_KEYS) {
+                        overflowed = true;
+                        differences.clear();
+                    }
+                }
+            }
+            if (delegate != null) {
+                delegate.onDifference(difference);
+            }
+        }
+
+        synchronized boolean isOverflowed() {
+            return overflowed;
+        }
+
+        synchronized List<IncrementalState.TrackedDifference> getDifferences() {
+            return new ArrayList<>(differences.values());
+        }
+    }
+}
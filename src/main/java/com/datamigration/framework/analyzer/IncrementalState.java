@@ -0,0 +1,143 @@
+package com.datamigration.framework.analyzer;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Last validated watermarks and outstanding differences per table, persisted between runs of
+ * {@link IncrementalRowDiffAnalyzer}. Stored as JSON; key and watermark values are kept as
+ * {@link StoredValue}s so they can be bound as query parameters again.
+ */
+public final class IncrementalState {
+    private static final Logger logger = LoggerFactory.getLogger(IncrementalState.class);
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private final Map<String, TableState> tables;
+
+    @JsonCreator
+    public IncrementalState(@JsonProperty("tables") Map<String, TableState> tables) {
+        this.tables = tables != null ? new LinkedHashMap<>(tables) : new LinkedHashMap<>();
+    }
+
+    /**
+     * Reads the state file, or returns an empty state if it does not exist or cannot be read.
+     */
+    public static IncrementalState load(Path file) {
+        if (!Files.isRegularFile(file)) {
+            return new IncrementalState(null);
+        }
+        try {
+            return MAPPER.readValue(file.toFile(), IncrementalState.class);
+        } catch (IOException e) {
+            logger.warn("Ignoring unreadable incremental state {}: {}", file, e.getMessage());
+            return new IncrementalState(null);
+        }
+    }
+
+    /**
+     * Writes the state to a temporary file and moves it into place, so an interrupted run
+     * leaves the previous state intact.
+     */
+    public synchronized void save(Path file) throws IOException {
+        Path directory = file.toAbsolutePath().getParent();
+        Files.createDirectories(directory);
+        Path temp = Files.createTempFile(directory, file.getFileName().toString(), ".tmp");
+        MAPPER.writeValue(temp.toFile(), this);
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    @JsonProperty("tables")
+    public synchronized Map<String, TableState> getTables() {
+        return new LinkedHashMap<>(tables);
+    }
+
+    /**
+     * Gets the state of a table, ignoring case, or null if the table has not been validated yet.
+     */
+    public synchronized TableState getTable(String tableName) {
+        return tables.get(tableName.toLowerCase());
+    }
+
+    public synchronized void putTable(String tableName, TableState state) {
+        tables.put(tableName.toLowerCase(), state);
+    }
+
+    public synchronized void removeTable(String tableName) {
+        tables.remove(tableName.toLowerCase());
+    }
+
+    /**
+     * Outcome of the last validation of one table.
+     */
+    public static final class TableState {
+        private final String watermarkColumn;
+        private final StoredValue sourceWatermark;
+        private final StoredValue targetWatermark;
+        private final long validatedAt;
+        private final List<TrackedDifference> differences;
+
+        @JsonCreator
+        public TableState(@JsonProperty("watermarkColumn") String watermarkColumn,
+                          @JsonProperty("sourceWatermark") StoredValue sourceWatermark,
+                          @JsonProperty("targetWatermark") StoredValue targetWatermark,
+                          @JsonProperty("validatedAt") long validatedAt,
+                          @JsonProperty("differences") List<TrackedDifference> differences) {
+            this.watermarkColumn = watermarkColumn;
+            this.sourceWatermark = sourceWatermark;
+            this.targetWatermark = targetWatermark;
+            this.validatedAt = validatedAt;
+            this.differences = differences != null
+                ? Collections.unmodifiableList(new ArrayList<>(differences)) : Collections.emptyList();
+        }
+
+        public String getWatermarkColumn() { return watermarkColumn; }
+        public StoredValue getSourceWatermark() { return sourceWatermark; }
+        public StoredValue getTargetWatermark() { return targetWatermark; }
+        public long getValidatedAt() { return validatedAt; }
+
+        /** Gets every difference that was outstanding when the table was last validated. */
+        public List<TrackedDifference> getDifferences() { return differences; }
+    }
+
+    /**
+     * Key and kind of one outstanding difference.
+     */
+    public static final class TrackedDifference {
+        private final RowDifference.Type type;
+        private final List<StoredValue> key;
+
+        @JsonCreator
+        public TrackedDifference(@JsonProperty("type") RowDifference.Type type,
+                                 @JsonProperty("key") List<StoredValue> key) {
+            this.type = type;
+            this.key = key != null ? Collections.unmodifiableList(new ArrayList<>(key)) : Collections.emptyList();
+        }
+
+        public static TrackedDifference of(RowDifference difference) {
+            return new TrackedDifference(difference.getType(), StoredValue.ofAll(difference.getKey()));
+        }
+
+        public RowDifference.Type getType() { return type; }
+        public List<StoredValue> getKey() { return key; }
+
+        /**
+         * Converts the key back to the values the key columns were read as.
+         */
+        public Object[] toKey() {
+            return StoredValue.toObjects(key);
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package com.datamigration.framework.analyzer;
+
+/**
+ * Thrown when a side of a merge-join does not return its rows in {@link KeyComparator} order,
+ * typically because the database collation sorts string keys differently.
+ */
+public class KeyOrderException extends IllegalStateException {
+
+    public KeyOrderException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,235 @@
+package com.datamigration.framework.analyzer;
+
+import com.datamigration.framework.config.ConfigurationManager;
+import com.datamigration.framework.connector.DatabaseConnector;
+import com.datamigration.framework.connector.Deadline;
+import com.datamigration.framework.connector.DeadlineExceededException;
+import com.datamigration.framework.connector.TableStatistics;
+import com.datamigration.framework.connector.dialect.SqlDialect;
+import com.datamigration.framework.reporting.ComparisonReportGenerator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Compares table row counts with source and target counts running concurrently.
+ * Each database gets its own worker pool bounded by its {@code maxPoolSize}, and the
+ * largest tables are scheduled first so a big table started last does not set the finish time.
+ * Without caller hints, table sizes come from one catalog statistics query per database, in either
+ * count mode; on dialects without catalog statistics the tables start in the order given.
+ *
+ * <p>With {@code countMode: estimate} the analyzer first reads catalog row estimates for all
+ * tables (one query per database) and only runs an exact {@code COUNT(*)} for tables whose
+ * estimates differ by more than {@code countTolerance}.</p>
+ */
+public class ParallelCountAnalyzer extends ComparisonAnalyzer {
+    private static final Logger logger = LoggerFactory.getLogger(ParallelCountAnalyzer.class);
+
+    private final List<String> tablesToCompare;
+    private final Map<String, Long> tableSizeHints;
+    private final TableCountResult.CountMode countMode;
+    private final double countTolerance;
+
+    public ParallelCountAnalyzer(ConfigurationManager config, List<String> tablesToCompare) {
+        this(config, tablesToCompare, Collections.emptyMap());
+    }
+
+    /**
+     * @param config Configuration manager
+     * @param tablesToCompare Tables to count
+     * @param tableSizeHints Relative table sizes (rows or bytes) used to schedule the largest tables first;
+     *                       when empty, catalog sizes are used
+     */
+    public ParallelCountAnalyzer(ConfigurationManager config, List<String> tablesToCompare,
+                                 Map<String, Long> tableSizeHints) {
+        super(config);
+        ConfigurationManager.ComparisonConfig comparisonConfig = config.getComparisonConfig();
+        this.tablesToCompare = tablesToCompare;
+        this.tableSizeHints = tableSizeHints != null ? tableSizeHints : Collections.emptyMap();
+        this.countMode = "estimate".equalsIgnoreCase(comparisonConfig.getCountMode()) ?
+            TableCountResult.CountMode.CATALOG_ESTIMATE : TableCountResult.CountMode.EXACT;
+        this.countTolerance = comparisonConfig.getCountTolerance();
+    }
+
+    @Override
+    public List<ComparisonReportGenerator.ComparisonResult> compare() throws Exception {
+        List<ComparisonReportGenerator.ComparisonResult> results = new ArrayList<>(countTables());
+
+        reportGenerator.generateComparisonReport(
+            sourceConnector.getDatabaseName(),
+            targetConnector.getDatabaseName(),
+            results,
+            "table_count_comparison_report.html"
+        );
+
+        return results;
+    }
+
+    /**
+     * Counts all tables on both databases and returns the results in the order the tables were given.
+     */
+    public List<TableCountResult> countTables() {
+        Map<String, TableCountResult> results = new HashMap<>();
+        boolean estimate = countMode == TableCountResult.CountMode.CATALOG_ESTIMATE;
+        Map<String, TableStatistics> sourceStats = Collections.emptyMap();
+        Map<String, TableStatistics> targetStats = Collections.emptyMap();
+        if (estimate || tableSizeHints.isEmpty()) {
+            sourceStats = loadStatistics(sourceConnector);
+            targetStats = loadStatistics(targetConnector);
+        }
+
+        List<String> exactTables = estimate ? new ArrayList<>() : tablesToCompare;
+        Map<String, Long> catalogSizes = new HashMap<>();
+        for (String tableName : tablesToCompare) {
+            TableStatistics source = sourceStats.get(tableName.toLowerCase());
+            TableStatistics target = targetStats.get(tableName.toLowerCase());
+            if (source != null || target != null) {
+                catalogSizes.put(tableName, Math.max(catalogSize(source), catalogSize(target)));
+            }
+            if (!estimate) {
+                continue;
+            }
+            if (withinTolerance(source, target)) {
+                results.put(tableName, new TableCountResult(tableName, source.getRowCount(),
+                    target.getRowCount(), TableCountResult.CountMode.CATALOG_ESTIMATE));
+            } else {
+                exactTables.add(tableName);
+            }
+        }
+        if (estimate) {
+            logger.info("Catalog estimates agree for {} of {} tables, counting {} exactly",
+                results.size(), tablesToCompare.size(), exactTables.size());
+        }
+        Map<String, Long> sizeHints = tableSizeHints.isEmpty() ? catalogSizes : tableSizeHints;
+
+        if (!exactTables.isEmpty()) {
+            for (TableCountResult result : countExactly(exactTables, sizeHints)) {
+                results.put(result.getItemName(), result);
+            }
+        }
+
+        List<TableCountResult> ordered = new ArrayList<>();
+        for (String tableName : tablesToCompare) {
+            TableCountResult result = results.get(tableName);
+            ordered.add(result);
+            logger.info("Table: {} | Source: {} | Target: {} | Match: {} ({})", tableName,
+                result.getSourceCount(), result.getTargetCount(), result.isMatch() ? "✓" : "✗",
+                result.getDetails());
+        }
+        return ordered;
+    }
+
+    private List<TableCountResult> countExactly(List<String> tables, Map<String, Long> sizeHints) {
+        ExecutorService sourcePool = newWorkerPool("source-count", sourceConnector.getMaxPoolSize());
+        ExecutorService targetPool = newWorkerPool("target-count", targetConnector.getMaxPoolSize());
+        try {
+            Map<String, CompletableFuture<Long>> sourceCounts = new HashMap<>();
+            Map<String, CompletableFuture<Long>> targetCounts = new HashMap<>();
+            for (String tableName : scheduleOrder(tables, sizeHints)) {
+                sourceCounts.put(tableName, CompletableFuture.supplyAsync(
+                    () -> countRows(sourceConnector, tableName), sourcePool));
+                targetCounts.put(tableName, CompletableFuture.supplyAsync(
+                    () -> countRows(targetConnector, tableName), targetPool));
+            }
+
+            List<TableCountResult> results = new ArrayList<>();
+            for (String tableName : tables) {
+                CompletableFuture<Long> sourceCount = sourceCounts.get(tableName);
+                CompletableFuture<Long> targetCount = targetCounts.get(tableName);
+                TableCountResult result = new TableCountResult(tableName, joinCount(sourceCount), joinCount(targetCount));
+                result.setTimedOut(sourceCount.isCompletedExceptionally() || targetCount.isCompletedExceptionally());
+                results.add(result);
+            }
+            return results;
+        } finally {
+            sourcePool.shutdownNow();
+            targetPool.shutdownNow();
+        }
+    }
+
+    /**
+     * Checks whether both catalog estimates exist and differ by at most the tolerance,
+     * relative to the larger of the two.
+     */
+    private boolean withinTolerance(TableStatistics source, TableStatistics target) {
+        if (source == null || target == null || !source.hasRowCount() || !target.hasRowCount()) {
+            return false;
+        }
+        long larger = Math.max(source.getRowCount(), target.getRowCount());
+        long difference = Math.abs(source.getRowCount() - target.getRowCount());
+        return difference <= larger * countTolerance;
+    }
+
+    /**
+     * Loads catalog statistics keyed by lower-case table name and schema-qualified name,
+     * or none if the dialect has no catalog statistics.
+     */
+    private Map<String, TableStatistics> loadStatistics(DatabaseConnector connector) {
+        Map<String, TableStatistics> statistics = new HashMap<>();
+        if (!connector.getDialect().supports(SqlDialect.Capability.CATALOG_STATISTICS)) {
+            return statistics;
+        }
+        try {
+            for (TableStatistics table : connector.getCatalogTableStatistics()) {
+                statistics.putIfAbsent(table.getName().toLowerCase(), table);
+                statistics.put(table.getQualifiedName().toLowerCase(), table);
+            }
+        } catch (Exception e) {
+            logger.warn("Could not read {} catalog statistics: {}", connector.getDatabaseType(), e.getMessage());
+        }
+        return statistics;
+    }
+
+    /**
+     * Gets the size of a table for scheduling: its size in bytes, or its estimated row count
+     * on catalogs that report no sizes.
+     */
+    private static long catalogSize(TableStatistics statistics) {
+        if (statistics == null) {
+            return -1;
+        }
+        return statistics.getSizeBytes() > 0 ? statistics.getSizeBytes() : statistics.getRowCount();
+    }
+
+    /**
+     * Orders tables largest first by their size hint.
+     */
+    private static List<String> scheduleOrder(List<String> tables, Map<String, Long> sizeHints) {
+        List<String> order = new ArrayList<>(tables);
+        order.sort(Comparator.comparingLong((String table) -> sizeHints.getOrDefault(table, -1L)).reversed());
+        return order;
+    }
+
+    /**
+     * Counts one side of a table within a table deadline started when the task runs. A failed count
+     * returns -1, a timed out one completes the task exceptionally.
+     */
+    private long countRows(DatabaseConnector connector, String tableName) {
+        Deadline deadline = startTableDeadline("table " + tableName);
+        try (Deadline.Scope ignored = deadline.bind()) {
+            return connector.getTableRowCount(tableName);
+        } catch (Exception e) {
+            if (DeadlineExceededException.isCause(e, deadline)) {
+                logger.warn("{} count for table {} timed out: {}", connector.getDatabaseType(), tableName,
+                    e.getMessage());
+                throw new CompletionException(new DeadlineExceededException(deadline,
+                    connector.getDatabaseType() + " count"));
+            }
+            logger.error("Error getting {} count for table {}: {}", connector.getDatabaseType(), tableName, e.getMessage());
+            return -1;
+        }
+    }
+
+    private static long joinCount(CompletableFuture<Long> count) {
+        return count.exceptionally(e -> -1L).join();
+    }
+}
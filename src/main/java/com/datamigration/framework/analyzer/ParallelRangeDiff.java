@@ -0,0 +1,289 @@
+package com.datamigration.framework.analyzer;
+
+import com.datamigration.framework.connector.DatabaseConnector;
+import com.datamigration.framework.connector.Deadline;
+import com.datamigration.framework.connector.KeyRange;
+import com.datamigration.framework.connector.KeysetCursor;
+import com.datamigration.framework.connector.UncheckedSQLException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Diffs one table with several threads, each merge-joining its own primary-key range.
+ *
+ * <p>The key space is split into {@code threads * PARTITIONS_PER_THREAD} ranges. A single
+ * integer key is split evenly between its minimum and maximum, which costs one index lookup;
+ * other keys are split into ranges of equal row counts with {@link DatabaseConnector#getKeyBoundaries}.
+ * Ranges run as tasks in a work-stealing pool, and an integer range that is about to be scanned
+ * while other workers are idle forks off its upper half first, so a dense range of skewed keys
+ * is shared out instead of setting the finish time.</p>
+ *
+ * <p>Each range reads with its own cursors, so every worker holds its own source and target
+ * connections. Partial results are merged into the table result as ranges finish, which means
+ * the kept sample differences are not in key order.</p>
+ *
+ * <p>With a {@link CheckpointJournal}, each range is checkpointed while it runs and when it
+ * completes, planned ranges are clipped to the parts not completed by an earlier run, and the
+ * table result is assembled from the journal in key order.</p>
+ *
+ * <p>When a range fails, the other ranges stop before their next page, and {@link #diff} waits
+ * for all of them before it throws, so no range writes to the journal or calls the listener
+ * after it has returned.</p>
+ */
+class ParallelRangeDiff {
+    private static final Logger logger = LoggerFactory.getLogger(ParallelRangeDiff.class);
+
+    /** Ranges created per worker, so that uneven ranges can be balanced by stealing. */
+    private static final int PARTITIONS_PER_THREAD = 4;
+
+    private final DatabaseConnector sourceConnector;
+    private final DatabaseConnector targetConnector;
+    private final ColumnMapping mapping;
+    private final ValueComparator comparator;
+    private final RowMergeDiff.RowDiffListener listener;
+    private final int pageSize;
+    private final int threads;
+    private final CheckpointJournal journal;
+    private final long checkpointIntervalNanos;
+    private final AtomicInteger rangesDiffed = new AtomicInteger();
+    /** Set when a range fails, so the cursors of the other ranges stop before their next page. */
+    private final AtomicBoolean cancelled = new AtomicBoolean();
+    /** Deadline of the calling thread, bound again in each range task since forked tasks do not inherit it. */
+    private Deadline deadline = Deadline.unbounded();
+
+    /**
+     * @param comparator Comparator of the value columns, shared by all ranges
+     * @param listener Optional listener; called from several threads at once
+     * @param threads Number of ranges scanned concurrently
+     * @param journal Optional journal to checkpoint ranges in and resume from
+     * @param checkpointIntervalNanos Time between checkpoints of a running range
+     */
+    ParallelRangeDiff(DatabaseConnector sourceConnector, DatabaseConnector targetConnector, ColumnMapping mapping,
+                      ValueComparator comparator, RowMergeDiff.RowDiffListener listener, int pageSize, int threads,
+                      CheckpointJournal journal, long checkpointIntervalNanos) {
+        this.sourceConnector = sourceConnector;
+        this.targetConnector = targetConnector;
+        this.mapping = mapping;
+        this.comparator = comparator;
+        this.listener = listener;
+        this.pageSize = pageSize;
+        this.threads = threads;
+        this.journal = journal;
+        this.checkpointIntervalNanos = checkpointIntervalNanos;
+    }
+
+    /**
+     * Diffs the whole table and records the outcome into {@code result}.
+     *
+     * @param estimatedRows Source row count used to size ranges of non-integer keys
+     */
+    void diff(RowDiffResult result, long estimatedRows) throws SQLException {
+        deadline = Deadline.current();
+        List<RangeTask> planned = partition(result, estimatedRows);
+        List<RangeTask> tasks = journal != null ? remainingTasks(planned, result) : planned;
+        logger.info("Table {}: diffing {} key ranges on {} threads", mapping.getTableName(), tasks.size(), threads);
+
+        ForkJoinPool pool = ComparisonExecutors.newWorkStealingPool("range-diff", threads);
+        try {
+            pool.invoke(new RecursiveAction() {
+                @Override
+                protected void compute() {
+                    for (RangeTask task : tasks) {
+                        task.fork();
+                    }
+                    RuntimeException failure = joinAll(tasks, null);
+                    if (failure != null) {
+                        throw failure;
+                    }
+                }
+            });
+        } catch (UncheckedSQLException e) {
+            throw e.getCause();
+        } finally {
+            pool.shutdownNow();
+        }
+        logger.info("Table {}: {} key ranges diffed", mapping.getTableName(), rangesDiffed.get());
+        if (journal != null) {
+            result.merge(journal.assembleTable(mapping.getTableName(), result.getMaxRecordedDifferences()));
+        }
+    }
+
+    /**
+     * Drops planned ranges completed by an earlier run and clips partly completed ones to their remaining parts.
+     */
+    private List<RangeTask> remainingTasks(List<RangeTask> planned, RowDiffResult result) {
+        String tableName = mapping.getTableName();
+        List<RangeTask> tasks = new ArrayList<>();
+        for (RangeTask task : planned) {
+            if (journal.isUntouched(tableName, task.range)) {
+                tasks.add(task);
+                continue;
+            }
+            for (KeyRange remaining : journal.remainingRanges(tableName, task.range)) {
+                tasks.add(new RangeTask(result, remaining));
+            }
+        }
+        if (tasks.size() < planned.size()) {
+            logger.info("Table {}: resuming with {} of {} key ranges", tableName, tasks.size(), planned.size());
+        }
+        return tasks;
+    }
+
+    private List<RangeTask> partition(RowDiffResult result, long estimatedRows) throws SQLException {
+        String tableName = mapping.getTableName();
+        int partitions = Math.max(1, threads * PARTITIONS_PER_THREAD);
+        List<RangeTask> tasks = new ArrayList<>();
+
+        if (mapping.getSourceKeyColumns().size() == 1) {
+            Object[] extent = sourceConnector.getKeyExtent(tableName, mapping.getSourceKeyColumns().get(0));
+            if (isIntegral(extent[0]) && isIntegral(extent[1])) {
+                long min = ((Number) extent[0]).longValue();
+                long max = ((Number) extent[1]).longValue();
+                Object sample = extent[0];
+                long step = Math.max(1, (long) (((double) max - min) / partitions) + 1);
+                Object[] lower = null;
+                long low = min - 1;
+                for (int i = 1; i < partitions && low + step < max; i++) {
+                    long high = low + step;
+                    Object[] upper = {integralKey(high, sample)};
+                    tasks.add(new RangeTask(result, new KeyRange(lower, upper), low, high, sample));
+                    lower = upper;
+                    low = high;
+                }
+                tasks.add(new RangeTask(result, new KeyRange(lower, null), low, max, sample));
+                return tasks;
+            }
+        }
+
+        long rowsPerRange = Math.max(pageSize, (estimatedRows + partitions - 1) / partitions);
+        Object[] lower = null;
+        for (Object[] boundary : sourceConnector.getKeyBoundaries(tableName, mapping.getSourceKeyColumns(),
+                KeyRange.ALL, rowsPerRange)) {
+            tasks.add(new RangeTask(result, new KeyRange(lower, boundary)));
+            lower = boundary;
+        }
+        tasks.add(new RangeTask(result, new KeyRange(lower, null)));
+        return tasks;
+    }
+
+    private void diffRange(KeyRange range, RowDiffResult result) throws SQLException {
+        String tableName = mapping.getTableName();
+        RowDiffResult partial = new RowDiffResult(tableName, result.getMaxRecordedDifferences());
+        RowMergeDiff mergeDiff = new RowMergeDiff(tableName, mapping.getSourceColumns(),
+            mapping.getSourceKeyColumns().size(), listener, comparator);
+        RangeCheckpointer checkpointer = journal != null
+            ? new RangeCheckpointer(journal, tableName, range, partial, checkpointIntervalNanos) : null;
+        try (KeysetCursor source = new KeysetCursor(sourceConnector, tableName,
+                 mapping.getSourceKeyColumns(), mapping.getSourceValueColumns(), range, pageSize).stopWhen(cancelled);
+             KeysetCursor target = new KeysetCursor(targetConnector, tableName,
+                 mapping.getTargetKeyColumns(), mapping.getTargetValueColumns(), range, pageSize).stopWhen(cancelled)) {
+            mergeDiff.diff(source, target, partial, checkpointer);
+        }
+        if (checkpointer != null) {
+            checkpointer.complete();
+        } else {
+            result.merge(partial);
+        }
+        rangesDiffed.incrementAndGet();
+        logger.debug("Range {} of {} diffed: {}", range, tableName, partial);
+    }
+
+    /**
+     * Waits for every task, including failed ones' siblings, and returns the failure to rethrow: the first
+     * one that is not the cancellation of a range stopped because of another failure.
+     */
+    private static RuntimeException joinAll(List<RangeTask> tasks, RuntimeException failure) {
+        for (RangeTask task : tasks) {
+            try {
+                task.join();
+            } catch (RuntimeException e) {
+                if (failure == null || failure instanceof CancellationException) {
+                    failure = e;
+                }
+            }
+        }
+        return failure;
+    }
+
+    private static boolean isIntegral(Object value) {
+        return value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte;
+    }
+
+    /**
+     * Converts a split point back to the JDBC type the key column was read as.
+     */
+    private static Object integralKey(long value, Object sample) {
+        if (sample instanceof Long) {
+            return value;
+        }
+        return (int) value;
+    }
+
+    /**
+     * Diffs one key range. Integer ranges {@code (low, high]} split themselves while the pool has idle workers.
+     */
+    private class RangeTask extends RecursiveAction {
+        private final RowDiffResult result;
+        private final KeyRange range;
+        private final long low;
+        private final long high;
+        private final Object sample;
+
+        RangeTask(RowDiffResult result, KeyRange range) {
+            this(result, range, 0, 0, null);
+        }
+
+        RangeTask(RowDiffResult result, KeyRange range, long low, long high, Object sample) {
+            this.result = result;
+            this.range = range;
+            this.low = low;
+            this.high = high;
+            this.sample = sample;
+        }
+
+        @Override
+        protected void compute() {
+            if (cancelled.get()) {
+                return;
+            }
+            KeyRange remaining = range;
+            long remainingHigh = high;
+            List<RangeTask> forked = new ArrayList<>();
+            while (sample != null && remainingHigh - low > 2L * pageSize && getSurplusQueuedTaskCount() <= 0) {
+                long middle = low + (remainingHigh - low) / 2;
+                Object[] split = {integralKey(middle, sample)};
+                RangeTask upperHalf = new RangeTask(result, new KeyRange(split, remaining.getUpperInclusive()),
+                    middle, remainingHigh, sample);
+                upperHalf.fork();
+                forked.add(upperHalf);
+                remaining = new KeyRange(remaining.getLowerExclusive(), split);
+                remainingHigh = middle;
+            }
+
+            RuntimeException failure = null;
+            try (Deadline.Scope ignored = deadline.bind()) {
+                diffRange(remaining, result);
+            } catch (SQLException e) {
+                failure = new UncheckedSQLException(e);
+            } catch (RuntimeException e) {
+                failure = e;
+            }
+            if (failure != null && !(failure instanceof CancellationException)) {
+                cancelled.set(true);
+            }
+            failure = joinAll(forked, failure);
+            if (failure != null) {
+                throw failure;
+            }
+        }
+    }
+}
@@ -0,0 +1,274 @@
+package com.datamigration.framework.analyzer;
+
+import com.datamigration.framework.config.ConfigurationManager;
+import com.datamigration.framework.reporting.ComparisonReportGenerator;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Outcome of comparing the results of one source/target query pair.
+ * Exposes the properties read by {@code database_comparison_report.ftl} and
+ * {@code customer_association_report.ftl}. Row counts are exact; at most
+ * {@code maxReportedDifferences} mismatching values are kept as details.
+ */
+public class QueryComparisonResult implements ComparisonReportGenerator.ComparisonResult {
+
+    /**
+     * Verdict of a query pair, as shown in the reports.
+     */
+    public enum Status {
+        PASS, FAIL, ERROR, TIMED_OUT
+    }
+
+    private final int queryNumber;
+    private final String queryName;
+    private final String tableName;
+    private final String customer;
+    private final String query;
+    private final String targetQuery;
+    private final int maxReportedDifferences;
+    private final List<MismatchDetail> mismatchDetails = new ArrayList<>();
+    private final Set<String> mismatchedColumns = new LinkedHashSet<>();
+    private long sourceRowCount;
+    private long targetRowCount;
+    private long missingInTarget;
+    private long extraInTarget;
+    private long changedRows;
+    private String error;
+    private boolean timedOut;
+
+    public QueryComparisonResult(int queryNumber, ConfigurationManager.QueryPairConfig pair, int maxReportedDifferences) {
+        this(queryNumber, pair, pair.getCustomer(), maxReportedDifferences);
+    }
+
+    /**
+     * @param customer Customer the compared rows belong to, or null
+     */
+    public QueryComparisonResult(int queryNumber, ConfigurationManager.QueryPairConfig pair, String customer,
+                                 int maxReportedDifferences) {
+        this.queryNumber = queryNumber;
+        this.queryName = pair.getName() != null ? pair.getName() : "Query " + queryNumber;
+        this.tableName = pair.getTableName() != null ? pair.getTableName() : queryName;
+        this.customer = customer;
+        this.query = pair.getSourceQuery();
+        this.targetQuery = pair.getTargetQuery();
+        this.maxReportedDifferences = maxReportedDifferences;
+    }
+
+    /**
+     * Records a source row that has no counterpart in the target result.
+     *
+     * @param rowNumber One-based position of the row in the source result
+     */
+    void recordMissingInTarget(long rowNumber, Object row) {
+        missingInTarget++;
+        addDetail(new MismatchDetail(rowNumber, "(row)", String.valueOf(row), "(no row)", null));
+    }
+
+    /**
+     * Records a target row that has no counterpart in the source result.
+     *
+     * @param rowNumber One-based position of the row in the target result
+     */
+    void recordExtraInTarget(long rowNumber, Object row) {
+        extraInTarget++;
+        addDetail(new MismatchDetail(rowNumber, "(row)", "(no row)", String.valueOf(row), null));
+    }
+
+    /**
+     * Records the differing values of a pair of matched rows.
+     *
+     * @param rowNumber One-based position of the row in the source result
+     */
+    void recordChanged(long rowNumber, List<String> columns, List<Object> sourceValues, List<Object> targetValues) {
+        changedRows++;
+        mismatchedColumns.addAll(columns);
+        for (int i = 0; i < columns.size(); i++) {
+            Object source = sourceValues.get(i);
+            Object target = targetValues.get(i);
+            addDetail(new MismatchDetail(rowNumber, columns.get(i), String.valueOf(source), String.valueOf(target),
+                numericDifference(source, target)));
+        }
+    }
+
+    /**
+     * Counts one more source row.
+     *
+     * @return The one-based position of the row in the source result
+     */
+    long countSourceRow() {
+        return ++sourceRowCount;
+    }
+
+    /**
+     * Counts one more target row.
+     *
+     * @return The one-based position of the row in the target result
+     */
+    long countTargetRow() {
+        return ++targetRowCount;
+    }
+
+    void setError(String error) {
+        this.error = error;
+    }
+
+    /**
+     * Marks the comparison as stopped by its deadline; the counts cover only the rows read before.
+     */
+    void setTimedOut(String error) {
+        this.error = error;
+        this.timedOut = true;
+    }
+
+    private void addDetail(MismatchDetail detail) {
+        if (mismatchDetails.size() < maxReportedDifferences) {
+            mismatchDetails.add(detail);
+        }
+    }
+
+    private static String numericDifference(Object source, Object target) {
+        if (!(source instanceof Number) || !(target instanceof Number)) {
+            return null;
+        }
+        BigDecimal difference = KeyComparator.toBigDecimal((Number) target)
+            .subtract(KeyComparator.toBigDecimal((Number) source));
+        return (difference.signum() > 0 ? "+" : "") + difference.toPlainString();
+    }
+
+    public int getQueryNumber() { return queryNumber; }
+    public String getQueryName() { return queryName; }
+    public String getTableName() { return tableName; }
+    public String getCustomer() { return customer; }
+
+    /** Gets the source query. */
+    public String getQuery() { return query; }
+    public String getTargetQuery() { return targetQuery; }
+    public long getSourceRowCount() { return sourceRowCount; }
+    public long getTargetRowCount() { return targetRowCount; }
+    public long getMissingInTarget() { return missingInTarget; }
+    public long getExtraInTarget() { return extraInTarget; }
+    public long getChangedRows() { return changedRows; }
+    public String getError() { return error; }
+
+    /** Gets the number of rows missing, extra or changed in the target. */
+    public long getMismatchedRows() {
+        return missingInTarget + extraInTarget + changedRows;
+    }
+
+    /** Gets the columns with at least one changed value, in the order they were found. */
+    public List<String> getMismatchedColumns() {
+        return new ArrayList<>(mismatchedColumns);
+    }
+
+    public List<MismatchDetail> getMismatchDetails() {
+        return Collections.unmodifiableList(mismatchDetails);
+    }
+
+    /**
+     * Named for the {@code hasDifferences} template property.
+     */
+    public boolean isHasDifferences() {
+        return getMismatchedRows() > 0;
+    }
+
+    /**
+     * Describes the kept mismatch details, one line each, followed by a note if some were dropped.
+     */
+    public List<String> getDifferences() {
+        List<String> differences = new ArrayList<>();
+        for (MismatchDetail detail : mismatchDetails) {
+            differences.add(detail.toString());
+        }
+        if (isHasDifferences() && mismatchDetails.size() == maxReportedDifferences) {
+            differences.add(String.format("... %d missing, %d extra and %d changed rows in total",
+                missingInTarget, extraInTarget, changedRows));
+        }
+        return differences;
+    }
+
+    public Status getStatus() {
+        if (timedOut) {
+            return Status.TIMED_OUT;
+        }
+        if (error != null) {
+            return Status.ERROR;
+        }
+        return isHasDifferences() ? Status.FAIL : Status.PASS;
+    }
+
+    @Override
+    public String getItemName() {
+        return queryName;
+    }
+
+    @Override
+    public Object getSourceValue() {
+        return sourceRowCount;
+    }
+
+    @Override
+    public Object getTargetValue() {
+        return targetRowCount;
+    }
+
+    @Override
+    public boolean isMatch() {
+        return getStatus() == Status.PASS;
+    }
+
+    @Override
+    public boolean isTimedOut() {
+        return timedOut;
+    }
+
+    @Override
+    public String getDetails() {
+        if (error != null) {
+            return (timedOut ? "Timed out: " : "Error: ") + error;
+        }
+        if (!isHasDifferences()) {
+            return "Results are identical";
+        }
+        return String.format("%d rows missing, %d extra, %d changed in %s",
+            missingInTarget, extraInTarget, changedRows, mismatchedColumns.isEmpty() ? "no columns" : mismatchedColumns);
+    }
+
+    /**
+     * One mismatching value, or a whole row present on one side only.
+     */
+    public static class MismatchDetail {
+        private final long rowNumber;
+        private final String columnName;
+        private final String sourceValue;
+        private final String targetValue;
+        private final String difference;
+
+        public MismatchDetail(long rowNumber, String columnName, String sourceValue, String targetValue,
+                              String difference) {
+            this.rowNumber = rowNumber;
+            this.columnName = columnName;
+            this.sourceValue = sourceValue;
+            this.targetValue = targetValue;
+            this.difference = difference;
+        }
+
+        public long getRowNumber() { return rowNumber; }
+        public String getColumnName() { return columnName; }
+        public String getSourceValue() { return sourceValue; }
+        public String getTargetValue() { return targetValue; }
+
+        /** Gets target minus source for numeric values, or null. */
+        public String getDifference() { return difference; }
+
+        @Override
+        public String toString() {
+            return String.format("Row %d %s: %s -> %s", rowNumber, columnName, sourceValue, targetValue);
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package com.datamigration.framework.analyzer;
+
+import com.datamigration.framework.config.ConfigurationManager;
+import com.datamigration.framework.connector.DatabaseConnector;
+import com.datamigration.framework.connector.Deadline;
+import com.datamigration.framework.connector.DeadlineExceededException;
+import com.datamigration.framework.reporting.ComparisonReportGenerator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Runs custom validation queries from the {@code queryPairs} configuration and compares the
+ * result of each source query with that of its target query.
+ *
+ * <p>Up to {@code queryPairThreads} pairs are compared at once on a shared worker pool, bounded by
+ * the connection pool size of both databases. The two queries of a pair execute concurrently and
+ * their results are streamed side by side, so only the current row of each side is held in memory.
+ * Rows are matched by position, or, if the pair names {@code keyColumns}, merge-joined on those
+ * columns so a missing row does not shift every row after it. Either way both queries need an
+ * {@code ORDER BY}, on the key columns in the keyed case.</p>
+ *
+ * <p>The report is rendered with {@code database_comparison_report.ftl}.</p>
+ */
+public class QueryPairAnalyzer extends ComparisonAnalyzer {
+    private static final Logger logger = LoggerFactory.getLogger(QueryPairAnalyzer.class);
+
+    private final List<ConfigurationManager.QueryPairConfig> queryPairs;
+    private final int threads;
+    private final int maxReportedDifferences;
+
+    public QueryPairAnalyzer(ConfigurationManager config) {
+        this(config, config.getQueryPairs());
+    }
+
+    /**
+     * @param config Configuration manager
+     * @param queryPairs Query pairs to compare, numbered in list order
+     */
+    public QueryPairAnalyzer(ConfigurationManager config, List<ConfigurationManager.QueryPairConfig> queryPairs) {
+        super(config);
+        ConfigurationManager.ComparisonConfig comparisonConfig = config.getComparisonConfig();
+        this.queryPairs = queryPairs;
+        this.threads = Math.min(comparisonConfig.getQueryPairThreads(),
+            Math.min(sourceConnector.getMaxPoolSize(), targetConnector.getMaxPoolSize()));
+        this.maxReportedDifferences = comparisonConfig.getMaxReportedDifferences();
+    }
+
+    @Override
+    public List<ComparisonReportGenerator.ComparisonResult> compare() throws Exception {
+        List<QueryComparisonResult> results = compareQueries();
+        generateReport(results);
+        return new ArrayList<>(results);
+    }
+
+    /**
+     * Compares all query pairs and returns the results in configuration order.
+     */
+    public List<QueryComparisonResult> compareQueries() {
+        logger.info("Comparing {} query pairs on {} workers", queryPairs.size(), threads);
+        ExecutorService workers = newWorkerPool("query-pair", threads);
+        ExecutorService targetQueries = newWorkerPool("target-query", threads);
+        try {
+            List<CompletableFuture<QueryComparisonResult>> futures = new ArrayList<>();
+            for (int i = 0; i < queryPairs.size(); i++) {
+                int queryNumber = i + 1;
+                ConfigurationManager.QueryPairConfig pair = queryPairs.get(i);
+                futures.add(CompletableFuture.supplyAsync(
+                    () -> comparePair(queryNumber, pair, targetQueries), workers));
+            }
+
+            List<QueryComparisonResult> results = new ArrayList<>();
+            for (CompletableFuture<QueryComparisonResult> future : futures) {
+                QueryComparisonResult result = future.join();
+                results.add(result);
+                logger.info("Query {}: {} | Source: {} | Target: {} | {}", result.getQueryNumber(),
+                    result.getQueryName(), result.getSourceRowCount(), result.getTargetRowCount(), result.getDetails());
+            }
+            return results;
+        } finally {
+            workers.shutdownNow();
+            targetQueries.shutdownNow();
+        }
+    }
+
+    /**
+     * Compares a single query pair. The target query is started on {@code targetQueries} while
+     * the source query executes on the calling thread.
+     */
+    private QueryComparisonResult comparePair(int queryNumber, ConfigurationManager.QueryPairConfig pair,
+                                              Executor targetQueries) {
+        QueryComparisonResult result = new QueryComparisonResult(queryNumber, pair, maxReportedDifferences);
+        if (pair.getSourceQuery() == null) {
+            result.setError("No sourceQuery configured");
+            return result;
+        }
+        Deadline deadline = startTableDeadline("query " + result.getQueryName());
+        try (Deadline.Scope ignored = deadline.bind()) {
+            new ResultStreamDiff(sourceConnector, targetConnector, targetQueries).diff(pair.getSourceQuery(),
+                pair.getTargetQuery(), DatabaseConnector::streamRows, null, pair.getKeyColumns(), group -> result);
+        } catch (RuntimeException e) {
+            if (DeadlineExceededException.isCause(e, deadline)) {
+                logger.warn("Query {} ({}) timed out: {}", queryNumber, result.getQueryName(), e.getMessage());
+                result.setTimedOut(e.getMessage());
+            } else {
+                logger.error("Error comparing query {} ({}): {}", queryNumber, result.getQueryName(), e.getMessage());
+                result.setError(e.getMessage());
+            }
+        }
+        return result;
+    }
+
+    private void generateReport(List<QueryComparisonResult> results) throws IOException {
+        writeReport(reportGenerator, sourceConnector.getDatabaseName(), targetConnector.getDatabaseName(), results,
+            "database_comparison_report.html");
+    }
+
+    /**
+     * Renders query comparison results with {@code database_comparison_report.ftl}, falling back
+     * to the simple comparison report if the template cannot be processed.
+     */
+    static void writeReport(ComparisonReportGenerator reportGenerator, String sourceName, String targetName,
+                            List<QueryComparisonResult> results, String outputFileName) throws IOException {
+        long passed = results.stream().filter(r -> r.getStatus() == QueryComparisonResult.Status.PASS).count();
+        long failed = results.stream().filter(r -> r.getStatus() == QueryComparisonResult.Status.FAIL).count();
+        long errors = results.size() - passed - failed;
+
+        Map<String, Object> dataModel = reportGenerator.createBaseDataModel();
+        dataModel.put("reportTitle", "Database Comparison Report");
+        dataModel.put("sourceDatabase", sourceName);
+        dataModel.put("targetDatabase", targetName);
+        dataModel.put("totalQueries", results.size());
+        dataModel.put("passedQueries", passed);
+        dataModel.put("failedQueries", failed);
+        dataModel.put("errorQueries", errors);
+        dataModel.put("passRate", String.format("%.1f%%", results.isEmpty() ? 0.0 : passed * 100.0 / results.size()));
+        dataModel.put("queryResults", results);
+
+        try {
+            reportGenerator.generateReport("database_comparison_report.ftl", outputFileName, dataModel);
+        } catch (Exception e) {
+            logger.warn("Template-based query report generation failed, generating simple HTML report", e);
+            reportGenerator.generateComparisonReport(sourceName, targetName, results, outputFileName);
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package com.datamigration.framework.analyzer;
+
+import com.datamigration.framework.connector.KeyRange;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+/**
+ * Writes checkpoints of one key range while it is merge-joined: the part diffed so far every
+ * {@code intervalNanos}, and the whole range once it is done.
+ */
+class RangeCheckpointer implements RowMergeDiff.ProgressListener {
+    private final CheckpointJournal journal;
+    private final String tableName;
+    private final KeyRange range;
+    private final RowDiffResult partial;
+    private final long intervalNanos;
+    private long lastCheckpoint = System.nanoTime();
+
+    /**
+     * @param partial Result the range is diffed into; holds no row counts until the diff finishes
+     */
+    RangeCheckpointer(CheckpointJournal journal, String tableName, KeyRange range, RowDiffResult partial,
+                      long intervalNanos) {
+        this.journal = journal;
+        this.tableName = tableName;
+        this.range = range;
+        this.partial = partial;
+        this.intervalNanos = intervalNanos;
+    }
+
+    @Override
+    public void onProgress(Object[] lastKey, long sourceRows, long targetRows) {
+        long now = System.nanoTime();
+        if (now - lastCheckpoint < intervalNanos) {
+            return;
+        }
+        RowDiffResult snapshot = new RowDiffResult(tableName, partial.getMaxRecordedDifferences());
+        snapshot.merge(partial);
+        snapshot.addRowCounts(sourceRows, targetRows);
+        record(new KeyRange(range.getLowerExclusive(), lastKey), snapshot);
+        lastCheckpoint = now;
+    }
+
+    /**
+     * Records the whole range after its diff has finished.
+     */
+    void complete() {
+        record(range, partial);
+    }
+
+    private void record(KeyRange done, RowDiffResult result) {
+        try {
+            journal.recordRange(tableName, done, result);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not write checkpoint to " + journal.getFile(), e);
+        }
+    }
+}
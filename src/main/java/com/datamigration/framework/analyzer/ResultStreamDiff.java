@@ -0,0 +1,214 @@
+package com.datamigration.framework.analyzer;
+
+import com.datamigration.framework.connector.DatabaseConnector;
+import com.datamigration.framework.connector.Row;
+import com.datamigration.framework.connector.UncheckedSQLException;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * Compares the results of a source and a target query while streaming both side by side, holding
+ * only the current row of each. Shared by {@link QueryPairAnalyzer} and
+ * {@link CustomerValidationAnalyzer}.
+ *
+ * <p>Rows are merge-joined on an optional group column followed by the key columns. Rows with equal
+ * merge keys are matched by position, so without any key columns whole results are matched by
+ * position, and with only a group column the rows of each group are. Differences and row counts
+ * are recorded into the result of the row's group.</p>
+ */
+class ResultStreamDiff {
+
+    /**
+     * Opens the streamed result of a query on one database.
+     */
+    @FunctionalInterface
+    interface QueryOpener {
+        Stream<Row> open(DatabaseConnector connector, String sql) throws SQLException;
+    }
+
+    private final DatabaseConnector sourceConnector;
+    private final DatabaseConnector targetConnector;
+    private final Executor targetQueries;
+
+    /**
+     * @param targetQueries Executor the target query is started on while the source query runs
+     *                      on the calling thread
+     */
+    ResultStreamDiff(DatabaseConnector sourceConnector, DatabaseConnector targetConnector, Executor targetQueries) {
+        this.sourceConnector = sourceConnector;
+        this.targetConnector = targetConnector;
+        this.targetQueries = targetQueries;
+    }
+
+    /**
+     * Runs both queries concurrently and diffs their results to exhaustion.
+     *
+     * @param groupColumn Result column whose value selects the result a row is recorded in, or null
+     * @param keyColumns Result columns rows are matched by within a group; may be empty
+     * @param results Gets the result for a group value, or for null without a group column
+     * @throws RuntimeException If a query fails or a result is not ordered by its merge key;
+     *                          the message describes the problem
+     */
+    void diff(String sourceSql, String targetSql, QueryOpener opener, String groupColumn, List<String> keyColumns,
+              Function<Object, QueryComparisonResult> results) {
+        CompletableFuture<Stream<Row>> pendingTarget = CompletableFuture.supplyAsync(
+            () -> open(opener, targetConnector, targetSql), targetQueries);
+        Stream<Row> target = null;
+        try (Stream<Row> source = open(opener, sourceConnector, sourceSql)) {
+            try {
+                target = pendingTarget.join();
+            } catch (CompletionException e) {
+                throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : e;
+            }
+            List<String> mergeColumns = new ArrayList<>();
+            if (groupColumn != null) {
+                mergeColumns.add(groupColumn);
+            }
+            mergeColumns.addAll(keyColumns);
+            merge(source.iterator(), target.iterator(), mergeColumns, groupColumn != null, !keyColumns.isEmpty(),
+                results);
+        } finally {
+            if (target != null) {
+                target.close();
+            } else {
+                pendingTarget.thenAccept(Stream::close);
+            }
+        }
+    }
+
+    private static Stream<Row> open(QueryOpener opener, DatabaseConnector connector, String sql) {
+        try {
+            return opener.open(connector, sql);
+        } catch (SQLException e) {
+            throw new UncheckedSQLException(e);
+        }
+    }
+
+    /**
+     * @param grouped Whether the first merge column is the group column
+     * @param unique Whether merge keys are unique, so each must be strictly greater than the previous one
+     */
+    private static void merge(Iterator<Row> source, Iterator<Row> target, List<String> mergeColumns,
+                              boolean grouped, boolean unique, Function<Object, QueryComparisonResult> results) {
+        Row sourceRow = source.hasNext() ? source.next() : null;
+        Row targetRow = target.hasNext() ? target.next() : null;
+        int[] sourceKey = sourceRow != null ? keyIndexes(sourceRow, mergeColumns, "source") : null;
+        int[] targetKey = targetRow != null ? keyIndexes(targetRow, mergeColumns, "target") : null;
+
+        while (sourceRow != null || targetRow != null) {
+            int cmp;
+            if (sourceRow == null) {
+                cmp = 1;
+            } else if (targetRow == null) {
+                cmp = -1;
+            } else {
+                cmp = KeyComparator.INSTANCE.compare(key(sourceRow, sourceKey), key(targetRow, targetKey));
+            }
+
+            if (cmp < 0) {
+                QueryComparisonResult result = results.apply(group(sourceRow, sourceKey, grouped));
+                result.recordMissingInTarget(result.countSourceRow(), sourceRow.toMap());
+            } else if (cmp > 0) {
+                QueryComparisonResult result = results.apply(group(targetRow, targetKey, grouped));
+                result.recordExtraInTarget(result.countTargetRow(), targetRow.toMap());
+            } else {
+                QueryComparisonResult result = results.apply(group(sourceRow, sourceKey, grouped));
+                result.countTargetRow();
+                compareRows(result.countSourceRow(), sourceRow, targetRow, result);
+            }
+
+            if (cmp <= 0) {
+                Row previous = sourceRow;
+                sourceRow = source.hasNext() ? source.next() : null;
+                checkOrder(previous, sourceRow, sourceKey, unique, "source");
+            }
+            if (cmp >= 0) {
+                Row previous = targetRow;
+                targetRow = target.hasNext() ? target.next() : null;
+                checkOrder(previous, targetRow, targetKey, unique, "target");
+            }
+        }
+    }
+
+    private static void compareRows(long rowNumber, Row source, Row target, QueryComparisonResult result) {
+        if (source.getColumnCount() != target.getColumnCount()) {
+            throw new IllegalStateException(String.format("Source query returns %d columns, target query %d",
+                source.getColumnCount(), target.getColumnCount()));
+        }
+        List<String> changedColumns = null;
+        List<Object> changedSource = null;
+        List<Object> changedTarget = null;
+        for (int i = 0; i < source.getColumnCount(); i++) {
+            if (!RowMergeDiff.valuesEqual(source.get(i), target.get(i))) {
+                if (changedColumns == null) {
+                    changedColumns = new ArrayList<>();
+                    changedSource = new ArrayList<>();
+                    changedTarget = new ArrayList<>();
+                }
+                changedColumns.add(source.getColumnNames().get(i));
+                changedSource.add(source.get(i));
+                changedTarget.add(target.get(i));
+            }
+        }
+        if (changedColumns != null) {
+            result.recordChanged(rowNumber, changedColumns, changedSource, changedTarget);
+        }
+    }
+
+    /**
+     * Resolves column labels to positions in a result, ignoring case.
+     */
+    private static int[] keyIndexes(Row row, List<String> columns, String side) {
+        int[] indexes = new int[columns.size()];
+        List<String> names = row.getColumnNames();
+        for (int i = 0; i < indexes.length; i++) {
+            indexes[i] = -1;
+            for (int j = 0; j < names.size(); j++) {
+                if (names.get(j).equalsIgnoreCase(columns.get(i))) {
+                    indexes[i] = j;
+                    break;
+                }
+            }
+            if (indexes[i] < 0) {
+                throw new IllegalArgumentException(
+                    "Column " + columns.get(i) + " is not in the " + side + " result " + names);
+            }
+        }
+        return indexes;
+    }
+
+    private static Object[] key(Row row, int[] keyIndexes) {
+        Object[] key = new Object[keyIndexes.length];
+        for (int i = 0; i < key.length; i++) {
+            key[i] = row.get(keyIndexes[i]);
+        }
+        return key;
+    }
+
+    private static Object group(Row row, int[] keyIndexes, boolean grouped) {
+        return grouped ? row.get(keyIndexes[0]) : null;
+    }
+
+    private static void checkOrder(Row previous, Row next, int[] keyIndexes, boolean unique, String side) {
+        if (next == null || keyIndexes.length == 0) {
+            return;
+        }
+        Object[] previousKey = key(previous, keyIndexes);
+        Object[] nextKey = key(next, keyIndexes);
+        int cmp = KeyComparator.INSTANCE.compare(previousKey, nextKey);
+        if (cmp > 0 || (unique && cmp == 0)) {
+            throw new KeyOrderException(String.format(
+                "The %s result is not ordered by %s (%s followed by %s)", side,
+                unique ? "its key columns" : "its group column", Arrays.toString(previousKey), Arrays.toString(nextKey)));
+        }
+    }
+}
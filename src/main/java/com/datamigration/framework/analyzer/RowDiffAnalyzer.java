@@ -0,0 +1,220 @@
+package com.datamigration.framework.analyzer;
+
+import com.datamigration.framework.config.ConfigurationManager;
+import com.datamigration.framework.connector.DatabaseConnector;
+import com.datamigration.framework.connector.Deadline;
+import com.datamigration.framework.connector.DeadlineExceededException;
+import com.datamigration.framework.connector.KeyRange;
+import com.datamigration.framework.connector.KeysetCursor;
+import com.datamigration.framework.reporting.ComparisonReportGenerator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Row-level comparison of JDBC tables by primary key.
+ * Both sides are streamed in key order with keyset pagination and merge-joined,
+ * so tables of any size are compared without loading either side into memory.
+ *
+ * <p>Tables with at least {@code parallelScanMinRows} rows are split into primary-key ranges
+ * that are diffed concurrently by up to {@code parallelScanThreads} threads, bounded by the
+ * connection pool sizes (see {@link ParallelRangeDiff}). A listener then receives differences
+ * from several threads.</p>
+ *
+ * <p>Tables without a primary key, and tables whose keys one database sorts differently from
+ * the merge-join (for example because of its collation), are diffed with
+ * {@link HashPartitionDiff} instead, which spills both sides to disk in hash partitions. When
+ * the ordering problem is only detected mid-table, the listener may already have received some
+ * differences that it receives again from the hash diff.</p>
+ *
+ * <p>With a job id (see {@link #setJobId}), merge-joined key ranges are checkpointed every
+ * {@code checkpointInterval} seconds and when they complete, and every finished table is recorded
+ * in the job's {@link CheckpointJournal}. A rerun with the same job id skips finished tables and
+ * diffs only the key ranges that are not yet complete, then assembles the table result from the
+ * journal. Differences restored from the journal are not passed to the listener again.</p>
+ */
+public class RowDiffAnalyzer extends ComparisonAnalyzer {
+    private static final Logger logger = LoggerFactory.getLogger(RowDiffAnalyzer.class);
+
+    private final List<String> tablesToCompare;
+    private final RowMergeDiff.RowDiffListener listener;
+    private final int pageSize;
+    private final int maxReportedDifferences;
+    private final int parallelScanThreads;
+    private final long parallelScanMinRows;
+    private final Path spillDir;
+    private final long spillMemoryBudget;
+    private final long checkpointIntervalNanos;
+
+    public RowDiffAnalyzer(ConfigurationManager config, List<String> tablesToCompare) {
+        this(config, tablesToCompare, null);
+    }
+
+    /**
+     * @param config Configuration manager
+     * @param tablesToCompare Tables to diff; each must have a primary key on the source
+     * @param listener Optional listener receiving every difference as it is found
+     */
+    public RowDiffAnalyzer(ConfigurationManager config, List<String> tablesToCompare,
+                           RowMergeDiff.RowDiffListener listener) {
+        super(config);
+        this.tablesToCompare = tablesToCompare;
+        this.listener = listener;
+        this.pageSize = config.getComparisonConfig().getPageSize();
+        this.maxReportedDifferences = config.getComparisonConfig().getMaxReportedDifferences();
+        this.parallelScanThreads = Math.min(config.getComparisonConfig().getParallelScanThreads(),
+            Math.min(sourceConnector.getMaxPoolSize(), targetConnector.getMaxPoolSize()));
+        this.parallelScanMinRows = config.getComparisonConfig().getParallelScanMinRows();
+        this.spillDir = Paths.get(config.getComparisonConfig().getSpillDir());
+        this.spillMemoryBudget = config.getComparisonConfig().getSpillMemoryBudget() * 1024L * 1024L;
+        this.checkpointIntervalNanos = TimeUnit.SECONDS.toNanos(config.getComparisonConfig().getCheckpointInterval());
+    }
+
+    @Override
+    public List<ComparisonReportGenerator.ComparisonResult> compare() throws Exception {
+        List<ComparisonReportGenerator.ComparisonResult> results = new ArrayList<>();
+
+        for (String tableName : tablesToCompare) {
+            RowDiffResult result = diffTable(tableName);
+            results.add(result);
+            logger.info("Row diff {}", result);
+        }
+
+        reportGenerator.generateComparisonReport(
+            sourceConnector.getDatabaseName(),
+            targetConnector.getDatabaseName(),
+            results,
+            "row_diff_report.html"
+        );
+
+        return results;
+    }
+
+    @Override
+    public boolean supportsCheckpoints() {
+        return true;
+    }
+
+    /**
+     * Diffs a single table.
+     */
+    public RowDiffResult diffTable(String tableName) {
+        return diffTable(tableName, null, listener);
+    }
+
+    /**
+     * Diffs a single table, leaving out one value column.
+     *
+     * @param excludedColumn Column not to compare, or null to compare all common columns
+     * @param listener Listener receiving every difference, or null
+     */
+    RowDiffResult diffTable(String tableName, String excludedColumn, RowMergeDiff.RowDiffListener listener) {
+        RowDiffResult result = new RowDiffResult(tableName, maxReportedDifferences);
+        Deadline deadline = startTableDeadline("table " + tableName);
+        try (Deadline.Scope ignored = deadline.bind()) {
+            CheckpointJournal journal = getJournal();
+            if (journal != null) {
+                RowDiffResult completed = journal.getCompletedTable(tableName, maxReportedDifferences);
+                if (completed != null) {
+                    logger.info("Table {} was completed by an earlier run of job {}", tableName, journal.getJobId());
+                    return completed;
+                }
+            }
+            if (sourceConnector.getPrimaryKeyColumns(tableName).isEmpty()) {
+                logger.info("Table {} has no primary key, comparing whole rows by hash partitions", tableName);
+                ColumnMapping mapping = ColumnMapping.resolveWithoutKey(sourceConnector, targetConnector, tableName);
+                hashPartitionDiff(excludedColumn != null ? mapping.withoutValueColumn(excludedColumn) : mapping,
+                    listener, result);
+            } else {
+                ColumnMapping mapping = resolveMapping(tableName, excludedColumn);
+                try {
+                    mergeDiff(mapping, listener, result, journal);
+                } catch (KeyOrderException e) {
+                    logger.warn("Table {} cannot be merge-joined, diffing by hash partitions: {}", tableName,
+                        e.getMessage());
+                    if (journal != null) {
+                        journal.resetTable(tableName);
+                    }
+                    result = new RowDiffResult(tableName, maxReportedDifferences);
+                    hashPartitionDiff(mapping, listener, result);
+                }
+            }
+            if (journal != null) {
+                journal.recordTable(tableName, result);
+            }
+        } catch (Exception e) {
+            if (DeadlineExceededException.isCause(e, deadline)) {
+                logger.warn("Row diff of table {} timed out: {}", tableName, e.getMessage());
+                result.setTimedOut(e.getMessage());
+            } else {
+                logger.error("Row diff of table {} failed: {}", tableName, e.getMessage());
+                result.setError(e.getMessage());
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Resolves the column mapping of a table with a primary key, leaving out {@code excludedColumn} if not null.
+     */
+    ColumnMapping resolveMapping(String tableName, String excludedColumn) throws SQLException {
+        ColumnMapping mapping = ColumnMapping.resolve(sourceConnector, targetConnector, tableName);
+        return excludedColumn != null ? mapping.withoutValueColumn(excludedColumn) : mapping;
+    }
+
+    /**
+     * Merge-joins a table. With a journal, only key ranges not completed by an earlier run are diffed,
+     * and the result is assembled from the journal.
+     */
+    private void mergeDiff(ColumnMapping mapping, RowMergeDiff.RowDiffListener listener, RowDiffResult result,
+                           CheckpointJournal journal) throws SQLException {
+        String tableName = mapping.getTableName();
+        if (parallelScanThreads > 1) {
+            long rows = sourceConnector.estimateRowCount(tableName);
+            if (rows >= parallelScanMinRows) {
+                new ParallelRangeDiff(sourceConnector, targetConnector, mapping, comparatorFor(mapping), listener,
+                    pageSize, parallelScanThreads, journal, checkpointIntervalNanos).diff(result, rows);
+                return;
+            }
+        }
+
+        RowMergeDiff mergeDiff = new RowMergeDiff(tableName, mapping.getSourceColumns(),
+            mapping.getSourceKeyColumns().size(), listener, comparatorFor(mapping));
+        if (journal == null) {
+            diffRange(mapping, mergeDiff, KeyRange.ALL, result, null);
+            return;
+        }
+        for (KeyRange range : journal.remainingRanges(tableName, KeyRange.ALL)) {
+            RowDiffResult partial = new RowDiffResult(tableName, maxReportedDifferences);
+            RangeCheckpointer checkpointer = new RangeCheckpointer(journal, tableName, range, partial,
+                checkpointIntervalNanos);
+            diffRange(mapping, mergeDiff, range, partial, checkpointer);
+            checkpointer.complete();
+        }
+        result.merge(journal.assembleTable(tableName, maxReportedDifferences));
+    }
+
+    private void diffRange(ColumnMapping mapping, RowMergeDiff mergeDiff, KeyRange range, RowDiffResult result,
+                           RowMergeDiff.ProgressListener progress) throws SQLException {
+        String tableName = mapping.getTableName();
+        try (KeysetCursor source = new KeysetCursor(sourceConnector, tableName,
+                 mapping.getSourceKeyColumns(), mapping.getSourceValueColumns(), range, pageSize);
+             KeysetCursor target = new KeysetCursor(targetConnector, tableName,
+                 mapping.getTargetKeyColumns(), mapping.getTargetValueColumns(), range, pageSize)) {
+            mergeDiff.diff(source, target, result, progress);
+        }
+    }
+
+    private void hashPartitionDiff(ColumnMapping mapping, RowMergeDiff.RowDiffListener listener, RowDiffResult result)
+            throws SQLException, IOException {
+        new HashPartitionDiff(sourceConnector, targetConnector, mapping, comparatorFor(mapping), listener, spillDir,
+            spillMemoryBudget).diff(result);
+    }
+}
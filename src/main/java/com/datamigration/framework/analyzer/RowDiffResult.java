@@ -0,0 +1,181 @@
+package com.datamigration.framework.analyzer;
+
+import com.datamigration.framework.reporting.ComparisonReportGenerator;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Per-table outcome of a row-level diff.
+ * Difference counts are exact; only the first {@code maxRecordedDifferences}
+ * differences are kept as samples so memory stays bounded on large tables.
+ */
+public class RowDiffResult implements ComparisonReportGenerator.ComparisonResult {
+    private final String tableName;
+    private final int maxRecordedDifferences;
+    private final List<RowDifference> sampleDifferences = new ArrayList<>();
+    private long sourceRows;
+    private long targetRows;
+    private long missingInTarget;
+    private long extraInTarget;
+    private long changedRows;
+    private String error;
+    private boolean timedOut;
+
+    public RowDiffResult(String tableName, int maxRecordedDifferences) {
+        this.tableName = tableName;
+        this.maxRecordedDifferences = maxRecordedDifferences;
+    }
+
+    /**
+     * Records a difference, keeping it as a sample while below the sample limit.
+     */
+    public synchronized void record(RowDifference difference) {
+        switch (difference.getType()) {
+            case MISSING_IN_TARGET:
+                missingInTarget++;
+                break;
+            case EXTRA_IN_TARGET:
+                extraInTarget++;
+                break;
+            default:
+                changedRows++;
+                break;
+        }
+        if (sampleDifferences.size() < maxRecordedDifferences) {
+            sampleDifferences.add(difference);
+        }
+    }
+
+    public synchronized void addRowCounts(long source, long target) {
+        this.sourceRows += source;
+        this.targetRows += target;
+    }
+
+    /**
+     * Adds the counts and samples of another partial result for the same table.
+     */
+    public synchronized void merge(RowDiffResult other) {
+        synchronized (other) {
+            sourceRows += other.sourceRows;
+            targetRows += other.targetRows;
+            missingInTarget += other.missingInTarget;
+            extraInTarget += other.extraInTarget;
+            changedRows += other.changedRows;
+            for (RowDifference difference : other.sampleDifferences) {
+                if (sampleDifferences.size() >= maxRecordedDifferences) {
+                    break;
+                }
+                sampleDifferences.add(difference);
+            }
+            if (error == null) {
+                error = other.error;
+                timedOut = other.timedOut;
+            }
+        }
+    }
+
+    /**
+     * Adds counts and samples recorded by an earlier run; see {@link CheckpointJournal}.
+     */
+    synchronized void restore(long sourceRows, long targetRows, long missingInTarget, long extraInTarget,
+                              long changedRows, List<RowDifference> samples) {
+        this.sourceRows += sourceRows;
+        this.targetRows += targetRows;
+        this.missingInTarget += missingInTarget;
+        this.extraInTarget += extraInTarget;
+        this.changedRows += changedRows;
+        for (RowDifference difference : samples) {
+            if (sampleDifferences.size() >= maxRecordedDifferences) {
+                break;
+            }
+            sampleDifferences.add(difference);
+        }
+    }
+
+    public synchronized void setError(String error) {
+        this.error = error;
+    }
+
+    /**
+     * Marks the diff as stopped by its deadline; the counts cover only the rows compared before.
+     */
+    public synchronized void setTimedOut(String error) {
+        this.error = error;
+        this.timedOut = true;
+    }
+
+    @Override
+    public synchronized boolean isTimedOut() {
+        return timedOut;
+    }
+
+    public int getMaxRecordedDifferences() {
+        return maxRecordedDifferences;
+    }
+
+    public String getTableName() {
+        return tableName;
+    }
+
+    public synchronized long getSourceRows() {
+        return sourceRows;
+    }
+
+    public synchronized long getTargetRows() {
+        return targetRows;
+    }
+
+    public synchronized long getMissingInTarget() {
+        return missingInTarget;
+    }
+
+    public synchronized long getExtraInTarget() {
+        return extraInTarget;
+    }
+
+    public synchronized long getChangedRows() {
+        return changedRows;
+    }
+
+    public synchronized long getDifferenceCount() {
+        return missingInTarget + extraInTarget + changedRows;
+    }
+
+    public synchronized List<RowDifference> getSampleDifferences() {
+        return new ArrayList<>(sampleDifferences);
+    }
+
+    public synchronized String getError() {
+        return error;
+    }
+
+    @Override
+    public String getItemName() {
+        return tableName;
+    }
+
+    @Override
+    public Object getSourceValue() {
+        return getSourceRows();
+    }
+
+    @Override
+    public Object getTargetValue() {
+        return getTargetRows();
+    }
+
+    @Override
+    public synchronized boolean isMatch() {
+        return error == null && getDifferenceCount() == 0;
+    }
+
+    @Override
+    public synchronized String toString() {
+        if (error != null) {
+            return String.format("%s: %s - %s", tableName, timedOut ? "timed out" : "error", error);
+        }
+        return String.format("%s: source=%d, target=%d, missingInTarget=%d, extraInTarget=%d, changed=%d",
+            tableName, sourceRows, targetRows, missingInTarget, extraInTarget, changedRows);
+    }
+}
@@ -0,0 +1,136 @@
+package com.datamigration.framework.analyzer;
+
+import com.datamigration.framework.reporting.ComparisonReportGenerator;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A single row-level difference found by a row diff.
+ */
+public class RowDifference implements ComparisonReportGenerator.ComparisonResult {
+
+    /**
+     * Kind of difference.
+     */
+    public enum Type {
+        MISSING_IN_TARGET, EXTRA_IN_TARGET, CHANGED
+    }
+
+    private final String tableName;
+    private final Type type;
+    private final List<String> keyColumns;
+    private final Object[] key;
+    private final List<String> changedColumns;
+    private final List<Object> sourceValues;
+    private final List<Object> targetValues;
+
+    public RowDifference(String tableName, Type type, List<String> keyColumns, Object[] key,
+                         List<String> changedColumns, List<Object> sourceValues, List<Object> targetValues) {
+        this.tableName = tableName;
+        this.type = type;
+        this.keyColumns = keyColumns;
+        this.key = key;
+        this.changedColumns = changedColumns != null ? changedColumns : Collections.emptyList();
+        this.sourceValues = sourceValues != null ? sourceValues : Collections.emptyList();
+        this.targetValues = targetValues != null ? targetValues : Collections.emptyList();
+    }
+
+    public static RowDifference missingInTarget(String tableName, List<String> keyColumns, Object[] key) {
+        return new RowDifference(tableName, Type.MISSING_IN_TARGET, keyColumns, key, null, null, null);
+    }
+
+    public static RowDifference extraInTarget(String tableName, List<String> keyColumns, Object[] key) {
+        return new RowDifference(tableName, Type.EXTRA_IN_TARGET, keyColumns, key, null, null, null);
+    }
+
+    public String getTableName() {
+        return tableName;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public List<String> getKeyColumns() {
+        return keyColumns;
+    }
+
+    public Object[] getKey() {
+        return key;
+    }
+
+    public List<String> getChangedColumns() {
+        return changedColumns;
+    }
+
+    /**
+     * Gets the source values of the changed columns, in the order of {@link #getChangedColumns()}.
+     */
+    public List<Object> getChangedSourceValues() {
+        return sourceValues;
+    }
+
+    /**
+     * Gets the target values of the changed columns, in the order of {@link #getChangedColumns()}.
+     */
+    public List<Object> getChangedTargetValues() {
+        return targetValues;
+    }
+
+    /**
+     * Gets the key as {@code col=value} pairs.
+     */
+    public String getKeyDescription() {
+        List<String> parts = new ArrayList<>();
+        for (int i = 0; i < key.length; i++) {
+            String column = i < keyColumns.size() ? keyColumns.get(i) : "key" + (i + 1);
+            parts.add(column + "=" + key[i]);
+        }
+        return String.join(", ", parts);
+    }
+
+    @Override
+    public String getItemName() {
+        String item = tableName + " (" + getKeyDescription() + ") " + type;
+        if (type == Type.CHANGED) {
+            item += " " + changedColumns;
+        }
+        return item;
+    }
+
+    @Override
+    public Object getSourceValue() {
+        switch (type) {
+            case MISSING_IN_TARGET:
+                return "present";
+            case EXTRA_IN_TARGET:
+                return "absent";
+            default:
+                return sourceValues;
+        }
+    }
+
+    @Override
+    public Object getTargetValue() {
+        switch (type) {
+            case MISSING_IN_TARGET:
+                return "absent";
+            case EXTRA_IN_TARGET:
+                return "present";
+            default:
+                return targetValues;
+        }
+    }
+
+    @Override
+    public boolean isMatch() {
+        return false;
+    }
+
+    @Override
+    public String toString() {
+        return getItemName();
+    }
+}
@@ -0,0 +1,247 @@
+package com.datamigration.framework.analyzer;
+
+import com.datamigration.framework.connector.KeysetCursor;
+import com.datamigration.framework.connector.RowEncoder;
+
+import java.math.BigDecimal;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Merge-join of two key-ordered row streams.
+ * Only the current row of each side is held, so memory use does not depend on table size.
+ */
+public class RowMergeDiff {
+
+    /**
+     * Receives every difference as it is found.
+     */
+    @FunctionalInterface
+    public interface RowDiffListener {
+        void onDifference(RowDifference difference);
+    }
+
+    /**
+     * Receives the progress of a running diff, for example to write checkpoints.
+     */
+    @FunctionalInterface
+    public interface ProgressListener {
+        /**
+         * Called between rows. Every key up to and including {@code lastKey} has been diffed on both sides.
+         *
+         * @param sourceRows Source rows diffed so far
+         * @param targetRows Target rows diffed so far
+         */
+        void onProgress(Object[] lastKey, long sourceRows, long targetRows);
+    }
+
+    /** Keys merged between two calls of a {@link ProgressListener}. */
+    private static final int PROGRESS_INTERVAL = 1024;
+
+    private final String tableName;
+    private final List<String> columns;
+    private final int keyColumnCount;
+    private final RowDiffListener listener;
+    private final ValueComparator comparator;
+
+    /**
+     * Creates a diff that requires values to be equal exactly.
+     *
+     * @param tableName Table being compared, used in the emitted differences
+     * @param columns Column names in cursor order, key columns first
+     * @param keyColumnCount Number of leading key columns
+     * @param listener Optional listener for each difference
+     */
+    public RowMergeDiff(String tableName, List<String> columns, int keyColumnCount, RowDiffListener listener) {
+        this(tableName, columns, keyColumnCount, listener, ValueComparator.exact(columns.size() - keyColumnCount));
+    }
+
+    /**
+     * @param tableName Table being compared, used in the emitted differences
+     * @param columns Column names in cursor order, key columns first
+     * @param keyColumnCount Number of leading key columns
+     * @param listener Optional listener for each difference
+     * @param comparator Decides whether value columns whose encodings differ are equal
+     */
+    public RowMergeDiff(String tableName, List<String> columns, int keyColumnCount, RowDiffListener listener,
+                        ValueComparator comparator) {
+        this.tableName = tableName;
+        this.columns = columns;
+        this.keyColumnCount = keyColumnCount;
+        this.listener = listener;
+        this.comparator = comparator;
+    }
+
+    /**
+     * Diffs the two cursors to exhaustion and records the outcome into {@code result}.
+     *
+     * @throws KeyOrderException If either side is not ordered consistently with {@link KeyComparator}
+     */
+    public void diff(KeysetCursor source, KeysetCursor target, RowDiffResult result) throws SQLException {
+        diff(source, target, result, null);
+    }
+
+    /**
+     * Diffs the two cursors to exhaustion, reporting progress every {@value #PROGRESS_INTERVAL} keys.
+     * Row counts are added to {@code result} only at the end.
+     *
+     * @param progress Optional progress listener
+     * @throws KeyOrderException If either side is not ordered consistently with {@link KeyComparator}
+     */
+    public void diff(KeysetCursor source, KeysetCursor target, RowDiffResult result, ProgressListener progress)
+            throws SQLException {
+        List<String> keyColumns = columns.subList(0, keyColumnCount);
+        Object[] previousSourceKey = null;
+        Object[] previousTargetKey = null;
+        boolean hasSource = source.next();
+        boolean hasTarget = target.next();
+        long sourceRows = 0;
+        long targetRows = 0;
+        int keysSinceProgress = 0;
+
+        while (hasSource || hasTarget) {
+            int cmp;
+            if (!hasSource) {
+                cmp = 1;
+            } else if (!hasTarget) {
+                cmp = -1;
+            } else {
+                cmp = KeyComparator.INSTANCE.compare(source.getKey(), target.getKey());
+            }
+
+            if (cmp < 0) {
+                emit(result, RowDifference.missingInTarget(tableName, keyColumns, source.getKey()));
+            } else if (cmp > 0) {
+                emit(result, RowDifference.extraInTarget(tableName, keyColumns, target.getKey()));
+            } else {
+                if (!source.getEncodedValues().hashEquals(target.getEncodedValues())) {
+                    RowDifference changed = compareEncoded(source, target);
+                    if (changed != null) {
+                        emit(result, changed);
+                    }
+                }
+            }
+
+            Object[] lastKey = null;
+            if (cmp <= 0) {
+                previousSourceKey = source.getKey();
+                lastKey = previousSourceKey;
+                sourceRows++;
+                hasSource = source.next();
+                checkOrder(source, previousSourceKey, hasSource);
+            }
+            if (cmp >= 0) {
+                previousTargetKey = target.getKey();
+                lastKey = previousTargetKey;
+                targetRows++;
+                hasTarget = target.next();
+                checkOrder(target, previousTargetKey, hasTarget);
+            }
+            if (progress != null && ++keysSinceProgress == PROGRESS_INTERVAL) {
+                keysSinceProgress = 0;
+                progress.onProgress(lastKey, sourceRows, targetRows);
+            }
+        }
+        result.addRowCounts(source.getRowsRead(), target.getRowsRead());
+    }
+
+    /**
+     * Finds the value columns that differ between the current rows of two cursors whose hashes differ,
+     * comparing the canonical encodings column by column and decoding only the differing values.
+     * Values whose encodings differ may still be equal to the {@link ValueComparator}.
+     */
+    private RowDifference compareEncoded(KeysetCursor source, KeysetCursor target) {
+        RowEncoder sourceValues = source.getEncodedValues();
+        RowEncoder targetValues = target.getEncodedValues();
+        List<String> changedColumns = null;
+        List<Object> changedSource = null;
+        List<Object> changedTarget = null;
+        for (int i = 0; i < sourceValues.getColumnCount(); i++) {
+            if (!comparator.equal(i, sourceValues, targetValues)) {
+                if (changedColumns == null) {
+                    changedColumns = new ArrayList<>();
+                    changedSource = new ArrayList<>();
+                    changedTarget = new ArrayList<>();
+                }
+                changedColumns.add(columns.get(keyColumnCount + i));
+                changedSource.add(sourceValues.decode(i));
+                changedTarget.add(targetValues.decode(i));
+            }
+        }
+        if (changedColumns == null) {
+            return null;
+        }
+        return new RowDifference(tableName, RowDifference.Type.CHANGED, columns.subList(0, keyColumnCount),
+            source.getKey(), changedColumns, changedSource, changedTarget);
+    }
+
+    /**
+     * Compares the value columns of two rows with the same key.
+     *
+     * @param sourceValues Source row, key columns first
+     * @param targetValues Target row in the same column order
+     * @return The difference, or null if all values are equal
+     */
+    RowDifference compareRow(Object[] key, Object[] sourceValues, Object[] targetValues) {
+        List<String> changedColumns = null;
+        List<Object> changedSource = null;
+        List<Object> changedTarget = null;
+        for (int i = keyColumnCount; i < sourceValues.length; i++) {
+            if (!comparator.equal(i - keyColumnCount, sourceValues[i], targetValues[i])) {
+                if (changedColumns == null) {
+                    changedColumns = new ArrayList<>();
+                    changedSource = new ArrayList<>();
+                    changedTarget = new ArrayList<>();
+                }
+                changedColumns.add(columns.get(i));
+                changedSource.add(sourceValues[i]);
+                changedTarget.add(targetValues[i]);
+            }
+        }
+        if (changedColumns == null) {
+            return null;
+        }
+        return new RowDifference(tableName, RowDifference.Type.CHANGED, columns.subList(0, keyColumnCount), key,
+            changedColumns, changedSource, changedTarget);
+    }
+
+    private void emit(RowDiffResult result, RowDifference difference) {
+        result.record(difference);
+        if (listener != null) {
+            listener.onDifference(difference);
+        }
+    }
+
+    private void checkOrder(KeysetCursor cursor, Object[] previousKey, boolean hasNext) {
+        if (hasNext && KeyComparator.INSTANCE.compare(previousKey, cursor.getKey()) >= 0) {
+            throw new KeyOrderException(String.format(
+                "Rows of %s are not in binary key order (%s followed by %s); the database collation " +
+                    "orders keys differently from the merge-join",
+                cursor.getTableName(), Arrays.toString(previousKey), Arrays.toString(cursor.getKey())));
+        }
+    }
+
+    /**
+     * Compares two column values. Numbers compare by numeric value so that
+     * differing JDBC types or decimal scales do not count as changes.
+     */
+    static boolean valuesEqual(Object source, Object target) {
+        if (source == target) {
+            return true;
+        }
+        if (source == null || target == null) {
+            return false;
+        }
+        if (source instanceof Number && target instanceof Number) {
+            BigDecimal left = KeyComparator.toBigDecimal((Number) source);
+            BigDecimal right = KeyComparator.toBigDecimal((Number) target);
+            return left.compareTo(right) == 0;
+        }
+        if (source instanceof byte[] && target instanceof byte[]) {
+            return Arrays.equals((byte[]) source, (byte[]) target);
+        }
+        return source.equals(target);
+    }
+}
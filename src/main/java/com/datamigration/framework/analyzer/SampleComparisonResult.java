@@ -0,0 +1,147 @@
+package com.datamigration.framework.analyzer;
+
+import com.datamigration.framework.reporting.ComparisonReportGenerator;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Outcome of a sampled comparison of one table: how many sampled source rows were checked,
+ * how many were missing or different in the target, and the resulting mismatch rate with
+ * its confidence interval.
+ */
+public class SampleComparisonResult implements ComparisonReportGenerator.ComparisonResult {
+    private final String tableName;
+    private final long populationRows;
+    private final long comparedRows;
+    private final long mismatchedRows;
+    private final ConfidenceInterval mismatchRate;
+    private final boolean budgetExhausted;
+    private final List<RowDifference> sampleDifferences;
+    private final String error;
+    private final boolean timedOut;
+
+    /**
+     * @param tableName Table compared
+     * @param populationRows Source row count the sample was drawn from, or -1 if unknown
+     * @param comparedRows Sampled rows looked up in the target
+     * @param mismatchedRows Compared rows that were missing or changed in the target
+     * @param mismatchRate Mismatch rate and confidence interval
+     * @param budgetExhausted Whether the time budget ended the comparison before the sample was used up
+     * @param sampleDifferences Some of the mismatched rows
+     */
+    public SampleComparisonResult(String tableName, long populationRows, long comparedRows, long mismatchedRows,
+                                  ConfidenceInterval mismatchRate, boolean budgetExhausted,
+                                  List<RowDifference> sampleDifferences) {
+        this.tableName = tableName;
+        this.populationRows = populationRows;
+        this.comparedRows = comparedRows;
+        this.mismatchedRows = mismatchedRows;
+        this.mismatchRate = mismatchRate;
+        this.budgetExhausted = budgetExhausted;
+        this.sampleDifferences = Collections.unmodifiableList(new ArrayList<>(sampleDifferences));
+        this.error = null;
+        this.timedOut = false;
+    }
+
+    private SampleComparisonResult(String tableName, String error, boolean timedOut) {
+        this.tableName = tableName;
+        this.populationRows = -1;
+        this.comparedRows = 0;
+        this.mismatchedRows = 0;
+        this.mismatchRate = null;
+        this.budgetExhausted = false;
+        this.sampleDifferences = Collections.emptyList();
+        this.error = error;
+        this.timedOut = timedOut;
+    }
+
+    /**
+     * Creates the result of a table whose comparison failed.
+     */
+    public static SampleComparisonResult failed(String tableName, String error) {
+        return new SampleComparisonResult(tableName, error, false);
+    }
+
+    /**
+     * Creates the result of a table whose comparison was stopped by its deadline.
+     */
+    public static SampleComparisonResult timedOut(String tableName, String error) {
+        return new SampleComparisonResult(tableName, error, true);
+    }
+
+    public String getTableName() { return tableName; }
+    public long getPopulationRows() { return populationRows; }
+    public long getComparedRows() { return comparedRows; }
+    public long getMismatchedRows() { return mismatchedRows; }
+    public ConfidenceInterval getMismatchRate() { return mismatchRate; }
+    public boolean isBudgetExhausted() { return budgetExhausted; }
+    public List<RowDifference> getSampleDifferences() { return sampleDifferences; }
+    public String getError() { return error; }
+
+    /**
+     * Gets the estimated number of mismatched rows in the whole table, or -1 if the table size is unknown.
+     */
+    public long getEstimatedMismatchedRows() {
+        if (populationRows < 0 || mismatchRate == null) {
+            return -1;
+        }
+        return Math.round(mismatchRate.getEstimate() * populationRows);
+    }
+
+    @Override
+    public String getItemName() {
+        return tableName;
+    }
+
+    /**
+     * Gets the number of sampled rows compared.
+     */
+    @Override
+    public Object getSourceValue() {
+        return comparedRows;
+    }
+
+    /**
+     * Gets the number of sampled rows that matched in the target.
+     */
+    @Override
+    public Object getTargetValue() {
+        return comparedRows - mismatchedRows;
+    }
+
+    /**
+     * Checks that no sampled row mismatched. A table whose time budget ran out before any row
+     * was compared does not match, as nothing was checked.
+     */
+    @Override
+    public boolean isMatch() {
+        return error == null && mismatchedRows == 0 && !(budgetExhausted && comparedRows == 0);
+    }
+
+    @Override
+    public boolean isTimedOut() {
+        return timedOut;
+    }
+
+    @Override
+    public String getDetails() {
+        if (error != null) {
+            return (timedOut ? "Timed out: " : "Error: ") + error;
+        }
+        String details = "Mismatch rate " + mismatchRate + " from " + comparedRows + " sampled rows";
+        if (getEstimatedMismatchedRows() >= 0) {
+            details += ", ~" + getEstimatedMismatchedRows() + " of " + populationRows + " rows";
+        }
+        if (budgetExhausted) {
+            details += " (time budget reached)";
+        }
+        return details;
+    }
+
+    @Override
+    public String toString() {
+        return tableName + ": " + getDetails();
+    }
+}
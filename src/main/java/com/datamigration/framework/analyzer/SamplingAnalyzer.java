@@ -0,0 +1,227 @@
+package com.datamigration.framework.analyzer;
+
+import com.datamigration.framework.config.ConfigurationManager;
+import com.datamigration.framework.connector.DatabaseConnector;
+import com.datamigration.framework.connector.Deadline;
+import com.datamigration.framework.connector.DeadlineExceededException;
+import com.datamigration.framework.connector.dialect.SqlDialect;
+import com.datamigration.framework.reporting.ComparisonReportGenerator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeMap;
+
+/**
+ * Estimates the mismatch rate of large tables from a random sample of source rows.
+ *
+ * <p>Sampled source rows are looked up in the target by primary key in batches, and the share
+ * of rows that are missing or changed is reported with a Wilson confidence interval. The sample
+ * size is chosen so the interval half-width reaches {@code sampleErrorBound} at
+ * {@code sampleConfidence}, capped at {@code sampleSize}. Lookups stop early once the bound is
+ * reached, or when {@code sampleTimeBudget} seconds have passed, whichever comes first. The budget
+ * starts before the sample is drawn; if it runs out during the source scan, the scan is cancelled and
+ * the result reports the budget exhausted with no rows compared.</p>
+ *
+ * <p>Where the dialect supports it the source is read with {@code TABLESAMPLE SYSTEM}, which
+ * reads only a fraction of the table's pages; otherwise the source is streamed once and sampled
+ * on the client. Page sampling picks whole pages, so rows that are stored together are sampled
+ * together. Rows that exist only in the target cannot be found by sampling the source.</p>
+ */
+public class SamplingAnalyzer extends ComparisonAnalyzer {
+    private static final Logger logger = LoggerFactory.getLogger(SamplingAnalyzer.class);
+
+    /** Extra rows requested from TABLESAMPLE to make up for its variance. */
+    private static final double OVERSAMPLE_FACTOR = 1.5;
+
+    private final List<String> tablesToCompare;
+    private final int maxSampleSize;
+    private final double errorBound;
+    private final double confidence;
+    private final long timeBudgetMillis;
+    private final int lookupBatchSize;
+    private final int maxReportedDifferences;
+    private final Random random = new Random();
+
+    public SamplingAnalyzer(ConfigurationManager config, List<String> tablesToCompare) {
+        super(config);
+        ConfigurationManager.ComparisonConfig comparisonConfig = config.getComparisonConfig();
+        this.tablesToCompare = tablesToCompare;
+        this.maxSampleSize = Math.max(1, comparisonConfig.getSampleSize());
+        this.errorBound = comparisonConfig.getSampleErrorBound();
+        this.confidence = comparisonConfig.getSampleConfidence();
+        this.timeBudgetMillis = comparisonConfig.getSampleTimeBudget() * 1000L;
+        this.lookupBatchSize = Math.max(1, comparisonConfig.getLookupBatchSize());
+        this.maxReportedDifferences = comparisonConfig.getMaxReportedDifferences();
+    }
+
+    @Override
+    public List<ComparisonReportGenerator.ComparisonResult> compare() throws Exception {
+        List<ComparisonReportGenerator.ComparisonResult> results = new ArrayList<>();
+
+        for (String tableName : tablesToCompare) {
+            SampleComparisonResult result = compareTable(tableName);
+            results.add(result);
+            logger.info("Sampled comparison {}", result);
+        }
+
+        reportGenerator.generateComparisonReport(
+            sourceConnector.getDatabaseName(),
+            targetConnector.getDatabaseName(),
+            results,
+            "sample_comparison_report.html"
+        );
+
+        return results;
+    }
+
+    /**
+     * Compares a sample of a single table.
+     */
+    public SampleComparisonResult compareTable(String tableName) {
+        Deadline budget = Deadline.after("sample time budget of table " + tableName, timeBudgetMillis);
+        Deadline tableDeadline = startTableDeadline("table " + tableName);
+        try (Deadline.Scope ignored = tableDeadline.bind()) {
+            ColumnMapping mapping = ColumnMapping.resolve(sourceConnector, targetConnector, tableName);
+            int sampleSize = (int) Math.min(maxSampleSize, ConfidenceInterval.requiredSampleSize(errorBound, confidence));
+            long populationRows = sourceConnector.estimateRowCount(tableName);
+            List<Object[]> sample;
+            try (Deadline.Scope scan = budget.earliest(tableDeadline).bind()) {
+                sample = drawSample(mapping, sampleSize, populationRows);
+            } catch (SQLException | RuntimeException e) {
+                if (!budget.isExpired() || tableDeadline.isExpired()) {
+                    throw e;
+                }
+                // A reservoir of the rows read so far would over-represent the start of the table
+                logger.warn("Time budget reached for {} while drawing the sample", tableName);
+                return new SampleComparisonResult(tableName, populationRows, 0, 0,
+                    ConfidenceInterval.wilson(0, 0, confidence), true, Collections.emptyList());
+            }
+            return lookUpSample(mapping, sample, populationRows, budget);
+        } catch (Exception e) {
+            if (DeadlineExceededException.isCause(e, tableDeadline)) {
+                logger.warn("Sampled comparison of table {} timed out: {}", tableName, e.getMessage());
+                return SampleComparisonResult.timedOut(tableName, e.getMessage());
+            }
+            logger.error("Sampled comparison of table {} failed: {}", tableName, e.getMessage());
+            return SampleComparisonResult.failed(tableName, e.getMessage());
+        }
+    }
+
+    /**
+     * Looks the sampled rows up in the target batch by batch until the sample is used up,
+     * the error bound is reached or the time budget runs out.
+     */
+    private SampleComparisonResult lookUpSample(ColumnMapping mapping, List<Object[]> sample, long populationRows,
+                                                Deadline budget) throws SQLException {
+        String tableName = mapping.getTableName();
+        List<String> sourceColumns = mapping.getSourceColumns();
+        int keyCount = mapping.getSourceKeyColumns().size();
+        RowMergeDiff rowComparer = new RowMergeDiff(tableName, sourceColumns, keyCount, null, comparatorFor(mapping));
+        int batchSize = Math.max(1, lookupBatchSize);
+
+        List<RowDifference> differences = new ArrayList<>();
+        long compared = 0;
+        long mismatched = 0;
+        boolean budgetExhausted = false;
+        ConfidenceInterval interval = ConfidenceInterval.wilson(0, 0, confidence);
+
+        for (int start = 0; start < sample.size(); start += batchSize) {
+            if (compared > 0 && interval.getHalfWidth() <= errorBound) {
+                break;
+            }
+            if (budget.isExpired()) {
+                budgetExhausted = true;
+                logger.warn("Time budget reached for {} after {} of {} sampled rows",
+                    tableName, compared, sample.size());
+                break;
+            }
+
+            List<Object[]> batch = sample.subList(start, Math.min(sample.size(), start + batchSize));
+            List<Object[]> keys = new ArrayList<>();
+            for (Object[] row : batch) {
+                keys.add(DatabaseConnector.keyOf(row, keyCount));
+            }
+            TreeMap<Object[], Object[]> targetRows = new TreeMap<>(KeyComparator.INSTANCE);
+            for (Object[] row : targetConnector.lookupRows(tableName, mapping.getTargetKeyColumns(),
+                    mapping.getTargetValueColumns(), keys)) {
+                targetRows.put(DatabaseConnector.keyOf(row, keyCount), row);
+            }
+
+            for (Object[] sourceRow : batch) {
+                Object[] key = DatabaseConnector.keyOf(sourceRow, keyCount);
+                Object[] targetRow = targetRows.get(key);
+                RowDifference difference = targetRow == null ?
+                    RowDifference.missingInTarget(tableName, mapping.getSourceKeyColumns(), key) :
+                    rowComparer.compareRow(key, sourceRow, targetRow);
+                compared++;
+                if (difference != null) {
+                    mismatched++;
+                    if (differences.size() < maxReportedDifferences) {
+                        differences.add(difference);
+                    }
+                }
+            }
+            interval = ConfidenceInterval.wilson(mismatched, compared, confidence);
+        }
+
+        return new SampleComparisonResult(tableName, populationRows, compared, mismatched, interval,
+            budgetExhausted, differences);
+    }
+
+    /**
+     * Draws up to {@code sampleSize} source rows in random order.
+     */
+    private List<Object[]> drawSample(ColumnMapping mapping, int sampleSize, long populationRows)
+            throws SQLException {
+        SqlDialect dialect = sourceConnector.getDialect();
+        List<String> columns = mapping.getSourceColumns();
+        StringBuilder quoted = new StringBuilder();
+        for (String column : columns) {
+            quoted.append(quoted.length() > 0 ? ", " : "").append(sourceConnector.quoteIdentifier(column));
+        }
+        String sql = "SELECT " + quoted + " FROM " + sourceConnector.quoteTableName(mapping.getTableName());
+
+        boolean pageSampling = populationRows > sampleSize && dialect.supports(SqlDialect.Capability.TABLE_SAMPLE);
+        if (pageSampling) {
+            double percent = Math.min(100.0, 100.0 * sampleSize * OVERSAMPLE_FACTOR / populationRows);
+            sql += " " + dialect.tableSampleClause(percent);
+        }
+        logger.debug("Drawing sample of {} rows: {}", sampleSize, sql);
+
+        // Reservoir sampling keeps a uniform sample of the rows read in bounded memory
+        List<Object[]> reservoir = new ArrayList<>(sampleSize);
+        long[] seen = {0};
+        sourceConnector.streamQuery(sql, rs -> {
+            seen[0]++;
+            long slot = reservoir.size() < sampleSize ? reservoir.size() : nextLong(seen[0]);
+            if (slot < sampleSize) {
+                Object[] row = new Object[columns.size()];
+                for (int i = 0; i < row.length; i++) {
+                    row[i] = rs.getObject(i + 1);
+                }
+                if (slot == reservoir.size()) {
+                    reservoir.add(row);
+                } else {
+                    reservoir.set((int) slot, row);
+                }
+            }
+        });
+        Collections.shuffle(reservoir, random);
+
+        logger.info("Sampled {} of {} rows read from {} ({})", reservoir.size(), seen[0], mapping.getTableName(),
+            pageSampling ? "TABLESAMPLE" : "full scan");
+        return reservoir;
+    }
+
+    /**
+     * Returns a uniformly distributed value in {@code [0, bound)}.
+     */
+    private long nextLong(long bound) {
+        return (long) (random.nextDouble() * bound);
+    }
+}
@@ -0,0 +1,183 @@
+package com.datamigration.framework.analyzer;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.sql.Date;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A key or column value with its Java type, so it survives a round trip through JSON files such as
+ * the incremental state and the checkpoint journal. Restored values can be bound with
+ * {@code setObject} again and render exactly as the original in reports.
+ */
+public final class StoredValue {
+
+    /**
+     * Persisted value types. Anything else is stored as its string form.
+     */
+    public enum Type {
+        NULL, INT, LONG, BIG_INTEGER, DECIMAL, DOUBLE, BOOLEAN, STRING, BINARY,
+        DATE, LOCAL_DATE, TIME, LOCAL_TIME, TIMESTAMP, LOCAL_DATE_TIME, TIMESTAMP_WITH_OFFSET, INSTANT
+    }
+
+    private final Type type;
+    private final String value;
+
+    @JsonCreator
+    public StoredValue(@JsonProperty("type") Type type, @JsonProperty("value") String value) {
+        this.type = type;
+        this.value = value;
+    }
+
+    public static StoredValue of(Object value) {
+        if (value == null) {
+            return new StoredValue(Type.NULL, null);
+        }
+        if (value instanceof Integer || value instanceof Short || value instanceof Byte) {
+            return new StoredValue(Type.INT, value.toString());
+        }
+        if (value instanceof Long) {
+            return new StoredValue(Type.LONG, value.toString());
+        }
+        if (value instanceof BigInteger) {
+            return new StoredValue(Type.BIG_INTEGER, value.toString());
+        }
+        if (value instanceof BigDecimal) {
+            return new StoredValue(Type.DECIMAL, value.toString());
+        }
+        if (value instanceof Double || value instanceof Float) {
+            return new StoredValue(Type.DOUBLE, value.toString());
+        }
+        if (value instanceof Boolean) {
+            return new StoredValue(Type.BOOLEAN, value.toString());
+        }
+        if (value instanceof byte[]) {
+            return new StoredValue(Type.BINARY, toHex((byte[]) value));
+        }
+        if (value instanceof Timestamp) {
+            return new StoredValue(Type.TIMESTAMP, ((Timestamp) value).toLocalDateTime().toString());
+        }
+        if (value instanceof Date) {
+            return new StoredValue(Type.DATE, ((Date) value).toLocalDate().toString());
+        }
+        if (value instanceof Time) {
+            return new StoredValue(Type.TIME, ((Time) value).toLocalTime().toString());
+        }
+        if (value instanceof LocalDateTime) {
+            return new StoredValue(Type.LOCAL_DATE_TIME, value.toString());
+        }
+        if (value instanceof LocalDate) {
+            return new StoredValue(Type.LOCAL_DATE, value.toString());
+        }
+        if (value instanceof LocalTime) {
+            return new StoredValue(Type.LOCAL_TIME, value.toString());
+        }
+        if (value instanceof OffsetDateTime) {
+            return new StoredValue(Type.TIMESTAMP_WITH_OFFSET, value.toString());
+        }
+        if (value instanceof Instant) {
+            return new StoredValue(Type.INSTANT, value.toString());
+        }
+        return new StoredValue(Type.STRING, value.toString());
+    }
+
+    public Type getType() { return type; }
+    public String getValue() { return value; }
+
+    /**
+     * Converts back to a value of the original type.
+     */
+    public Object toObject() {
+        switch (type) {
+            case NULL:
+                return null;
+            case INT:
+                return Integer.valueOf(value);
+            case LONG:
+                return Long.valueOf(value);
+            case BIG_INTEGER:
+                return new BigInteger(value);
+            case DECIMAL:
+                return new BigDecimal(value);
+            case DOUBLE:
+                return Double.valueOf(value);
+            case BOOLEAN:
+                return Boolean.valueOf(value);
+            case BINARY:
+                return fromHex(value);
+            case DATE:
+                return Date.valueOf(LocalDate.parse(value));
+            case LOCAL_DATE:
+                return LocalDate.parse(value);
+            case TIME:
+                return Time.valueOf(LocalTime.parse(value));
+            case LOCAL_TIME:
+                return LocalTime.parse(value);
+            case TIMESTAMP:
+                return Timestamp.valueOf(LocalDateTime.parse(value));
+            case LOCAL_DATE_TIME:
+                return LocalDateTime.parse(value);
+            case TIMESTAMP_WITH_OFFSET:
+                return OffsetDateTime.parse(value);
+            case INSTANT:
+                return Instant.parse(value);
+            default:
+                return value;
+        }
+    }
+
+    /**
+     * Converts a key or row to stored values, or returns null for a null array.
+     */
+    public static List<StoredValue> ofAll(Object[] values) {
+        if (values == null) {
+            return null;
+        }
+        List<StoredValue> stored = new ArrayList<>(values.length);
+        for (Object value : values) {
+            stored.add(of(value));
+        }
+        return stored;
+    }
+
+    /**
+     * Converts stored values back to a key or row, or returns null for a null list.
+     */
+    public static Object[] toObjects(List<StoredValue> values) {
+        if (values == null) {
+            return null;
+        }
+        Object[] objects = new Object[values.size()];
+        for (int i = 0; i < objects.length; i++) {
+            objects[i] = values.get(i).toObject();
+        }
+        return objects;
+    }
+
+    private static String toHex(byte[] bytes) {
+        StringBuilder hex = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            hex.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+        }
+        return hex.toString();
+    }
+
+    private static byte[] fromHex(String hex) {
+        byte[] bytes = new byte[hex.length() / 2];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = (byte) Integer.parseInt(hex.substring(2 * i, 2 * i + 2), 16);
+        }
+        return bytes;
+    }
+}
@@ -0,0 +1,90 @@
+package com.datamigration.framework.analyzer;
+
+import com.datamigration.framework.reporting.ComparisonReportGenerator;
+
+/**
+ * Row count comparison of a single table. A count of -1 means the count failed or timed out.
+ * Catalog estimates are only reported when they agree within the configured tolerance,
+ * otherwise the table is counted exactly, so an estimated result always counts as a match.
+ */
+public class TableCountResult implements ComparisonReportGenerator.ComparisonResult {
+
+    /**
+     * How the counts were obtained.
+     */
+    public enum CountMode {
+        EXACT, CATALOG_ESTIMATE
+    }
+
+    private final String tableName;
+    private final long sourceCount;
+    private final long targetCount;
+    private final CountMode countMode;
+    private boolean timedOut;
+
+    public TableCountResult(String tableName, long sourceCount, long targetCount) {
+        this(tableName, sourceCount, targetCount, CountMode.EXACT);
+    }
+
+    public TableCountResult(String tableName, long sourceCount, long targetCount, CountMode countMode) {
+        this.tableName = tableName;
+        this.sourceCount = sourceCount;
+        this.targetCount = targetCount;
+        this.countMode = countMode;
+    }
+
+    @Override
+    public String getItemName() {
+        return tableName;
+    }
+
+    @Override
+    public Object getSourceValue() {
+        return sourceCount;
+    }
+
+    @Override
+    public Object getTargetValue() {
+        return targetCount;
+    }
+
+    public long getSourceCount() {
+        return sourceCount;
+    }
+
+    public long getTargetCount() {
+        return targetCount;
+    }
+
+    public CountMode getCountMode() {
+        return countMode;
+    }
+
+    void setTimedOut(boolean timedOut) {
+        this.timedOut = timedOut;
+    }
+
+    /**
+     * Checks whether a count was stopped by its deadline.
+     */
+    @Override
+    public boolean isTimedOut() {
+        return timedOut;
+    }
+
+    @Override
+    public String getDetails() {
+        if (timedOut) {
+            return "Count timed out";
+        }
+        return countMode == CountMode.CATALOG_ESTIMATE ? "Catalog estimate" : "Exact count";
+    }
+
+    @Override
+    public boolean isMatch() {
+        if (countMode == CountMode.CATALOG_ESTIMATE) {
+            return sourceCount >= 0 && targetCount >= 0;
+        }
+        return sourceCount == targetCount && sourceCount >= 0;
+    }
+}
@@ -0,0 +1,129 @@
+package com.datamigration.framework.analyzer;
+
+import com.datamigration.framework.connector.ColumnType;
+import com.datamigration.framework.connector.DatabaseConnector;
+import com.datamigration.framework.connector.dialect.SqlDialect;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Column profiles of one table on one database, computed with a single aggregate query
+ * that scans the table once for all columns.
+ */
+public class TableProfile {
+    private static final Logger logger = LoggerFactory.getLogger(TableProfile.class);
+
+    private final String tableName;
+    private final long rowCount;
+    private final List<ColumnProfile> columns;
+
+    public TableProfile(String tableName, long rowCount, List<ColumnProfile> columns) {
+        this.tableName = tableName;
+        this.rowCount = rowCount;
+        this.columns = Collections.unmodifiableList(new ArrayList<>(columns));
+    }
+
+    /**
+     * Profiles a table. Column types come from {@link DatabaseConnector#getColumnTypes}; the
+     * aggregates are pushed down in one {@code SELECT}. Counts use the dialect's 64-bit count,
+     * and distinct counts its approximate aggregate when it has one and {@code COUNT(DISTINCT ...)}
+     * otherwise. Integer sums are widened to {@code DECIMAL(38, 0)} so they cannot overflow, and
+     * string values are profiled by length rather than by collation-dependent min/max.
+     *
+     * @param ignoreTrailingSpaces Whether string lengths leave out trailing spaces
+     */
+    public static TableProfile load(DatabaseConnector connector, String tableName, boolean ignoreTrailingSpaces)
+            throws SQLException {
+        SqlDialect dialect = connector.getDialect();
+        boolean approximateDistinct = connector.supports(SqlDialect.Capability.APPROXIMATE_DISTINCT);
+
+        List<ColumnType> types = connector.getColumnTypes(tableName);
+        if (types.isEmpty()) {
+            throw new IllegalStateException("Table " + tableName + " has no columns on the "
+                + connector.getDatabaseType() + " database");
+        }
+        List<ColumnProfile.Kind> kinds = new ArrayList<>();
+        for (ColumnType type : types) {
+            kinds.add(ColumnProfile.Kind.of(type.getSqlType()));
+        }
+
+        StringBuilder select = new StringBuilder("SELECT ").append(dialect.countExpression("*"));
+        for (int i = 0; i < types.size(); i++) {
+            String column = connector.quoteIdentifier(types.get(i).getName());
+            for (ColumnProfile.Metric metric : kinds.get(i).getMetrics()) {
+                select.append(", ").append(aggregate(dialect, metric, kinds.get(i), column, approximateDistinct,
+                    ignoreTrailingSpaces));
+            }
+        }
+        select.append(" FROM ").append(connector.quoteTableName(tableName));
+        logger.debug("Profiling {} on {}: {}", tableName, connector.getDatabaseType(), select);
+
+        try (ResultSet rs = connector.executeQuery(select.toString())) {
+            if (!rs.next()) {
+                throw new SQLException("Profile query for " + tableName + " returned no row");
+            }
+            long rowCount = rs.getLong(1);
+            List<ColumnProfile> profiles = new ArrayList<>();
+            int index = 2;
+            for (int i = 0; i < types.size(); i++) {
+                Map<ColumnProfile.Metric, Object> values = new EnumMap<>(ColumnProfile.Metric.class);
+                for (ColumnProfile.Metric metric : kinds.get(i).getMetrics()) {
+                    Object value = rs.getObject(index++);
+                    if (value != null) {
+                        values.put(metric, value);
+                    }
+                }
+                profiles.add(new ColumnProfile(types.get(i), kinds.get(i), rowCount, approximateDistinct, values));
+            }
+            return new TableProfile(tableName, rowCount, profiles);
+        }
+    }
+
+    private static String aggregate(SqlDialect dialect, ColumnProfile.Metric metric, ColumnProfile.Kind kind,
+                                    String column, boolean approximateDistinct, boolean ignoreTrailingSpaces) {
+        switch (metric) {
+            case NULL_COUNT:
+                return dialect.countExpression("*") + " - " + dialect.countExpression(column);
+            case DISTINCT_COUNT:
+                return approximateDistinct ? dialect.approximateDistinctCount(column)
+                    : dialect.countExpression("DISTINCT " + column);
+            case MIN:
+                return "MIN(" + column + ")";
+            case MAX:
+                return "MAX(" + column + ")";
+            case SUM:
+                return kind == ColumnProfile.Kind.INTEGER ?
+                    "SUM(CAST(" + column + " AS DECIMAL(38, 0)))" : "SUM(" + column + ")";
+            case MIN_LENGTH:
+                return "MIN(" + dialect.lengthExpression(column, ignoreTrailingSpaces) + ")";
+            case MAX_LENGTH:
+                return "MAX(" + dialect.lengthExpression(column, ignoreTrailingSpaces) + ")";
+            default:
+                throw new IllegalArgumentException("Unknown metric " + metric);
+        }
+    }
+
+    public String getTableName() { return tableName; }
+    public long getRowCount() { return rowCount; }
+    public List<ColumnProfile> getColumns() { return columns; }
+
+    /**
+     * Finds a column by name, ignoring case.
+     */
+    public ColumnProfile getColumn(String name) {
+        for (ColumnProfile column : columns) {
+            if (column.getName().equalsIgnoreCase(name)) {
+                return column;
+            }
+        }
+        return null;
+    }
+}
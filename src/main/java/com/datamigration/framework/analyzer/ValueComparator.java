@@ -0,0 +1,432 @@
+package com.datamigration.framework.analyzer;
+
+import com.datamigration.framework.config.ConfigurationManager;
+import com.datamigration.framework.connector.ColumnType;
+import com.datamigration.framework.connector.RowEncoder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.math.BigDecimal;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Decides whether two values of a value column are equal when their canonical encodings differ,
+ * with per-type rules for the differences a migration between dialects introduces:
+ * <ul>
+ *   <li>Numbers are equal within {@code numericTolerance}, and within half a unit of the smaller
+ *       scale when the column scales differ, e.g. {@code money} and {@code numeric(12,2)}.</li>
+ *   <li>Timestamps and times are equal within {@code temporalTolerance}, and within half a unit of
+ *       the coarser fractional-second precision when the precisions differ, e.g. {@code datetime}
+ *       (1/300 s) and {@code timestamp(6)}.</li>
+ *   <li>Character columns ignore trailing spaces, as padded comparisons in SQL do, unless
+ *       {@code ignoreTrailingSpaces} is off.</li>
+ *   <li>{@code uniqueidentifier} and {@code uuid} columns ignore letter case.</li>
+ *   <li>{@code bit} and {@code boolean} columns equal integer columns holding 0 and 1.</li>
+ * </ul>
+ * Other columns must be equal exactly. The rules are resolved once per table from the column types
+ * both databases report. {@link RowEncoder} already normalizes numeric scale and {@code bit}
+ * against {@code boolean}, so rows whose hashes match never get here; the checks of differing
+ * values read the encoded bytes directly and only decode decimals.
+ */
+public final class ValueComparator {
+    private static final Logger logger = LoggerFactory.getLogger(ValueComparator.class);
+
+    /** {@code microsoft.sql.Types.DATETIMEOFFSET}, reported by the SQL Server driver. */
+    private static final int SQL_SERVER_DATETIMEOFFSET = -155;
+    private static final long NANOS_PER_SECOND = 1_000_000_000L;
+    /** SQL Server {@code datetime} stores 1/300 s ticks, rounded up here to whole nanoseconds. */
+    private static final long DATETIME_UNIT_NANOS = 3_333_334L;
+    private static final long SMALLDATETIME_UNIT_NANOS = 60 * NANOS_PER_SECOND;
+
+    private enum Rule { EXACT, NUMERIC, TEMPORAL, TEXT, GUID, BOOLEAN }
+
+    private final Rule[] rules;
+    private final double[] numericTolerances;
+    private final BigDecimal[] decimalTolerances;
+    private final long[] temporalToleranceNanos;
+
+    private ValueComparator(int columns) {
+        this.rules = new Rule[columns];
+        this.numericTolerances = new double[columns];
+        this.decimalTolerances = new BigDecimal[columns];
+        this.temporalToleranceNanos = new long[columns];
+        Arrays.fill(rules, Rule.EXACT);
+    }
+
+    /**
+     * Creates a comparator that requires every value to be equal exactly.
+     */
+    public static ValueComparator exact(int columns) {
+        return new ValueComparator(columns);
+    }
+
+    /**
+     * Resolves the rules for the value columns of a mapping. Columns of unknown type, as in
+     * mappings not resolved from the database, are compared exactly.
+     */
+    public static ValueComparator forMapping(ColumnMapping mapping, ConfigurationManager.ComparisonConfig config) {
+        if (!mapping.hasValueTypes()) {
+            return exact(mapping.getSourceValueColumns().size());
+        }
+        return forColumns(mapping.getTableName(), mapping.getSourceValueTypes(), mapping.getTargetValueTypes(), config);
+    }
+
+    /**
+     * Resolves the rules for pairs of columns of a table, given in the same order on both sides.
+     */
+    public static ValueComparator forColumns(String tableName, List<ColumnType> sourceColumns,
+                                             List<ColumnType> targetColumns,
+                                             ConfigurationManager.ComparisonConfig config) {
+        ValueComparator comparator = new ValueComparator(sourceColumns.size());
+        for (int i = 0; i < sourceColumns.size(); i++) {
+            ColumnType source = sourceColumns.get(i);
+            ColumnType target = targetColumns.get(i);
+            Double columnTolerance = findTolerance(config.getColumnTolerances(), tableName + "." + source.getName());
+            comparator.resolve(i, source, target, columnTolerance, config);
+            if (comparator.rules[i] != Rule.EXACT) {
+                logger.debug("Table {}: comparing {} / {} by rule {}", tableName, source, target,
+                    comparator.rules[i]);
+            }
+        }
+        return comparator;
+    }
+
+    private void resolve(int column, ColumnType source, ColumnType target, Double columnTolerance,
+                         ConfigurationManager.ComparisonConfig config) {
+        if (isGuid(source) || isGuid(target)) {
+            rules[column] = Rule.GUID;
+        } else if (isText(source) && isText(target)) {
+            rules[column] = config.isIgnoreTrailingSpaces() ? Rule.TEXT : Rule.EXACT;
+        } else if (isBoolean(source) != isBoolean(target) && (isNumeric(source) || isNumeric(target))) {
+            rules[column] = Rule.BOOLEAN;
+        } else if (isNumeric(source) && isNumeric(target)) {
+            double tolerance = Math.max(columnTolerance != null ? columnTolerance : config.getNumericTolerance(),
+                implicitNumericTolerance(source, target));
+            if (tolerance > 0) {
+                rules[column] = Rule.NUMERIC;
+                numericTolerances[column] = tolerance;
+                decimalTolerances[column] = BigDecimal.valueOf(tolerance);
+            }
+        } else if (isTemporal(source) && isTemporal(target)) {
+            double toleranceMillis = columnTolerance != null ? columnTolerance : config.getTemporalTolerance();
+            long tolerance = Math.max((long) (toleranceMillis * 1_000_000), implicitTemporalTolerance(source, target));
+            if (tolerance > 0) {
+                rules[column] = Rule.TEMPORAL;
+                temporalToleranceNanos[column] = tolerance;
+            }
+        }
+    }
+
+    /**
+     * Half a unit of the smaller scale if the scales differ, as a value rounded to it may differ by that much.
+     */
+    private static double implicitNumericTolerance(ColumnType source, ColumnType target) {
+        Integer sourceScale = scaleOf(source);
+        Integer targetScale = scaleOf(target);
+        if (sourceScale == null || targetScale == null || sourceScale.equals(targetScale)) {
+            return 0;
+        }
+        return 0.5 * Math.pow(10, -Math.min(sourceScale, targetScale));
+    }
+
+    private static Integer scaleOf(ColumnType column) {
+        switch (column.getSqlType()) {
+            case Types.TINYINT:
+            case Types.SMALLINT:
+            case Types.INTEGER:
+            case Types.BIGINT:
+                return 0;
+            case Types.DECIMAL:
+            case Types.NUMERIC:
+                return column.getDecimalDigits();
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * Half a unit of the coarser fractional-second precision if the precisions differ.
+     */
+    private static long implicitTemporalTolerance(ColumnType source, ColumnType target) {
+        long sourceUnit = temporalUnitNanos(source);
+        long targetUnit = temporalUnitNanos(target);
+        if (sourceUnit == 0 || targetUnit == 0 || sourceUnit == targetUnit) {
+            return 0;
+        }
+        return Math.max(sourceUnit, targetUnit) / 2;
+    }
+
+    private static long temporalUnitNanos(ColumnType column) {
+        String typeName = column.getTypeName();
+        if ("datetime".equalsIgnoreCase(typeName)) {
+            return DATETIME_UNIT_NANOS;
+        }
+        if ("smalldatetime".equalsIgnoreCase(typeName)) {
+            return SMALLDATETIME_UNIT_NANOS;
+        }
+        Integer digits = column.getDecimalDigits();
+        if (digits == null || digits < 0) {
+            return 0;
+        }
+        long unit = 1;
+        for (int i = Math.min(digits, 9); i < 9; i++) {
+            unit *= 10;
+        }
+        return unit;
+    }
+
+    private static Double findTolerance(Map<String, Double> tolerances, String column) {
+        for (Map.Entry<String, Double> entry : tolerances.entrySet()) {
+            if (entry.getKey().equalsIgnoreCase(column)) {
+                return entry.getValue();
+            }
+        }
+        return null;
+    }
+
+    private static boolean isGuid(ColumnType column) {
+        return "uniqueidentifier".equalsIgnoreCase(column.getTypeName()) || "uuid".equalsIgnoreCase(column.getTypeName());
+    }
+
+    private static boolean isText(ColumnType column) {
+        switch (column.getSqlType()) {
+            case Types.CHAR:
+            case Types.VARCHAR:
+            case Types.LONGVARCHAR:
+            case Types.NCHAR:
+            case Types.NVARCHAR:
+            case Types.LONGNVARCHAR:
+            case Types.CLOB:
+            case Types.NCLOB:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    private static boolean isBoolean(ColumnType column) {
+        return column.getSqlType() == Types.BIT || column.getSqlType() == Types.BOOLEAN;
+    }
+
+    private static boolean isNumeric(ColumnType column) {
+        switch (column.getSqlType()) {
+            case Types.TINYINT:
+            case Types.SMALLINT:
+            case Types.INTEGER:
+            case Types.BIGINT:
+            case Types.DECIMAL:
+            case Types.NUMERIC:
+            case Types.REAL:
+            case Types.FLOAT:
+            case Types.DOUBLE:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    private static boolean isTemporal(ColumnType column) {
+        switch (column.getSqlType()) {
+            case Types.TIME:
+            case Types.TIME_WITH_TIMEZONE:
+            case Types.TIMESTAMP:
+            case Types.TIMESTAMP_WITH_TIMEZONE:
+            case SQL_SERVER_DATETIMEOFFSET:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Checks whether every column is compared exactly.
+     */
+    public boolean isExact() {
+        for (Rule rule : rules) {
+            if (rule != Rule.EXACT) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Compares a value column of the last rows of two encoders, reading the encodings directly.
+     *
+     * @param column Zero-based index among the value columns
+     */
+    public boolean equal(int column, RowEncoder source, RowEncoder target) {
+        if (source.columnEquals(target, column)) {
+            return true;
+        }
+        Rule rule = rules[column];
+        if (rule == Rule.EXACT) {
+            return false;
+        }
+        RowEncoder.Kind sourceKind = source.getKind(column);
+        RowEncoder.Kind targetKind = target.getKind(column);
+        if (sourceKind == RowEncoder.Kind.NULL || targetKind == RowEncoder.Kind.NULL) {
+            return false;
+        }
+        switch (rule) {
+            case TEXT:
+                return source.textEquals(target, column, true, false);
+            case GUID:
+                return source.textEquals(target, column, false, true);
+            case BOOLEAN:
+                if (sourceKind == RowEncoder.Kind.BOOLEAN && targetKind == RowEncoder.Kind.INTEGER) {
+                    return (source.getBoolean(column) ? 1 : 0) == target.getLong(column);
+                }
+                if (sourceKind == RowEncoder.Kind.INTEGER && targetKind == RowEncoder.Kind.BOOLEAN) {
+                    return source.getLong(column) == (target.getBoolean(column) ? 1 : 0);
+                }
+                return false;
+            case NUMERIC:
+                return numericEqual(column, source, sourceKind, target, targetKind);
+            case TEMPORAL:
+                if (sourceKind != targetKind) {
+                    return false;
+                }
+                if (sourceKind == RowEncoder.Kind.TIME) {
+                    return Math.abs(source.getLong(column) - target.getLong(column)) <= temporalToleranceNanos[column];
+                }
+                if (sourceKind == RowEncoder.Kind.TIMESTAMP || sourceKind == RowEncoder.Kind.INSTANT) {
+                    return withinNanos(column, source.getLong(column) - target.getLong(column),
+                        source.getNano(column) - target.getNano(column));
+                }
+                return false;
+            default:
+                return false;
+        }
+    }
+
+    private boolean numericEqual(int column, RowEncoder source, RowEncoder.Kind sourceKind,
+                                 RowEncoder target, RowEncoder.Kind targetKind) {
+        if (sourceKind == RowEncoder.Kind.INTEGER && targetKind == RowEncoder.Kind.INTEGER) {
+            long left = source.getLong(column);
+            long right = target.getLong(column);
+            long difference = left - right;
+            if (((left ^ right) & (left ^ difference)) < 0) {
+                return false;
+            }
+            return Math.abs((double) difference) <= numericTolerances[column];
+        }
+        if (isPrimitiveNumber(sourceKind) && isPrimitiveNumber(targetKind)) {
+            return Math.abs(source.getDouble(column) - target.getDouble(column)) <= numericTolerances[column];
+        }
+        if (isNumber(sourceKind) && isNumber(targetKind)) {
+            return decimalEqual(column, KeyComparator.toBigDecimal((Number) source.decode(column)),
+                KeyComparator.toBigDecimal((Number) target.decode(column)));
+        }
+        return false;
+    }
+
+    private static boolean isPrimitiveNumber(RowEncoder.Kind kind) {
+        return kind == RowEncoder.Kind.INTEGER || kind == RowEncoder.Kind.FLOATING;
+    }
+
+    private static boolean isNumber(RowEncoder.Kind kind) {
+        return isPrimitiveNumber(kind) || kind == RowEncoder.Kind.DECIMAL;
+    }
+
+    private boolean decimalEqual(int column, BigDecimal source, BigDecimal target) {
+        return source.subtract(target).abs().compareTo(decimalTolerances[column]) <= 0;
+    }
+
+    private boolean withinNanos(int column, long seconds, long nanos) {
+        long tolerance = temporalToleranceNanos[column];
+        if (Math.abs(seconds) > tolerance / NANOS_PER_SECOND + 1) {
+            return false;
+        }
+        return Math.abs(seconds * NANOS_PER_SECOND + nanos) <= tolerance;
+    }
+
+    /**
+     * Compares two values of a value column as returned by JDBC {@code getObject} or decoded from
+     * an encoding.
+     *
+     * @param column Zero-based index among the value columns
+     */
+    public boolean equal(int column, Object source, Object target) {
+        if (RowMergeDiff.valuesEqual(source, target)) {
+            return true;
+        }
+        if (source == null || target == null) {
+            return false;
+        }
+        switch (rules[column]) {
+            case TEXT:
+                return stripTrailingSpaces(source.toString()).equals(stripTrailingSpaces(target.toString()));
+            case GUID:
+                return (source instanceof String || source instanceof UUID)
+                    && (target instanceof String || target instanceof UUID)
+                    && source.toString().equalsIgnoreCase(target.toString());
+            case BOOLEAN:
+                if (source instanceof Boolean && target instanceof Number) {
+                    return RowMergeDiff.valuesEqual((Boolean) source ? 1L : 0L, target);
+                }
+                if (source instanceof Number && target instanceof Boolean) {
+                    return RowMergeDiff.valuesEqual(source, (Boolean) target ? 1L : 0L);
+                }
+                return false;
+            case NUMERIC:
+                return source instanceof Number && target instanceof Number
+                    && decimalEqual(column, KeyComparator.toBigDecimal((Number) source),
+                        KeyComparator.toBigDecimal((Number) target));
+            case TEMPORAL: {
+                Instant left = toInstant(source);
+                Instant right = toInstant(target);
+                return left != null && right != null
+                    && withinNanos(column, left.getEpochSecond() - right.getEpochSecond(),
+                        left.getNano() - right.getNano());
+            }
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Converts a temporal value to an instant, taking local date-times as UTC and times as UTC on the
+     * epoch day, so that values of the same kind can be subtracted.
+     */
+    private static Instant toInstant(Object value) {
+        if (value instanceof Timestamp) {
+            return ((Timestamp) value).toLocalDateTime().toInstant(ZoneOffset.UTC);
+        }
+        if (value instanceof Time) {
+            return Instant.ofEpochSecond(0, ((Time) value).toLocalTime().toNanoOfDay());
+        }
+        if (value instanceof LocalDateTime) {
+            return ((LocalDateTime) value).toInstant(ZoneOffset.UTC);
+        }
+        if (value instanceof LocalTime) {
+            return Instant.ofEpochSecond(0, ((LocalTime) value).toNanoOfDay());
+        }
+        if (value instanceof OffsetDateTime) {
+            return ((OffsetDateTime) value).toInstant();
+        }
+        if (value instanceof Instant) {
+            return (Instant) value;
+        }
+        return null;
+    }
+
+    private static String stripTrailingSpaces(String value) {
+        int end = value.length();
+        while (end > 0 && value.charAt(end - 1) == ' ') {
+            end--;
+        }
+        return value.substring(0, end);
+    }
+}
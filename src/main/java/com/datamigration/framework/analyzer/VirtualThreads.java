@@ -0,0 +1,26 @@
+package com.datamigration.framework.analyzer;
+
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Access to virtual threads. This is the Java 11 version, which has none; the multi-release JAR
+ * built with the {@code java21} profile replaces it from {@code src/main/java21}.
+ */
+final class VirtualThreads {
+
+    private VirtualThreads() {
+    }
+
+    static boolean isSupported() {
+        return false;
+    }
+
+    /**
+     * Creates a factory of virtual threads named {@code <name>-worker-<n>}.
+     *
+     * @throws UnsupportedOperationException Always, as virtual threads need Java 21
+     */
+    static ThreadFactory newThreadFactory(String name) {
+        throw new UnsupportedOperationException("Virtual threads need Java 21");
+    }
+}
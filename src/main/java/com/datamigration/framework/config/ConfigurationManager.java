@@ -9,6 +9,7 @@ import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -28,6 +29,9 @@ public class ConfigurationManager {
     private LoggingConfig loggingConfig;
     private S3Config s3Config;
     private S3Config s3SourceConfig;
+    private ComparisonConfig comparisonConfig;
+    private List<QueryPairConfig> queryPairs;
+    private CustomerValidationConfig customerValidationConfig;
 
     public ConfigurationManager() throws IOException {
         // Try to load from project root first
@@ -42,6 +46,13 @@ public class ConfigurationManager {
         }
     }
 
+    /**
+     * Loads configuration from the given file path or classpath resource.
+     */
+    public ConfigurationManager(String configPath) throws IOException {
+        loadConfiguration(configPath);
+    }
+
     public void loadConfiguration(String configPath) throws IOException {
         logger.info("Loading configuration from: {}", configPath);
         
@@ -136,6 +147,27 @@ public class ConfigurationManager {
             Map<String, Object> s3SourceConfigMap = (Map<String, Object>) config.get("s3Source");
             s3SourceConfig = parseS3Config(s3SourceConfigMap);
         }
+
+        // Parse comparison engine configuration
+        if (config.containsKey("comparison")) {
+            Map<String, Object> compConfig = (Map<String, Object>) config.get("comparison");
+            comparisonConfig = parseComparisonConfig(compConfig);
+        }
+
+        // Parse custom validation query pairs
+        if (config.containsKey("queryPairs")) {
+            List<Map<String, Object>> pairs = (List<Map<String, Object>>) config.get("queryPairs");
+            queryPairs = new ArrayList<>();
+            for (Map<String, Object> pairConfig : pairs) {
+                queryPairs.add(parseQueryPairConfig(pairConfig));
+            }
+        }
+
+        // Parse per-customer validation configuration
+        if (config.containsKey("customerValidation")) {
+            Map<String, Object> customerConfig = (Map<String, Object>) config.get("customerValidation");
+            customerValidationConfig = parseCustomerValidationConfig(customerConfig);
+        }
     }
 
     private DatabaseConfig parseDatabaseConfig(Map<String, Object> dbConfig) {
@@ -148,6 +180,17 @@ public class ConfigurationManager {
         config.setDriver((String) dbConfig.get("driver"));
         config.setConnectionTimeout((Integer) dbConfig.get("connectionTimeout"));
         config.setMaxPoolSize((Integer) dbConfig.get("maxPoolSize"));
+        config.setIdleTimeout((Integer) dbConfig.get("idleTimeout"));
+        config.setValidationInterval((Integer) dbConfig.get("validationInterval"));
+        config.setFetchSize((Integer) dbConfig.get("fetchSize"));
+        config.setStatementCacheSize((Integer) dbConfig.get("statementCacheSize"));
+        config.setSocketTimeout((Integer) dbConfig.get("socketTimeout"));
+        config.setQueryTimeout((Integer) dbConfig.get("queryTimeout"));
+        config.setAdaptiveConcurrency((Boolean) dbConfig.get("adaptiveConcurrency"));
+        config.setMinConcurrency((Integer) dbConfig.get("minConcurrency"));
+        config.setMaxConcurrency((Integer) dbConfig.get("maxConcurrency"));
+        Number latencyTolerance = (Number) dbConfig.get("latencyTolerance");
+        config.setLatencyTolerance(latencyTolerance != null ? latencyTolerance.doubleValue() : null);
         return config;
     }
 
@@ -160,6 +203,11 @@ public class ConfigurationManager {
         String tablePrefix = (String) dbConfig.get("tablePrefix");
         String tableName = (String) dbConfig.get("tableName");
         config.setTablePrefix(tablePrefix != null ? tablePrefix : tableName);
+        config.setApiCallTimeout((Integer) dbConfig.get("apiCallTimeout"));
+        config.setScanSegments((Integer) dbConfig.get("scanSegments"));
+        config.setScanThreads((Integer) dbConfig.get("scanThreads"));
+        config.setCountMode((String) dbConfig.get("countMode"));
+        config.setScanPrefetchPages((Integer) dbConfig.get("scanPrefetchPages"));
         return config;
     }
 
@@ -170,6 +218,101 @@ public class ConfigurationManager {
         config.setRegion((String) s3ConfigMap.get("region"));
         config.setAccessKey((String) s3ConfigMap.get("accessKey"));
         config.setSecretKey((String) s3ConfigMap.get("secretKey"));
+        config.setApiCallTimeout((Integer) s3ConfigMap.get("apiCallTimeout"));
+        return config;
+    }
+
+    @SuppressWarnings("unchecked")
+    private QueryPairConfig parseQueryPairConfig(Map<String, Object> pairConfig) {
+        QueryPairConfig config = new QueryPairConfig();
+        config.setName((String) pairConfig.get("name"));
+        config.setTableName((String) pairConfig.get("tableName"));
+        config.setCustomer((String) pairConfig.get("customer"));
+        config.setSourceQuery((String) pairConfig.get("sourceQuery"));
+        config.setTargetQuery((String) pairConfig.get("targetQuery"));
+        config.setKeyColumns((List<String>) pairConfig.get("keyColumns"));
+        return config;
+    }
+
+    @SuppressWarnings("unchecked")
+    private CustomerValidationConfig parseCustomerValidationConfig(Map<String, Object> customerConfig) {
+        CustomerValidationConfig config = new CustomerValidationConfig();
+        config.setCustomerColumn((String) customerConfig.get("customerColumn"));
+        config.setCustomerQuery((String) customerConfig.get("customerQuery"));
+        config.setBatchSize((Integer) customerConfig.get("batchSize"));
+        List<Map<String, Object>> customers = (List<Map<String, Object>>) customerConfig.get("customers");
+        if (customers != null) {
+            Map<Object, String> names = new LinkedHashMap<>();
+            for (Map<String, Object> customer : customers) {
+                Object name = customer.get("name");
+                names.put(customer.get("id"), name != null ? name.toString() : null);
+            }
+            config.setCustomers(names);
+        }
+        List<Map<String, Object>> queries = (List<Map<String, Object>>) customerConfig.get("queries");
+        if (queries != null) {
+            List<QueryPairConfig> pairs = new ArrayList<>();
+            for (Map<String, Object> pairConfig : queries) {
+                pairs.add(parseQueryPairConfig(pairConfig));
+            }
+            config.setQueries(pairs);
+        }
+        return config;
+    }
+
+    @SuppressWarnings("unchecked")
+    private ComparisonConfig parseComparisonConfig(Map<String, Object> compConfig) {
+        ComparisonConfig config = new ComparisonConfig();
+        config.setPageSize((Integer) compConfig.get("pageSize"));
+        config.setMaxReportedDifferences((Integer) compConfig.get("maxReportedDifferences"));
+        config.setChunkFanout((Integer) compConfig.get("chunkFanout"));
+        config.setLeafChunkRows((Integer) compConfig.get("leafChunkRows"));
+        config.setCountMode((String) compConfig.get("countMode"));
+        Number countTolerance = (Number) compConfig.get("countTolerance");
+        config.setCountTolerance(countTolerance != null ? countTolerance.doubleValue() : null);
+        config.setSchemaCacheDir((String) compConfig.get("schemaCacheDir"));
+        config.setSampleSize((Integer) compConfig.get("sampleSize"));
+        Number sampleErrorBound = (Number) compConfig.get("sampleErrorBound");
+        config.setSampleErrorBound(sampleErrorBound != null ? sampleErrorBound.doubleValue() : null);
+        Number sampleConfidence = (Number) compConfig.get("sampleConfidence");
+        config.setSampleConfidence(sampleConfidence != null ? sampleConfidence.doubleValue() : null);
+        config.setSampleTimeBudget((Integer) compConfig.get("sampleTimeBudget"));
+        config.setLookupBatchSize((Integer) compConfig.get("lookupBatchSize"));
+        Number profileDistinctTolerance = (Number) compConfig.get("profileDistinctTolerance");
+        config.setProfileDistinctTolerance(profileDistinctTolerance != null ? profileDistinctTolerance.doubleValue() : null);
+        config.setParallelScanThreads((Integer) compConfig.get("parallelScanThreads"));
+        config.setParallelScanMinRows((Integer) compConfig.get("parallelScanMinRows"));
+        config.setSpillDir((String) compConfig.get("spillDir"));
+        config.setSpillMemoryBudget((Integer) compConfig.get("spillMemoryBudget"));
+        Map<String, Object> watermarkColumns = (Map<String, Object>) compConfig.get("watermarkColumns");
+        if (watermarkColumns != null) {
+            Map<String, String> columns = new LinkedHashMap<>();
+            for (Map.Entry<String, Object> entry : watermarkColumns.entrySet()) {
+                columns.put(entry.getKey(), String.valueOf(entry.getValue()));
+            }
+            config.setWatermarkColumns(columns);
+        }
+        config.setIncrementalStateDir((String) compConfig.get("incrementalStateDir"));
+        Number watermarkSafetyLag = (Number) compConfig.get("watermarkSafetyLag");
+        config.setWatermarkSafetyLag(watermarkSafetyLag != null ? watermarkSafetyLag.longValue() : null);
+        config.setCheckpointDir((String) compConfig.get("checkpointDir"));
+        config.setCheckpointInterval((Integer) compConfig.get("checkpointInterval"));
+        config.setQueryPairThreads((Integer) compConfig.get("queryPairThreads"));
+        config.setJobTimeout((Integer) compConfig.get("jobTimeout"));
+        config.setTableTimeout((Integer) compConfig.get("tableTimeout"));
+        config.setVirtualThreads((Boolean) compConfig.get("virtualThreads"));
+        Number numericTolerance = (Number) compConfig.get("numericTolerance");
+        config.setNumericTolerance(numericTolerance != null ? numericTolerance.doubleValue() : null);
+        config.setTemporalTolerance((Integer) compConfig.get("temporalTolerance"));
+        config.setIgnoreTrailingSpaces((Boolean) compConfig.get("ignoreTrailingSpaces"));
+        Map<String, Object> columnTolerances = (Map<String, Object>) compConfig.get("columnTolerances");
+        if (columnTolerances != null) {
+            Map<String, Double> tolerances = new LinkedHashMap<>();
+            for (Map.Entry<String, Object> entry : columnTolerances.entrySet()) {
+                tolerances.put(entry.getKey(), ((Number) entry.getValue()).doubleValue());
+            }
+            config.setColumnTolerances(tolerances);
+        }
         return config;
     }
 
@@ -210,6 +353,18 @@ public class ConfigurationManager {
         return s3SourceConfig;
     }
 
+    public ComparisonConfig getComparisonConfig() {
+        return comparisonConfig != null ? comparisonConfig : new ComparisonConfig();
+    }
+
+    public List<QueryPairConfig> getQueryPairs() {
+        return queryPairs != null ? queryPairs : new ArrayList<>();
+    }
+
+    public CustomerValidationConfig getCustomerValidationConfig() {
+        return customerValidationConfig != null ? customerValidationConfig : new CustomerValidationConfig();
+    }
+
     // Configuration classes
     public static class DatabaseConfig {
         private String host;
@@ -220,6 +375,16 @@ public class ConfigurationManager {
         private String driver;
         private Integer connectionTimeout;
         private Integer maxPoolSize;
+        private Integer idleTimeout;
+        private Integer validationInterval;
+        private Integer fetchSize;
+        private Integer statementCacheSize;
+        private Integer socketTimeout;
+        private Integer queryTimeout;
+        private Boolean adaptiveConcurrency;
+        private Integer minConcurrency;
+        private Integer maxConcurrency;
+        private Double latencyTolerance;
 
         // Getters and setters
         public String getHost() { return host; }
@@ -245,6 +410,40 @@ public class ConfigurationManager {
         
         public Integer getMaxPoolSize() { return maxPoolSize; }
         public void setMaxPoolSize(Integer maxPoolSize) { this.maxPoolSize = maxPoolSize; }
+        
+        public Integer getIdleTimeout() { return idleTimeout; }
+        public void setIdleTimeout(Integer idleTimeout) { this.idleTimeout = idleTimeout; }
+        
+        public Integer getValidationInterval() { return validationInterval; }
+        public void setValidationInterval(Integer validationInterval) { this.validationInterval = validationInterval; }
+        
+        public Integer getFetchSize() { return fetchSize; }
+        public void setFetchSize(Integer fetchSize) { this.fetchSize = fetchSize; }
+        
+        public Integer getStatementCacheSize() { return statementCacheSize; }
+        public void setStatementCacheSize(Integer statementCacheSize) { this.statementCacheSize = statementCacheSize; }
+        
+        /** Gets the seconds a connection waits for the server to respond before failing. */
+        public Integer getSocketTimeout() { return socketTimeout; }
+        public void setSocketTimeout(Integer socketTimeout) { this.socketTimeout = socketTimeout; }
+        
+        /** Gets the seconds a single statement may run; deadlines can lower it. */
+        public Integer getQueryTimeout() { return queryTimeout; }
+        public void setQueryTimeout(Integer queryTimeout) { this.queryTimeout = queryTimeout; }
+        
+        /** Gets whether concurrent queries are limited by observed latency and errors. */
+        public Boolean getAdaptiveConcurrency() { return adaptiveConcurrency; }
+        public void setAdaptiveConcurrency(Boolean adaptiveConcurrency) { this.adaptiveConcurrency = adaptiveConcurrency; }
+        
+        public Integer getMinConcurrency() { return minConcurrency; }
+        public void setMinConcurrency(Integer minConcurrency) { this.minConcurrency = minConcurrency; }
+        
+        /** Gets the hard ceiling on concurrent queries; the pool size applies if it is lower. */
+        public Integer getMaxConcurrency() { return maxConcurrency; }
+        public void setMaxConcurrency(Integer maxConcurrency) { this.maxConcurrency = maxConcurrency; }
+        
+        public Double getLatencyTolerance() { return latencyTolerance; }
+        public void setLatencyTolerance(Double latencyTolerance) { this.latencyTolerance = latencyTolerance; }
     }
 
     public static class ReportConfig {
@@ -278,11 +477,19 @@ public class ConfigurationManager {
     }
 
     public static class DynamoDBConfig {
+        private static final int DEFAULT_SCAN_THREADS = 8;
+        private static final int DEFAULT_SCAN_PREFETCH_PAGES = 4;
+
         private String endpointUrl;
         private String region;
         private String accessKey;
         private String secretKey;
         private String tablePrefix;
+        private Integer apiCallTimeout;
+        private Integer scanSegments;
+        private Integer scanThreads;
+        private String countMode;
+        private Integer scanPrefetchPages;
 
         public String getEndpointUrl() { return endpointUrl; }
         public void setEndpointUrl(String endpointUrl) { this.endpointUrl = endpointUrl; }
@@ -298,6 +505,28 @@ public class ConfigurationManager {
         
         public String getTablePrefix() { return tablePrefix; }
         public void setTablePrefix(String tablePrefix) { this.tablePrefix = tablePrefix; }
+
+        /** Gets the timeout of an API call including retries in seconds, or null for the SDK default. */
+        public Integer getApiCallTimeout() { return apiCallTimeout; }
+        public void setApiCallTimeout(Integer apiCallTimeout) { this.apiCallTimeout = apiCallTimeout; }
+
+        /** Gets the number of segments of a parallel scan, or null to derive it from the table size. */
+        public Integer getScanSegments() { return scanSegments; }
+        public void setScanSegments(Integer scanSegments) { this.scanSegments = scanSegments; }
+
+        /** Gets the number of scan segments read at once. */
+        public int getScanThreads() { return scanThreads != null && scanThreads > 0 ? scanThreads : DEFAULT_SCAN_THREADS; }
+        public void setScanThreads(Integer scanThreads) { this.scanThreads = scanThreads; }
+
+        /** Gets how items are counted: fast from DescribeTable, or exact by scan (default). */
+        public String getCountMode() { return countMode != null ? countMode : "exact"; }
+        public void setCountMode(String countMode) { this.countMode = countMode; }
+
+        /** Gets the number of pages a streamed scan loads ahead of its reader. */
+        public int getScanPrefetchPages() {
+            return scanPrefetchPages != null && scanPrefetchPages > 0 ? scanPrefetchPages : DEFAULT_SCAN_PREFETCH_PAGES;
+        }
+        public void setScanPrefetchPages(Integer scanPrefetchPages) { this.scanPrefetchPages = scanPrefetchPages; }
     }
 
     public static class S3Config {
@@ -306,6 +535,7 @@ public class ConfigurationManager {
         private String region;
         private String accessKey;
         private String secretKey;
+        private Integer apiCallTimeout;
 
         public String getBucket() { return bucket; }
         public void setBucket(String bucket) { this.bucket = bucket; }
@@ -321,6 +551,266 @@ public class ConfigurationManager {
         
         public String getSecretKey() { return secretKey; }
         public void setSecretKey(String secretKey) { this.secretKey = secretKey; }
+
+        /** Gets the timeout of an API call including retries in seconds, or null for the SDK default. */
+        public Integer getApiCallTimeout() { return apiCallTimeout; }
+        public void setApiCallTimeout(Integer apiCallTimeout) { this.apiCallTimeout = apiCallTimeout; }
     }
-}
 
+    /**
+     * A custom validation: a source query and the target query whose result must equal it.
+     */
+    public static class QueryPairConfig {
+        private String name;
+        private String tableName;
+        private String customer;
+        private String sourceQuery;
+        private String targetQuery;
+        private List<String> keyColumns;
+
+        public String getName() { return name; }
+        public void setName(String name) { this.name = name; }
+        
+        /** Gets the table shown in reports, defaulting to the query name. */
+        public String getTableName() { return tableName != null ? tableName : name; }
+        public void setTableName(String tableName) { this.tableName = tableName; }
+        
+        public String getCustomer() { return customer; }
+        public void setCustomer(String customer) { this.customer = customer; }
+        
+        public String getSourceQuery() { return sourceQuery; }
+        public void setSourceQuery(String sourceQuery) { this.sourceQuery = sourceQuery; }
+        
+        /** Gets the target query, defaulting to the source query. */
+        public String getTargetQuery() { return targetQuery != null ? targetQuery : sourceQuery; }
+        public void setTargetQuery(String targetQuery) { this.targetQuery = targetQuery; }
+        
+        /** Gets the result columns rows are matched by; empty to match rows by position. */
+        public List<String> getKeyColumns() { return keyColumns != null ? keyColumns : new ArrayList<>(); }
+        public void setKeyColumns(List<String> keyColumns) { this.keyColumns = keyColumns; }
+    }
+
+    /**
+     * Query pairs validated per customer. Each query restricts its rows to a batch of customers with
+     * the {@code {customerIds}} placeholder and returns the customer id in {@code customerColumn}.
+     */
+    public static class CustomerValidationConfig {
+        private static final int DEFAULT_BATCH_SIZE = 500;
+
+        private String customerColumn;
+        private String customerQuery;
+        private Integer batchSize;
+        private Map<Object, String> customers;
+        private List<QueryPairConfig> queries;
+
+        public String getCustomerColumn() { return customerColumn; }
+        public void setCustomerColumn(String customerColumn) { this.customerColumn = customerColumn; }
+        
+        /** Gets the source query listing {@code (id, name)} of the customers to validate, if not listed in {@code customers}. */
+        public String getCustomerQuery() { return customerQuery; }
+        public void setCustomerQuery(String customerQuery) { this.customerQuery = customerQuery; }
+        
+        /** Gets the number of customers validated by one execution of each query. */
+        public int getBatchSize() { return batchSize != null ? batchSize : DEFAULT_BATCH_SIZE; }
+        public void setBatchSize(Integer batchSize) { this.batchSize = batchSize; }
+        
+        /** Gets the name of each customer to validate, keyed by customer id; names may be null. */
+        public Map<Object, String> getCustomers() { return customers != null ? customers : new LinkedHashMap<>(); }
+        public void setCustomers(Map<Object, String> customers) { this.customers = customers; }
+        
+        public List<QueryPairConfig> getQueries() { return queries != null ? queries : new ArrayList<>(); }
+        public void setQueries(List<QueryPairConfig> queries) { this.queries = queries; }
+    }
+
+    /**
+     * Tuning for the row-level comparison engines. Unset values fall back to defaults.
+     */
+    public static class ComparisonConfig {
+        private static final int DEFAULT_PAGE_SIZE = 10000;
+        private static final int DEFAULT_MAX_REPORTED_DIFFERENCES = 100;
+        private static final int DEFAULT_CHUNK_FANOUT = 16;
+        private static final int DEFAULT_LEAF_CHUNK_ROWS = 10000;
+        private static final int DEFAULT_SAMPLE_SIZE = 10000;
+        private static final double DEFAULT_SAMPLE_ERROR_BOUND = 0.01;
+        private static final double DEFAULT_SAMPLE_CONFIDENCE = 0.95;
+        private static final int DEFAULT_SAMPLE_TIME_BUDGET_SECONDS = 300;
+        private static final int DEFAULT_LOOKUP_BATCH_SIZE = 500;
+        private static final double DEFAULT_PROFILE_DISTINCT_TOLERANCE = 0.02;
+        private static final int DEFAULT_PARALLEL_SCAN_THREADS = 4;
+        private static final int DEFAULT_PARALLEL_SCAN_MIN_ROWS = 1000000;
+        private static final int DEFAULT_SPILL_MEMORY_BUDGET_MB = 256;
+        private static final int DEFAULT_CHECKPOINT_INTERVAL_SECONDS = 60;
+        private static final int DEFAULT_QUERY_PAIR_THREADS = 8;
+
+        private Integer pageSize;
+        private Integer maxReportedDifferences;
+        private Integer chunkFanout;
+        private Integer leafChunkRows;
+        private String countMode;
+        private Double countTolerance;
+        private String schemaCacheDir;
+        private Integer sampleSize;
+        private Double sampleErrorBound;
+        private Double sampleConfidence;
+        private Integer sampleTimeBudget;
+        private Integer lookupBatchSize;
+        private Double profileDistinctTolerance;
+        private Integer parallelScanThreads;
+        private Integer parallelScanMinRows;
+        private String spillDir;
+        private Integer spillMemoryBudget;
+        private Map<String, String> watermarkColumns;
+        private String incrementalStateDir;
+        private Long watermarkSafetyLag;
+        private String checkpointDir;
+        private Integer checkpointInterval;
+        private Integer queryPairThreads;
+        private Integer jobTimeout;
+        private Integer tableTimeout;
+        private Boolean virtualThreads;
+        private Double numericTolerance;
+        private Integer temporalTolerance;
+        private Boolean ignoreTrailingSpaces;
+        private Map<String, Double> columnTolerances;
+
+        public int getPageSize() { return pageSize != null ? pageSize : DEFAULT_PAGE_SIZE; }
+        public void setPageSize(Integer pageSize) { this.pageSize = pageSize; }
+        
+        public int getMaxReportedDifferences() {
+            return maxReportedDifferences != null ? maxReportedDifferences : DEFAULT_MAX_REPORTED_DIFFERENCES;
+        }
+        public void setMaxReportedDifferences(Integer maxReportedDifferences) {
+            this.maxReportedDifferences = maxReportedDifferences;
+        }
+        
+        public int getChunkFanout() { return chunkFanout != null ? chunkFanout : DEFAULT_CHUNK_FANOUT; }
+        public void setChunkFanout(Integer chunkFanout) { this.chunkFanout = chunkFanout; }
+        
+        public int getLeafChunkRows() { return leafChunkRows != null ? leafChunkRows : DEFAULT_LEAF_CHUNK_ROWS; }
+        public void setLeafChunkRows(Integer leafChunkRows) { this.leafChunkRows = leafChunkRows; }
+        
+        public String getCountMode() { return countMode != null ? countMode : "exact"; }
+        public void setCountMode(String countMode) { this.countMode = countMode; }
+        
+        public double getCountTolerance() { return countTolerance != null ? countTolerance : 0.0; }
+        public void setCountTolerance(Double countTolerance) { this.countTolerance = countTolerance; }
+        
+        public String getSchemaCacheDir() { return schemaCacheDir != null ? schemaCacheDir : "schema-cache"; }
+        public void setSchemaCacheDir(String schemaCacheDir) { this.schemaCacheDir = schemaCacheDir; }
+        
+        public int getSampleSize() { return sampleSize != null ? sampleSize : DEFAULT_SAMPLE_SIZE; }
+        public void setSampleSize(Integer sampleSize) { this.sampleSize = sampleSize; }
+        
+        public double getSampleErrorBound() {
+            return sampleErrorBound != null ? sampleErrorBound : DEFAULT_SAMPLE_ERROR_BOUND;
+        }
+        public void setSampleErrorBound(Double sampleErrorBound) { this.sampleErrorBound = sampleErrorBound; }
+        
+        public double getSampleConfidence() {
+            return sampleConfidence != null ? sampleConfidence : DEFAULT_SAMPLE_CONFIDENCE;
+        }
+        public void setSampleConfidence(Double sampleConfidence) { this.sampleConfidence = sampleConfidence; }
+        
+        public int getSampleTimeBudget() {
+            return sampleTimeBudget != null ? sampleTimeBudget : DEFAULT_SAMPLE_TIME_BUDGET_SECONDS;
+        }
+        public void setSampleTimeBudget(Integer sampleTimeBudget) { this.sampleTimeBudget = sampleTimeBudget; }
+        
+        public int getLookupBatchSize() { return lookupBatchSize != null ? lookupBatchSize : DEFAULT_LOOKUP_BATCH_SIZE; }
+        public void setLookupBatchSize(Integer lookupBatchSize) { this.lookupBatchSize = lookupBatchSize; }
+        
+        public double getProfileDistinctTolerance() {
+            return profileDistinctTolerance != null ? profileDistinctTolerance : DEFAULT_PROFILE_DISTINCT_TOLERANCE;
+        }
+        public void setProfileDistinctTolerance(Double profileDistinctTolerance) {
+            this.profileDistinctTolerance = profileDistinctTolerance;
+        }
+        
+        public int getParallelScanThreads() {
+            return parallelScanThreads != null ? parallelScanThreads : DEFAULT_PARALLEL_SCAN_THREADS;
+        }
+        public void setParallelScanThreads(Integer parallelScanThreads) { this.parallelScanThreads = parallelScanThreads; }
+        
+        public int getParallelScanMinRows() {
+            return parallelScanMinRows != null ? parallelScanMinRows : DEFAULT_PARALLEL_SCAN_MIN_ROWS;
+        }
+        public void setParallelScanMinRows(Integer parallelScanMinRows) { this.parallelScanMinRows = parallelScanMinRows; }
+        
+        public String getSpillDir() {
+            return spillDir != null ? spillDir : System.getProperty("java.io.tmpdir");
+        }
+        public void setSpillDir(String spillDir) { this.spillDir = spillDir; }
+        
+        /** Gets the heap budget in megabytes for one partition of a spilled diff. */
+        public int getSpillMemoryBudget() {
+            return spillMemoryBudget != null ? spillMemoryBudget : DEFAULT_SPILL_MEMORY_BUDGET_MB;
+        }
+        public void setSpillMemoryBudget(Integer spillMemoryBudget) { this.spillMemoryBudget = spillMemoryBudget; }
+        
+        /** Gets the watermark column of each table compared incrementally, keyed by table name. */
+        public Map<String, String> getWatermarkColumns() {
+            return watermarkColumns != null ? watermarkColumns : new LinkedHashMap<>();
+        }
+        public void setWatermarkColumns(Map<String, String> watermarkColumns) { this.watermarkColumns = watermarkColumns; }
+        
+        public String getIncrementalStateDir() {
+            return incrementalStateDir != null ? incrementalStateDir : "incremental-state";
+        }
+        public void setIncrementalStateDir(String incrementalStateDir) { this.incrementalStateDir = incrementalStateDir; }
+
+        /**
+         * Amount subtracted from a saved watermark before reading changed rows: seconds for date and
+         * time watermarks, otherwise units of the watermark value.
+         */
+        public long getWatermarkSafetyLag() { return watermarkSafetyLag != null ? watermarkSafetyLag : 0; }
+        public void setWatermarkSafetyLag(Long watermarkSafetyLag) { this.watermarkSafetyLag = watermarkSafetyLag; }
+        
+        public String getCheckpointDir() { return checkpointDir != null ? checkpointDir : "checkpoints"; }
+        public void setCheckpointDir(String checkpointDir) { this.checkpointDir = checkpointDir; }
+        
+        /** Gets the seconds between progress checkpoints of a running range diff. */
+        public int getCheckpointInterval() {
+            return checkpointInterval != null ? checkpointInterval : DEFAULT_CHECKPOINT_INTERVAL_SECONDS;
+        }
+        public void setCheckpointInterval(Integer checkpointInterval) { this.checkpointInterval = checkpointInterval; }
+        
+        /** Gets the number of query pairs compared at once; each holds one connection per database. */
+        public int getQueryPairThreads() {
+            return queryPairThreads != null ? queryPairThreads : DEFAULT_QUERY_PAIR_THREADS;
+        }
+        public void setQueryPairThreads(Integer queryPairThreads) { this.queryPairThreads = queryPairThreads; }
+        
+        /** Gets the seconds a whole comparison job may take, 0 for no limit. */
+        public int getJobTimeout() { return jobTimeout != null ? jobTimeout : 0; }
+        public void setJobTimeout(Integer jobTimeout) { this.jobTimeout = jobTimeout; }
+        
+        /** Gets the seconds a single table or query may take, 0 for no limit. */
+        public int getTableTimeout() { return tableTimeout != null ? tableTimeout : 0; }
+        public void setTableTimeout(Integer tableTimeout) { this.tableTimeout = tableTimeout; }
+        
+        /** Checks whether comparison workers run on virtual threads, which needs Java 21. */
+        public boolean isVirtualThreads() { return virtualThreads != null && virtualThreads; }
+        public void setVirtualThreads(Boolean virtualThreads) { this.virtualThreads = virtualThreads; }
+        
+        /** Gets the absolute difference up to which numeric values count as equal. */
+        public double getNumericTolerance() { return numericTolerance != null ? numericTolerance : 0.0; }
+        public void setNumericTolerance(Double numericTolerance) { this.numericTolerance = numericTolerance; }
+        
+        /** Gets the milliseconds up to which timestamps and times count as equal. */
+        public int getTemporalTolerance() { return temporalTolerance != null ? temporalTolerance : 0; }
+        public void setTemporalTolerance(Integer temporalTolerance) { this.temporalTolerance = temporalTolerance; }
+        
+        /** Checks whether trailing spaces of character columns are ignored, as in padded SQL comparisons. */
+        public boolean isIgnoreTrailingSpaces() { return ignoreTrailingSpaces == null || ignoreTrailingSpaces; }
+        public void setIgnoreTrailingSpaces(Boolean ignoreTrailingSpaces) { this.ignoreTrailingSpaces = ignoreTrailingSpaces; }
+        
+        /**
+         * Gets tolerances of single columns keyed by {@code table.column}: an absolute difference for
+         * numeric columns, milliseconds for temporal ones.
+         */
+        public Map<String, Double> getColumnTolerances() {
+            return columnTolerances != null ? columnTolerances : new LinkedHashMap<>();
+        }
+        public void setColumnTolerances(Map<String, Double> columnTolerances) { this.columnTolerances = columnTolerances; }
+    }
+}
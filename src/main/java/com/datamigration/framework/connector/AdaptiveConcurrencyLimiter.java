@@ -0,0 +1,287 @@
+package com.datamigration.framework.connector;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.sql.SQLTransientException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Adjusts how many queries may run against a database at once from the latency and errors the
+ * database is showing, so a comparison does not slow down a live production server.
+ *
+ * <p>The limit follows AIMD (additive increase, multiplicative decrease). Each query latency
+ * updates a short-term and a long-term moving average. While the short-term average stays within
+ * {@code latencyTolerance} times the long-term one and the limit is in use, each completed query
+ * raises the limit by one. When the short-term average rises above that, the limit is cut by 10%.
+ * Timeouts, deadlocks and other transient errors cut it in half. Only queries started after the
+ * last cut can cause another one, so the queries that were already running when the database
+ * slowed down count as one signal. The limit stays between {@code minConcurrency} and the hard
+ * ceiling {@code maxConcurrency}.</p>
+ *
+ * <p>{@link ConnectionPool} takes a slot for every borrowed connection and frees it when the
+ * connection is returned; {@link DatabaseConnector} reports the execution time of its statements.
+ * {@link KeysetCursor} holds its connection for a whole scan without a slot and takes one around
+ * each page query instead.</p>
+ *
+ * <p>State is guarded by a {@link ReentrantLock} rather than the object monitor, so that virtual
+ * worker threads waiting for a slot unmount from their carrier instead of pinning it.</p>
+ */
+public class AdaptiveConcurrencyLimiter {
+    private static final Logger logger = LoggerFactory.getLogger(AdaptiveConcurrencyLimiter.class);
+
+    /** Weight of a new sample in the short-term average, about the last 10 queries. */
+    private static final double SHORT_ALPHA = 2.0 / 11;
+    /** Weight of a new sample in the long-term average, about the last 100 queries. */
+    private static final double LONG_ALPHA = 2.0 / 101;
+    /** Samples needed before latency can lower the limit. */
+    private static final int WARMUP_SAMPLES = 10;
+    private static final double LATENCY_BACKOFF = 0.9;
+    private static final double ERROR_BACKOFF = 0.5;
+
+    private final String name;
+    private final int minLimit;
+    private final int maxLimit;
+    private final double latencyTolerance;
+    private final ReentrantLock lock = new ReentrantLock();
+    /** Signalled when a slot frees up or the limit rises. */
+    private final Condition slotAvailable = lock.newCondition();
+
+    private double limit;
+    private int inFlight;
+    private int waiting;
+    private double shortLatencyNanos;
+    private double longLatencyNanos;
+    private long lastDecreaseNanos;
+    private long samples;
+    private long increases;
+    private long decreases;
+    private long overloads;
+    private long rejections;
+
+    /**
+     * Creates a limiter that starts at {@code minLimit}.
+     *
+     * @param name Name used in log messages
+     * @param minLimit Lowest limit, at least 1
+     * @param maxLimit Hard ceiling on concurrent queries
+     * @param latencyTolerance Factor by which short-term latency may exceed long-term latency
+     *                         before the limit is lowered, greater than 1
+     */
+    public AdaptiveConcurrencyLimiter(String name, int minLimit, int maxLimit, double latencyTolerance) {
+        if (minLimit < 1 || maxLimit < minLimit) {
+            throw new IllegalArgumentException(String.format(
+                "Concurrency limits must satisfy 1 <= min <= max, got min %d and max %d", minLimit, maxLimit));
+        }
+        if (latencyTolerance <= 1.0) {
+            throw new IllegalArgumentException("Latency tolerance must be greater than 1, got " + latencyTolerance);
+        }
+        this.name = name;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.latencyTolerance = latencyTolerance;
+        this.limit = minLimit;
+        this.lastDecreaseNanos = System.nanoTime();
+    }
+
+    /**
+     * Waits until fewer queries than the current limit are running and takes a slot.
+     *
+     * @throws SQLTimeoutException If no slot frees up within the timeout
+     */
+    public void acquire(long timeoutMillis) throws SQLException {
+        long remaining = TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        lock.lock();
+        waiting++;
+        try {
+            while (inFlight >= (int) limit) {
+                if (remaining <= 0) {
+                    rejections++;
+                    throw new SQLTimeoutException(String.format(
+                        "Timed out after %d ms waiting for one of %d %s query slots",
+                        timeoutMillis, (int) limit, name));
+                }
+                remaining = slotAvailable.awaitNanos(remaining);
+            }
+            inFlight++;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a " + name + " query slot", e);
+        } finally {
+            waiting--;
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Frees a slot taken with {@link #acquire}.
+     */
+    public void release() {
+        lock.lock();
+        try {
+            inFlight--;
+            slotAvailable.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Records the latency of a query that completed normally.
+     *
+     * @param startNanos {@link System#nanoTime()} when the query started
+     */
+    public void onSuccess(long startNanos) {
+        double latency = System.nanoTime() - startNanos;
+        lock.lock();
+        try {
+            recordLatency(startNanos, latency);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void recordLatency(long startNanos, double latency) {
+        samples++;
+        if (samples == 1) {
+            shortLatencyNanos = latency;
+            longLatencyNanos = latency;
+        } else {
+            shortLatencyNanos += SHORT_ALPHA * (latency - shortLatencyNanos);
+            longLatencyNanos += LONG_ALPHA * (latency - longLatencyNanos);
+        }
+
+        if (samples >= WARMUP_SAMPLES && shortLatencyNanos > longLatencyNanos * latencyTolerance) {
+            if (startNanos - lastDecreaseNanos > 0) {
+                decrease(LATENCY_BACKOFF, String.format("latency %.1f ms against %.1f ms",
+                    shortLatencyNanos / 1e6, longLatencyNanos / 1e6));
+            }
+        } else if (limit < maxLimit && inFlight * 2 >= limit) {
+            limit = Math.min(maxLimit, limit + 1);
+            increases++;
+            slotAvailable.signalAll();
+            logger.debug("{} concurrency limit raised to {}", name, (int) limit);
+        }
+    }
+
+    /**
+     * Records a failed query. Errors that indicate an overloaded database lower the limit;
+     * others, such as syntax errors, are ignored.
+     *
+     * @param startNanos {@link System#nanoTime()} when the query started
+     */
+    public void onError(long startNanos, SQLException error) {
+        if (!isOverload(error)) {
+            return;
+        }
+        lock.lock();
+        try {
+            overloads++;
+            if (startNanos - lastDecreaseNanos > 0) {
+                decrease(ERROR_BACKOFF, error.getClass().getSimpleName() + ": " + error.getMessage());
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void decrease(double factor, String reason) {
+        int previous = (int) limit;
+        limit = Math.max(minLimit, limit * factor);
+        lastDecreaseNanos = System.nanoTime();
+        decreases++;
+        if ((int) limit < previous) {
+            logger.info("{} concurrency limit lowered from {} to {} ({})", name, previous, (int) limit, reason);
+        }
+    }
+
+    /**
+     * Timeouts, deadlocks and other transient failures, including SQLSTATE class 40 (transaction
+     * rollback) and HYT (timeout) for drivers that do not use the specific exception types.
+     */
+    static boolean isOverload(SQLException error) {
+        if (error instanceof SQLTransientException) {
+            return true;
+        }
+        String state = error.getSQLState();
+        return state != null && (state.startsWith("40") || state.startsWith("HYT"));
+    }
+
+    /**
+     * Returns a snapshot of the limiter state.
+     */
+    public LimiterMetrics getMetrics() {
+        lock.lock();
+        try {
+            return new LimiterMetrics((int) limit, minLimit, maxLimit, inFlight, waiting, shortLatencyNanos / 1e6,
+                longLatencyNanos / 1e6, samples, increases, decreases, overloads, rejections);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Point-in-time view of the adaptive concurrency limit.
+     */
+    public static class LimiterMetrics {
+        private final int limit;
+        private final int minLimit;
+        private final int maxLimit;
+        private final int inFlight;
+        private final int waiting;
+        private final double shortLatencyMillis;
+        private final double longLatencyMillis;
+        private final long samples;
+        private final long increases;
+        private final long decreases;
+        private final long overloads;
+        private final long rejections;
+
+        public LimiterMetrics(int limit, int minLimit, int maxLimit, int inFlight, int waiting,
+                              double shortLatencyMillis, double longLatencyMillis, long samples, long increases,
+                              long decreases, long overloads, long rejections) {
+            this.limit = limit;
+            this.minLimit = minLimit;
+            this.maxLimit = maxLimit;
+            this.inFlight = inFlight;
+            this.waiting = waiting;
+            this.shortLatencyMillis = shortLatencyMillis;
+            this.longLatencyMillis = longLatencyMillis;
+            this.samples = samples;
+            this.increases = increases;
+            this.decreases = decreases;
+            this.overloads = overloads;
+            this.rejections = rejections;
+        }
+
+        /** Gets the number of queries currently allowed to run at once. */
+        public int getLimit() { return limit; }
+        public int getMinLimit() { return minLimit; }
+        public int getMaxLimit() { return maxLimit; }
+        public int getInFlight() { return inFlight; }
+        public int getWaiting() { return waiting; }
+        public double getShortLatencyMillis() { return shortLatencyMillis; }
+        public double getLongLatencyMillis() { return longLatencyMillis; }
+        public long getSamples() { return samples; }
+        public long getIncreases() { return increases; }
+        public long getDecreases() { return decreases; }
+
+        /** Gets the number of failed queries that indicated an overloaded database. */
+        public long getOverloads() { return overloads; }
+
+        /** Gets the number of waits for a slot that timed out. */
+        public long getRejections() { return rejections; }
+
+        @Override
+        public String toString() {
+            return String.format("limit=%d (%d-%d), inFlight=%d, waiting=%d, latencyMs=%.1f/%.1f, samples=%d, " +
+                    "increases=%d, decreases=%d, overloads=%d, rejections=%d",
+                limit, minLimit, maxLimit, inFlight, waiting, shortLatencyMillis, longLatencyMillis, samples,
+                increases, decreases, overloads, rejections);
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package com.datamigration.framework.connector;
+
+import software.amazon.awssdk.awscore.AwsRequestOverrideConfiguration;
+import software.amazon.awssdk.core.client.config.ClientOverrideConfiguration;
+
+import java.time.Duration;
+
+/**
+ * API call timeouts of the AWS connectors: the configured client-wide timeout, and a per-request
+ * cap at the time left before the {@link Deadline} bound to the calling thread.
+ */
+final class AwsCallTimeouts {
+
+    private AwsCallTimeouts() {
+    }
+
+    /**
+     * Creates the client configuration for the configured API call timeout in seconds, which
+     * covers all retries of a call.
+     *
+     * @param apiCallTimeoutSeconds Timeout in seconds, or null for the SDK default
+     */
+    static ClientOverrideConfiguration clientConfiguration(Integer apiCallTimeoutSeconds) {
+        ClientOverrideConfiguration.Builder builder = ClientOverrideConfiguration.builder();
+        if (apiCallTimeoutSeconds != null && apiCallTimeoutSeconds > 0) {
+            builder.apiCallTimeout(Duration.ofSeconds(apiCallTimeoutSeconds));
+        }
+        return builder.build();
+    }
+
+    /**
+     * Creates a request override that ends the call when the current deadline passes, or returns
+     * null without a bounded deadline so the client-wide timeout applies.
+     */
+    static AwsRequestOverrideConfiguration forCurrentDeadline() {
+        Deadline deadline = Deadline.current();
+        if (!deadline.isBounded()) {
+            return null;
+        }
+        return AwsRequestOverrideConfiguration.builder()
+            .apiCallTimeout(Duration.ofMillis(Math.max(1, deadline.remainingMillis())))
+            .build();
+    }
+}
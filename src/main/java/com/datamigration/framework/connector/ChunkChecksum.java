@@ -0,0 +1,43 @@
+package com.datamigration.framework.connector;
+
+/**
+ * Row count and aggregate hash of a key range, computed inside the database.
+ * The hash is the sum of the first and second 32-bit words of each row's MD5,
+ * which is order-independent and can be computed the same way on every supported database.
+ */
+public class ChunkChecksum {
+    private final long rowCount;
+    private final long hashHigh;
+    private final long hashLow;
+
+    public ChunkChecksum(long rowCount, long hashHigh, long hashLow) {
+        this.rowCount = rowCount;
+        this.hashHigh = hashHigh;
+        this.hashLow = hashLow;
+    }
+
+    public long getRowCount() {
+        return rowCount;
+    }
+
+    public long getHashHigh() {
+        return hashHigh;
+    }
+
+    public long getHashLow() {
+        return hashLow;
+    }
+
+    /**
+     * Checks whether two chunks hold the same rows, as far as the hash can tell.
+     */
+    public boolean matches(ChunkChecksum other) {
+        return other != null && rowCount == other.rowCount
+            && hashHigh == other.hashHigh && hashLow == other.hashLow;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("rows=%d, hash=%016x%016x", rowCount, hashHigh, hashLow);
+    }
+}
@@ -0,0 +1,49 @@
+package com.datamigration.framework.connector;
+
+/**
+ * Name and type of a table column as reported by the JDBC metadata of its database.
+ */
+public class ColumnType {
+    private final String name;
+    private final int sqlType;
+    private final String typeName;
+    private final Integer decimalDigits;
+
+    /**
+     * @param name Column name
+     * @param sqlType Type code from {@link java.sql.Types}, or a driver-specific code
+     * @param typeName Database type name, e.g. {@code money} or {@code timestamptz}
+     * @param decimalDigits Scale of numbers or fractional-second digits of times, or null if not applicable
+     */
+    public ColumnType(String name, int sqlType, String typeName, Integer decimalDigits) {
+        this.name = name;
+        this.sqlType = sqlType;
+        this.typeName = typeName;
+        this.decimalDigits = decimalDigits;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getSqlType() {
+        return sqlType;
+    }
+
+    public String getTypeName() {
+        return typeName;
+    }
+
+    /**
+     * Gets the scale of a number or the fractional-second digits of a time, or null if not applicable.
+     */
+    public Integer getDecimalDigits() {
+        return decimalDigits;
+    }
+
+    @Override
+    public String toString() {
+        return decimalDigits != null ? String.format("%s %s(%d)", name, typeName, decimalDigits)
+            : name + " " + typeName;
+    }
+}
@@ -0,0 +1,537 @@
+package com.datamigration.framework.connector;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded, thread-safe JDBC connection pool used by {@link DatabaseConnector}.
+ * Connections are handed out as proxies whose {@code close()} returns the
+ * underlying physical connection to the pool instead of closing it.
+ * Each physical connection can keep an LRU cache of prepared statements
+ * (see {@link StatementCache}) that survives returning it to the pool.
+ * An optional {@link AdaptiveConcurrencyLimiter} lowers the number of connections
+ * that may be borrowed at once below the pool size; connections held across many queries are
+ * borrowed with {@link #borrowWithoutLimit()} and take a slot per query instead.
+ */
+public class ConnectionPool implements AutoCloseable {
+    private static final Logger logger = LoggerFactory.getLogger(ConnectionPool.class);
+
+    private static final int VALIDATION_TIMEOUT_SECONDS = 5;
+
+    /**
+     * Opens a new physical connection for the pool.
+     */
+    @FunctionalInterface
+    public interface ConnectionFactory {
+        Connection create() throws SQLException;
+    }
+
+    private final String name;
+    private final ConnectionFactory factory;
+    private final int maxSize;
+    private final long borrowTimeoutMillis;
+    private final long idleTimeoutMillis;
+    private final long validationIntervalMillis;
+    private final int statementCacheSize;
+    private final AdaptiveConcurrencyLimiter limiter;
+
+    private final Semaphore permits;
+    private final Deque<PooledConnection> idle = new ArrayDeque<>();
+    private final Set<PooledConnection> allConnections = ConcurrentHashMap.newKeySet();
+    private final ScheduledExecutorService evictor;
+    private volatile boolean closed;
+
+    private final AtomicLong connectionsCreated = new AtomicLong();
+    private final AtomicLong connectionsClosed = new AtomicLong();
+    private final AtomicLong borrowCount = new AtomicLong();
+    private final AtomicLong waitCount = new AtomicLong();
+    private final AtomicLong totalWaitNanos = new AtomicLong();
+    private final AtomicLong borrowTimeouts = new AtomicLong();
+    private final AtomicLong validationFailures = new AtomicLong();
+    private final AtomicLong idleEvictions = new AtomicLong();
+    private final AtomicLong statementCacheHits = new AtomicLong();
+    private final AtomicLong statementCacheMisses = new AtomicLong();
+
+    /**
+     * Creates a new pool without a statement cache.
+     */
+    public ConnectionPool(String name, ConnectionFactory factory, int maxSize,
+                          long borrowTimeoutMillis, long idleTimeoutMillis, long validationIntervalMillis) {
+        this(name, factory, maxSize, borrowTimeoutMillis, idleTimeoutMillis, validationIntervalMillis, 0);
+    }
+
+    /**
+     * Creates a new pool.
+     *
+     * @param name Name used in log messages and evictor thread names
+     * @param factory Factory for physical connections
+     * @param maxSize Maximum number of open connections
+     * @param borrowTimeoutMillis Maximum time to wait for a free connection
+     * @param idleTimeoutMillis Idle time after which a connection is closed, 0 to keep idle connections open
+     * @param validationIntervalMillis Minimum time between {@link Connection#isValid} checks of a connection
+     * @param statementCacheSize Prepared statements cached per connection, 0 to disable the cache
+     */
+    public ConnectionPool(String name, ConnectionFactory factory, int maxSize, long borrowTimeoutMillis,
+                          long idleTimeoutMillis, long validationIntervalMillis, int statementCacheSize) {
+        this(name, factory, maxSize, borrowTimeoutMillis, idleTimeoutMillis, validationIntervalMillis,
+            statementCacheSize, null);
+    }
+
+    /**
+     * Creates a new pool whose borrows are also limited by an adaptive concurrency limiter.
+     *
+     * @param limiter Limiter taking a slot per borrowed connection, or null
+     * @see #ConnectionPool(String, ConnectionFactory, int, long, long, long, int)
+     */
+    public ConnectionPool(String name, ConnectionFactory factory, int maxSize, long borrowTimeoutMillis,
+                          long idleTimeoutMillis, long validationIntervalMillis, int statementCacheSize,
+                          AdaptiveConcurrencyLimiter limiter) {
+        if (maxSize < 1) {
+            throw new IllegalArgumentException("Pool size must be at least 1, got " + maxSize);
+        }
+        this.name = name;
+        this.factory = factory;
+        this.maxSize = maxSize;
+        this.borrowTimeoutMillis = borrowTimeoutMillis;
+        this.idleTimeoutMillis = idleTimeoutMillis;
+        this.validationIntervalMillis = validationIntervalMillis;
+        this.statementCacheSize = Math.max(0, statementCacheSize);
+        this.limiter = limiter;
+        this.permits = new Semaphore(maxSize, true);
+
+        if (idleTimeoutMillis > 0) {
+            long period = Math.max(1000L, Math.min(idleTimeoutMillis / 2, 30000L));
+            this.evictor = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread thread = new Thread(r, name + "-pool-evictor");
+                thread.setDaemon(true);
+                return thread;
+            });
+            this.evictor.scheduleWithFixedDelay(this::evictIdleConnections, period, period, TimeUnit.MILLISECONDS);
+        } else {
+            this.evictor = null;
+        }
+        logger.info("{} connection pool created (maxSize: {}, statementCacheSize: {})",
+            name, maxSize, this.statementCacheSize);
+    }
+
+    /**
+     * Borrows a connection, validating it if the validation interval has elapsed.
+     */
+    public Connection borrow() throws SQLException {
+        return borrow(false);
+    }
+
+    /**
+     * Borrows a connection without taking a slot of the concurrency limiter, for a caller that
+     * holds the connection across many queries and takes a slot around each of them.
+     */
+    public Connection borrowWithoutLimit() throws SQLException {
+        return borrow(false, false);
+    }
+
+    /**
+     * Borrows a connection from the pool, waiting up to the borrow timeout for one to be returned.
+     *
+     * @param forceValidation Validate the connection even if it was validated recently
+     * @return Connection proxy; closing it returns the connection to the pool
+     * @throws SQLException If the pool is closed, the wait times out or a new connection cannot be opened
+     */
+    public Connection borrow(boolean forceValidation) throws SQLException {
+        return borrow(forceValidation, true);
+    }
+
+    private Connection borrow(boolean forceValidation, boolean limited) throws SQLException {
+        if (closed) {
+            throw new SQLException(name + " connection pool is closed");
+        }
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(borrowTimeoutMillis);
+        boolean slotTaken = limited && limiter != null;
+        if (slotTaken) {
+            limiter.acquire(borrowTimeoutMillis);
+        }
+        try {
+            acquirePermit(deadline);
+        } catch (SQLException e) {
+            if (slotTaken) {
+                limiter.release();
+            }
+            throw e;
+        }
+        try {
+            PooledConnection pooled;
+            while ((pooled = pollIdle()) != null) {
+                if (validate(pooled, forceValidation)) {
+                    break;
+                }
+                discard(pooled);
+            }
+            if (pooled == null) {
+                pooled = open();
+            }
+            borrowCount.incrementAndGet();
+            return pooled.newHandle(slotTaken);
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            if (slotTaken) {
+                limiter.release();
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Takes a pool permit, waiting until {@code deadline} ({@link System#nanoTime()}), which the
+     * wait for a limiter slot has already used part of.
+     */
+    private void acquirePermit(long deadline) throws SQLException {
+        if (permits.tryAcquire()) {
+            return;
+        }
+        waitCount.incrementAndGet();
+        long start = System.nanoTime();
+        try {
+            boolean acquired = permits.tryAcquire(Math.max(0, deadline - start), TimeUnit.NANOSECONDS);
+            totalWaitNanos.addAndGet(System.nanoTime() - start);
+            if (!acquired) {
+                borrowTimeouts.incrementAndGet();
+                throw new SQLTimeoutException(String.format(
+                    "Timed out after %d ms waiting for a %s connection (pool size %d)",
+                    borrowTimeoutMillis, name, maxSize));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a " + name + " connection", e);
+        }
+    }
+
+    private synchronized PooledConnection pollIdle() {
+        return idle.pollFirst();
+    }
+
+    private boolean validate(PooledConnection pooled, boolean force) {
+        long now = System.currentTimeMillis();
+        if (!force && now - pooled.lastValidatedAt < validationIntervalMillis) {
+            return true;
+        }
+        try {
+            if (pooled.physical.isValid(VALIDATION_TIMEOUT_SECONDS)) {
+                pooled.lastValidatedAt = now;
+                return true;
+            }
+        } catch (SQLException e) {
+            logger.debug("{} connection validation failed: {}", name, e.getMessage());
+        }
+        validationFailures.incrementAndGet();
+        logger.warn("{} pooled connection is invalid, discarding it", name);
+        return false;
+    }
+
+    private PooledConnection open() throws SQLException {
+        Connection physical = factory.create();
+        PooledConnection pooled = new PooledConnection(physical);
+        allConnections.add(pooled);
+        connectionsCreated.incrementAndGet();
+        logger.debug("{} pool opened a new connection ({} open)", name, allConnections.size());
+        return pooled;
+    }
+
+    /**
+     * @param holdsSlot Whether the handle was borrowed with a slot of the concurrency limiter
+     */
+    private void release(PooledConnection pooled, boolean holdsSlot) {
+        try {
+            if (closed || pooled.broken || pooled.physical.isClosed()) {
+                discard(pooled);
+                return;
+            }
+            if (!pooled.physical.getAutoCommit()) {
+                pooled.physical.rollback();
+                pooled.physical.setAutoCommit(true);
+            }
+            pooled.lastUsedAt = System.currentTimeMillis();
+            synchronized (this) {
+                idle.offerFirst(pooled);
+            }
+        } catch (SQLException e) {
+            logger.warn("{} connection could not be reset, discarding it: {}", name, e.getMessage());
+            discard(pooled);
+        } finally {
+            permits.release();
+            if (holdsSlot) {
+                limiter.release();
+            }
+        }
+    }
+
+    private void discard(PooledConnection pooled) {
+        allConnections.remove(pooled);
+        if (pooled.statementCache != null) {
+            pooled.statementCache.close();
+        }
+        try {
+            pooled.physical.close();
+        } catch (SQLException e) {
+            logger.debug("Error closing {} connection: {}", name, e.getMessage());
+        }
+        connectionsClosed.incrementAndGet();
+    }
+
+    /**
+     * Closes connections that have been idle longer than the idle timeout.
+     */
+    void evictIdleConnections() {
+        long cutoff = System.currentTimeMillis() - idleTimeoutMillis;
+        Deque<PooledConnection> expired = new ArrayDeque<>();
+        synchronized (this) {
+            Iterator<PooledConnection> it = idle.descendingIterator();
+            while (it.hasNext()) {
+                PooledConnection pooled = it.next();
+                if (pooled.lastUsedAt >= cutoff) {
+                    break;
+                }
+                it.remove();
+                expired.add(pooled);
+            }
+        }
+        for (PooledConnection pooled : expired) {
+            discard(pooled);
+            idleEvictions.incrementAndGet();
+        }
+        if (!expired.isEmpty()) {
+            logger.debug("{} pool evicted {} idle connections", name, expired.size());
+        }
+    }
+
+    /**
+     * Returns a snapshot of the pool metrics.
+     */
+    public PoolMetrics getMetrics() {
+        int idleCount;
+        synchronized (this) {
+            idleCount = idle.size();
+        }
+        int total = allConnections.size();
+        return new PoolMetrics(maxSize, total - idleCount, idleCount, total,
+            connectionsCreated.get(), connectionsClosed.get(), borrowCount.get(), waitCount.get(),
+            TimeUnit.NANOSECONDS.toMillis(totalWaitNanos.get()), borrowTimeouts.get(),
+            validationFailures.get(), idleEvictions.get(), statementCacheHits.get(), statementCacheMisses.get());
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    /**
+     * Closes all idle connections and rejects further borrows.
+     * Connections that are still borrowed are closed when they are returned.
+     */
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        if (evictor != null) {
+            evictor.shutdownNow();
+        }
+        PooledConnection pooled;
+        while ((pooled = pollIdle()) != null) {
+            discard(pooled);
+        }
+        logger.info("{} connection pool closed ({})", name, getMetrics());
+    }
+
+    /**
+     * A physical connection owned by the pool.
+     */
+    private final class PooledConnection {
+        private final Connection physical;
+        private final StatementCache statementCache;
+        private volatile long lastUsedAt;
+        private volatile long lastValidatedAt;
+        private volatile boolean broken;
+
+        PooledConnection(Connection physical) {
+            this.physical = physical;
+            this.statementCache = statementCacheSize > 0 ?
+                new StatementCache(physical, statementCacheSize, statementCacheHits, statementCacheMisses) : null;
+            this.lastUsedAt = System.currentTimeMillis();
+            this.lastValidatedAt = this.lastUsedAt;
+        }
+
+        Connection newHandle(boolean holdsSlot) {
+            return (Connection) Proxy.newProxyInstance(
+                ConnectionPool.class.getClassLoader(),
+                new Class<?>[]{Connection.class},
+                new HandleInvocationHandler(this, holdsSlot));
+        }
+    }
+
+    /**
+     * Routes calls on a borrowed connection handle to the physical connection.
+     * Each borrow gets its own handle so a stale handle cannot return a connection twice.
+     */
+    private final class HandleInvocationHandler implements InvocationHandler {
+        private final PooledConnection pooled;
+        private final boolean holdsSlot;
+        private boolean released;
+
+        HandleInvocationHandler(PooledConnection pooled, boolean holdsSlot) {
+            this.pooled = pooled;
+            this.holdsSlot = holdsSlot;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    synchronized (this) {
+                        if (released) {
+                            return null;
+                        }
+                        released = true;
+                    }
+                    release(pooled, holdsSlot);
+                    return null;
+                case "isClosed":
+                    return released || pooled.physical.isClosed();
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return name + " pooled connection";
+                default:
+                    break;
+            }
+            if (released) {
+                throw new SQLException("Connection has already been returned to the " + name + " pool");
+            }
+            try {
+                if (pooled.statementCache != null && isCacheablePrepare(method)) {
+                    int type = args.length == 3 ? (Integer) args[1] : ResultSet.TYPE_FORWARD_ONLY;
+                    int concurrency = args.length == 3 ? (Integer) args[2] : ResultSet.CONCUR_READ_ONLY;
+                    return pooled.statementCache.prepare((String) args[0], type, concurrency);
+                }
+                return method.invoke(pooled.physical, args);
+            } catch (InvocationTargetException e) {
+                markIfBroken(e.getCause());
+                throw e.getCause();
+            } catch (SQLException e) {
+                markIfBroken(e);
+                throw e;
+            }
+        }
+
+        private void markIfBroken(Throwable cause) {
+            if (cause instanceof SQLException && isConnectionFailure((SQLException) cause)) {
+                pooled.broken = true;
+            }
+        }
+    }
+
+    /**
+     * Matches {@code prepareStatement(sql)} and {@code prepareStatement(sql, resultSetType, resultSetConcurrency)},
+     * the only variants served from the statement cache.
+     */
+    private static boolean isCacheablePrepare(Method method) {
+        if (!"prepareStatement".equals(method.getName())) {
+            return false;
+        }
+        Class<?>[] types = method.getParameterTypes();
+        return types.length == 1 || (types.length == 3 && types[1] == int.class && types[2] == int.class);
+    }
+
+    private static boolean isConnectionFailure(SQLException e) {
+        String state = e.getSQLState();
+        return state != null && state.startsWith("08");
+    }
+
+    /**
+     * Point-in-time view of pool usage.
+     */
+    public static class PoolMetrics {
+        private final int maxSize;
+        private final int activeConnections;
+        private final int idleConnections;
+        private final int totalConnections;
+        private final long connectionsCreated;
+        private final long connectionsClosed;
+        private final long borrowCount;
+        private final long waitCount;
+        private final long totalWaitMillis;
+        private final long borrowTimeouts;
+        private final long validationFailures;
+        private final long idleEvictions;
+        private final long statementCacheHits;
+        private final long statementCacheMisses;
+
+        public PoolMetrics(int maxSize, int activeConnections, int idleConnections, int totalConnections,
+                           long connectionsCreated, long connectionsClosed, long borrowCount, long waitCount,
+                           long totalWaitMillis, long borrowTimeouts, long validationFailures, long idleEvictions,
+                           long statementCacheHits, long statementCacheMisses) {
+            this.maxSize = maxSize;
+            this.activeConnections = activeConnections;
+            this.idleConnections = idleConnections;
+            this.totalConnections = totalConnections;
+            this.connectionsCreated = connectionsCreated;
+            this.connectionsClosed = connectionsClosed;
+            this.borrowCount = borrowCount;
+            this.waitCount = waitCount;
+            this.totalWaitMillis = totalWaitMillis;
+            this.borrowTimeouts = borrowTimeouts;
+            this.validationFailures = validationFailures;
+            this.idleEvictions = idleEvictions;
+            this.statementCacheHits = statementCacheHits;
+            this.statementCacheMisses = statementCacheMisses;
+        }
+
+        public int getMaxSize() { return maxSize; }
+        public int getActiveConnections() { return activeConnections; }
+        public int getIdleConnections() { return idleConnections; }
+        public int getTotalConnections() { return totalConnections; }
+        public long getConnectionsCreated() { return connectionsCreated; }
+        public long getConnectionsClosed() { return connectionsClosed; }
+        public long getBorrowCount() { return borrowCount; }
+        public long getWaitCount() { return waitCount; }
+        public long getTotalWaitMillis() { return totalWaitMillis; }
+        public long getBorrowTimeouts() { return borrowTimeouts; }
+        public long getValidationFailures() { return validationFailures; }
+        public long getIdleEvictions() { return idleEvictions; }
+        public long getStatementCacheHits() { return statementCacheHits; }
+        public long getStatementCacheMisses() { return statementCacheMisses; }
+
+        @Override
+        public String toString() {
+            return String.format("active=%d, idle=%d, total=%d/%d, created=%d, closed=%d, borrows=%d, waits=%d, " +
+                    "waitMs=%d, timeouts=%d, validationFailures=%d, evictions=%d, statementCacheHits=%d, " +
+                    "statementCacheMisses=%d",
+                activeConnections, idleConnections, totalConnections, maxSize, connectionsCreated,
+                connectionsClosed, borrowCount, waitCount, totalWaitMillis, borrowTimeouts,
+                validationFailures, idleEvictions, statementCacheHits, statementCacheMisses);
+        }
+    }
+}
@@ -1,15 +1,33 @@
 package com.datamigration.framework.connector;
 
 import com.datamigration.framework.config.ConfigurationManager;
+import com.datamigration.framework.connector.dialect.HashColumn;
+import com.datamigration.framework.connector.dialect.SqlDialect;
+import com.datamigration.framework.connector.dialect.SqlDialects;
+import com.datamigration.framework.schema.SchemaSnapshot;
+import com.datamigration.framework.schema.SchemaSnapshotLoader;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.sql.*;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
 import java.util.Properties;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * Generic database connector for JDBC-based databases.
- * Supports multiple database types through JDBC drivers.
+ * Supports multiple database types through JDBC drivers; database-specific SQL
+ * comes from the {@link SqlDialect} matching the configured driver.
  */
 public class DatabaseConnector implements AutoCloseable {
     private static final Logger logger = LoggerFactory.getLogger(DatabaseConnector.class);
@@ -18,10 +36,28 @@ public class DatabaseConnector implements AutoCloseable {
         SOURCE, TARGET
     }
     
+    private static final int DEFAULT_MAX_POOL_SIZE = 10;
+    private static final int DEFAULT_CONNECTION_TIMEOUT_SECONDS = 30;
+    private static final int DEFAULT_IDLE_TIMEOUT_SECONDS = 600;
+    private static final int DEFAULT_VALIDATION_INTERVAL_SECONDS = 30;
+    private static final int DEFAULT_FETCH_SIZE = 1000;
+    private static final int DEFAULT_STATEMENT_CACHE_SIZE = 64;
+    private static final int DEFAULT_SOCKET_TIMEOUT_SECONDS = 300;
+    private static final int DEFAULT_MIN_CONCURRENCY = 1;
+    private static final double DEFAULT_LATENCY_TOLERANCE = 2.0;
+
     private final ConfigurationManager config;
     private final DatabaseType databaseType;
-    private Connection connection;
+    private ConnectionPool pool;
+    private final SqlDialect dialect;
     private final String connectionUrl;
+    private final AdaptiveConcurrencyLimiter limiter;
+    private volatile Integer databaseMajorVersion;
+    private final SchemaSnapshotLoader schemaLoader;
+    private final Object schemaLock = new Object();
+    private SchemaSnapshot schemaSnapshot;
+    private boolean schemaSnapshotFailed;
+    private volatile boolean schemaSnapshotStale;
 
     public DatabaseConnector(ConfigurationManager config) {
         this(config, DatabaseType.SOURCE);
@@ -30,33 +66,11 @@ public class DatabaseConnector implements AutoCloseable {
     public DatabaseConnector(ConfigurationManager config, DatabaseType databaseType) {
         this.config = config;
         this.databaseType = databaseType;
-        this.connectionUrl = buildConnectionUrl();
-    }
-
-    private String buildConnectionUrl() {
-        ConfigurationManager.DatabaseConfig dbConfig = getDatabaseConfig();
-        String driver = dbConfig.getDriver() != null ? dbConfig.getDriver() : "sqlserver";
-        
-        switch (driver.toLowerCase()) {
-            case "sqlserver":
-            case "mssql":
-                return String.format("jdbc:sqlserver://%s:%d;databaseName=%s;encrypt=true;trustServerCertificate=true",
-                        dbConfig.getHost(),
-                        dbConfig.getPort(),
-                        dbConfig.getDatabase());
-            case "postgresql":
-            case "postgres":
-                return String.format("jdbc:postgresql://%s:%d/%s",
-                        dbConfig.getHost(),
-                        dbConfig.getPort(),
-                        dbConfig.getDatabase());
-            default:
-                logger.warn("Unknown driver type: {}, using SQL Server format", driver);
-                return String.format("jdbc:sqlserver://%s:%d;databaseName=%s;encrypt=true;trustServerCertificate=true",
-                        dbConfig.getHost(),
-                        dbConfig.getPort(),
-                        dbConfig.getDatabase());
-        }
+        this.dialect = SqlDialects.forDriver(getDatabaseConfig().getDriver());
+        this.connectionUrl = dialect.buildConnectionUrl(getDatabaseConfig());
+        this.limiter = createLimiter();
+        this.schemaLoader = dialect.supports(SqlDialect.Capability.SCHEMA_CATALOG)
+            ? new SchemaSnapshotLoader(this, config) : null;
     }
 
     private ConfigurationManager.DatabaseConfig getDatabaseConfig() {
@@ -71,27 +85,91 @@ public class DatabaseConnector implements AutoCloseable {
     }
 
     /**
-     * Establishes a connection to the database.
+     * Creates the adaptive concurrency limiter if {@code adaptiveConcurrency} is enabled. It outlives
+     * the pool so a limit learned before {@link #closeConnection()} still applies afterwards.
      */
-    public Connection getConnection() throws SQLException {
-        if (connection == null || connection.isClosed()) {
-            logger.debug("Establishing {} database connection to: {}", databaseType, connectionUrl);
-            
+    private AdaptiveConcurrencyLimiter createLimiter() {
+        ConfigurationManager.DatabaseConfig dbConfig = getDatabaseConfig();
+        if (!Boolean.TRUE.equals(dbConfig.getAdaptiveConcurrency())) {
+            return null;
+        }
+        int maxConcurrency = dbConfig.getMaxConcurrency() != null ?
+            Math.min(dbConfig.getMaxConcurrency(), getMaxPoolSize()) : getMaxPoolSize();
+        int minConcurrency = dbConfig.getMinConcurrency() != null ?
+            Math.min(dbConfig.getMinConcurrency(), maxConcurrency) : DEFAULT_MIN_CONCURRENCY;
+        double latencyTolerance = dbConfig.getLatencyTolerance() != null ?
+            dbConfig.getLatencyTolerance() : DEFAULT_LATENCY_TOLERANCE;
+        logger.info("{} adaptive concurrency enabled (min: {}, max: {}, latencyTolerance: {})",
+            databaseType, minConcurrency, maxConcurrency, latencyTolerance);
+        return new AdaptiveConcurrencyLimiter(databaseType.name(), minConcurrency, maxConcurrency, latencyTolerance);
+    }
+
+    /**
+     * Gets the connection pool, creating it on first use.
+     */
+    private synchronized ConnectionPool getPool() {
+        if (pool == null) {
             ConfigurationManager.DatabaseConfig dbConfig = getDatabaseConfig();
-            Properties props = new Properties();
-            props.setProperty("user", dbConfig.getUsername());
-            props.setProperty("password", dbConfig.getPassword());
-            props.setProperty("loginTimeout", String.valueOf(dbConfig.getConnectionTimeout() != null ? dbConfig.getConnectionTimeout() : 30));
-            props.setProperty("socketTimeout", "300000");
-            props.setProperty("queryTimeout", "300000");
-            
-            connection = DriverManager.getConnection(connectionUrl, props);
-            connection.setAutoCommit(true);
-            logger.info("{} database connection established successfully", databaseType);
+            int maxPoolSize = getMaxPoolSize();
+            int idleTimeout = dbConfig.getIdleTimeout() != null ?
+                dbConfig.getIdleTimeout() : DEFAULT_IDLE_TIMEOUT_SECONDS;
+            int validationInterval = dbConfig.getValidationInterval() != null ?
+                dbConfig.getValidationInterval() : DEFAULT_VALIDATION_INTERVAL_SECONDS;
+            int statementCacheSize = dbConfig.getStatementCacheSize() != null ?
+                dbConfig.getStatementCacheSize() : DEFAULT_STATEMENT_CACHE_SIZE;
+            pool = new ConnectionPool(databaseType.name(), this::openConnection, maxPoolSize,
+                getBorrowTimeoutMillis(), idleTimeout * 1000L, validationInterval * 1000L, statementCacheSize,
+                limiter);
         }
+        return pool;
+    }
+
+    /**
+     * Gets how long to wait for a pooled connection or a concurrency slot: the {@code connectionTimeout}.
+     */
+    private long getBorrowTimeoutMillis() {
+        Integer connectionTimeout = getDatabaseConfig().getConnectionTimeout();
+        return (connectionTimeout != null ? connectionTimeout : DEFAULT_CONNECTION_TIMEOUT_SECONDS) * 1000L;
+    }
+
+    /**
+     * Opens a new physical connection to the database.
+     */
+    private Connection openConnection() throws SQLException {
+        logger.debug("Establishing {} database connection to: {}", databaseType, connectionUrl);
+
+        ConfigurationManager.DatabaseConfig dbConfig = getDatabaseConfig();
+        Properties props = new Properties();
+        props.setProperty("user", dbConfig.getUsername());
+        props.setProperty("password", dbConfig.getPassword());
+        props.setProperty("loginTimeout", String.valueOf(dbConfig.getConnectionTimeout() != null ?
+            dbConfig.getConnectionTimeout() : DEFAULT_CONNECTION_TIMEOUT_SECONDS));
+        dialect.configureSocketTimeout(props, dbConfig.getSocketTimeout() != null ?
+            dbConfig.getSocketTimeout() : DEFAULT_SOCKET_TIMEOUT_SECONDS);
+
+        Connection connection = DriverManager.getConnection(connectionUrl, props);
+        connection.setAutoCommit(true);
+        logger.info("{} database connection established successfully", databaseType);
         return connection;
     }
 
+    /**
+     * Borrows a connection from the pool.
+     * Closing the returned connection hands it back to the pool.
+     */
+    public Connection getConnection() throws SQLException {
+        return getPool().borrow();
+    }
+
+    /**
+     * Borrows a connection for a {@link KeysetCursor}, which holds it for a whole scan. It takes no
+     * slot of the concurrency limiter; each page query takes one in {@link #executePage} instead,
+     * so held cursors neither block other queries nor go unmeasured.
+     */
+    Connection getCursorConnection() throws SQLException {
+        return getPool().borrowWithoutLimit();
+    }
+
     /**
      * Tests the database connection.
      */
@@ -109,60 +187,222 @@ public class DatabaseConnector implements AutoCloseable {
     }
 
     /**
-     * Checks if the current connection is valid and reconnects if necessary.
+     * Borrows a connection that has been validated with {@link Connection#isValid} regardless
+     * of the validation interval. Closing the returned connection hands it back to the pool.
      */
     public Connection getValidConnection() throws SQLException {
-        try {
-            if (connection != null && !connection.isClosed()) {
-                try (Statement stmt = connection.createStatement()) {
-                    stmt.execute("SELECT 1");
-                    return connection;
-                } catch (SQLException e) {
-                    logger.warn("{} database connection is invalid, reconnecting...", databaseType);
-                    closeConnection();
-                }
-            }
-        } catch (SQLException e) {
-            logger.warn("{} database connection check failed, reconnecting...", databaseType);
-            closeConnection();
-        }
-        
-        return getConnection();
+        return getPool().borrow(true);
     }
 
     /**
      * Executes a query and returns the ResultSet.
+     * Closing the ResultSet also closes its statement and returns the connection to the pool.
      */
     public ResultSet executeQuery(String sql) throws SQLException {
         logger.debug("Executing query: {}", sql);
         Connection conn = getConnection();
-        Statement stmt = conn.createStatement();
-        return stmt.executeQuery(sql);
+        Statement stmt = null;
+        try {
+            Statement statement = conn.createStatement();
+            stmt = statement;
+            return ManagedResultSet.wrap(timed(statement, () -> statement.executeQuery(sql)), stmt, conn);
+        } catch (SQLException | RuntimeException e) {
+            closeQuietly(stmt);
+            closeQuietly(conn);
+            throw e;
+        }
     }
 
     /**
      * Executes a query with parameters and returns the ResultSet.
+     * Closing the ResultSet also closes its statement and returns the connection to the pool.
      */
     public ResultSet executeQuery(String sql, Object... params) throws SQLException {
         logger.debug("Executing parameterized query: {}", sql);
         Connection conn = getConnection();
-        PreparedStatement stmt = conn.prepareStatement(sql);
-        
-        for (int i = 0; i < params.length; i++) {
-            stmt.setObject(i + 1, params[i]);
+        PreparedStatement stmt = null;
+        try {
+            stmt = conn.prepareStatement(sql);
+            for (int i = 0; i < params.length; i++) {
+                stmt.setObject(i + 1, params[i]);
+            }
+            return ManagedResultSet.wrap(timed(stmt, stmt::executeQuery), stmt, conn);
+        } catch (SQLException | RuntimeException e) {
+            closeQuietly(stmt);
+            closeQuietly(conn);
+            throw e;
+        }
+    }
+
+    /**
+     * Streams the rows of a query to a handler with a forward-only, read-only cursor.
+     * Rows are fetched {@code fetchSize} at a time, so memory use does not depend on the
+     * result size. The statement and connection are released before this method returns.
+     *
+     * @return Number of rows handled
+     */
+    public long streamQuery(String sql, RowHandler handler, Object... params) throws SQLException {
+        logger.debug("Streaming query: {}", sql);
+        try (Connection conn = getConnection()) {
+            prepareForStreaming(conn);
+            try (PreparedStatement stmt = prepareStreamingStatement(conn, sql, params);
+                 Deadline.Scope ignored = cancelOnDeadline(stmt);
+                 ResultSet rs = timed(stmt, stmt::executeQuery)) {
+                long rows = 0;
+                while (rs.next()) {
+                    handler.handle(rs);
+                    rows++;
+                }
+                return rows;
+            }
+        }
+    }
+
+    /**
+     * Streams the rows of a query as a lazily populated {@link Stream}.
+     * The stream holds a pooled connection until it is closed or fully consumed, so use it
+     * in a try-with-resources block. SQL errors during iteration surface as
+     * {@link UncheckedSQLException}.
+     */
+    public Stream<Row> streamRows(String sql, Object... params) throws SQLException {
+        logger.debug("Streaming query: {}", sql);
+        Connection conn = getConnection();
+        PreparedStatement stmt = null;
+        Deadline.Scope cancellation = null;
+        ResultSet rs;
+        Row.Columns columns;
+        try {
+            prepareForStreaming(conn);
+            stmt = prepareStreamingStatement(conn, sql, params);
+            cancellation = cancelOnDeadline(stmt);
+            rs = timed(stmt, stmt::executeQuery);
+            columns = Row.Columns.of(rs.getMetaData());
+        } catch (SQLException | RuntimeException e) {
+            closeQuietly(cancellation);
+            closeQuietly(stmt);
+            closeQuietly(conn);
+            throw e;
+        }
+
+        PreparedStatement statement = stmt;
+        Deadline.Scope pendingCancellation = cancellation;
+        Runnable release = () -> {
+            pendingCancellation.close();
+            closeQuietly(rs);
+            closeQuietly(statement);
+            closeQuietly(conn);
+        };
+        Iterator<Row> rows = new Iterator<Row>() {
+            private Row next;
+            private boolean done;
+
+            @Override
+            public boolean hasNext() {
+                if (next == null && !done) {
+                    try {
+                        if (rs.next()) {
+                            next = Row.read(rs, columns);
+                        } else {
+                            done = true;
+                            release.run();
+                        }
+                    } catch (SQLException e) {
+                        done = true;
+                        release.run();
+                        throw new UncheckedSQLException(e);
+                    }
+                }
+                return next != null;
+            }
+
+            @Override
+            public Row next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                Row row = next;
+                next = null;
+                return row;
+            }
+        };
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(rows, Spliterator.ORDERED), false)
+            .onClose(release);
+    }
+
+    /**
+     * Streams a query restricted to a list of keys. Each occurrence of {@code placeholder} stands
+     * for the contents of an {@code IN (...)} list, as in {@code WHERE customer_id IN ({ids})}.
+     * Dialects with {@link SqlDialect.Capability#ARRAY_PARAMETERS} bind the keys as one array
+     * parameter, others as one parameter per key, so callers must keep such lists below the
+     * database's parameter limit.
+     *
+     * @param keys Key values, at least one
+     * @see #streamRows(String, Object...)
+     */
+    public Stream<Row> streamRowsForKeys(String sql, String placeholder, List<?> keys) throws SQLException {
+        int occurrences = (sql.length() - sql.replace(placeholder, "").length()) / placeholder.length();
+        List<Object> params = new ArrayList<>();
+        String list;
+        if (dialect.supports(SqlDialect.Capability.ARRAY_PARAMETERS)) {
+            list = dialect.arrayParameterList();
+            for (int i = 0; i < occurrences; i++) {
+                params.add(new ArrayParameter(keys));
+            }
+        } else {
+            list = String.join(", ", Collections.nCopies(keys.size(), "?"));
+            for (int i = 0; i < occurrences; i++) {
+                params.addAll(keys);
+            }
         }
-        
-        return stmt.executeQuery();
+        return streamRows(sql.replace(placeholder, list), params.toArray());
     }
 
     /**
-     * Executes an update statement and returns the number of affected rows.
+     * Lets the dialect switch the connection to a streaming cursor. The pool rolls a
+     * read-only transaction back when the connection is returned.
+     */
+    private void prepareForStreaming(Connection conn) throws SQLException {
+        dialect.prepareForStreaming(conn);
+    }
+
+    private PreparedStatement prepareStreamingStatement(Connection conn, String sql, Object... params)
+            throws SQLException {
+        PreparedStatement stmt = conn.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+        try {
+            stmt.setFetchSize(getFetchSize());
+            for (int i = 0; i < params.length; i++) {
+                if (params[i] instanceof ArrayParameter) {
+                    stmt.setArray(i + 1, dialect.createArrayParameter(conn, ((ArrayParameter) params[i]).values));
+                } else {
+                    stmt.setObject(i + 1, params[i]);
+                }
+            }
+            return stmt;
+        } catch (SQLException | RuntimeException e) {
+            closeQuietly(stmt);
+            throw e;
+        }
+    }
+
+    /**
+     * Gets the configured number of rows fetched per round trip when streaming.
+     */
+    public int getFetchSize() {
+        Integer fetchSize = getDatabaseConfig().getFetchSize();
+        return fetchSize != null ? fetchSize : DEFAULT_FETCH_SIZE;
+    }
+
+    /**
+     * Executes an update statement and returns the number of affected rows. The statement may be
+     * DDL, so the next column or key lookup re-checks the schema fingerprint.
      */
     public int executeUpdate(String sql) throws SQLException {
         logger.debug("Executing update: {}", sql);
-        Connection conn = getConnection();
-        Statement stmt = conn.createStatement();
-        return stmt.executeUpdate(sql);
+        schemaSnapshotStale = true;
+        try (Connection conn = getConnection();
+             Statement stmt = conn.createStatement()) {
+            return timed(stmt, () -> stmt.executeUpdate(sql));
+        }
     }
 
     /**
@@ -170,42 +410,159 @@ public class DatabaseConnector implements AutoCloseable {
      */
     public int executeUpdate(String sql, Object... params) throws SQLException {
         logger.debug("Executing parameterized update: {}", sql);
-        Connection conn = getConnection();
-        PreparedStatement stmt = conn.prepareStatement(sql);
-        
-        for (int i = 0; i < params.length; i++) {
-            stmt.setObject(i + 1, params[i]);
+        schemaSnapshotStale = true;
+        try (Connection conn = getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            for (int i = 0; i < params.length; i++) {
+                stmt.setObject(i + 1, params[i]);
+            }
+            return timed(stmt, stmt::executeUpdate);
         }
-        
-        return stmt.executeUpdate();
     }
 
     /**
-     * Closes the database connection.
+     * Closes the connection pool and all idle connections.
+     * A new pool is created on the next call to {@link #getConnection()}.
      */
-    public void closeConnection() {
-        if (connection != null) {
+    public synchronized void closeConnection() {
+        if (pool != null) {
+            pool.close();
+            pool = null;
+            logger.info("Database connection closed");
+        }
+    }
+
+    /**
+     * Gets a snapshot of the connection pool metrics.
+     */
+    public synchronized ConnectionPool.PoolMetrics getPoolMetrics() {
+        return getPool().getMetrics();
+    }
+
+    /**
+     * Gets a snapshot of the adaptive concurrency limit, or null if {@code adaptiveConcurrency}
+     * is not enabled.
+     */
+    public AdaptiveConcurrencyLimiter.LimiterMetrics getConcurrencyMetrics() {
+        return limiter != null ? limiter.getMetrics() : null;
+    }
+
+    /**
+     * Executes a statement, reporting its latency or failure to the concurrency limiter.
+     * The query timeout is capped at the time left until the current {@link Deadline}.
+     *
+     * @throws DeadlineExceededException If the deadline has already passed
+     */
+    private <T> T timed(Statement stmt, StatementCall<T> call) throws SQLException {
+        applyQueryTimeout(stmt);
+        if (limiter == null) {
+            return call.execute();
+        }
+        long start = System.nanoTime();
+        try {
+            T result = call.execute();
+            limiter.onSuccess(start);
+            return result;
+        } catch (SQLException e) {
+            limiter.onError(start, e);
+            throw e;
+        }
+    }
+
+    /**
+     * Sets the configured {@code queryTimeout}, lowered to the time left until the current deadline.
+     * Statements may come from the statement cache, so the timeout is set on every execution.
+     */
+    private void applyQueryTimeout(Statement stmt) throws SQLException {
+        Deadline deadline = Deadline.current();
+        Integer configured = getDatabaseConfig().getQueryTimeout();
+        int timeout = configured != null ? configured : 0;
+        if (deadline.isBounded()) {
+            deadline.check("before a " + databaseType + " query");
+            int remaining = (int) Math.min(Integer.MAX_VALUE, Math.max(1, (deadline.remainingMillis() + 999) / 1000));
+            timeout = timeout > 0 ? Math.min(timeout, remaining) : remaining;
+        }
+        stmt.setQueryTimeout(timeout);
+    }
+
+    /**
+     * Executes the query of a {@link KeysetCursor} page like the connector's own queries: the query
+     * timeout is capped at the current deadline and the latency reported to the concurrency limiter.
+     * The page takes a limiter slot while the query executes, since its connection holds none.
+     * Pair it with {@link #cancelOnDeadline} for as long as the page is being read.
+     *
+     * @throws DeadlineExceededException If the deadline has already passed
+     */
+    ResultSet executePage(PreparedStatement stmt) throws SQLException {
+        if (limiter == null) {
+            return timed(stmt, stmt::executeQuery);
+        }
+        limiter.acquire(getBorrowTimeoutMillis());
+        try {
+            return timed(stmt, stmt::executeQuery);
+        } finally {
+            limiter.release();
+        }
+    }
+
+    /**
+     * Cancels a statement if the current deadline passes while its rows are still being read,
+     * which the query timeout does not cover. Close the returned handle when the statement is done.
+     */
+    static Deadline.Scope cancelOnDeadline(Statement stmt) {
+        return Deadline.current().onExpiry(() -> {
             try {
-                connection.close();
-                logger.info("Database connection closed");
+                stmt.cancel();
             } catch (SQLException e) {
-                logger.error("Error closing database connection: {}", e.getMessage());
+                logger.debug("Could not cancel statement after deadline: {}", e.getMessage());
             }
+        });
+    }
+
+    @FunctionalInterface
+    private interface StatementCall<T> {
+        T execute() throws SQLException;
+    }
+
+    private static void closeQuietly(AutoCloseable resource) {
+        if (resource == null) {
+            return;
+        }
+        try {
+            resource.close();
+        } catch (Exception e) {
+            logger.debug("Error closing JDBC resource: {}", e.getMessage());
         }
     }
 
     /**
-     * Gets database metadata.
+     * Runs a metadata lookup on a pooled connection and returns a ResultSet that
+     * returns the connection when closed, as in
+     * {@code queryMetaData(md -> md.getProcedures(null, null, "%"))}.
      */
-    public DatabaseMetaData getMetaData() throws SQLException {
-        return getConnection().getMetaData();
+    public ResultSet queryMetaData(MetaDataQuery query) throws SQLException {
+        Connection conn = getConnection();
+        try {
+            return ManagedResultSet.wrap(query.execute(conn.getMetaData()), conn);
+        } catch (SQLException | RuntimeException e) {
+            closeQuietly(conn);
+            throw e;
+        }
+    }
+
+    /**
+     * Lookup on the {@link DatabaseMetaData} of a pooled connection.
+     */
+    @FunctionalInterface
+    public interface MetaDataQuery {
+        ResultSet execute(DatabaseMetaData metaData) throws SQLException;
     }
 
     /**
      * Checks if a table exists.
      */
     public boolean tableExists(String tableName) throws SQLException {
-        try (ResultSet rs = getMetaData().getTables(null, null, tableName, new String[]{"TABLE"})) {
+        try (ResultSet rs = queryMetaData(md -> md.getTables(null, null, tableName, new String[]{"TABLE"}))) {
             return rs.next();
         }
     }
@@ -214,42 +571,134 @@ public class DatabaseConnector implements AutoCloseable {
      * Gets the list of all tables in the database.
      */
     public ResultSet getAllTables() throws SQLException {
-        return getMetaData().getTables(null, null, "%", new String[]{"TABLE"});
+        return queryMetaData(md -> md.getTables(null, null, "%", new String[]{"TABLE"}));
     }
 
     /**
      * Gets the list of all columns for a specific table.
      */
     public ResultSet getTableColumns(String tableName) throws SQLException {
-        return getMetaData().getColumns(null, null, tableName, "%");
+        return queryMetaData(md -> md.getColumns(null, null, tableName, "%"));
     }
 
     /**
      * Gets the list of all indexes for a specific table.
      */
     public ResultSet getTableIndexes(String tableName) throws SQLException {
-        return getMetaData().getIndexInfo(null, null, tableName, false, true);
+        return queryMetaData(md -> md.getIndexInfo(null, null, tableName, false, true));
     }
 
     /**
      * Gets the list of all foreign keys for a specific table.
      */
     public ResultSet getTableForeignKeys(String tableName) throws SQLException {
-        return getMetaData().getImportedKeys(null, null, tableName);
+        return queryMetaData(md -> md.getImportedKeys(null, null, tableName));
     }
 
     /**
      * Gets the list of all primary keys for a specific table.
      */
     public ResultSet getTablePrimaryKeys(String tableName) throws SQLException {
-        return getMetaData().getPrimaryKeys(null, null, tableName);
+        return queryMetaData(md -> md.getPrimaryKeys(null, null, tableName));
+    }
+
+    /**
+     * Makes the next column or key lookup re-check the schema fingerprint, for callers that
+     * changed the schema on another connection.
+     */
+    public void invalidateSchemaSnapshot() {
+        schemaSnapshotStale = true;
+    }
+
+    /**
+     * Finds a table in the schema snapshot, which {@link #getColumnTypes} and
+     * {@link #getPrimaryKeyColumns} use instead of a metadata call per table. The snapshot is
+     * loaded on first use (from the cache if the fingerprint matches) and refreshed when it is
+     * stale or lacks the table, which may have been created since.
+     *
+     * @return The table, or null if the dialect has no schema catalog queries, the snapshot
+     *         could not be loaded, or it has no such table
+     */
+    private SchemaSnapshot.Table snapshotTable(String tableName) throws SQLException {
+        if (schemaLoader == null) {
+            return null;
+        }
+        synchronized (schemaLock) {
+            if (schemaSnapshotFailed) {
+                return null;
+            }
+            SchemaSnapshot.Table table = schemaSnapshot != null ? schemaSnapshot.getTable(tableName) : null;
+            if (table == null || schemaSnapshotStale) {
+                schemaSnapshotStale = false;
+                try {
+                    schemaSnapshot = schemaLoader.refresh(schemaSnapshot);
+                } catch (SQLException e) {
+                    if (DeadlineExceededException.isCause(e, Deadline.current())) {
+                        throw e;
+                    }
+                    logger.warn("Schema snapshot of the {} database unavailable, using per-table metadata: {}",
+                        databaseType, e.getMessage());
+                    schemaSnapshotFailed = true;
+                    return null;
+                }
+                table = schemaSnapshot.getTable(tableName);
+            }
+            return table;
+        }
+    }
+
+    /**
+     * Gets the primary key column names of a table, ordered by key sequence.
+     */
+    public List<String> getPrimaryKeyColumns(String tableName) throws SQLException {
+        SchemaSnapshot.Table table = snapshotTable(tableName);
+        if (table != null) {
+            return new ArrayList<>(table.getPrimaryKey());
+        }
+        TreeMap<Short, String> keyColumns = new TreeMap<>();
+        try (ResultSet rs = getTablePrimaryKeys(tableName)) {
+            while (rs.next()) {
+                keyColumns.put(rs.getShort("KEY_SEQ"), rs.getString("COLUMN_NAME"));
+            }
+        }
+        return new ArrayList<>(keyColumns.values());
+    }
+
+    /**
+     * Gets the column names of a table in ordinal order.
+     */
+    public List<String> getColumnNames(String tableName) throws SQLException {
+        List<String> names = new ArrayList<>();
+        for (ColumnType column : getColumnTypes(tableName)) {
+            names.add(column.getName());
+        }
+        return names;
+    }
+
+    /**
+     * Gets the columns of a table with their types in ordinal order.
+     */
+    public List<ColumnType> getColumnTypes(String tableName) throws SQLException {
+        SchemaSnapshot.Table table = snapshotTable(tableName);
+        if (table != null) {
+            return table.getColumnTypes();
+        }
+        TreeMap<Integer, ColumnType> columns = new TreeMap<>();
+        try (ResultSet rs = getTableColumns(tableName)) {
+            while (rs.next()) {
+                int decimalDigits = rs.getInt("DECIMAL_DIGITS");
+                columns.put(rs.getInt("ORDINAL_POSITION"), new ColumnType(rs.getString("COLUMN_NAME"),
+                    rs.getInt("DATA_TYPE"), rs.getString("TYPE_NAME"), rs.wasNull() ? null : decimalDigits));
+            }
+        }
+        return new ArrayList<>(columns.values());
     }
 
     /**
      * Gets the row count for a specific table.
      */
     public long getTableRowCount(String tableName) throws SQLException {
-        String sql = "SELECT COUNT(*) FROM " + escapeTableName(tableName);
+        String sql = "SELECT " + dialect.countExpression("*") + " FROM " + escapeTableName(tableName);
         try (ResultSet rs = executeQuery(sql)) {
             if (rs.next()) {
                 return rs.getLong(1);
@@ -258,6 +707,264 @@ public class DatabaseConnector implements AutoCloseable {
         return 0;
     }
 
+    /**
+     * Reads estimated row counts and sizes of all user tables with a single catalog query:
+     * {@code sys.dm_db_partition_stats} on SQL Server, {@code pg_class.reltuples} and
+     * {@code pg_total_relation_size} on PostgreSQL. Much cheaper than {@code COUNT(*)}, but the
+     * PostgreSQL figures are only as fresh as the last VACUUM/ANALYZE.
+     *
+     * @throws SQLFeatureNotSupportedException If the dialect has no catalog statistics
+     */
+    public List<TableStatistics> getCatalogTableStatistics() throws SQLException {
+        if (!dialect.supports(SqlDialect.Capability.CATALOG_STATISTICS)) {
+            throw new SQLFeatureNotSupportedException(dialect.getName() + " has no catalog statistics");
+        }
+        String sql = dialect.catalogStatisticsQuery();
+        logger.debug("Reading {} catalog statistics", databaseType);
+
+        List<TableStatistics> statistics = new ArrayList<>();
+        try (ResultSet rs = executeQuery(sql)) {
+            while (rs.next()) {
+                long rowCount = rs.getLong(3);
+                statistics.add(new TableStatistics(rs.getString(1), rs.getString(2),
+                    rowCount >= 0 ? rowCount : -1, rs.getLong(4)));
+            }
+        }
+        logger.info("Read catalog statistics for {} {} tables", statistics.size(), databaseType);
+        return statistics;
+    }
+
+    /**
+     * Gets the row count of a table from catalog statistics when the dialect has them, otherwise
+     * with {@code COUNT(*)}. Good enough to size a scan, not to compare counts.
+     */
+    public long estimateRowCount(String tableName) throws SQLException {
+        if (dialect.supports(SqlDialect.Capability.CATALOG_STATISTICS)) {
+            for (TableStatistics statistics : getCatalogTableStatistics()) {
+                if (statistics.hasRowCount() && (statistics.getName().equalsIgnoreCase(tableName)
+                        || statistics.getQualifiedName().equalsIgnoreCase(tableName))) {
+                    return statistics.getRowCount();
+                }
+            }
+        }
+        return getTableRowCount(tableName);
+    }
+
+    /**
+     * Fetches the rows with the given primary keys, using {@code key IN (...)} for single-column
+     * keys and OR-ed equality groups for composite keys. Keys are sent in chunks of at most
+     * {@value SqlDialect#MAX_BIND_PARAMETERS} bind parameters on one connection.
+     * Keys that do not exist are simply absent from the result.
+     *
+     * @param keys Key values, one array per row, in {@code keyColumns} order
+     * @return Rows in no particular order, key columns first, then value columns
+     * @see #keyOf(Object[], int)
+     */
+    public List<Object[]> lookupRows(String tableName, List<String> keyColumns, List<String> valueColumns,
+                                     List<Object[]> keys) throws SQLException {
+        List<Object[]> rows = new ArrayList<>();
+        if (keys.isEmpty()) {
+            return rows;
+        }
+        List<String> quotedKeys = quoteEach(keyColumns);
+        List<String> columns = new ArrayList<>(keyColumns);
+        columns.addAll(valueColumns);
+        String select = "SELECT " + quoteColumns(columns) + " FROM " + escapeTableName(tableName) + " WHERE ";
+        int chunkSize = Math.max(1, SqlDialect.MAX_BIND_PARAMETERS / quotedKeys.size());
+
+        try (Connection conn = getConnection()) {
+            for (int start = 0; start < keys.size(); start += chunkSize) {
+                List<Object[]> chunk = keys.subList(start, Math.min(keys.size(), start + chunkSize));
+                String sql = select + keyPredicate(quotedKeys, chunk.size());
+                try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+                    int index = 1;
+                    for (Object[] key : chunk) {
+                        for (Object value : key) {
+                            stmt.setObject(index++, value);
+                        }
+                    }
+                    try (ResultSet rs = timed(stmt, stmt::executeQuery)) {
+                        while (rs.next()) {
+                            Object[] row = new Object[columns.size()];
+                            for (int i = 0; i < row.length; i++) {
+                                row[i] = rs.getObject(i + 1);
+                            }
+                            rows.add(row);
+                        }
+                    }
+                }
+            }
+        }
+        return rows;
+    }
+
+    /**
+     * Copies the leading {@code keyCount} key values of a row returned by {@link #lookupRows}
+     * or read in key-first column order.
+     */
+    public static Object[] keyOf(Object[] row, int keyCount) {
+        Object[] key = new Object[keyCount];
+        System.arraycopy(row, 0, key, 0, keyCount);
+        return key;
+    }
+
+    private static String keyPredicate(List<String> quotedKeys, int keyCount) {
+        StringBuilder sql = new StringBuilder();
+        if (quotedKeys.size() == 1) {
+            sql.append(quotedKeys.get(0)).append(" IN (");
+            for (int i = 0; i < keyCount; i++) {
+                sql.append(i > 0 ? ", ?" : "?");
+            }
+            sql.append(')');
+        } else {
+            List<String> equalities = new ArrayList<>();
+            for (String key : quotedKeys) {
+                equalities.add(key + " = ?");
+            }
+            String group = "(" + String.join(" AND ", equalities) + ")";
+            for (int i = 0; i < keyCount; i++) {
+                sql.append(i > 0 ? " OR " : "").append(group);
+            }
+        }
+        return sql.toString();
+    }
+
+    /**
+     * Gets the smallest and largest value of a key column, both null for an empty table.
+     * With an index on the column this reads only the two ends of the index.
+     *
+     * @return {@code {min, max}}
+     */
+    public Object[] getKeyExtent(String tableName, String keyColumn) throws SQLException {
+        String key = dialect.quoteIdentifier(keyColumn);
+        String sql = "SELECT MIN(" + key + "), MAX(" + key + ") FROM " + escapeTableName(tableName);
+        try (ResultSet rs = executeQuery(sql)) {
+            if (rs.next()) {
+                return new Object[]{rs.getObject(1), rs.getObject(2)};
+            }
+        }
+        return new Object[]{null, null};
+    }
+
+    /**
+     * Gets the current high value of a watermark column (see {@link SqlDialect#watermarkExpression}),
+     * or null for an empty table.
+     */
+    public Object getWatermark(String tableName, String watermarkColumn) throws SQLException {
+        String sql = "SELECT MAX(" + dialect.watermarkExpression(watermarkColumn) + ") FROM "
+            + escapeTableName(tableName);
+        try (ResultSet rs = executeQuery(sql)) {
+            return rs.next() ? rs.getObject(1) : null;
+        }
+    }
+
+    /**
+     * Gets the keys of rows whose watermark is at or above {@code since}. Rows written after
+     * {@code since} was read but stamped with the same value are therefore not missed; rows stamped
+     * exactly {@code since} are returned again. Rows with a null watermark are never returned.
+     * Reading stops after {@code maxKeys + 1} keys, so a result longer than {@code maxKeys} means
+     * more rows have changed and the rest were not read.
+     *
+     * @param since Watermark of an earlier {@link #getWatermark} call, or null for all rows
+     * @param maxKeys Number of keys above which reading stops
+     */
+    public List<Object[]> getKeysChangedSince(String tableName, List<String> keyColumns, String watermarkColumn,
+                                              Object since, int maxKeys) throws SQLException {
+        String watermark = dialect.watermarkExpression(watermarkColumn);
+        String sql = "SELECT " + quoteColumns(keyColumns) + " FROM " + escapeTableName(tableName) + " WHERE "
+            + watermark + (since != null ? " >= ?" : " IS NOT NULL");
+        List<Object[]> keys = new ArrayList<>();
+        try (Stream<Row> rows = since != null ? streamRows(sql, since) : streamRows(sql)) {
+            Iterator<Row> iterator = rows.iterator();
+            while (keys.size() <= maxKeys && iterator.hasNext()) {
+                Row row = iterator.next();
+                Object[] key = new Object[keyColumns.size()];
+                for (int i = 0; i < key.length; i++) {
+                    key[i] = row.get(i);
+                }
+                keys.add(key);
+            }
+        } catch (UncheckedSQLException e) {
+            throw e.getCause();
+        }
+        return keys;
+    }
+
+    /**
+     * Splits a key range into chunks of about {@code rowsPerChunk} rows.
+     * Only the boundary keys are returned; the numbering runs inside the database.
+     *
+     * @return The last key of every full chunk, in key order
+     */
+    public List<Object[]> getKeyBoundaries(String tableName, List<String> keyColumns, KeyRange range,
+                                           long rowsPerChunk) throws SQLException {
+        String keys = quoteColumns(keyColumns);
+        String predicate = range.toSql(quoteEach(keyColumns));
+        String sql = "SELECT " + keys + " FROM (SELECT " + keys + ", ROW_NUMBER() OVER (ORDER BY " + keys
+            + ") AS chunk_rn FROM " + escapeTableName(tableName)
+            + (predicate != null ? " WHERE " + predicate : "")
+            + ") numbered WHERE chunk_rn % ? = 0 ORDER BY " + keys;
+        logger.debug("Computing key boundaries: {}", sql);
+
+        List<Object[]> boundaries = new ArrayList<>();
+        try (Connection conn = getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            int index = range.bind(stmt, 1);
+            stmt.setLong(index, rowsPerChunk);
+            try (ResultSet rs = timed(stmt, stmt::executeQuery)) {
+                while (rs.next()) {
+                    Object[] key = new Object[keyColumns.size()];
+                    for (int i = 0; i < key.length; i++) {
+                        key[i] = rs.getObject(i + 1);
+                    }
+                    boundaries.add(key);
+                }
+            }
+        }
+        return boundaries;
+    }
+
+    /**
+     * Computes the row count and aggregate hash of a key range inside the database,
+     * using HASHBYTES on SQL Server and md5 on PostgreSQL. Only one row crosses the network.
+     * Each row is hashed over a per-type text rendering of its columns (see {@link HashColumn}),
+     * so the hashes of both databases agree for equal values.
+     *
+     * @param columns Columns to hash, rendered as chosen by {@link HashColumn#forPair}
+     * @throws SQLFeatureNotSupportedException If the database cannot hash rows in SQL
+     */
+    public ChunkChecksum computeChunkChecksum(String tableName, List<String> keyColumns, List<HashColumn> columns,
+                                              KeyRange range) throws SQLException {
+        if (!supports(SqlDialect.Capability.ROW_HASH)) {
+            throw new SQLFeatureNotSupportedException(dialect.getName() + " does not support row hashing");
+        }
+        String predicate = range.toSql(quoteEach(keyColumns));
+        String where = predicate != null ? " WHERE " + predicate : "";
+        String sql = dialect.chunkChecksumQuery(escapeTableName(tableName), columns, where);
+        logger.debug("Computing chunk checksum: {}", sql);
+
+        try (Connection conn = getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            range.bind(stmt, 1);
+            try (ResultSet rs = timed(stmt, stmt::executeQuery)) {
+                rs.next();
+                return new ChunkChecksum(rs.getLong(1), rs.getLong(2), rs.getLong(3));
+            }
+        }
+    }
+
+    private String quoteColumns(List<String> columns) {
+        return String.join(", ", quoteEach(columns));
+    }
+
+    private List<String> quoteEach(List<String> columns) {
+        List<String> quoted = new ArrayList<>();
+        for (String column : columns) {
+            quoted.add(quoteIdentifier(column));
+        }
+        return quoted;
+    }
+
     /**
      * Escapes a table name for SQL by wrapping it appropriately.
      */
@@ -265,8 +972,65 @@ public class DatabaseConnector implements AutoCloseable {
         if (tableName == null || tableName.trim().isEmpty()) {
             return tableName;
         }
-        // Default to SQL Server format, can be overridden for other databases
-        return "[" + tableName.trim() + "]";
+        return quoteTableName(tableName.trim());
+    }
+
+    /**
+     * Quotes a possibly schema-qualified table name, quoting each dot-separated part.
+     */
+    public String quoteTableName(String tableName) {
+        return dialect.quoteTableName(tableName);
+    }
+
+    /**
+     * Quotes a single identifier using the configured database's quoting style.
+     */
+    public String quoteIdentifier(String identifier) {
+        return dialect.quoteIdentifier(identifier);
+    }
+
+    /**
+     * Gets the SQL dialect of the configured database.
+     */
+    public SqlDialect getDialect() {
+        return dialect;
+    }
+
+    /**
+     * Checks whether the connected server supports a dialect capability, for capabilities that
+     * need a newer server than the dialect supports otherwise, such as row hashes on SQL Server.
+     * The server version is read once.
+     */
+    public boolean supports(SqlDialect.Capability capability) throws SQLException {
+        return dialect.supports(capability) && dialect.supports(capability, getDatabaseMajorVersion());
+    }
+
+    private int getDatabaseMajorVersion() throws SQLException {
+        Integer version = databaseMajorVersion;
+        if (version == null) {
+            try (Connection conn = getConnection()) {
+                version = conn.getMetaData().getDatabaseMajorVersion();
+            }
+            databaseMajorVersion = version;
+        }
+        return version;
+    }
+
+    /**
+     * Exports the result of a query as CSV with a header row through the dialect's native
+     * bulk path, such as {@code COPY ... TO STDOUT} on PostgreSQL.
+     *
+     * @return Number of rows exported
+     * @throws SQLFeatureNotSupportedException If the dialect has no bulk export
+     */
+    public long bulkExport(String sql, Writer out) throws SQLException, IOException {
+        if (!dialect.supports(SqlDialect.Capability.BULK_EXPORT)) {
+            throw new SQLFeatureNotSupportedException(dialect.getName() + " does not support bulk export");
+        }
+        logger.debug("Bulk exporting: {}", sql);
+        try (Connection conn = getConnection()) {
+            return dialect.bulkExport(conn, sql, out);
+        }
     }
 
     /**
@@ -290,11 +1054,29 @@ public class DatabaseConnector implements AutoCloseable {
         return getDatabaseConfig().getDatabase();
     }
 
+    /**
+     * Gets the maximum number of pooled connections, which also bounds useful query parallelism.
+     */
+    public int getMaxPoolSize() {
+        Integer maxPoolSize = getDatabaseConfig().getMaxPoolSize();
+        return maxPoolSize != null ? maxPoolSize : DEFAULT_MAX_POOL_SIZE;
+    }
+
     /**
      * Gets the database host this connector is connected to.
      */
     public String getDatabaseHost() {
         return getDatabaseConfig().getHost();
     }
-}
 
+    /**
+     * A key list bound as a single array parameter.
+     */
+    private static final class ArrayParameter {
+        private final List<?> values;
+
+        private ArrayParameter(List<?> values) {
+            this.values = values;
+        }
+    }
+}
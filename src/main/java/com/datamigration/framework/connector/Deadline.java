@@ -0,0 +1,171 @@
+package com.datamigration.framework.connector;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Point in time by which a comparison job, table or query has to finish.
+ *
+ * <p>A deadline is bound to the current thread with {@link #bind()}, and
+ * {@link com.datamigration.framework.analyzer.ComparisonExecutors} workers inherit the deadline of
+ * the thread that submitted their task. {@link DatabaseConnector} caps the query timeout of every
+ * statement at the remaining time and cancels streaming statements when the deadline passes;
+ * {@link DynamoDBConnector} and {@link S3Connector} cap the API call timeout of each request.
+ * Long in-process stages call {@link #check(String)} between units of work.</p>
+ *
+ * <p>Without a bound deadline, {@link #current()} returns an unbounded one that never expires.</p>
+ */
+public final class Deadline {
+
+    private static final Deadline UNBOUNDED = new Deadline("unbounded", Long.MAX_VALUE, false);
+    private static final ThreadLocal<Deadline> CURRENT = new ThreadLocal<>();
+
+    private final String name;
+    private final long expiresAtNanos;
+    private final boolean bounded;
+
+    private Deadline(String name, long expiresAtNanos, boolean bounded) {
+        this.name = name;
+        this.expiresAtNanos = expiresAtNanos;
+        this.bounded = bounded;
+    }
+
+    /**
+     * Creates a deadline {@code timeoutMillis} from now.
+     *
+     * @param name Describes what the deadline bounds in messages, e.g. {@code "table ORDERS"}
+     */
+    public static Deadline after(String name, long timeoutMillis) {
+        return new Deadline(name, System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis), true);
+    }
+
+    public static Deadline unbounded() {
+        return UNBOUNDED;
+    }
+
+    /**
+     * Gets the deadline bound to the current thread, or an unbounded one.
+     */
+    public static Deadline current() {
+        Deadline deadline = CURRENT.get();
+        return deadline != null ? deadline : UNBOUNDED;
+    }
+
+    /**
+     * Returns whichever of this and {@code other} expires first.
+     */
+    public Deadline earliest(Deadline other) {
+        if (!other.bounded) {
+            return this;
+        }
+        if (!bounded) {
+            return other;
+        }
+        return other.expiresAtNanos - expiresAtNanos < 0 ? other : this;
+    }
+
+    public boolean isBounded() {
+        return bounded;
+    }
+
+    public boolean isExpired() {
+        return bounded && System.nanoTime() - expiresAtNanos >= 0;
+    }
+
+    /**
+     * Gets the time left in milliseconds, 0 once expired, or {@link Long#MAX_VALUE} if unbounded.
+     */
+    public long remainingMillis() {
+        if (!bounded) {
+            return Long.MAX_VALUE;
+        }
+        return Math.max(0, TimeUnit.NANOSECONDS.toMillis(expiresAtNanos - System.nanoTime()));
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Throws if this deadline has passed. Called between units of in-process work.
+     *
+     * @param stage What was about to run, for the message
+     * @throws DeadlineExceededException If the deadline has passed
+     */
+    public void check(String stage) {
+        if (isExpired()) {
+            throw new DeadlineExceededException(this, stage);
+        }
+    }
+
+    /**
+     * Binds this deadline to the current thread until the returned scope is closed, which
+     * restores the previously bound deadline.
+     */
+    public Scope bind() {
+        Deadline previous = CURRENT.get();
+        CURRENT.set(this);
+        return () -> {
+            if (previous != null) {
+                CURRENT.set(previous);
+            } else {
+                CURRENT.remove();
+            }
+        };
+    }
+
+    /**
+     * Wraps a task so it runs with the deadline bound to the calling thread.
+     */
+    public static Runnable propagate(Runnable task) {
+        Deadline deadline = CURRENT.get();
+        if (deadline == null) {
+            return task;
+        }
+        return () -> {
+            try (Scope ignored = deadline.bind()) {
+                task.run();
+            }
+        };
+    }
+
+    /**
+     * Runs {@code action} on a shared timer thread when this deadline passes, unless the returned
+     * handle is closed first. Does nothing for an unbounded deadline.
+     */
+    public Scope onExpiry(Runnable action) {
+        if (!bounded) {
+            return () -> { };
+        }
+        ScheduledFuture<?> scheduled = Timer.INSTANCE.schedule(action,
+            Math.max(0, expiresAtNanos - System.nanoTime()), TimeUnit.NANOSECONDS);
+        return () -> scheduled.cancel(false);
+    }
+
+    @Override
+    public String toString() {
+        return bounded ? String.format("%s (%d ms left)", name, remainingMillis()) : name;
+    }
+
+    /**
+     * Handle whose {@code close()} undoes a binding or registration and throws nothing.
+     */
+    @FunctionalInterface
+    public interface Scope extends AutoCloseable {
+        @Override
+        void close();
+    }
+
+    /**
+     * Holds the timer thread, started on first use of {@link #onExpiry}.
+     */
+    private static final class Timer {
+        private static final ScheduledExecutorService INSTANCE = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "deadline-timer");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+}
@@ -0,0 +1,29 @@
+package com.datamigration.framework.connector;
+
+/**
+ * Thrown when work is about to start or continue after its {@link Deadline} has passed.
+ */
+public class DeadlineExceededException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    public DeadlineExceededException(Deadline deadline, String stage) {
+        super(String.format("Deadline of %s exceeded (%s)", deadline.getName(), stage));
+    }
+
+    /**
+     * Checks whether a failure was caused by a passed deadline: either the deadline has expired,
+     * so a query timeout or cancellation was its doing, or the cause chain contains this exception.
+     */
+    public static boolean isCause(Throwable error, Deadline deadline) {
+        if (deadline.isExpired()) {
+            return true;
+        }
+        for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+            if (cause instanceof DeadlineExceededException) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -11,8 +11,26 @@ import software.amazon.awssdk.services.dynamodb.model.*;
 
 import java.net.URI;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * Generic DynamoDB connector for data migration framework.
@@ -20,10 +38,24 @@ import java.util.Map;
  */
 public class DynamoDBConnector implements AutoCloseable {
     private static final Logger logger = LoggerFactory.getLogger(DynamoDBConnector.class);
+
+    /** Table size per derived scan segment; AWS suggests starting with one segment per 2 GB. */
+    private static final long BYTES_PER_SCAN_SEGMENT = 2L * 1024 * 1024 * 1024;
+    /** Upper limit of {@code TotalSegments} in a Scan request. */
+    private static final int MAX_SCAN_SEGMENTS = 1_000_000;
+    private static final AtomicInteger SCAN_POOL_COUNTER = new AtomicInteger();
     
     public enum DynamoDBType {
         SOURCE, TARGET
     }
+
+    /**
+     * How items are counted: {@code FAST} reads the {@code ItemCount} of {@code DescribeTable}, which
+     * DynamoDB refreshes about every six hours; {@code EXACT} runs a parallel segmented COUNT scan.
+     */
+    public enum CountMode {
+        FAST, EXACT
+    }
     
     private final ConfigurationManager config;
     private final DynamoDBType dynamoDBType;
@@ -56,7 +88,8 @@ public class DynamoDBConnector implements AutoCloseable {
             
             var builder = DynamoDbClient.builder()
                 .region(Region.of(dbConfig.getRegion()))
-                .credentialsProvider(StaticCredentialsProvider.create(awsCreds));
+                .credentialsProvider(StaticCredentialsProvider.create(awsCreds))
+                .overrideConfiguration(AwsCallTimeouts.clientConfiguration(dbConfig.getApiCallTimeout()));
             
             if (dbConfig.getEndpointUrl() != null && !dbConfig.getEndpointUrl().isEmpty()) {
                 builder.endpointOverride(URI.create(dbConfig.getEndpointUrl()));
@@ -107,51 +140,270 @@ public class DynamoDBConnector implements AutoCloseable {
     }
 
     /**
-     * Gets the count of items in a table.
+     * Gets the count of items in a table in the configured {@link #getCountMode() count mode}.
+     *
+     * @return The count, or -1 if counting failed
      */
     public long getTableItemCount(String tableName) {
+        return getTableItemCount(tableName, getCountMode());
+    }
+
+    /**
+     * Gets the count of items in a table.
+     *
+     * @return The count, or -1 if counting failed
+     */
+    public long getTableItemCount(String tableName, CountMode mode) {
+        if (mode == CountMode.FAST) {
+            TableDescription description = describeTable(tableName);
+            return description != null && description.itemCount() != null ? description.itemCount() : -1;
+        }
         try {
-            ScanRequest scanRequest = ScanRequest.builder()
-                .tableName(tableName)
-                .select(Select.COUNT)
-                .build();
-            
-            ScanResponse response = getClient().scan(scanRequest);
-            return response.count();
+            return runSegmentedScan(tableName, null);
         } catch (Exception e) {
             logger.error("Failed to get item count for table {}: {}", tableName, e.getMessage());
-            return 0;
+            return -1;
         }
     }
 
     /**
-     * Scans a table and returns all items.
+     * Gets the count mode configured by {@code countMode}: {@code fast}, or {@code exact} by default.
+     */
+    public CountMode getCountMode() {
+        ConfigurationManager.DynamoDBConfig dbConfig = getDynamoDBConfig();
+        return dbConfig != null && "fast".equalsIgnoreCase(dbConfig.getCountMode()) ? CountMode.FAST : CountMode.EXACT;
+    }
+
+    /**
+     * Scans a table and returns all items. The whole table is held in memory; use
+     * {@link #scanTable(String, Consumer)} for large tables.
      */
     public List<Map<String, AttributeValue>> scanTable(String tableName) {
-        List<Map<String, AttributeValue>> items = new ArrayList<>();
+        ConcurrentLinkedQueue<Map<String, AttributeValue>> items = new ConcurrentLinkedQueue<>();
         try {
-            ScanRequest scanRequest = ScanRequest.builder()
-                .tableName(tableName)
-                .build();
-            
-            ScanResponse response = getClient().scan(scanRequest);
-            items.addAll(response.items());
-            
-            // Handle pagination
-            while (response.lastEvaluatedKey() != null && !response.lastEvaluatedKey().isEmpty()) {
-                scanRequest = ScanRequest.builder()
-                    .tableName(tableName)
-                    .exclusiveStartKey(response.lastEvaluatedKey())
-                    .build();
-                response = getClient().scan(scanRequest);
-                items.addAll(response.items());
-            }
+            scanTable(tableName, items::add);
         } catch (Exception e) {
             logger.error("Failed to scan table {}: {}", tableName, e.getMessage());
         }
+        return new ArrayList<>(items);
+    }
+
+    /**
+     * Scans a table in {@link #getScanSegments(String)} segments, up to {@code scanThreads} at once,
+     * and passes every item to {@code consumer} as its page arrives. Items are not held beyond their
+     * page and arrive in no particular order.
+     *
+     * <p>With more than one segment, {@code consumer} is called from several threads at once and must
+     * be thread-safe. The scan ends at the first failing page or consumer call, or when the deadline
+     * bound to the calling thread passes, and rethrows that failure after the other segments stop.</p>
+     *
+     * @return Number of items scanned
+     * @throws DeadlineExceededException If the deadline bound to the calling thread passes
+     */
+    public long scanTable(String tableName, Consumer<Map<String, AttributeValue>> consumer) {
+        return runSegmentedScan(tableName, page -> page.forEach(consumer));
+    }
+
+    /**
+     * Streams the items of a table, scanning it in segments like {@link #scanTable(String, Consumer)}
+     * on a background thread that stays up to {@code scanPrefetchPages} pages ahead of the reader.
+     * Pages are released as they are read, so heap use depends on the prefetch depth and segment
+     * count but not on the table size, and the reader processes items while later pages load.
+     *
+     * <p>The stream runs the scan until it is closed or fully read, so use it in a
+     * try-with-resources block. A failed page surfaces when the reader reaches it, with the
+     * exception of the scan. The deadline bound to the calling thread applies to the scan.</p>
+     */
+    public Stream<Map<String, AttributeValue>> streamTable(String tableName) {
+        getClient();  // created on the calling thread, before the producer needs it
+        ConfigurationManager.DynamoDBConfig dbConfig = getDynamoDBConfig();
+        BlockingQueue<ScanPage> pages = new ArrayBlockingQueue<>(dbConfig.getScanPrefetchPages());
+        Thread producer = new Thread(Deadline.propagate(() -> {
+            ScanPage last = ScanPage.END;
+            try {
+                runSegmentedScan(tableName, page -> {
+                    try {
+                        pages.put(new ScanPage(page, null));
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new CancellationException("Stream of DynamoDB table " + tableName + " closed");
+                    }
+                });
+            } catch (RuntimeException e) {
+                last = new ScanPage(null, e);
+            } catch (Error e) {
+                last = new ScanPage(null, new IllegalStateException("Scan of DynamoDB table " + tableName + " failed", e));
+                throw e;
+            } finally {
+                try {
+                    pages.put(last);
+                } catch (InterruptedException e) {
+                    // closed by the reader, nobody waits for the end
+                }
+            }
+        }), "dynamodb-stream-" + SCAN_POOL_COUNTER.incrementAndGet());
+        producer.setDaemon(true);
+        producer.start();
+
+        Runnable release = () -> {
+            producer.interrupt();
+            pages.clear();
+        };
+        Iterator<Map<String, AttributeValue>> items = new Iterator<Map<String, AttributeValue>>() {
+            private Iterator<Map<String, AttributeValue>> page = Collections.emptyIterator();
+            private boolean done;
+
+            @Override
+            public boolean hasNext() {
+                while (!page.hasNext() && !done) {
+                    ScanPage next;
+                    try {
+                        next = pages.take();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        release.run();
+                        throw new IllegalStateException("Interrupted while streaming DynamoDB table " + tableName, e);
+                    }
+                    if (next.failure != null) {
+                        done = true;
+                        throw next.failure;
+                    }
+                    if (next == ScanPage.END) {
+                        done = true;
+                    } else {
+                        page = next.items.iterator();
+                    }
+                }
+                return page.hasNext();
+            }
+
+            @Override
+            public Map<String, AttributeValue> next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return page.next();
+            }
+        };
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(items, Spliterator.NONNULL), false)
+            .onClose(release);
+    }
+
+    /**
+     * Runs the segments of a scan concurrently, passing each page of items to {@code pages}, or only
+     * counting them with {@code Select.COUNT} if it is null.
+     */
+    private long runSegmentedScan(String tableName, Consumer<List<Map<String, AttributeValue>>> pages) {
+        int segments = getScanSegments(tableName);
+        AtomicBoolean stopped = new AtomicBoolean();
+        if (segments == 1) {
+            return scanSegment(tableName, 0, 1, pages, stopped);
+        }
+
+        getClient();  // created here, as the lazy creation is not thread-safe
+        int threads = Math.min(segments, getDynamoDBConfig().getScanThreads());
+        logger.info("{} DynamoDB table {} in {} segments on {} threads", pages == null ? "Counting" : "Scanning",
+            tableName, segments, threads);
+        String poolName = "dynamodb-scan-" + SCAN_POOL_COUNTER.incrementAndGet();
+        AtomicInteger threadCounter = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(threads, r -> {
+            Thread thread = new Thread(r, poolName + "-" + threadCounter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        Deadline deadline = Deadline.current();
+        try {
+            List<Future<Long>> futures = new ArrayList<>();
+            for (int segment = 0; segment < segments; segment++) {
+                int current = segment;
+                futures.add(pool.submit(() -> {
+                    try (Deadline.Scope ignored = deadline.bind()) {
+                        return scanSegment(tableName, current, segments, pages, stopped);
+                    }
+                }));
+            }
+            long items = 0;
+            for (Future<Long> future : futures) {
+                items += future.get();
+            }
+            logger.debug("Scanned {} items of DynamoDB table {}", items, tableName);
+            return items;
+        } catch (ExecutionException e) {
+            stopped.set(true);
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IllegalStateException("Scan of DynamoDB table " + tableName + " failed", cause);
+        } catch (InterruptedException e) {
+            stopped.set(true);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while scanning DynamoDB table " + tableName, e);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * Scans one segment page by page until it ends or {@code stopped} is set by a failing segment.
+     *
+     * @param pages Receives the items page by page, or null to count them without reading any attributes
+     */
+    private long scanSegment(String tableName, int segment, int totalSegments,
+                             Consumer<List<Map<String, AttributeValue>>> pages, AtomicBoolean stopped) {
+        long items = 0;
+        Map<String, AttributeValue> startKey = null;
+        try {
+            do {
+                Deadline.current().check("scan of DynamoDB table " + tableName);
+                ScanRequest.Builder request = ScanRequest.builder()
+                    .tableName(tableName)
+                    .overrideConfiguration(AwsCallTimeouts.forCurrentDeadline());
+                if (totalSegments > 1) {
+                    request.segment(segment).totalSegments(totalSegments);
+                }
+                if (pages == null) {
+                    request.select(Select.COUNT);
+                }
+                if (startKey != null) {
+                    request.exclusiveStartKey(startKey);
+                }
+                ScanResponse response = getClient().scan(request.build());
+                if (pages != null) {
+                    pages.accept(response.items());
+                }
+                items += response.count();
+                startKey = response.hasLastEvaluatedKey() ? response.lastEvaluatedKey() : null;
+            } while (startKey != null && !startKey.isEmpty() && !stopped.get());
+        } catch (RuntimeException e) {
+            stopped.set(true);
+            throw e;
+        }
         return items;
     }
 
+    /**
+     * Gets the number of segments a scan of the table is split into: the configured
+     * {@code scanSegments}, or one per 2 GB of the size reported by {@code DescribeTable}, up to
+     * {@code scanThreads}. DynamoDB refreshes the reported size about every six hours.
+     */
+    public int getScanSegments(String tableName) {
+        ConfigurationManager.DynamoDBConfig dbConfig = getDynamoDBConfig();
+        if (dbConfig == null) {
+            throw new IllegalStateException("DynamoDB configuration not found for " + dynamoDBType);
+        }
+        Integer configured = dbConfig.getScanSegments();
+        if (configured != null && configured > 0) {
+            return Math.min(configured, MAX_SCAN_SEGMENTS);
+        }
+        TableDescription description = describeTable(tableName);
+        if (description == null || description.tableSizeBytes() == null) {
+            return 1;
+        }
+        long bySize = (description.tableSizeBytes() + BYTES_PER_SCAN_SEGMENT - 1) / BYTES_PER_SCAN_SEGMENT;
+        return (int) Math.max(1, Math.min(bySize, dbConfig.getScanThreads()));
+    }
+
     /**
      * Gets table description.
      */
@@ -159,6 +411,7 @@ public class DynamoDBConnector implements AutoCloseable {
         try {
             DescribeTableRequest request = DescribeTableRequest.builder()
                 .tableName(tableName)
+                .overrideConfiguration(AwsCallTimeouts.forCurrentDeadline())
                 .build();
             
             DescribeTableResponse response = getClient().describeTable(request);
@@ -185,6 +438,21 @@ public class DynamoDBConnector implements AutoCloseable {
         return dbConfig != null ? dbConfig.getRegion() : null;
     }
 
+    /**
+     * Page of a streamed scan, or its end or failure.
+     */
+    private static final class ScanPage {
+        static final ScanPage END = new ScanPage(Collections.emptyList(), null);
+
+        final List<Map<String, AttributeValue>> items;
+        final RuntimeException failure;
+
+        ScanPage(List<Map<String, AttributeValue>> items, RuntimeException failure) {
+            this.items = items;
+            this.failure = failure;
+        }
+    }
+
     @Override
     public void close() {
         if (client != null) {
@@ -0,0 +1,122 @@
+package com.datamigration.framework.connector;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A range of composite key values, {@code (lower, upper]}.
+ * A null bound leaves that side of the range open.
+ */
+public class KeyRange {
+
+    public static final KeyRange ALL = new KeyRange(null, null);
+
+    private final Object[] lowerExclusive;
+    private final Object[] upperInclusive;
+
+    public KeyRange(Object[] lowerExclusive, Object[] upperInclusive) {
+        this.lowerExclusive = lowerExclusive;
+        this.upperInclusive = upperInclusive;
+    }
+
+    public Object[] getLowerExclusive() {
+        return lowerExclusive;
+    }
+
+    public Object[] getUpperInclusive() {
+        return upperInclusive;
+    }
+
+    public boolean isUnbounded() {
+        return lowerExclusive == null && upperInclusive == null;
+    }
+
+    /**
+     * Returns the part of this range that lies after the given key.
+     */
+    public KeyRange after(Object[] key) {
+        return new KeyRange(key, upperInclusive);
+    }
+
+    /**
+     * Renders the range as a SQL predicate over the given (already quoted) key columns,
+     * or returns null if the range is unbounded. Parameters are bound by {@link #bind}.
+     * For keys (k1, k2) the lower bound becomes {@code k1 >= ? AND (k1 > ? OR (k1 = ? AND k2 > ?))};
+     * the redundant leading term lets the first key column drive an index seek.
+     */
+    public String toSql(List<String> quotedKeyColumns) {
+        if (isUnbounded()) {
+            return null;
+        }
+        StringBuilder sql = new StringBuilder();
+        if (lowerExclusive != null) {
+            appendBound(sql, quotedKeyColumns, ">");
+        }
+        if (upperInclusive != null) {
+            if (sql.length() > 0) {
+                sql.append(" AND ");
+            }
+            appendBound(sql, quotedKeyColumns, "<");
+        }
+        return sql.toString();
+    }
+
+    private static void appendBound(StringBuilder sql, List<String> columns, String op) {
+        boolean inclusiveLast = "<".equals(op);
+        if (columns.size() == 1) {
+            sql.append(columns.get(0)).append(' ').append(op).append(inclusiveLast ? "= ?" : " ?");
+            return;
+        }
+        sql.append(columns.get(0)).append(' ').append(op).append("= ? AND (");
+        for (int i = 0; i < columns.size(); i++) {
+            if (i > 0) {
+                sql.append(" OR ");
+            }
+            sql.append('(');
+            for (int j = 0; j < i; j++) {
+                sql.append(columns.get(j)).append(" = ? AND ");
+            }
+            boolean last = i == columns.size() - 1;
+            sql.append(columns.get(i)).append(' ').append(op).append(last && inclusiveLast ? "= ?" : " ?");
+            sql.append(')');
+        }
+        sql.append(')');
+    }
+
+    /**
+     * Binds the parameters of {@link #toSql} starting at {@code index}.
+     *
+     * @return The next free parameter index
+     */
+    public int bind(PreparedStatement statement, int index) throws SQLException {
+        if (lowerExclusive != null) {
+            index = bindBound(statement, index, lowerExclusive);
+        }
+        if (upperInclusive != null) {
+            index = bindBound(statement, index, upperInclusive);
+        }
+        return index;
+    }
+
+    private static int bindBound(PreparedStatement statement, int index, Object[] key) throws SQLException {
+        if (key.length == 1) {
+            statement.setObject(index++, key[0]);
+            return index;
+        }
+        statement.setObject(index++, key[0]);
+        for (int i = 0; i < key.length; i++) {
+            for (int j = 0; j <= i; j++) {
+                statement.setObject(index++, key[j]);
+            }
+        }
+        return index;
+    }
+
+    @Override
+    public String toString() {
+        return "(" + (lowerExclusive != null ? Arrays.toString(lowerExclusive) : "-inf")
+            + ", " + (upperInclusive != null ? Arrays.toString(upperInclusive) : "+inf") + "]";
+    }
+}
@@ -0,0 +1,250 @@
+package com.datamigration.framework.connector;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Forward-only cursor that streams a table ordered by its key columns.
+ * Rows are read in pages using keyset pagination ({@code WHERE key > last ORDER BY key}),
+ * so only the current row is held in memory and no page depends on an OFFSET scan.
+ *
+ * <p>Key columns are read as objects. Value columns are encoded with a {@link RowEncoder}
+ * into a reused buffer and hashed, so reading a row does not box its values; they are
+ * decoded only when {@link #getValues()} is called.</p>
+ *
+ * <p>Pages run through {@link DatabaseConnector#executePage}, so each page checks the current
+ * {@link Deadline}, a page still being read when it passes is cancelled, and each page query
+ * takes its own slot of the adaptive concurrency limiter rather than the whole scan holding one.
+ * A cursor given a cancellation flag with {@link #stopWhen(AtomicBoolean)} also checks it before each page.</p>
+ */
+public class KeysetCursor implements AutoCloseable {
+    private static final Logger logger = LoggerFactory.getLogger(KeysetCursor.class);
+
+    private final DatabaseConnector connector;
+    private final String tableName;
+    private final List<String> keyColumns;
+    private final List<String> columns;
+    private final KeyRange range;
+    private final int pageSize;
+
+    private Connection connection;
+    private PreparedStatement statement;
+    private Deadline.Scope cancellation;
+    private ResultSet resultSet;
+    private int rowsInPage;
+    private boolean exhausted;
+    private RowEncoder encoder;
+    private Object[] key;
+    private long rowsRead;
+    private AtomicBoolean cancelled;
+
+    /**
+     * Creates a cursor over the given columns of a table.
+     *
+     * @param connector Connector to read from
+     * @param tableName Table to read
+     * @param keyColumns Key columns defining the order, most significant first
+     * @param valueColumns Non-key columns to read
+     * @param pageSize Rows per keyset page
+     */
+    public KeysetCursor(DatabaseConnector connector, String tableName, List<String> keyColumns,
+                        List<String> valueColumns, int pageSize) {
+        this(connector, tableName, keyColumns, valueColumns, KeyRange.ALL, pageSize);
+    }
+
+    /**
+     * Creates a cursor over the rows of a table whose keys fall in the given range.
+     *
+     * @param connector Connector to read from
+     * @param tableName Table to read
+     * @param keyColumns Key columns defining the order, most significant first
+     * @param valueColumns Non-key columns to read
+     * @param range Key range to read
+     * @param pageSize Rows per keyset page
+     */
+    public KeysetCursor(DatabaseConnector connector, String tableName, List<String> keyColumns,
+                        List<String> valueColumns, KeyRange range, int pageSize) {
+        if (keyColumns == null || keyColumns.isEmpty()) {
+            throw new IllegalArgumentException("Keyset cursor on " + tableName + " requires at least one key column");
+        }
+        this.connector = connector;
+        this.tableName = tableName;
+        this.keyColumns = new ArrayList<>(keyColumns);
+        this.columns = new ArrayList<>(keyColumns);
+        this.columns.addAll(valueColumns);
+        this.range = range;
+        this.pageSize = pageSize;
+    }
+
+    /**
+     * Makes the cursor throw a {@link CancellationException} instead of reading a further page once
+     * {@code cancelled} is set, for example by another scan of the same diff that failed.
+     *
+     * @return This cursor
+     */
+    public KeysetCursor stopWhen(AtomicBoolean cancelled) {
+        this.cancelled = cancelled;
+        return this;
+    }
+
+    /**
+     * Advances to the next row.
+     *
+     * @return false when the table has been fully read
+     */
+    public boolean next() throws SQLException {
+        while (!exhausted) {
+            if (resultSet == null) {
+                openPage();
+            }
+            if (resultSet.next()) {
+                readRow();
+                rowsInPage++;
+                rowsRead++;
+                return true;
+            }
+            boolean lastPage = rowsInPage < pageSize;
+            closePage();
+            if (lastPage) {
+                exhausted = true;
+            }
+        }
+        return false;
+    }
+
+    private void openPage() throws SQLException {
+        if (cancelled != null && cancelled.get()) {
+            throw new CancellationException("Scan of " + tableName + " cancelled after " + rowsRead + " rows");
+        }
+        if (connection == null) {
+            connection = connector.getCursorConnection();
+        }
+        KeyRange pageRange = key != null ? range.after(key) : range;
+        String sql = buildPageQuery(pageRange);
+        statement = connection.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+        statement.setFetchSize(Math.min(pageSize, connector.getFetchSize()));
+        pageRange.bind(statement, 1);
+        logger.debug("Reading page of {} after {} rows", tableName, rowsRead);
+        cancellation = DatabaseConnector.cancelOnDeadline(statement);
+        resultSet = connector.executePage(statement);
+        rowsInPage = 0;
+        if (encoder == null) {
+            encoder = new RowEncoder(resultSet.getMetaData(), keyColumns.size() + 1);
+        }
+    }
+
+    private void readRow() throws SQLException {
+        Object[] rowKey = new Object[keyColumns.size()];
+        for (int i = 0; i < rowKey.length; i++) {
+            rowKey[i] = resultSet.getObject(i + 1);
+        }
+        encoder.encode(resultSet);
+        key = rowKey;
+    }
+
+    /**
+     * Builds the query for one page of rows within the given key range, limited to the
+     * page size with the dialect's row-limit clause so the database can stop early.
+     */
+    String buildPageQuery(KeyRange pageRange) {
+        List<String> quotedKeys = new ArrayList<>();
+        for (String keyColumn : keyColumns) {
+            quotedKeys.add(connector.quoteIdentifier(keyColumn));
+        }
+        StringBuilder sql = new StringBuilder("SELECT ");
+        for (int i = 0; i < columns.size(); i++) {
+            if (i > 0) {
+                sql.append(", ");
+            }
+            sql.append(connector.quoteIdentifier(columns.get(i)));
+        }
+        sql.append(" FROM ").append(connector.quoteTableName(tableName));
+        String predicate = pageRange.toSql(quotedKeys);
+        if (predicate != null) {
+            sql.append(" WHERE ").append(predicate);
+        }
+        sql.append(" ORDER BY ").append(String.join(", ", quotedKeys));
+        sql.append(' ').append(connector.getDialect().limitClause(pageSize));
+        return sql.toString();
+    }
+
+    private void closePage() {
+        closeQuietly(cancellation);
+        closeQuietly(resultSet);
+        closeQuietly(statement);
+        cancellation = null;
+        resultSet = null;
+        statement = null;
+    }
+
+    /**
+     * Gets the key values of the current row.
+     */
+    public Object[] getKey() {
+        return key;
+    }
+
+    /**
+     * Gets all values of the current row: the key columns followed by the value columns,
+     * decoded from their canonical encoding. Allocates; meant for reporting differences.
+     */
+    public Object[] getValues() {
+        Object[] row = new Object[columns.size()];
+        System.arraycopy(key, 0, row, 0, key.length);
+        for (int i = 0; i < encoder.getColumnCount(); i++) {
+            row[key.length + i] = encoder.decode(i);
+        }
+        return row;
+    }
+
+    /**
+     * Gets the encoder holding the value columns of the current row and their hash.
+     * Its contents change with every call to {@link #next()}.
+     */
+    public RowEncoder getEncodedValues() {
+        return encoder;
+    }
+
+    /**
+     * Gets the selected column names in the order of {@link #getValues()}.
+     */
+    public List<String> getColumns() {
+        return columns;
+    }
+
+    public long getRowsRead() {
+        return rowsRead;
+    }
+
+    public String getTableName() {
+        return tableName;
+    }
+
+    @Override
+    public void close() {
+        closePage();
+        closeQuietly(connection);
+        connection = null;
+        exhausted = true;
+    }
+
+    private static void closeQuietly(AutoCloseable resource) {
+        if (resource == null) {
+            return;
+        }
+        try {
+            resource.close();
+        } catch (Exception e) {
+            logger.debug("Error closing cursor resource: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package com.datamigration.framework.connector;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.ResultSet;
+
+/**
+ * Wraps a ResultSet so that closing it also closes the statement and returns
+ * the pooled connection it was read from.
+ */
+final class ManagedResultSet {
+    private static final Logger logger = LoggerFactory.getLogger(ManagedResultSet.class);
+
+    private ManagedResultSet() {
+    }
+
+    /**
+     * Returns a ResultSet that closes the given resources, in order, after itself.
+     */
+    static ResultSet wrap(ResultSet resultSet, AutoCloseable... resources) {
+        return (ResultSet) Proxy.newProxyInstance(
+            ManagedResultSet.class.getClassLoader(),
+            new Class<?>[]{ResultSet.class},
+            (proxy, method, args) -> {
+                if ("close".equals(method.getName())) {
+                    try {
+                        resultSet.close();
+                    } finally {
+                        closeAll(resources);
+                    }
+                    return null;
+                }
+                try {
+                    return method.invoke(resultSet, args);
+                } catch (InvocationTargetException e) {
+                    throw e.getCause();
+                }
+            });
+    }
+
+    private static void closeAll(AutoCloseable... resources) {
+        for (AutoCloseable resource : resources) {
+            if (resource == null) {
+                continue;
+            }
+            try {
+                resource.close();
+            } catch (Exception e) {
+                logger.debug("Error closing JDBC resource: {}", e.getMessage());
+            }
+        }
+    }
+}
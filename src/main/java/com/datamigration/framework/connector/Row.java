@@ -0,0 +1,104 @@
+package com.datamigration.framework.connector;
+
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * One row of a streamed query result.
+ * Rows of the same result share their column metadata.
+ */
+public class Row {
+    private final Columns columns;
+    private final Object[] values;
+
+    private Row(Columns columns, Object[] values) {
+        this.columns = columns;
+        this.values = values;
+    }
+
+    /**
+     * Reads the current row of a ResultSet.
+     */
+    static Row read(ResultSet rs, Columns columns) throws SQLException {
+        Object[] values = new Object[columns.names.size()];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = rs.getObject(i + 1);
+        }
+        return new Row(columns, values);
+    }
+
+    /**
+     * Gets a value by zero-based column index.
+     */
+    public Object get(int index) {
+        return values[index];
+    }
+
+    /**
+     * Gets a value by column label, ignoring case.
+     *
+     * @throws IllegalArgumentException If the result has no such column
+     */
+    public Object get(String column) {
+        Integer index = columns.indexes.get(column.toLowerCase());
+        if (index == null) {
+            throw new IllegalArgumentException("No column " + column + " in " + columns.names);
+        }
+        return values[index];
+    }
+
+    public int getColumnCount() {
+        return values.length;
+    }
+
+    public List<String> getColumnNames() {
+        return columns.names;
+    }
+
+    /**
+     * Copies the row into a map of column label to value, in column order.
+     */
+    public Map<String, Object> toMap() {
+        Map<String, Object> map = new LinkedHashMap<>();
+        for (int i = 0; i < values.length; i++) {
+            map.put(columns.names.get(i), values[i]);
+        }
+        return map;
+    }
+
+    @Override
+    public String toString() {
+        return toMap().toString();
+    }
+
+    /**
+     * Column labels of a result, shared by all its rows.
+     */
+    static final class Columns {
+        private final List<String> names;
+        private final Map<String, Integer> indexes;
+
+        private Columns(List<String> names) {
+            this.names = Collections.unmodifiableList(names);
+            this.indexes = new HashMap<>();
+            for (int i = 0; i < names.size(); i++) {
+                indexes.putIfAbsent(names.get(i).toLowerCase(), i);
+            }
+        }
+
+        static Columns of(ResultSetMetaData metaData) throws SQLException {
+            List<String> names = new ArrayList<>();
+            for (int i = 1; i <= metaData.getColumnCount(); i++) {
+                names.add(metaData.getColumnLabel(i));
+            }
+            return new Columns(names);
+        }
+    }
+}
@@ -0,0 +1,612 @@
+package com.datamigration.framework.connector;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Encodes columns of the current {@link ResultSet} row into a reusable byte buffer in a
+ * canonical, driver-independent form, and hashes the encoding with 128-bit {@link Murmur3}.
+ *
+ * <p>Integer, floating-point and boolean columns, and whole-number decimal columns of up to 18
+ * digits, are read with primitive getters and cost no boxing. JDBC has no primitive getter for
+ * other decimals, dates and times, so those columns read one object per non-null value. The encoding depends on the value, not on the driver's Java type: all integers and
+ * decimals with equal numeric value encode the same regardless of column type or scale,
+ * {@code bit} and {@code boolean} encode the same, {@code datetimeoffset} and
+ * {@code timestamptz} encode the instant, and strings encode as UTF-8. Floating-point
+ * values encode as integers when they are whole, otherwise as IEEE bits, so a decimal
+ * fraction does not equal the nearest {@code double}.</p>
+ */
+public final class RowEncoder {
+    /** {@code microsoft.sql.Types.DATETIMEOFFSET}, reported by the SQL Server driver. */
+    private static final int SQL_SERVER_DATETIMEOFFSET = -155;
+    /** Most decimal digits a whole number can have and still fit a {@code long}. */
+    private static final int MAX_LONG_DIGITS = 18;
+
+    private static final byte NULL = 0;
+    private static final byte INTEGER = 'L';
+    private static final byte DECIMAL = 'D';
+    private static final byte FLOATING = 'F';
+    private static final byte BOOLEAN = 'B';
+    private static final byte STRING = 'S';
+    private static final byte BINARY = 'X';
+    private static final byte DATE = 'd';
+    private static final byte TIME = 't';
+    private static final byte TIMESTAMP = 'T';
+    private static final byte INSTANT = 'Z';
+
+    /**
+     * Kind of an encoded value, for comparisons that read encoded values without decoding them.
+     */
+    public enum Kind { NULL, INTEGER, DECIMAL, FLOATING, BOOLEAN, STRING, BINARY, DATE, TIME, TIMESTAMP, INSTANT }
+
+    private enum Reader { INTEGER, DECIMAL, FLOATING, BOOLEAN, STRING, BINARY, DATE, TIME, TIMESTAMP, INSTANT }
+
+    private final int firstColumn;
+    private final Reader[] readers;
+    private final int[] offsets;
+    private final long[] hash = new long[2];
+    private byte[] buffer = new byte[256];
+    private int length;
+    private boolean foldText;
+
+    /**
+     * @param metaData Metadata of the result set to encode
+     * @param firstColumn JDBC index of the first column to encode; all following columns are encoded too
+     */
+    public RowEncoder(ResultSetMetaData metaData, int firstColumn) throws SQLException {
+        this(metaData, firstColumn, metaData.getColumnCount());
+    }
+
+    /**
+     * @param metaData Metadata of the result set to encode
+     * @param firstColumn JDBC index of the first column to encode
+     * @param lastColumn JDBC index of the last column to encode
+     */
+    public RowEncoder(ResultSetMetaData metaData, int firstColumn, int lastColumn) throws SQLException {
+        this.firstColumn = firstColumn;
+        int count = Math.max(0, lastColumn - firstColumn + 1);
+        this.readers = new Reader[count];
+        for (int i = 0; i < count; i++) {
+            readers[i] = readerFor(metaData, firstColumn + i);
+        }
+        this.offsets = new int[count + 1];
+    }
+
+    private static Reader readerFor(ResultSetMetaData metaData, int column) throws SQLException {
+        int sqlType = metaData.getColumnType(column);
+        switch (sqlType) {
+            case Types.TINYINT:
+            case Types.SMALLINT:
+            case Types.INTEGER:
+            case Types.BIGINT:
+                return Reader.INTEGER;
+            case Types.DECIMAL:
+            case Types.NUMERIC: {
+                // Unconstrained NUMERIC reports precision 0 and may hold fractions, so it is read as BigDecimal
+                int precision = metaData.getPrecision(column);
+                return metaData.getScale(column) == 0 && precision > 0 && precision <= MAX_LONG_DIGITS ?
+                    Reader.INTEGER : Reader.DECIMAL;
+            }
+            case Types.REAL:
+            case Types.FLOAT:
+            case Types.DOUBLE:
+                return Reader.FLOATING;
+            case Types.BIT:
+            case Types.BOOLEAN:
+                return Reader.BOOLEAN;
+            case Types.BINARY:
+            case Types.VARBINARY:
+            case Types.LONGVARBINARY:
+            case Types.BLOB:
+                return Reader.BINARY;
+            case Types.DATE:
+                return Reader.DATE;
+            case Types.TIME:
+                return Reader.TIME;
+            case Types.TIMESTAMP:
+                return Reader.TIMESTAMP;
+            case Types.TIMESTAMP_WITH_TIMEZONE:
+            case SQL_SERVER_DATETIMEOFFSET:
+                return Reader.INSTANT;
+            default:
+                return Reader.STRING;
+        }
+    }
+
+    /**
+     * Makes strings encode without trailing spaces and with ASCII letters in lower case, so that
+     * keys equal under a padded, case-insensitive comparison, such as GUIDs and keys of a
+     * case-insensitive collation, encode alike.
+     *
+     * @return This encoder
+     */
+    public RowEncoder foldText() {
+        this.foldText = true;
+        return this;
+    }
+
+    /**
+     * Encodes the current row of {@code rs} and computes its hash.
+     */
+    public void encode(ResultSet rs) throws SQLException {
+        length = 0;
+        for (int i = 0; i < readers.length; i++) {
+            offsets[i] = length;
+            encodeColumn(rs, firstColumn + i, readers[i]);
+        }
+        offsets[readers.length] = length;
+        Murmur3.hash128(buffer, 0, length, 0, hash);
+    }
+
+    private void encodeColumn(ResultSet rs, int column, Reader reader) throws SQLException {
+        switch (reader) {
+            case INTEGER: {
+                long value = rs.getLong(column);
+                if (rs.wasNull()) {
+                    putNull();
+                } else {
+                    putTag(INTEGER);
+                    putLong(value);
+                }
+                break;
+            }
+            case DECIMAL:
+                putDecimal(rs.getBigDecimal(column));
+                break;
+            case FLOATING: {
+                double value = rs.getDouble(column);
+                if (rs.wasNull()) {
+                    putNull();
+                } else if (value == Math.rint(value) && Math.abs(value) < 0x1p63) {
+                    putTag(INTEGER);
+                    putLong((long) value);
+                } else {
+                    putTag(FLOATING);
+                    putLong(Double.doubleToLongBits(value));
+                }
+                break;
+            }
+            case BOOLEAN: {
+                boolean value = rs.getBoolean(column);
+                if (rs.wasNull()) {
+                    putNull();
+                } else {
+                    putTag(BOOLEAN);
+                    ensureCapacity(1);
+                    buffer[length++] = (byte) (value ? 1 : 0);
+                }
+                break;
+            }
+            case BINARY: {
+                byte[] value = rs.getBytes(column);
+                if (value == null) {
+                    putNull();
+                } else {
+                    putTag(BINARY);
+                    putInt(value.length);
+                    ensureCapacity(value.length);
+                    System.arraycopy(value, 0, buffer, length, value.length);
+                    length += value.length;
+                }
+                break;
+            }
+            case DATE: {
+                LocalDate value = rs.getObject(column, LocalDate.class);
+                if (value == null) {
+                    putNull();
+                } else {
+                    putTag(DATE);
+                    putLong(value.toEpochDay());
+                }
+                break;
+            }
+            case TIME: {
+                LocalTime value = rs.getObject(column, LocalTime.class);
+                if (value == null) {
+                    putNull();
+                } else {
+                    putTag(TIME);
+                    putLong(value.toNanoOfDay());
+                }
+                break;
+            }
+            case TIMESTAMP: {
+                LocalDateTime value = rs.getObject(column, LocalDateTime.class);
+                if (value == null) {
+                    putNull();
+                } else {
+                    putTag(TIMESTAMP);
+                    putLong(value.toEpochSecond(ZoneOffset.UTC));
+                    putInt(value.getNano());
+                }
+                break;
+            }
+            case INSTANT: {
+                OffsetDateTime value = rs.getObject(column, OffsetDateTime.class);
+                if (value == null) {
+                    putNull();
+                } else {
+                    putTag(INSTANT);
+                    putLong(value.toEpochSecond());
+                    putInt(value.getNano());
+                }
+                break;
+            }
+            default:
+                putString(rs.getString(column));
+                break;
+        }
+    }
+
+    /**
+     * Encodes a decimal by value: trailing zeros are dropped, and whole values that fit a
+     * {@code long} use the integer encoding.
+     */
+    private void putDecimal(BigDecimal value) {
+        if (value == null) {
+            putNull();
+            return;
+        }
+        if (value.signum() == 0) {
+            putTag(INTEGER);
+            putLong(0);
+            return;
+        }
+        BigDecimal normalized = value.stripTrailingZeros();
+        if (normalized.scale() <= 0 && normalized.precision() - normalized.scale() <= 18) {
+            putTag(INTEGER);
+            putLong(normalized.longValueExact());
+            return;
+        }
+        byte[] unscaled = normalized.unscaledValue().toByteArray();
+        putTag(DECIMAL);
+        putInt(normalized.scale());
+        putInt(unscaled.length);
+        ensureCapacity(unscaled.length);
+        System.arraycopy(unscaled, 0, buffer, length, unscaled.length);
+        length += unscaled.length;
+    }
+
+    /**
+     * Writes a string as length-prefixed UTF-8 without an intermediate byte array.
+     */
+    private void putString(String value) {
+        if (value == null) {
+            putNull();
+            return;
+        }
+        putTag(STRING);
+        int lengthOffset = length;
+        putInt(0);
+        int end = value.length();
+        if (foldText) {
+            while (end > 0 && value.charAt(end - 1) == ' ') {
+                end--;
+            }
+        }
+        ensureCapacity(end * 3);
+        int start = length;
+        for (int i = 0; i < end; i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                buffer[length++] = foldText && c >= 'A' && c <= 'Z' ? (byte) (c + ('a' - 'A')) : (byte) c;
+            } else if (c < 0x800) {
+                buffer[length++] = (byte) (0xc0 | (c >> 6));
+                buffer[length++] = (byte) (0x80 | (c & 0x3f));
+            } else if (Character.isHighSurrogate(c) && i + 1 < end
+                    && Character.isLowSurrogate(value.charAt(i + 1))) {
+                int codePoint = Character.toCodePoint(c, value.charAt(++i));
+                buffer[length++] = (byte) (0xf0 | (codePoint >> 18));
+                buffer[length++] = (byte) (0x80 | ((codePoint >> 12) & 0x3f));
+                buffer[length++] = (byte) (0x80 | ((codePoint >> 6) & 0x3f));
+                buffer[length++] = (byte) (0x80 | (codePoint & 0x3f));
+            } else {
+                buffer[length++] = (byte) (0xe0 | (c >> 12));
+                buffer[length++] = (byte) (0x80 | ((c >> 6) & 0x3f));
+                buffer[length++] = (byte) (0x80 | (c & 0x3f));
+            }
+        }
+        writeInt(lengthOffset, length - start);
+    }
+
+    private void putNull() {
+        putTag(NULL);
+    }
+
+    private void putTag(byte tag) {
+        ensureCapacity(1);
+        buffer[length++] = tag;
+    }
+
+    private void putLong(long value) {
+        ensureCapacity(8);
+        for (int i = 0; i < 8; i++) {
+            buffer[length++] = (byte) (value >>> (i << 3));
+        }
+    }
+
+    private void putInt(int value) {
+        ensureCapacity(4);
+        writeInt(length, value);
+        length += 4;
+    }
+
+    private void writeInt(int offset, int value) {
+        for (int i = 0; i < 4; i++) {
+            buffer[offset + i] = (byte) (value >>> (i << 3));
+        }
+    }
+
+    private void ensureCapacity(int extra) {
+        if (length + extra > buffer.length) {
+            buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, length + extra));
+        }
+    }
+
+    public long getHashHigh() {
+        return hash[0];
+    }
+
+    public long getHashLow() {
+        return hash[1];
+    }
+
+    /**
+     * Checks whether the last encoded rows of both encoders have the same hash.
+     */
+    public boolean hashEquals(RowEncoder other) {
+        return hash[0] == other.hash[0] && hash[1] == other.hash[1];
+    }
+
+    /**
+     * Gets the number of encoded columns.
+     */
+    public int getColumnCount() {
+        return readers.length;
+    }
+
+    /**
+     * Checks whether a column has the same encoding in the last rows of both encoders.
+     *
+     * @param column Zero-based index among the encoded columns
+     */
+    public boolean columnEquals(RowEncoder other, int column) {
+        return Arrays.equals(buffer, offsets[column], offsets[column + 1],
+            other.buffer, other.offsets[column], other.offsets[column + 1]);
+    }
+
+    /**
+     * Gets the kind of value a column has in the last row.
+     *
+     * @param column Zero-based index among the encoded columns
+     */
+    public Kind getKind(int column) {
+        byte tag = buffer[offsets[column]];
+        switch (tag) {
+            case NULL:
+                return Kind.NULL;
+            case INTEGER:
+                return Kind.INTEGER;
+            case DECIMAL:
+                return Kind.DECIMAL;
+            case FLOATING:
+                return Kind.FLOATING;
+            case BOOLEAN:
+                return Kind.BOOLEAN;
+            case STRING:
+                return Kind.STRING;
+            case BINARY:
+                return Kind.BINARY;
+            case DATE:
+                return Kind.DATE;
+            case TIME:
+                return Kind.TIME;
+            case TIMESTAMP:
+                return Kind.TIMESTAMP;
+            case INSTANT:
+                return Kind.INSTANT;
+            default:
+                throw new IllegalStateException("Unknown value tag " + tag);
+        }
+    }
+
+    /**
+     * Reads an {@link Kind#INTEGER} value, the epoch day of a {@link Kind#DATE}, the nano of day of a
+     * {@link Kind#TIME}, or the epoch second of a {@link Kind#TIMESTAMP} or {@link Kind#INSTANT}.
+     */
+    public long getLong(int column) {
+        return readLong(buffer, offsets[column] + 1);
+    }
+
+    /**
+     * Reads the nano of second of a {@link Kind#TIMESTAMP} or {@link Kind#INSTANT}.
+     */
+    public int getNano(int column) {
+        return readInt(buffer, offsets[column] + 9);
+    }
+
+    /**
+     * Reads an {@link Kind#INTEGER} or {@link Kind#FLOATING} value as a double.
+     */
+    public double getDouble(int column) {
+        long value = readLong(buffer, offsets[column] + 1);
+        return buffer[offsets[column]] == FLOATING ? Double.longBitsToDouble(value) : value;
+    }
+
+    /**
+     * Reads a {@link Kind#BOOLEAN} value.
+     */
+    public boolean getBoolean(int column) {
+        return buffer[offsets[column] + 1] != 0;
+    }
+
+    /**
+     * Compares {@link Kind#STRING} values of a column on their UTF-8 bytes, without decoding them.
+     * Values of other kinds compare by their encoding.
+     *
+     * @param ignoreTrailingSpaces Whether trailing spaces are insignificant, as when SQL compares padded strings
+     * @param ignoreAsciiCase Whether ASCII letters compare ignoring case, as for GUIDs
+     */
+    public boolean textEquals(RowEncoder other, int column, boolean ignoreTrailingSpaces, boolean ignoreAsciiCase) {
+        int offset = offsets[column];
+        int otherOffset = other.offsets[column];
+        if (buffer[offset] != STRING || other.buffer[otherOffset] != STRING) {
+            return columnEquals(other, column);
+        }
+        int start = offset + 5;
+        int end = start + readInt(buffer, offset + 1);
+        int otherStart = otherOffset + 5;
+        int otherEnd = otherStart + readInt(other.buffer, otherOffset + 1);
+        if (ignoreTrailingSpaces) {
+            while (end > start && buffer[end - 1] == ' ') {
+                end--;
+            }
+            while (otherEnd > otherStart && other.buffer[otherEnd - 1] == ' ') {
+                otherEnd--;
+            }
+        }
+        if (end - start != otherEnd - otherStart) {
+            return false;
+        }
+        for (int i = 0; i < end - start; i++) {
+            byte left = buffer[start + i];
+            byte right = other.buffer[otherStart + i];
+            if (left != right && !(ignoreAsciiCase && toLowerAscii(left) == toLowerAscii(right))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static byte toLowerAscii(byte value) {
+        return value >= 'A' && value <= 'Z' ? (byte) (value + ('a' - 'A')) : value;
+    }
+
+    /**
+     * Gets the encoded bytes of the last row. The array is reused by the next {@link #encode}.
+     */
+    public byte[] getBuffer() {
+        return buffer;
+    }
+
+    /**
+     * Gets the number of valid bytes in {@link #getBuffer()}.
+     */
+    public int getLength() {
+        return length;
+    }
+
+    /**
+     * Decodes a column of the last row into a value for reports: {@code Long}, {@code BigDecimal},
+     * {@code Double}, {@code Boolean}, {@code String}, {@code byte[]}, {@code LocalDate},
+     * {@code LocalTime}, {@code LocalDateTime} or {@code Instant}.
+     *
+     * @param column Zero-based index among the encoded columns
+     */
+    public Object decode(int column) {
+        return decodeValue(buffer, offsets[column]);
+    }
+
+    /**
+     * Decodes all values of an encoded row, such as a copy of {@link #getBuffer()}.
+     */
+    public static Object[] decodeAll(byte[] data, int offset, int length) {
+        List<Object> values = new ArrayList<>();
+        int end = offset + length;
+        while (offset < end) {
+            values.add(decodeValue(data, offset));
+            offset += encodedSize(data, offset);
+        }
+        return values.toArray();
+    }
+
+    /**
+     * Gets the number of bytes of the encoded value at {@code offset}, including its tag.
+     */
+    private static int encodedSize(byte[] data, int offset) {
+        switch (data[offset]) {
+            case NULL:
+                return 1;
+            case BOOLEAN:
+                return 2;
+            case INTEGER:
+            case FLOATING:
+            case DATE:
+            case TIME:
+                return 9;
+            case TIMESTAMP:
+            case INSTANT:
+                return 13;
+            case DECIMAL:
+                return 9 + readInt(data, offset + 5);
+            case STRING:
+            case BINARY:
+                return 5 + readInt(data, offset + 1);
+            default:
+                throw new IllegalStateException("Unknown value tag " + data[offset]);
+        }
+    }
+
+    private static Object decodeValue(byte[] buffer, int offset) {
+        byte tag = buffer[offset++];
+        switch (tag) {
+            case NULL:
+                return null;
+            case INTEGER:
+                return readLong(buffer, offset);
+            case FLOATING:
+                return Double.longBitsToDouble(readLong(buffer, offset));
+            case BOOLEAN:
+                return buffer[offset] != 0;
+            case DECIMAL: {
+                int scale = readInt(buffer, offset);
+                int size = readInt(buffer, offset + 4);
+                return new BigDecimal(new BigInteger(Arrays.copyOfRange(buffer, offset + 8, offset + 8 + size)), scale);
+            }
+            case STRING:
+                return new String(buffer, offset + 4, readInt(buffer, offset), StandardCharsets.UTF_8);
+            case BINARY:
+                return Arrays.copyOfRange(buffer, offset + 4, offset + 4 + readInt(buffer, offset));
+            case DATE:
+                return LocalDate.ofEpochDay(readLong(buffer, offset));
+            case TIME:
+                return LocalTime.ofNanoOfDay(readLong(buffer, offset));
+            case TIMESTAMP:
+                return LocalDateTime.ofEpochSecond(readLong(buffer, offset), readInt(buffer, offset + 8), ZoneOffset.UTC);
+            case INSTANT:
+                return Instant.ofEpochSecond(readLong(buffer, offset), readInt(buffer, offset + 8));
+            default:
+                throw new IllegalStateException("Unknown value tag " + tag);
+        }
+    }
+
+    private static long readLong(byte[] buffer, int offset) {
+        long value = 0;
+        for (int i = 7; i >= 0; i--) {
+            value = (value << 8) | (buffer[offset + i] & 0xffL);
+        }
+        return value;
+    }
+
+    private static int readInt(byte[] buffer, int offset) {
+        int value = 0;
+        for (int i = 3; i >= 0; i--) {
+            value = (value << 8) | (buffer[offset + i] & 0xff);
+        }
+        return value;
+    }
+}
@@ -0,0 +1,13 @@
+package com.datamigration.framework.connector;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Callback for {@link DatabaseConnector#streamQuery}, invoked once per row.
+ * The ResultSet is positioned on the current row and must not be advanced or closed.
+ */
+@FunctionalInterface
+public interface RowHandler {
+    void handle(ResultSet row) throws SQLException;
+}
@@ -54,7 +54,8 @@ public class S3Connector implements AutoCloseable {
             
             var builder = S3Client.builder()
                 .region(Region.of(s3Config.getRegion()))
-                .credentialsProvider(StaticCredentialsProvider.create(awsCreds));
+                .credentialsProvider(StaticCredentialsProvider.create(awsCreds))
+                .overrideConfiguration(AwsCallTimeouts.clientConfiguration(s3Config.getApiCallTimeout()));
             
             client = builder.build();
             logger.info("S3 client created for {} (region: {}, bucket: {})", 
@@ -101,6 +102,7 @@ public class S3Connector implements AutoCloseable {
             ListObjectsV2Request request = ListObjectsV2Request.builder()
                 .bucket(s3Config.getBucket())
                 .prefix(fullPrefix)
+                .overrideConfiguration(AwsCallTimeouts.forCurrentDeadline())
                 .build();
             
             ListObjectsV2Response response = getClient().listObjectsV2(request);
@@ -112,6 +114,7 @@ public class S3Connector implements AutoCloseable {
                     .bucket(s3Config.getBucket())
                     .prefix(fullPrefix)
                     .continuationToken(response.nextContinuationToken())
+                    .overrideConfiguration(AwsCallTimeouts.forCurrentDeadline())
                     .build();
                 response = getClient().listObjectsV2(request);
                 objects.addAll(response.contents());
@@ -145,6 +148,7 @@ public class S3Connector implements AutoCloseable {
             HeadObjectRequest request = HeadObjectRequest.builder()
                 .bucket(s3Config.getBucket())
                 .key(key)
+                .overrideConfiguration(AwsCallTimeouts.forCurrentDeadline())
                 .build();
             
             getClient().headObject(request);
@@ -166,6 +170,7 @@ public class S3Connector implements AutoCloseable {
             HeadObjectRequest request = HeadObjectRequest.builder()
                 .bucket(s3Config.getBucket())
                 .key(key)
+                .overrideConfiguration(AwsCallTimeouts.forCurrentDeadline())
                 .build();
             
             return getClient().headObject(request);
@@ -0,0 +1,189 @@
+package com.datamigration.framework.connector;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * LRU cache of prepared statements for one physical connection, keyed by SQL text.
+ * Cached statements are handed out as proxies whose {@code close()} resets them and
+ * returns them to the cache, so repeated parameterized queries skip the parse and plan.
+ * A connection is used by one thread at a time, but the cache is synchronized anyway
+ * because the pool evictor may close it concurrently.
+ */
+final class StatementCache {
+    private static final Logger logger = LoggerFactory.getLogger(StatementCache.class);
+
+    private final Connection connection;
+    private final int maxSize;
+    private final AtomicLong hits;
+    private final AtomicLong misses;
+    private final LinkedHashMap<String, CachedStatement> statements;
+
+    /**
+     * @param connection Physical connection the statements are prepared on
+     * @param maxSize Maximum number of cached statements
+     * @param hits Shared hit counter
+     * @param misses Shared miss counter
+     */
+    StatementCache(Connection connection, int maxSize, AtomicLong hits, AtomicLong misses) {
+        this.connection = connection;
+        this.maxSize = maxSize;
+        this.hits = hits;
+        this.misses = misses;
+        this.statements = new LinkedHashMap<String, CachedStatement>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedStatement> eldest) {
+                if (size() <= StatementCache.this.maxSize) {
+                    return false;
+                }
+                eldest.getValue().evict();
+                return true;
+            }
+        };
+    }
+
+    /**
+     * Returns a prepared statement for the SQL, reusing a cached one when it is not already in use.
+     */
+    synchronized PreparedStatement prepare(String sql, int resultSetType, int resultSetConcurrency)
+            throws SQLException {
+        String key = resultSetType + ":" + resultSetConcurrency + ":" + sql;
+        CachedStatement cached = statements.get(key);
+        if (cached != null && !cached.inUse) {
+            hits.incrementAndGet();
+            return cached.checkout();
+        }
+        misses.incrementAndGet();
+        PreparedStatement statement = connection.prepareStatement(sql, resultSetType, resultSetConcurrency);
+        if (cached != null) {
+            // Same SQL is already open on this connection (nested use); hand out an uncached statement
+            return statement;
+        }
+        cached = new CachedStatement(statement);
+        statements.put(key, cached);
+        return cached.checkout();
+    }
+
+    /**
+     * Closes all cached statements.
+     */
+    synchronized void close() {
+        for (CachedStatement cached : statements.values()) {
+            cached.evict();
+        }
+        statements.clear();
+    }
+
+    /**
+     * A cached statement and the driver settings it is restored to when returned.
+     */
+    private final class CachedStatement {
+        private final PreparedStatement statement;
+        private final int maxRows;
+        private final int fetchSize;
+        private final int queryTimeout;
+        private final List<ResultSet> openResults = new ArrayList<>();
+        private boolean inUse;
+        private boolean evicted;
+
+        CachedStatement(PreparedStatement statement) throws SQLException {
+            this.statement = statement;
+            this.maxRows = statement.getMaxRows();
+            this.fetchSize = statement.getFetchSize();
+            this.queryTimeout = statement.getQueryTimeout();
+        }
+
+        PreparedStatement checkout() {
+            inUse = true;
+            return (PreparedStatement) Proxy.newProxyInstance(
+                StatementCache.class.getClassLoader(),
+                new Class<?>[]{PreparedStatement.class},
+                new java.lang.reflect.InvocationHandler() {
+                    private boolean returned;
+
+                    @Override
+                    public Object invoke(Object proxy, java.lang.reflect.Method method, Object[] args)
+                            throws Throwable {
+                        switch (method.getName()) {
+                            case "close":
+                                if (!returned) {
+                                    returned = true;
+                                    checkin();
+                                }
+                                return null;
+                            case "isClosed":
+                                return returned || statement.isClosed();
+                            case "equals":
+                                return proxy == args[0];
+                            case "hashCode":
+                                return System.identityHashCode(proxy);
+                            default:
+                                break;
+                        }
+                        if (returned) {
+                            throw new SQLException("Statement has already been closed");
+                        }
+                        try {
+                            Object result = method.invoke(statement, args);
+                            if (result instanceof ResultSet) {
+                                openResults.add((ResultSet) result);
+                            }
+                            return result;
+                        } catch (InvocationTargetException e) {
+                            throw e.getCause();
+                        }
+                    }
+                });
+        }
+
+        private void checkin() {
+            synchronized (StatementCache.this) {
+                try {
+                    for (ResultSet rs : openResults) {
+                        rs.close();
+                    }
+                    openResults.clear();
+                    statement.clearParameters();
+                    statement.setMaxRows(maxRows);
+                    statement.setFetchSize(fetchSize);
+                    statement.setQueryTimeout(queryTimeout);
+                } catch (SQLException e) {
+                    logger.debug("Could not reset cached statement, dropping it: {}", e.getMessage());
+                    statements.values().remove(this);
+                    evicted = true;
+                }
+                inUse = false;
+                if (evicted) {
+                    closeStatement();
+                }
+            }
+        }
+
+        void evict() {
+            evicted = true;
+            if (!inUse) {
+                closeStatement();
+            }
+        }
+
+        private void closeStatement() {
+            try {
+                statement.close();
+            } catch (SQLException e) {
+                logger.debug("Error closing cached statement: {}", e.getMessage());
+            }
+        }
+    }
+}
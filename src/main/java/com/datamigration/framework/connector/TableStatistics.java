@@ -0,0 +1,63 @@
+package com.datamigration.framework.connector;
+
+import com.datamigration.framework.reporting.SchemaReportGenerator;
+
+/**
+ * Row count estimate and on-disk size of a table, read from the database catalog.
+ * Can be passed directly to {@link SchemaReportGenerator} as table information.
+ */
+public class TableStatistics implements SchemaReportGenerator.TableInfo {
+    private final String schema;
+    private final String name;
+    private final long rowCount;
+    private final long sizeBytes;
+
+    /**
+     * @param schema Schema the table belongs to
+     * @param name Table name
+     * @param rowCount Estimated row count, or -1 if the catalog has no estimate
+     * @param sizeBytes Total size of the table including indexes
+     */
+    public TableStatistics(String schema, String name, long rowCount, long sizeBytes) {
+        this.schema = schema;
+        this.name = name;
+        this.rowCount = rowCount;
+        this.sizeBytes = sizeBytes;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public String getSchema() {
+        return schema;
+    }
+
+    /**
+     * Gets the estimated row count, or -1 if the catalog has no estimate.
+     */
+    @Override
+    public long getRowCount() {
+        return rowCount;
+    }
+
+    @Override
+    public long getSizeBytes() {
+        return sizeBytes;
+    }
+
+    public boolean hasRowCount() {
+        return rowCount >= 0;
+    }
+
+    public String getQualifiedName() {
+        return schema != null ? schema + "." + name : name;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s: rows~%d, size=%d bytes", getQualifiedName(), rowCount, sizeBytes);
+    }
+}
@@ -0,0 +1,20 @@
+package com.datamigration.framework.connector;
+
+import java.sql.SQLException;
+
+/**
+ * Wraps a SQLException thrown while iterating a {@link java.util.stream.Stream} of rows.
+ */
+public class UncheckedSQLException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    public UncheckedSQLException(SQLException cause) {
+        super(cause.getMessage(), cause);
+    }
+
+    @Override
+    public synchronized SQLException getCause() {
+        return (SQLException) super.getCause();
+    }
+}
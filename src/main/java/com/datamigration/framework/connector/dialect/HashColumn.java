@@ -0,0 +1,232 @@
+package com.datamigration.framework.connector.dialect;
+
+import com.datamigration.framework.connector.ColumnType;
+
+import java.sql.Types;
+
+/**
+ * Column of a row hash together with the text rendering its values get before hashing.
+ * Dialects render each kind of value the same way, e.g. timestamps as ISO 8601 with a fixed
+ * number of fractional digits, so that equal values hash alike on different databases.
+ * The rendering is chosen from the types of a column on both sides by {@link #forPair}.
+ */
+public final class HashColumn {
+
+    /**
+     * Text rendering of a column's values.
+     */
+    public enum Rendering {
+        /** The database's own text of the value, optionally without trailing spaces. */
+        TEXT,
+        /** Integer digits. */
+        INTEGER,
+        /** Fixed-point number with {@code digits} decimals. */
+        DECIMAL,
+        /** {@code 1} or {@code 0}, for booleans, bits and integer flags. */
+        BOOLEAN,
+        /** {@code yyyy-mm-dd}. */
+        DATE,
+        /** {@code hh:mi:ss} with {@code digits} fractional digits. */
+        TIME,
+        /** {@code yyyy-mm-ddThh:mi:ss} with {@code digits} fractional digits. */
+        TIMESTAMP,
+        /** Like {@link #TIMESTAMP}, converted to UTC from a value with time zone. */
+        TIMESTAMP_UTC,
+        /** Lower-case text, for GUIDs. */
+        GUID,
+        /** Lower-case hex. */
+        BINARY
+    }
+
+    /** Fractional-second digits assumed for temporal types that report none. */
+    private static final int DEFAULT_FRACTION_DIGITS = 6;
+
+    private final String name;
+    private final Rendering rendering;
+    private final int digits;
+    private final boolean trimTrailingSpaces;
+
+    private HashColumn(String name, Rendering rendering, int digits, boolean trimTrailingSpaces) {
+        this.name = name;
+        this.rendering = rendering;
+        this.digits = digits;
+        this.trimTrailingSpaces = trimTrailingSpaces;
+    }
+
+    /**
+     * Creates a column hashed over the database's own text rendering, for columns of unknown type.
+     */
+    public static HashColumn text(String name) {
+        return new HashColumn(name, Rendering.TEXT, 0, false);
+    }
+
+    /**
+     * Chooses the rendering of a column for the side of type {@code column}, such that it matches the
+     * rendering of the other side's type {@code other} for equal values. The result for
+     * {@code forPair(other, column)} uses the same rendering.
+     *
+     * @return The column, or null if the two types have no rendering in common, e.g. floating-point
+     *         columns, whose text differs between databases, or a date against a timestamp
+     */
+    public static HashColumn forPair(ColumnType column, ColumnType other) {
+        Family family = Family.of(column);
+        Family otherFamily = Family.of(other);
+        String name = column.getName();
+        if (family == Family.GUID || otherFamily == Family.GUID) {
+            return isGuidOrText(family) && isGuidOrText(otherFamily)
+                ? new HashColumn(name, Rendering.GUID, 0, true) : null;
+        }
+        if (family == Family.BOOLEAN || otherFamily == Family.BOOLEAN) {
+            return isBooleanOrInteger(family) && isBooleanOrInteger(otherFamily)
+                ? new HashColumn(name, Rendering.BOOLEAN, 0, false) : null;
+        }
+        if (family == Family.INTEGER && otherFamily == Family.INTEGER) {
+            return new HashColumn(name, Rendering.INTEGER, 0, false);
+        }
+        if (isExactNumber(family) && isExactNumber(otherFamily)) {
+            return new HashColumn(name, Rendering.DECIMAL, Math.max(scaleOf(column), scaleOf(other)), false);
+        }
+        if (family != otherFamily) {
+            return null;
+        }
+        switch (family) {
+            case TEXT:
+                return new HashColumn(name, Rendering.TEXT, 0, isFixedWidth(column) || isFixedWidth(other));
+            case DATE:
+                return new HashColumn(name, Rendering.DATE, 0, false);
+            case TIME:
+                return new HashColumn(name, Rendering.TIME, fractionDigits(column, other), false);
+            case TIMESTAMP:
+                return new HashColumn(name, Rendering.TIMESTAMP, fractionDigits(column, other), false);
+            case TIMESTAMP_UTC:
+                return new HashColumn(name, Rendering.TIMESTAMP_UTC, fractionDigits(column, other), false);
+            case BINARY:
+                return new HashColumn(name, Rendering.BINARY, 0, false);
+            case OTHER:
+                return column.getTypeName() != null && column.getTypeName().equalsIgnoreCase(other.getTypeName())
+                    ? text(name) : null;
+            default:
+                return null;
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public Rendering getRendering() {
+        return rendering;
+    }
+
+    /**
+     * Gets the decimals of a {@link Rendering#DECIMAL} or the fractional-second digits of a time.
+     */
+    public int getDigits() {
+        return digits;
+    }
+
+    /**
+     * Checks whether trailing spaces of {@link Rendering#TEXT} values are left out, as when either
+     * side is a fixed-width {@code CHAR} column.
+     */
+    public boolean isTrimTrailingSpaces() {
+        return trimTrailingSpaces;
+    }
+
+    @Override
+    public String toString() {
+        return name + " " + rendering + (digits > 0 ? "(" + digits + ")" : "");
+    }
+
+    private static boolean isGuidOrText(Family family) {
+        return family == Family.GUID || family == Family.TEXT;
+    }
+
+    private static boolean isBooleanOrInteger(Family family) {
+        return family == Family.BOOLEAN || family == Family.INTEGER;
+    }
+
+    private static boolean isExactNumber(Family family) {
+        return family == Family.INTEGER || family == Family.DECIMAL;
+    }
+
+    private static int scaleOf(ColumnType column) {
+        Integer scale = column.getDecimalDigits();
+        return Family.of(column) == Family.DECIMAL && scale != null && scale > 0 ? scale : 0;
+    }
+
+    private static int fractionDigits(ColumnType column, ColumnType other) {
+        return Math.max(fractionDigits(column), fractionDigits(other));
+    }
+
+    private static int fractionDigits(ColumnType column) {
+        Integer digits = column.getDecimalDigits();
+        return digits != null && digits >= 0 ? Math.min(digits, 9) : DEFAULT_FRACTION_DIGITS;
+    }
+
+    private static boolean isFixedWidth(ColumnType column) {
+        return column.getSqlType() == Types.CHAR || column.getSqlType() == Types.NCHAR;
+    }
+
+    /**
+     * Kind of value a column type holds, as far as its text rendering is concerned.
+     */
+    private enum Family {
+        TEXT, INTEGER, DECIMAL, FLOATING, BOOLEAN, DATE, TIME, TIMESTAMP, TIMESTAMP_UTC, GUID, BINARY, OTHER;
+
+        /** {@code microsoft.sql.Types.DATETIMEOFFSET}, reported by the SQL Server driver. */
+        private static final int SQL_SERVER_DATETIMEOFFSET = -155;
+
+        static Family of(ColumnType column) {
+            String typeName = column.getTypeName();
+            if ("uniqueidentifier".equalsIgnoreCase(typeName) || "uuid".equalsIgnoreCase(typeName)) {
+                return GUID;
+            }
+            if ("timestamptz".equalsIgnoreCase(typeName)) {
+                return TIMESTAMP_UTC;
+            }
+            switch (column.getSqlType()) {
+                case Types.CHAR:
+                case Types.VARCHAR:
+                case Types.LONGVARCHAR:
+                case Types.NCHAR:
+                case Types.NVARCHAR:
+                case Types.LONGNVARCHAR:
+                case Types.CLOB:
+                case Types.NCLOB:
+                    return TEXT;
+                case Types.TINYINT:
+                case Types.SMALLINT:
+                case Types.INTEGER:
+                case Types.BIGINT:
+                    return INTEGER;
+                case Types.DECIMAL:
+                case Types.NUMERIC:
+                    return DECIMAL;
+                case Types.REAL:
+                case Types.FLOAT:
+                case Types.DOUBLE:
+                    return FLOATING;
+                case Types.BIT:
+                case Types.BOOLEAN:
+                    return BOOLEAN;
+                case Types.DATE:
+                    return DATE;
+                case Types.TIME:
+                    return TIME;
+                case Types.TIMESTAMP:
+                    return TIMESTAMP;
+                case Types.TIMESTAMP_WITH_TIMEZONE:
+                case SQL_SERVER_DATETIMEOFFSET:
+                    return TIMESTAMP_UTC;
+                case Types.BINARY:
+                case Types.VARBINARY:
+                case Types.LONGVARBINARY:
+                case Types.BLOB:
+                    return BINARY;
+                default:
+                    return OTHER;
+            }
+        }
+    }
+}
@@ -0,0 +1,245 @@
+package com.datamigration.framework.connector.dialect;
+
+import com.datamigration.framework.config.ConfigurationManager;
+import org.postgresql.PGConnection;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.sql.Array;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Properties;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * PostgreSQL dialect.
+ */
+public class PostgreSqlDialect implements SqlDialect {
+
+    private static final Set<Capability> CAPABILITIES = Collections.unmodifiableSet(EnumSet.of(
+        Capability.ROW_HASH, Capability.TABLE_SAMPLE, Capability.CATALOG_STATISTICS, Capability.SCHEMA_CATALOG,
+        Capability.BULK_EXPORT, Capability.ARRAY_PARAMETERS));
+
+    private static final String USER_NAMESPACES =
+        "n.nspname NOT IN ('pg_catalog', 'information_schema') AND n.nspname NOT LIKE 'pg_toast%'";
+
+    @Override
+    public String getName() {
+        return "PostgreSQL";
+    }
+
+    @Override
+    public boolean matchesDriver(String driver) {
+        return "postgresql".equalsIgnoreCase(driver) || "postgres".equalsIgnoreCase(driver);
+    }
+
+    @Override
+    public String buildConnectionUrl(ConfigurationManager.DatabaseConfig config) {
+        return String.format("jdbc:postgresql://%s:%d/%s", config.getHost(), config.getPort(), config.getDatabase());
+    }
+
+    @Override
+    public void configureSocketTimeout(Properties properties, int seconds) {
+        properties.setProperty("socketTimeout", String.valueOf(seconds));
+    }
+
+    @Override
+    public Set<Capability> getCapabilities() {
+        return CAPABILITIES;
+    }
+
+    @Override
+    public String quoteIdentifier(String identifier) {
+        return "\"" + identifier.replace("\"", "\"\"") + "\"";
+    }
+
+    @Override
+    public String arrayParameterList() {
+        return "SELECT UNNEST(?)";
+    }
+
+    @Override
+    public Array createArrayParameter(Connection connection, List<?> values) throws SQLException {
+        Object first = values.isEmpty() ? null : values.get(0);
+        Object[] elements = values.toArray();
+        String elementType;
+        if (first instanceof Integer || first instanceof Short) {
+            elementType = "int4";
+        } else if (first instanceof Long) {
+            elementType = "int8";
+        } else if (first instanceof BigDecimal || first instanceof BigInteger) {
+            elementType = "numeric";
+        } else if (first instanceof UUID) {
+            elementType = "uuid";
+        } else {
+            elementType = "text";
+            for (int i = 0; i < elements.length; i++) {
+                elements[i] = elements[i] != null ? elements[i].toString() : null;
+            }
+        }
+        return connection.createArrayOf(elementType, elements);
+    }
+
+    @Override
+    public String limitClause(int rows) {
+        return "LIMIT " + rows;
+    }
+
+    /**
+     * PostgreSQL only streams with a cursor inside a transaction; in auto-commit mode the
+     * driver reads the whole result into memory.
+     */
+    @Override
+    public void prepareForStreaming(Connection connection) throws SQLException {
+        connection.setAutoCommit(false);
+    }
+
+    @Override
+    public String rowHashExpression(List<HashColumn> columns) {
+        return "MD5(" + rowText(columns) + ")";
+    }
+
+    @Override
+    public String chunkChecksumQuery(String quotedTable, List<HashColumn> columns, String where) {
+        return "SELECT COUNT(*), SUM(('x' || SUBSTR(h, 1, 8))::bit(32)::int), "
+            + "SUM(('x' || SUBSTR(h, 9, 8))::bit(32)::int) FROM (SELECT " + rowHashExpression(columns)
+            + " AS h FROM " + quotedTable + where + ") hashed";
+    }
+
+    private String rowText(List<HashColumn> columns) {
+        List<String> parts = new ArrayList<>();
+        for (HashColumn column : columns) {
+            String quoted = quoteIdentifier(column.getName());
+            parts.add("CASE WHEN " + quoted + " IS NULL THEN '0' ELSE '1' || " + render(column, quoted) + " END");
+        }
+        return "CONCAT_WS(CHR(31), " + String.join(", ", parts) + ")";
+    }
+
+    /**
+     * Renders a value as {@link HashColumn.Rendering} describes. Times are formatted as the time of a
+     * fixed day, since {@code to_char} has no {@code time} variant.
+     */
+    private static String render(HashColumn column, String quoted) {
+        switch (column.getRendering()) {
+            case DECIMAL:
+                return "ROUND(" + quoted + "::numeric, " + column.getDigits() + ")::text";
+            case BOOLEAN:
+                return "CASE " + quoted + "::text WHEN 'true' THEN '1' WHEN 'false' THEN '0' ELSE " + quoted
+                    + "::text END";
+            case DATE:
+                return "to_char(" + quoted + ", 'YYYY-MM-DD')";
+            case TIME:
+                return timestamp("(DATE '2000-01-01' + " + quoted + ")", "HH24:MI:SS", column.getDigits());
+            case TIMESTAMP:
+                return timestamp(quoted, "YYYY-MM-DD\"T\"HH24:MI:SS", column.getDigits());
+            case TIMESTAMP_UTC:
+                return timestamp("(" + quoted + " AT TIME ZONE 'UTC')", "YYYY-MM-DD\"T\"HH24:MI:SS",
+                    column.getDigits());
+            case GUID:
+                return "LOWER(RTRIM(" + quoted + "::text, ' '))";
+            case BINARY:
+                return "encode(" + quoted + ", 'hex')";
+            case TEXT:
+                return column.isTrimTrailingSpaces() ? "RTRIM(" + quoted + "::text, ' ')" : quoted + "::text";
+            default:
+                return quoted + "::text";
+        }
+    }
+
+    /**
+     * Formats a timestamp with exactly {@code digits} fractional digits; digits beyond the
+     * microseconds PostgreSQL stores are zeros.
+     */
+    private static String timestamp(String value, String format, int digits) {
+        String text = "to_char(" + value + ", '" + format + "')";
+        if (digits == 0) {
+            return text;
+        }
+        return text + " || '.' || RPAD(LEFT(to_char(" + value + ", 'US'), " + digits + "), " + digits + ", '0')";
+    }
+
+    @Override
+    public String tableSampleClause(double percent) {
+        return String.format(Locale.ROOT, "TABLESAMPLE SYSTEM (%s)", percent);
+    }
+
+    /**
+     * Reads {@code pg_class.reltuples}, which is only as fresh as the last VACUUM/ANALYZE.
+     */
+    @Override
+    public String catalogStatisticsQuery() {
+        return "SELECT n.nspname, c.relname, c.reltuples::bigint, pg_total_relation_size(c.oid) "
+            + "FROM pg_class c JOIN pg_namespace n ON n.oid = c.relnamespace "
+            + "WHERE c.relkind IN ('r', 'p') AND " + USER_NAMESPACES;
+    }
+
+    @Override
+    public String schemaIndexesQuery() {
+        return "SELECT n.nspname, t.relname, ic.relname, ix.indisunique, a.attname "
+            + "FROM pg_index ix JOIN pg_class t ON t.oid = ix.indrelid "
+            + "JOIN pg_class ic ON ic.oid = ix.indexrelid "
+            + "JOIN pg_namespace n ON n.oid = t.relnamespace "
+            + "CROSS JOIN LATERAL unnest(ix.indkey::int2[]) WITH ORDINALITY AS k(attnum, ord) "
+            + "JOIN pg_attribute a ON a.attrelid = t.oid AND a.attnum = k.attnum "
+            + "WHERE t.relkind IN ('r', 'p') AND " + USER_NAMESPACES + " "
+            + "ORDER BY n.nspname, t.relname, ic.relname, k.ord";
+    }
+
+    @Override
+    public String schemaForeignKeysQuery() {
+        return "SELECT n.nspname, t.relname, con.conname, a.attname, rn.nspname, rt.relname, ra.attname "
+            + "FROM pg_constraint con JOIN pg_class t ON t.oid = con.conrelid "
+            + "JOIN pg_namespace n ON n.oid = t.relnamespace "
+            + "JOIN pg_class rt ON rt.oid = con.confrelid "
+            + "JOIN pg_namespace rn ON rn.oid = rt.relnamespace "
+            + "CROSS JOIN LATERAL unnest(con.conkey, con.confkey) WITH ORDINALITY AS k(col, refcol, ord) "
+            + "JOIN pg_attribute a ON a.attrelid = con.conrelid AND a.attnum = k.col "
+            + "JOIN pg_attribute ra ON ra.attrelid = con.confrelid AND ra.attnum = k.refcol "
+            + "WHERE con.contype = 'f' "
+            + "ORDER BY n.nspname, t.relname, con.conname, k.ord";
+    }
+
+    /**
+     * PostgreSQL keeps no DDL timestamps, so the fingerprint hashes the catalog rows that
+     * describe columns, column defaults, constraints and indexes of user tables.
+     */
+    @Override
+    public String schemaFingerprintQuery() {
+        return "SELECT md5(COALESCE(string_agg(d, ',' ORDER BY d), '')) FROM ("
+            + "SELECT 'a' || a.attrelid || '.' || a.attnum || '.' || a.attname || '.' || a.atttypid || '.' "
+            + "|| a.atttypmod || '.' || a.attnotnull AS d "
+            + "FROM pg_attribute a JOIN pg_class c ON c.oid = a.attrelid "
+            + "JOIN pg_namespace n ON n.oid = c.relnamespace "
+            + "WHERE c.relkind IN ('r', 'p') AND a.attnum > 0 AND NOT a.attisdropped AND " + USER_NAMESPACES + " "
+            + "UNION ALL SELECT 'd' || ad.adrelid || '.' || ad.adnum || '.' || md5(pg_get_expr(ad.adbin, ad.adrelid)) "
+            + "FROM pg_attrdef ad JOIN pg_class c ON c.oid = ad.adrelid "
+            + "JOIN pg_namespace n ON n.oid = c.relnamespace "
+            + "WHERE " + USER_NAMESPACES + " "
+            + "UNION ALL SELECT 'c' || con.oid || '.' || con.conname || '.' || con.contype "
+            + "FROM pg_constraint con JOIN pg_namespace n ON n.oid = con.connamespace "
+            + "WHERE " + USER_NAMESPACES + " "
+            + "UNION ALL SELECT 'i' || ix.indexrelid || '.' || ix.indrelid || '.' || ix.indkey::text "
+            + "FROM pg_index ix JOIN pg_class c ON c.oid = ix.indrelid "
+            + "JOIN pg_namespace n ON n.oid = c.relnamespace "
+            + "WHERE " + USER_NAMESPACES
+            + ") catalog_rows";
+    }
+
+    /**
+     * Exports with {@code COPY ... TO STDOUT}, which streams CSV from the server without
+     * per-row protocol overhead.
+     */
+    @Override
+    public long bulkExport(Connection connection, String query, Writer out) throws SQLException, IOException {
+        return connection.unwrap(PGConnection.class).getCopyAPI()
+            .copyOut("COPY (" + query + ") TO STDOUT WITH (FORMAT csv, HEADER)", out);
+    }
+}
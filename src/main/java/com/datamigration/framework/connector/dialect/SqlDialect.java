@@ -0,0 +1,245 @@
+package com.datamigration.framework.connector.dialect;
+
+import com.datamigration.framework.config.ConfigurationManager;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.sql.Array;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.util.List;
+import java.util.Properties;
+import java.util.Set;
+
+/**
+ * Database-specific SQL used by {@link com.datamigration.framework.connector.DatabaseConnector}
+ * and the comparison engines. Dialects are discovered with {@link java.util.ServiceLoader}, so a
+ * new database is supported by adding an implementation and listing it in
+ * {@code META-INF/services/com.datamigration.framework.connector.dialect.SqlDialect}.
+ *
+ * <p>Optional pushdown features are advertised through {@link #getCapabilities()}; engines check
+ * them and fall back to client-side work when a dialect does not support a feature.</p>
+ */
+public interface SqlDialect {
+
+    /** Upper bound on bind parameters per statement on every database; SQL Server allows 2100. */
+    int MAX_BIND_PARAMETERS = 2000;
+
+    /**
+     * Optional features a dialect can push down to the database.
+     */
+    enum Capability {
+        /** Row and chunk hashes computed in SQL ({@link #rowHashExpression}, {@link #chunkChecksumQuery}). */
+        ROW_HASH,
+        /** Block sampling with {@link #tableSampleClause}. */
+        TABLE_SAMPLE,
+        /** Row estimates and sizes from {@link #catalogStatisticsQuery}. */
+        CATALOG_STATISTICS,
+        /** Bulk catalog queries for {@link com.datamigration.framework.schema.SchemaSnapshotLoader}. */
+        SCHEMA_CATALOG,
+        /** Native bulk export with {@link #bulkExport}. */
+        BULK_EXPORT,
+        /** Approximate distinct counts with {@link #approximateDistinctCount}. */
+        APPROXIMATE_DISTINCT,
+        /** Key lists bound as a single array parameter with {@link #arrayParameterList}. */
+        ARRAY_PARAMETERS
+    }
+
+    /**
+     * Gets the dialect name used in log messages.
+     */
+    String getName();
+
+    /**
+     * Checks whether this dialect handles the {@code driver} value of a database configuration.
+     */
+    boolean matchesDriver(String driver);
+
+    /**
+     * Builds the JDBC URL for a database configuration.
+     */
+    String buildConnectionUrl(ConfigurationManager.DatabaseConfig config);
+
+    /**
+     * Sets the driver property that bounds how long a connection waits for the server to respond,
+     * so a hung connection fails instead of blocking forever. Query timeouts are set per statement.
+     */
+    default void configureSocketTimeout(Properties properties, int seconds) {
+    }
+
+    Set<Capability> getCapabilities();
+
+    default boolean supports(Capability capability) {
+        return getCapabilities().contains(capability);
+    }
+
+    /**
+     * Checks whether a capability is available on a server of the given major version, for
+     * capabilities that need a newer server than the dialect supports otherwise.
+     */
+    default boolean supports(Capability capability, int databaseMajorVersion) {
+        return supports(capability);
+    }
+
+    /**
+     * Quotes a single identifier.
+     */
+    String quoteIdentifier(String identifier);
+
+    /**
+     * Quotes a possibly schema-qualified table name, quoting each dot-separated part.
+     */
+    default String quoteTableName(String tableName) {
+        String[] parts = tableName.split("\\.");
+        StringBuilder quoted = new StringBuilder();
+        for (int i = 0; i < parts.length; i++) {
+            if (i > 0) {
+                quoted.append('.');
+            }
+            quoted.append(quoteIdentifier(parts[i]));
+        }
+        return quoted.toString();
+    }
+
+    /**
+     * Returns the clause appended after {@code ORDER BY} to limit a keyset page to {@code rows} rows.
+     */
+    String limitClause(int rows);
+
+    /**
+     * Prepares a connection for reading a large result with a streaming cursor.
+     * The pool resets auto-commit when the connection is returned.
+     */
+    default void prepareForStreaming(Connection connection) throws SQLException {
+    }
+
+    /**
+     * Returns an expression for the lower-case hex MD5 of a row's text rendering.
+     * Each column is rendered as its {@link HashColumn#getRendering() rendering} prescribes, prefixed
+     * with a null marker and separated by the ASCII unit separator, so dialects agree on equal values.
+     *
+     * @param columns Columns to hash, by unquoted name
+     */
+    String rowHashExpression(List<HashColumn> columns);
+
+    /**
+     * Returns a query for the row count and two 32-bit hash sums of a key range, as one row of
+     * {@code (count, hashHigh, hashLow)}. The sums are taken over the first and second four bytes
+     * of each row's MD5, read as signed integers.
+     *
+     * @param quotedTable Quoted table name
+     * @param columns Columns to hash, by unquoted name
+     * @param where Predicate including the {@code WHERE} keyword, or an empty string
+     */
+    String chunkChecksumQuery(String quotedTable, List<HashColumn> columns, String where);
+
+    /**
+     * Returns a count aggregate whose result is a 64-bit integer, so counts of tables with more
+     * than 2<sup>31</sup> rows do not overflow.
+     *
+     * @param argument {@code *}, a quoted column, or {@code DISTINCT} followed by a quoted column
+     */
+    default String countExpression(String argument) {
+        return "COUNT(" + argument + ")";
+    }
+
+    /**
+     * Returns an expression for the character length of a string column.
+     *
+     * @param ignoreTrailingSpaces Whether trailing spaces are left out of the length, as value
+     *                             comparisons with {@code ignoreTrailingSpaces} leave them out
+     */
+    default String lengthExpression(String quotedColumn, boolean ignoreTrailingSpaces) {
+        return ignoreTrailingSpaces ? "LENGTH(RTRIM(" + quotedColumn + "))" : "LENGTH(" + quotedColumn + ")";
+    }
+
+    /**
+     * Returns an aggregate expression estimating the number of distinct non-null values of a column.
+     *
+     * @throws UnsupportedOperationException If the dialect does not support {@link Capability#APPROXIMATE_DISTINCT}
+     */
+    default String approximateDistinctCount(String quotedColumn) {
+        throw new UnsupportedOperationException(getName() + " does not support approximate distinct counts");
+    }
+
+    /**
+     * Returns an expression for a watermark column that only grows when rows are written, such as an
+     * update timestamp or a row version, for use in {@code MAX(...)} and {@code > ?} predicates.
+     */
+    default String watermarkExpression(String column) {
+        return quoteIdentifier(column);
+    }
+
+    /**
+     * Returns the contents of an {@code IN (...)} list matching every element of one array
+     * parameter, so a key list of any length is bound with a single placeholder.
+     *
+     * @throws UnsupportedOperationException If the dialect does not support {@link Capability#ARRAY_PARAMETERS}
+     */
+    default String arrayParameterList() {
+        throw new UnsupportedOperationException(getName() + " does not support array parameters");
+    }
+
+    /**
+     * Creates the array bound to the placeholder of {@link #arrayParameterList}, typed after its first element.
+     *
+     * @throws SQLFeatureNotSupportedException If the dialect does not support {@link Capability#ARRAY_PARAMETERS}
+     */
+    default Array createArrayParameter(Connection connection, List<?> values) throws SQLException {
+        throw new SQLFeatureNotSupportedException(getName() + " does not support array parameters");
+    }
+
+    /**
+     * Returns the clause placed after the table name to read about {@code percent} percent of its pages.
+     *
+     * @throws UnsupportedOperationException If the dialect does not support {@link Capability#TABLE_SAMPLE}
+     */
+    default String tableSampleClause(double percent) {
+        throw new UnsupportedOperationException(getName() + " does not support table sampling");
+    }
+
+    /**
+     * Returns a query for {@code (schema, table, estimated rows, size in bytes)} of all user tables.
+     *
+     * @throws UnsupportedOperationException If the dialect does not support {@link Capability#CATALOG_STATISTICS}
+     */
+    default String catalogStatisticsQuery() {
+        throw new UnsupportedOperationException(getName() + " has no catalog statistics query");
+    }
+
+    /**
+     * Returns a query for {@code (schema, table, index, unique, column)} of all index key columns,
+     * ordered by schema, table, index and key position.
+     */
+    default String schemaIndexesQuery() {
+        throw new UnsupportedOperationException(getName() + " has no index catalog query");
+    }
+
+    /**
+     * Returns a query for {@code (schema, table, constraint, column, referenced schema,
+     * referenced table, referenced column)} of all foreign keys, ordered by schema, table,
+     * constraint and column position.
+     */
+    default String schemaForeignKeysQuery() {
+        throw new UnsupportedOperationException(getName() + " has no foreign key catalog query");
+    }
+
+    /**
+     * Returns a single-value query that changes whenever tables, columns, column defaults, keys or
+     * indexes change.
+     */
+    default String schemaFingerprintQuery() {
+        throw new UnsupportedOperationException(getName() + " has no schema fingerprint query");
+    }
+
+    /**
+     * Exports the result of a query as CSV with a header row using the database's native bulk path.
+     *
+     * @return Number of rows exported
+     * @throws SQLFeatureNotSupportedException If the dialect does not support {@link Capability#BULK_EXPORT}
+     */
+    default long bulkExport(Connection connection, String query, Writer out) throws SQLException, IOException {
+        throw new SQLFeatureNotSupportedException(getName() + " does not support bulk export");
+    }
+}
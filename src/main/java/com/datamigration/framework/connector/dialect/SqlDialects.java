@@ -0,0 +1,54 @@
+package com.datamigration.framework.connector.dialect;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.ServiceLoader;
+
+/**
+ * Registry of the {@link SqlDialect} implementations found on the classpath.
+ */
+public final class SqlDialects {
+    private static final Logger logger = LoggerFactory.getLogger(SqlDialects.class);
+
+    private static final String DEFAULT_DRIVER = "sqlserver";
+
+    private static volatile List<SqlDialect> dialects;
+
+    private SqlDialects() {
+    }
+
+    /**
+     * Finds the dialect for a configured driver. A missing driver means SQL Server, and an
+     * unknown driver falls back to SQL Server with a warning.
+     */
+    public static SqlDialect forDriver(String driver) {
+        String name = driver != null ? driver : DEFAULT_DRIVER;
+        for (SqlDialect dialect : getDialects()) {
+            if (dialect.matchesDriver(name)) {
+                return dialect;
+            }
+        }
+        logger.warn("Unknown driver type: {}, using SQL Server dialect", name);
+        return new SqlServerDialect();
+    }
+
+    /**
+     * Gets all dialects registered through {@code META-INF/services}.
+     */
+    public static List<SqlDialect> getDialects() {
+        List<SqlDialect> loaded = dialects;
+        if (loaded == null) {
+            List<SqlDialect> found = new ArrayList<>();
+            for (SqlDialect dialect : ServiceLoader.load(SqlDialect.class, SqlDialects.class.getClassLoader())) {
+                found.add(dialect);
+            }
+            loaded = Collections.unmodifiableList(found);
+            dialects = loaded;
+        }
+        return loaded;
+    }
+}
@@ -0,0 +1,219 @@
+package com.datamigration.framework.connector.dialect;
+
+import com.datamigration.framework.config.ConfigurationManager;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Properties;
+import java.util.Set;
+
+/**
+ * Microsoft SQL Server dialect.
+ */
+public class SqlServerDialect implements SqlDialect {
+
+    private static final Set<Capability> CAPABILITIES = Collections.unmodifiableSet(EnumSet.of(
+        Capability.ROW_HASH, Capability.TABLE_SAMPLE, Capability.CATALOG_STATISTICS, Capability.SCHEMA_CATALOG,
+        Capability.APPROXIMATE_DISTINCT));
+
+    private static final int SQL_SERVER_2019 = 15;
+
+    @Override
+    public String getName() {
+        return "SQL Server";
+    }
+
+    @Override
+    public boolean matchesDriver(String driver) {
+        return "sqlserver".equalsIgnoreCase(driver) || "mssql".equalsIgnoreCase(driver);
+    }
+
+    @Override
+    public String buildConnectionUrl(ConfigurationManager.DatabaseConfig config) {
+        return String.format("jdbc:sqlserver://%s:%d;databaseName=%s;encrypt=true;trustServerCertificate=true",
+            config.getHost(), config.getPort(), config.getDatabase());
+    }
+
+    @Override
+    public void configureSocketTimeout(Properties properties, int seconds) {
+        properties.setProperty("socketTimeout", String.valueOf(seconds * 1000L));
+    }
+
+    @Override
+    public Set<Capability> getCapabilities() {
+        return CAPABILITIES;
+    }
+
+    @Override
+    public String quoteIdentifier(String identifier) {
+        return "[" + identifier.replace("]", "]]") + "]";
+    }
+
+    @Override
+    public String limitClause(int rows) {
+        return "OFFSET 0 ROWS FETCH NEXT " + rows + " ROWS ONLY";
+    }
+
+    @Override
+    public String rowHashExpression(List<HashColumn> columns) {
+        return "LOWER(CONVERT(VARCHAR(32), " + md5(columns) + ", 2))";
+    }
+
+    @Override
+    public String chunkChecksumQuery(String quotedTable, List<HashColumn> columns, String where) {
+        return "SELECT COUNT_BIG(*), SUM(CAST(CAST(SUBSTRING(h, 1, 4) AS INT) AS BIGINT)), "
+            + "SUM(CAST(CAST(SUBSTRING(h, 5, 4) AS INT) AS BIGINT)) FROM (SELECT " + md5(columns)
+            + " AS h FROM " + quotedTable + where + ") hashed";
+    }
+
+    /**
+     * Row hashes need the UTF-8 collations and approximate distinct counts need
+     * {@code APPROX_COUNT_DISTINCT}, both introduced in SQL Server 2019 (version 15).
+     */
+    @Override
+    public boolean supports(Capability capability, int databaseMajorVersion) {
+        if (capability == Capability.ROW_HASH || capability == Capability.APPROXIMATE_DISTINCT) {
+            return supports(capability) && databaseMajorVersion >= SQL_SERVER_2019;
+        }
+        return supports(capability);
+    }
+
+    /**
+     * MD5 of the UTF-8 row text. The binary UTF-8 collation, available from SQL Server 2019,
+     * makes the bytes match PostgreSQL's.
+     */
+    private String md5(List<HashColumn> columns) {
+        return "HASHBYTES('MD5', CAST(" + rowText(columns)
+            + " COLLATE Latin1_General_100_BIN2_UTF8 AS VARCHAR(MAX)))";
+    }
+
+    private String rowText(List<HashColumn> columns) {
+        List<String> parts = new ArrayList<>();
+        for (HashColumn column : columns) {
+            String quoted = quoteIdentifier(column.getName());
+            parts.add("CASE WHEN " + quoted + " IS NULL THEN N'0' ELSE N'1' + " + render(column, quoted) + " END");
+        }
+        return "CONCAT(" + String.join(", NCHAR(31), ", parts) + (parts.size() == 1 ? ", N''" : "") + ")";
+    }
+
+    /**
+     * Renders a value as {@link HashColumn.Rendering} describes; style 126 is ISO 8601 and style 2
+     * is hex without the {@code 0x} prefix.
+     */
+    private static String render(HashColumn column, String quoted) {
+        switch (column.getRendering()) {
+            case DECIMAL:
+                return "CAST(CAST(" + quoted + " AS DECIMAL(38, " + column.getDigits() + ")) AS NVARCHAR(MAX))";
+            case DATE:
+                return "CONVERT(NVARCHAR(10), " + quoted + ", 23)";
+            case TIME:
+                return "CONVERT(NVARCHAR(8), " + quoted + ", 108)" + fraction(quoted, column.getDigits());
+            case TIMESTAMP:
+                return "CONVERT(NVARCHAR(19), " + quoted + ", 126)" + fraction(quoted, column.getDigits());
+            case TIMESTAMP_UTC:
+                return "CONVERT(NVARCHAR(19), SWITCHOFFSET(" + quoted + ", 0), 126)"
+                    + fraction(quoted, column.getDigits());
+            case GUID:
+                return "LOWER(RTRIM(CAST(" + quoted + " AS NVARCHAR(MAX))))";
+            case BINARY:
+                return "LOWER(CONVERT(VARCHAR(MAX), " + quoted + ", 2))";
+            case TEXT:
+                if (column.isTrimTrailingSpaces()) {
+                    return "RTRIM(CAST(" + quoted + " AS NVARCHAR(MAX)))";
+                }
+                return "CAST(" + quoted + " AS NVARCHAR(MAX))";
+            default:
+                // Integers, and bits as 1 or 0
+                return "CAST(" + quoted + " AS NVARCHAR(MAX))";
+        }
+    }
+
+    private static String fraction(String quoted, int digits) {
+        if (digits == 0) {
+            return "";
+        }
+        return " + N'.' + LEFT(RIGHT(N'00000000' + CAST(DATEPART(NANOSECOND, " + quoted
+            + ") AS NVARCHAR(9)), 9), " + digits + ")";
+    }
+
+    @Override
+    public String countExpression(String argument) {
+        return "COUNT_BIG(" + argument + ")";
+    }
+
+    /**
+     * {@code LEN} ignores trailing spaces. Otherwise the length is taken from the UTF-16 byte
+     * length, which counts them; fixed-length {@code char} padding then counts too, whereas
+     * PostgreSQL never counts the padding of {@code character(n)}.
+     */
+    @Override
+    public String lengthExpression(String quotedColumn, boolean ignoreTrailingSpaces) {
+        if (ignoreTrailingSpaces) {
+            return "LEN(" + quotedColumn + ")";
+        }
+        return "DATALENGTH(CAST(" + quotedColumn + " AS NVARCHAR(MAX))) / 2";
+    }
+
+    /**
+     * HyperLogLog estimate (SQL Server 2019 and later), within 2% of the exact count with 97% probability.
+     */
+    @Override
+    public String approximateDistinctCount(String quotedColumn) {
+        return "APPROX_COUNT_DISTINCT(" + quotedColumn + ")";
+    }
+
+    @Override
+    public String tableSampleClause(double percent) {
+        return String.format(Locale.ROOT, "TABLESAMPLE SYSTEM (%s PERCENT)", percent);
+    }
+
+    @Override
+    public String catalogStatisticsQuery() {
+        return "SELECT s.name, t.name, SUM(CASE WHEN ps.index_id IN (0, 1) THEN ps.row_count ELSE 0 END), "
+            + "SUM(ps.reserved_page_count) * 8192 "
+            + "FROM sys.tables t JOIN sys.schemas s ON s.schema_id = t.schema_id "
+            + "JOIN sys.dm_db_partition_stats ps ON ps.object_id = t.object_id "
+            + "GROUP BY s.name, t.name";
+    }
+
+    @Override
+    public String schemaIndexesQuery() {
+        return "SELECT s.name, t.name, i.name, i.is_unique, c.name "
+            + "FROM sys.indexes i JOIN sys.tables t ON t.object_id = i.object_id "
+            + "JOIN sys.schemas s ON s.schema_id = t.schema_id "
+            + "JOIN sys.index_columns ic ON ic.object_id = i.object_id AND ic.index_id = i.index_id "
+            + "JOIN sys.columns c ON c.object_id = ic.object_id AND c.column_id = ic.column_id "
+            + "WHERE i.type > 0 AND ic.key_ordinal > 0 "
+            + "ORDER BY s.name, t.name, i.name, ic.key_ordinal";
+    }
+
+    @Override
+    public String schemaForeignKeysQuery() {
+        return "SELECT ps.name, pt.name, fk.name, pc.name, rs.name, rt.name, rc.name "
+            + "FROM sys.foreign_keys fk "
+            + "JOIN sys.foreign_key_columns fkc ON fkc.constraint_object_id = fk.object_id "
+            + "JOIN sys.tables pt ON pt.object_id = fk.parent_object_id "
+            + "JOIN sys.schemas ps ON ps.schema_id = pt.schema_id "
+            + "JOIN sys.columns pc ON pc.object_id = fkc.parent_object_id AND pc.column_id = fkc.parent_column_id "
+            + "JOIN sys.tables rt ON rt.object_id = fk.referenced_object_id "
+            + "JOIN sys.schemas rs ON rs.schema_id = rt.schema_id "
+            + "JOIN sys.columns rc ON rc.object_id = fkc.referenced_object_id "
+            + "AND rc.column_id = fkc.referenced_column_id "
+            + "ORDER BY ps.name, pt.name, fk.name, fkc.constraint_column_id";
+    }
+
+    /**
+     * SQL Server updates {@code modify_date} of a table on ALTER TABLE and on index changes, and
+     * column defaults are objects of their own (type {@code D}), so the count, latest date and
+     * checksum over user objects change with any DDL.
+     */
+    @Override
+    public String schemaFingerprintQuery() {
+        return "SELECT CONCAT(COUNT_BIG(*), ':', CONVERT(VARCHAR(33), MAX(modify_date), 126), ':', "
+            + "CHECKSUM_AGG(CHECKSUM(object_id, modify_date))) "
+            + "FROM sys.objects WHERE is_ms_shipped = 0 AND type IN ('U', 'PK', 'UQ', 'F', 'D')";
+    }
+}
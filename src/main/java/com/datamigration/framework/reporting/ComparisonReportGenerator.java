@@ -76,6 +76,10 @@ public class ComparisonReportGenerator extends ReportGenerator {
         content.append("<p><strong>Total Comparisons:</strong> ").append(totalComparisons).append("</p>");
         content.append("<p><strong>Matches:</strong> ").append(matches).append("</p>");
         content.append("<p><strong>Mismatches:</strong> ").append(mismatches).append("</p>");
+        long timedOut = comparisonResults.stream().filter(ComparisonResult::isTimedOut).count();
+        if (timedOut > 0) {
+            content.append("<p><strong>Timed Out:</strong> ").append(timedOut).append("</p>");
+        }
         if (totalComparisons > 0) {
             content.append("<p><strong>Match Rate:</strong> ")
                    .append(String.format("%.2f%%", matches * 100.0 / totalComparisons))
@@ -83,19 +87,29 @@ public class ComparisonReportGenerator extends ReportGenerator {
         }
         content.append("</div>");
         
+        boolean showDetails = comparisonResults.stream().anyMatch(result -> result.getDetails() != null);
+        
         content.append("<h2>Comparison Details</h2>");
         content.append("<table>");
-        content.append("<tr><th>Item</th><th>Source Value</th><th>Target Value</th><th>Status</th></tr>");
+        content.append("<tr><th>Item</th><th>Source Value</th><th>Target Value</th><th>Status</th>");
+        if (showDetails) {
+            content.append("<th>Details</th>");
+        }
+        content.append("</tr>");
         
         for (ComparisonResult result : comparisonResults) {
             content.append("<tr>");
             content.append("<td>").append(escapeHtml(result.getItemName())).append("</td>");
             content.append("<td>").append(escapeHtml(String.valueOf(result.getSourceValue()))).append("</td>");
             content.append("<td>").append(escapeHtml(String.valueOf(result.getTargetValue()))).append("</td>");
-            String status = result.isMatch() ? 
+            String status = result.isTimedOut() ?
+                "<span style='color: orange;'>⏱ TIMED_OUT</span>" : result.isMatch() ?
                 "<span style='color: green;'>✓ Match</span>" : 
                 "<span style='color: red;'>✗ Mismatch</span>";
             content.append("<td>").append(status).append("</td>");
+            if (showDetails) {
+                content.append("<td>").append(escapeHtml(result.getDetails())).append("</td>");
+            }
             content.append("</tr>");
         }
         
@@ -121,6 +135,21 @@ public class ComparisonReportGenerator extends ReportGenerator {
         Object getSourceValue();
         Object getTargetValue();
         boolean isMatch();
+
+        /**
+         * Gets optional details about how the result was obtained, shown in an extra report column.
+         */
+        default String getDetails() {
+            return null;
+        }
+
+        /**
+         * Checks whether the comparison was stopped because its deadline passed; see
+         * {@link com.datamigration.framework.connector.Deadline}.
+         */
+        default boolean isTimedOut() {
+            return false;
+        }
     }
 }
 
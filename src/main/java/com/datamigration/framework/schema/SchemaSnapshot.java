@@ -0,0 +1,238 @@
+package com.datamigration.framework.schema;
+
+import com.datamigration.framework.connector.ColumnType;
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable model of the tables, columns, keys and indexes of one database,
+ * as loaded by {@link SchemaSnapshotLoader}. Table lookups ignore case and accept
+ * either a bare or a schema-qualified name.
+ */
+public final class SchemaSnapshot {
+    private final String databaseName;
+    private final String fingerprint;
+    private final long capturedAt;
+    private final List<Table> tables;
+    private final Map<String, Table> tablesByName;
+
+    @JsonCreator
+    public SchemaSnapshot(@JsonProperty("databaseName") String databaseName,
+                          @JsonProperty("fingerprint") String fingerprint,
+                          @JsonProperty("capturedAt") long capturedAt,
+                          @JsonProperty("tables") List<Table> tables) {
+        this.databaseName = databaseName;
+        this.fingerprint = fingerprint;
+        this.capturedAt = capturedAt;
+        this.tables = immutable(tables);
+        this.tablesByName = new HashMap<>();
+        for (Table table : this.tables) {
+            tablesByName.putIfAbsent(table.getName().toLowerCase(), table);
+            tablesByName.put(table.getQualifiedName().toLowerCase(), table);
+        }
+    }
+
+    public String getDatabaseName() { return databaseName; }
+    public String getFingerprint() { return fingerprint; }
+    public long getCapturedAt() { return capturedAt; }
+    public List<Table> getTables() { return tables; }
+
+    /**
+     * Finds a table by bare or schema-qualified name, ignoring case.
+     *
+     * @return The table, or null if the snapshot has no such table
+     */
+    public Table getTable(String tableName) {
+        return tablesByName.get(tableName.toLowerCase());
+    }
+
+    private static <T> List<T> immutable(List<T> list) {
+        return list != null ? Collections.unmodifiableList(new ArrayList<>(list)) : Collections.emptyList();
+    }
+
+    /**
+     * A table with its columns in ordinal order, primary key columns in key order,
+     * indexes and foreign keys.
+     */
+    public static final class Table {
+        private final String schema;
+        private final String name;
+        private final List<Column> columns;
+        private final List<String> primaryKey;
+        private final List<Index> indexes;
+        private final List<ForeignKey> foreignKeys;
+
+        @JsonCreator
+        public Table(@JsonProperty("schema") String schema,
+                     @JsonProperty("name") String name,
+                     @JsonProperty("columns") List<Column> columns,
+                     @JsonProperty("primaryKey") List<String> primaryKey,
+                     @JsonProperty("indexes") List<Index> indexes,
+                     @JsonProperty("foreignKeys") List<ForeignKey> foreignKeys) {
+            this.schema = schema;
+            this.name = name;
+            this.columns = immutable(columns);
+            this.primaryKey = immutable(primaryKey);
+            this.indexes = immutable(indexes);
+            this.foreignKeys = immutable(foreignKeys);
+        }
+
+        public String getSchema() { return schema; }
+        public String getName() { return name; }
+        public List<Column> getColumns() { return columns; }
+        public List<String> getPrimaryKey() { return primaryKey; }
+        public List<Index> getIndexes() { return indexes; }
+        public List<ForeignKey> getForeignKeys() { return foreignKeys; }
+
+        @JsonIgnore
+        public String getQualifiedName() {
+            return schema != null ? schema + "." + name : name;
+        }
+
+        /**
+         * Gets the column names in ordinal order.
+         */
+        @JsonIgnore
+        public List<String> getColumnNames() {
+            List<String> names = new ArrayList<>();
+            for (Column column : columns) {
+                names.add(column.getName());
+            }
+            return names;
+        }
+
+        /**
+         * Gets the columns with their JDBC types in ordinal order, as
+         * {@link com.datamigration.framework.connector.DatabaseConnector#getColumnTypes} returns them.
+         */
+        @JsonIgnore
+        public List<ColumnType> getColumnTypes() {
+            List<ColumnType> types = new ArrayList<>();
+            for (Column column : columns) {
+                types.add(column.toColumnType());
+            }
+            return types;
+        }
+
+        /**
+         * Finds a column by name, ignoring case.
+         *
+         * @return The column, or null if the table has no such column
+         */
+        public Column getColumn(String columnName) {
+            for (Column column : columns) {
+                if (column.getName().equalsIgnoreCase(columnName)) {
+                    return column;
+                }
+            }
+            return null;
+        }
+    }
+
+    /**
+     * A table column as the JDBC driver describes it. The type code and name are the driver's
+     * ({@code DATA_TYPE} and {@code TYPE_NAME}); size and decimal digits are null where they do not
+     * apply to the type.
+     */
+    public static final class Column {
+        private final String name;
+        private final int ordinalPosition;
+        private final int sqlType;
+        private final String dataType;
+        private final Integer size;
+        private final Integer decimalDigits;
+        private final boolean nullable;
+        private final String defaultValue;
+
+        @JsonCreator
+        public Column(@JsonProperty("name") String name,
+                      @JsonProperty("ordinalPosition") int ordinalPosition,
+                      @JsonProperty("sqlType") int sqlType,
+                      @JsonProperty("dataType") String dataType,
+                      @JsonProperty("size") Integer size,
+                      @JsonProperty("decimalDigits") Integer decimalDigits,
+                      @JsonProperty("nullable") boolean nullable,
+                      @JsonProperty("defaultValue") String defaultValue) {
+            this.name = name;
+            this.ordinalPosition = ordinalPosition;
+            this.sqlType = sqlType;
+            this.dataType = dataType;
+            this.size = size;
+            this.decimalDigits = decimalDigits;
+            this.nullable = nullable;
+            this.defaultValue = defaultValue;
+        }
+
+        public String getName() { return name; }
+        public int getOrdinalPosition() { return ordinalPosition; }
+        public int getSqlType() { return sqlType; }
+        public String getDataType() { return dataType; }
+        public Integer getSize() { return size; }
+        public Integer getDecimalDigits() { return decimalDigits; }
+        public boolean isNullable() { return nullable; }
+        public String getDefaultValue() { return defaultValue; }
+
+        public ColumnType toColumnType() {
+            return new ColumnType(name, sqlType, dataType, decimalDigits);
+        }
+    }
+
+    /**
+     * An index and its key columns in key order. Included (non-key) columns are not listed.
+     */
+    public static final class Index {
+        private final String name;
+        private final boolean unique;
+        private final List<String> columns;
+
+        @JsonCreator
+        public Index(@JsonProperty("name") String name,
+                     @JsonProperty("unique") boolean unique,
+                     @JsonProperty("columns") List<String> columns) {
+            this.name = name;
+            this.unique = unique;
+            this.columns = immutable(columns);
+        }
+
+        public String getName() { return name; }
+        public boolean isUnique() { return unique; }
+        public List<String> getColumns() { return columns; }
+    }
+
+    /**
+     * A foreign key; {@code columns} and {@code referencedColumns} are aligned by position.
+     */
+    public static final class ForeignKey {
+        private final String name;
+        private final List<String> columns;
+        private final String referencedSchema;
+        private final String referencedTable;
+        private final List<String> referencedColumns;
+
+        @JsonCreator
+        public ForeignKey(@JsonProperty("name") String name,
+                          @JsonProperty("columns") List<String> columns,
+                          @JsonProperty("referencedSchema") String referencedSchema,
+                          @JsonProperty("referencedTable") String referencedTable,
+                          @JsonProperty("referencedColumns") List<String> referencedColumns) {
+            this.name = name;
+            this.columns = immutable(columns);
+            this.referencedSchema = referencedSchema;
+            this.referencedTable = referencedTable;
+            this.referencedColumns = immutable(referencedColumns);
+        }
+
+        public String getName() { return name; }
+        public List<String> getColumns() { return columns; }
+        public String getReferencedSchema() { return referencedSchema; }
+        public String getReferencedTable() { return referencedTable; }
+        public List<String> getReferencedColumns() { return referencedColumns; }
+    }
+}
@@ -0,0 +1,294 @@
+package com.datamigration.framework.schema;
+
+import com.datamigration.framework.config.ConfigurationManager;
+import com.datamigration.framework.connector.DatabaseConnector;
+import com.datamigration.framework.connector.dialect.SqlDialect;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Loads a {@link SchemaSnapshot} of all user tables with a handful of bulk catalog queries
+ * (tables, columns, primary keys, indexes, foreign keys) instead of one {@code DatabaseMetaData}
+ * call per table. Tables and columns come from one {@code DatabaseMetaData} call each over all
+ * tables, so column types are the driver's, exactly as {@link DatabaseConnector#getColumnTypes}
+ * reads them; primary keys come from {@code INFORMATION_SCHEMA}; indexes, foreign keys and the
+ * fingerprint come from the dialect's catalog queries.
+ *
+ * <p>Snapshots are cached as JSON in the cache directory together with a schema fingerprint.
+ * The fingerprint is a single-row catalog query, so when the schema has not changed a repeat
+ * run costs one round trip plus reading the file.</p>
+ */
+public class SchemaSnapshotLoader {
+    private static final Logger logger = LoggerFactory.getLogger(SchemaSnapshotLoader.class);
+
+    private static final Set<String> SYSTEM_SCHEMAS = Collections.unmodifiableSet(new HashSet<>(
+        Arrays.asList("information_schema", "pg_catalog", "sys")));
+
+    private static final String PRIMARY_KEYS_SQL =
+        "SELECT tc.TABLE_SCHEMA, tc.TABLE_NAME, kcu.COLUMN_NAME "
+            + "FROM INFORMATION_SCHEMA.TABLE_CONSTRAINTS tc JOIN INFORMATION_SCHEMA.KEY_COLUMN_USAGE kcu "
+            + "ON kcu.CONSTRAINT_SCHEMA = tc.CONSTRAINT_SCHEMA AND kcu.CONSTRAINT_NAME = tc.CONSTRAINT_NAME "
+            + "AND kcu.TABLE_SCHEMA = tc.TABLE_SCHEMA AND kcu.TABLE_NAME = tc.TABLE_NAME "
+            + "WHERE tc.CONSTRAINT_TYPE = 'PRIMARY KEY' "
+            + "ORDER BY tc.TABLE_SCHEMA, tc.TABLE_NAME, kcu.ORDINAL_POSITION";
+
+    private final DatabaseConnector connector;
+    private final Path cacheDirectory;
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    /**
+     * Creates a loader that caches snapshots in the configured {@code comparison.schemaCacheDir}.
+     */
+    public SchemaSnapshotLoader(DatabaseConnector connector, ConfigurationManager config) {
+        this(connector, Paths.get(config.getComparisonConfig().getSchemaCacheDir()));
+    }
+
+    /**
+     * @param connector Database to load the schema from
+     * @param cacheDirectory Directory for cached snapshots, or null to always load from the database
+     */
+    public SchemaSnapshotLoader(DatabaseConnector connector, Path cacheDirectory) {
+        this.connector = connector;
+        this.cacheDirectory = cacheDirectory;
+    }
+
+    /**
+     * Returns the cached snapshot if its fingerprint matches the database, otherwise loads
+     * a new snapshot and caches it.
+     */
+    public SchemaSnapshot load() throws SQLException {
+        return refresh(null);
+    }
+
+    /**
+     * Returns {@code current} if its fingerprint still matches the database, otherwise the cached
+     * snapshot if that matches, otherwise a newly loaded and cached snapshot.
+     *
+     * @param current Snapshot already in memory, or null
+     */
+    public SchemaSnapshot refresh(SchemaSnapshot current) throws SQLException {
+        String fingerprint = readFingerprint();
+        if (current != null && fingerprint.equals(current.getFingerprint())) {
+            return current;
+        }
+        SchemaSnapshot cached = readCache();
+        if (cached != null && fingerprint.equals(cached.getFingerprint())) {
+            logger.info("Using cached schema snapshot of {} ({} tables)",
+                connector.getDatabaseName(), cached.getTables().size());
+            return cached;
+        }
+        SchemaSnapshot snapshot = loadFromDatabase(fingerprint);
+        writeCache(snapshot);
+        return snapshot;
+    }
+
+    /**
+     * Loads a snapshot from the database without consulting or updating the cache.
+     */
+    public SchemaSnapshot loadFromDatabase() throws SQLException {
+        return loadFromDatabase(readFingerprint());
+    }
+
+    private SchemaSnapshot loadFromDatabase(String fingerprint) throws SQLException {
+        long start = System.currentTimeMillis();
+        Map<String, TableParts> tables = new LinkedHashMap<>();
+        SqlDialect dialect = connector.getDialect();
+
+        try (ResultSet rs = connector.getAllTables()) {
+            while (rs.next()) {
+                String schema = rs.getString("TABLE_SCHEM");
+                String name = rs.getString("TABLE_NAME");
+                if (schema == null || !SYSTEM_SCHEMAS.contains(schema.toLowerCase(Locale.ROOT))) {
+                    tables.put(key(schema, name), new TableParts(schema, name));
+                }
+            }
+        }
+
+        try (ResultSet rs = connector.queryMetaData(md -> md.getColumns(null, null, "%", "%"))) {
+            while (rs.next()) {
+                TableParts table = tables.get(key(rs.getString("TABLE_SCHEM"), rs.getString("TABLE_NAME")));
+                if (table != null) {
+                    table.columns.add(new SchemaSnapshot.Column(rs.getString("COLUMN_NAME"),
+                        rs.getInt("ORDINAL_POSITION"), rs.getInt("DATA_TYPE"), rs.getString("TYPE_NAME"),
+                        getInteger(rs, "COLUMN_SIZE"), getInteger(rs, "DECIMAL_DIGITS"),
+                        rs.getInt("NULLABLE") != DatabaseMetaData.columnNoNulls, rs.getString("COLUMN_DEF")));
+                }
+            }
+        }
+
+        connector.streamQuery(PRIMARY_KEYS_SQL, rs -> {
+            TableParts table = tables.get(key(rs.getString(1), rs.getString(2)));
+            if (table != null) {
+                table.primaryKey.add(rs.getString(3));
+            }
+        });
+
+        connector.streamQuery(dialect.schemaIndexesQuery(), rs -> {
+            TableParts table = tables.get(key(rs.getString(1), rs.getString(2)));
+            if (table != null) {
+                String indexName = rs.getString(3);
+                boolean unique = rs.getBoolean(4);
+                table.indexColumns.computeIfAbsent(indexName, k -> new ArrayList<>()).add(rs.getString(5));
+                table.uniqueIndexes.put(indexName, unique);
+            }
+        });
+
+        connector.streamQuery(dialect.schemaForeignKeysQuery(), rs -> {
+            TableParts table = tables.get(key(rs.getString(1), rs.getString(2)));
+            if (table != null) {
+                String referencedSchema = rs.getString(5);
+                String referencedTable = rs.getString(6);
+                ForeignKeyParts foreignKey = table.foreignKeys.computeIfAbsent(rs.getString(3),
+                    name -> new ForeignKeyParts(name, referencedSchema, referencedTable));
+                foreignKey.columns.add(rs.getString(4));
+                foreignKey.referencedColumns.add(rs.getString(7));
+            }
+        });
+
+        List<SchemaSnapshot.Table> result = new ArrayList<>();
+        for (TableParts table : tables.values()) {
+            result.add(table.build());
+        }
+        logger.info("Loaded schema snapshot of {} ({} tables) in {} ms", connector.getDatabaseName(),
+            result.size(), System.currentTimeMillis() - start);
+        return new SchemaSnapshot(connector.getDatabaseName(), fingerprint, System.currentTimeMillis(), result);
+    }
+
+    /**
+     * Reads the schema fingerprint with a single catalog query.
+     *
+     * @throws SQLFeatureNotSupportedException If the dialect has no schema catalog queries
+     */
+    public String readFingerprint() throws SQLException {
+        SqlDialect dialect = connector.getDialect();
+        if (!dialect.supports(SqlDialect.Capability.SCHEMA_CATALOG)) {
+            throw new SQLFeatureNotSupportedException(dialect.getName() + " has no schema catalog queries");
+        }
+        try (ResultSet rs = connector.executeQuery(dialect.schemaFingerprintQuery())) {
+            rs.next();
+            return rs.getString(1);
+        }
+    }
+
+    /**
+     * Gets the cache file for this connector's database, or null if caching is disabled.
+     */
+    public Path getCacheFile() {
+        if (cacheDirectory == null) {
+            return null;
+        }
+        String name = connector.getDatabaseType() + "_" + connector.getDatabaseHost() + "_"
+            + connector.getDatabaseName();
+        return cacheDirectory.resolve("schema_" + name.replaceAll("[^A-Za-z0-9._-]", "_") + ".json");
+    }
+
+    private SchemaSnapshot readCache() {
+        Path file = getCacheFile();
+        if (file == null || !Files.isRegularFile(file)) {
+            return null;
+        }
+        try {
+            return mapper.readValue(file.toFile(), SchemaSnapshot.class);
+        } catch (IOException e) {
+            logger.warn("Ignoring unreadable schema cache {}: {}", file, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Writes the snapshot to a temporary file and moves it into place, so a concurrent
+     * reader never sees a partial file.
+     */
+    private void writeCache(SchemaSnapshot snapshot) {
+        Path file = getCacheFile();
+        if (file == null) {
+            return;
+        }
+        try {
+            Files.createDirectories(file.getParent());
+            Path temp = Files.createTempFile(file.getParent(), file.getFileName().toString(), ".tmp");
+            mapper.writeValue(temp.toFile(), snapshot);
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            logger.debug("Cached schema snapshot in {}", file);
+        } catch (IOException e) {
+            logger.warn("Could not cache schema snapshot in {}: {}", file, e.getMessage());
+        }
+    }
+
+    private static String key(String schema, String table) {
+        return schema + "\u0000" + table;
+    }
+
+    private static Integer getInteger(ResultSet rs, String column) throws SQLException {
+        Object value = rs.getObject(column);
+        return value instanceof Number ? ((Number) value).intValue() : null;
+    }
+
+    /**
+     * Mutable table parts collected while the bulk queries stream in.
+     */
+    private static final class TableParts {
+        private final String schema;
+        private final String name;
+        private final List<SchemaSnapshot.Column> columns = new ArrayList<>();
+        private final List<String> primaryKey = new ArrayList<>();
+        private final Map<String, List<String>> indexColumns = new LinkedHashMap<>();
+        private final Map<String, Boolean> uniqueIndexes = new LinkedHashMap<>();
+        private final Map<String, ForeignKeyParts> foreignKeys = new LinkedHashMap<>();
+
+        TableParts(String schema, String name) {
+            this.schema = schema;
+            this.name = name;
+        }
+
+        SchemaSnapshot.Table build() {
+            columns.sort(Comparator.comparingInt(SchemaSnapshot.Column::getOrdinalPosition));
+            List<SchemaSnapshot.Index> indexes = new ArrayList<>();
+            for (Map.Entry<String, List<String>> index : indexColumns.entrySet()) {
+                indexes.add(new SchemaSnapshot.Index(index.getKey(), uniqueIndexes.get(index.getKey()),
+                    index.getValue()));
+            }
+            List<SchemaSnapshot.ForeignKey> keys = new ArrayList<>();
+            for (ForeignKeyParts foreignKey : foreignKeys.values()) {
+                keys.add(new SchemaSnapshot.ForeignKey(foreignKey.name, foreignKey.columns,
+                    foreignKey.referencedSchema, foreignKey.referencedTable, foreignKey.referencedColumns));
+            }
+            return new SchemaSnapshot.Table(schema, name, columns, primaryKey, indexes, keys);
+        }
+    }
+
+    private static final class ForeignKeyParts {
+        private final String name;
+        private final String referencedSchema;
+        private final String referencedTable;
+        private final List<String> columns = new ArrayList<>();
+        private final List<String> referencedColumns = new ArrayList<>();
+
+        ForeignKeyParts(String name, String referencedSchema, String referencedTable) {
+            this.name = name;
+            this.referencedSchema = referencedSchema;
+            this.referencedTable = referencedTable;
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package com.datamigration.framework.analyzer;
+
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Access to virtual threads. This is the Java 21 version, packaged under
+ * {@code META-INF/versions/21} of the multi-release JAR.
+ */
+final class VirtualThreads {
+
+    private VirtualThreads() {
+    }
+
+    static boolean isSupported() {
+        return true;
+    }
+
+    /**
+     * Creates a factory of virtual threads named {@code <name>-worker-<n>}.
+     */
+    static ThreadFactory newThreadFactory(String name) {
+        return Thread.ofVirtual().name(name + "-worker-", 1).factory();
+    }
+}
@@ -282,7 +282,9 @@
                             </#if>
                         </div>
                         <div class="query-status ${(result.error?? && result.error?has_content)?then('status-error', (result.hasDifferences!false)?then('status-diff', 'status-match'))}">
-                            <#if result.error?? && result.error?has_content>
+                            <#if result.timedOut!false>
+                                Timed Out
+                            <#elseif result.error?? && result.error?has_content>
                                 Error
                             <#elseif result.hasDifferences!false>
                                 Differences Found
@@ -310,7 +312,7 @@
                         
                         <#if result.error?? && result.error?has_content>
                             <div class="error-message">
-                                <strong>Error:</strong> ${result.error}
+                                <strong>${(result.timedOut!false)?then('Timed out', 'Error')}:</strong> ${result.error}
                             </div>
                         <#elseif result.hasDifferences!false>
                             <div class="differences">
@@ -0,0 +1,117 @@
+package com.datamigration.framework.connector.dialect;
+
+import com.datamigration.framework.config.ConfigurationManager;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Dialect for the embedded H2 database, so examples can run the comparison engines
+ * without a database server. The configured database name selects an in-memory database
+ * that lives until the JVM exits; host and port are ignored.
+ */
+public class H2Dialect implements SqlDialect {
+
+    private static final Set<Capability> CAPABILITIES = Collections.unmodifiableSet(EnumSet.of(
+        Capability.ROW_HASH, Capability.CATALOG_STATISTICS, Capability.SCHEMA_CATALOG));
+
+    @Override
+    public String getName() {
+        return "H2";
+    }
+
+    @Override
+    public boolean matchesDriver(String driver) {
+        return "h2".equalsIgnoreCase(driver);
+    }
+
+    @Override
+    public String buildConnectionUrl(ConfigurationManager.DatabaseConfig config) {
+        return "jdbc:h2:mem:" + config.getDatabase() + ";DB_CLOSE_DELAY=-1";
+    }
+
+    @Override
+    public Set<Capability> getCapabilities() {
+        return CAPABILITIES;
+    }
+
+    @Override
+    public String quoteIdentifier(String identifier) {
+        return "\"" + identifier.replace("\"", "\"\"") + "\"";
+    }
+
+    @Override
+    public String limitClause(int rows) {
+        return "FETCH FIRST " + rows + " ROWS ONLY";
+    }
+
+    @Override
+    public String rowHashExpression(List<HashColumn> columns) {
+        return "LOWER(RAWTOHEX(" + md5(columns) + "))";
+    }
+
+    @Override
+    public String chunkChecksumQuery(String quotedTable, List<HashColumn> columns, String where) {
+        return "SELECT COUNT(*), SUM(CAST(CAST(SUBSTRING(h, 1, 4) AS INT) AS BIGINT)), "
+            + "SUM(CAST(CAST(SUBSTRING(h, 5, 4) AS INT) AS BIGINT)) FROM (SELECT " + md5(columns)
+            + " AS h FROM " + quotedTable + where + ") hashed";
+    }
+
+    /**
+     * Both sides of the examples are H2, so values are hashed over H2's own text rendering.
+     */
+    private String md5(List<HashColumn> columns) {
+        List<String> parts = new ArrayList<>();
+        for (HashColumn column : columns) {
+            String quoted = quoteIdentifier(column.getName());
+            parts.add("CASE WHEN " + quoted + " IS NULL THEN '0' ELSE '1' || CAST(" + quoted + " AS VARCHAR) END");
+        }
+        return "HASH('MD5', STRINGTOUTF8(CONCAT_WS(CHAR(31), " + String.join(", ", parts) + ")))";
+    }
+
+    @Override
+    public String catalogStatisticsQuery() {
+        return "SELECT TABLE_SCHEMA, TABLE_NAME, ROW_COUNT_ESTIMATE, 0 FROM INFORMATION_SCHEMA.TABLES "
+            + "WHERE TABLE_TYPE = 'BASE TABLE' AND TABLE_SCHEMA <> 'INFORMATION_SCHEMA'";
+    }
+
+    @Override
+    public String schemaIndexesQuery() {
+        return "SELECT i.TABLE_SCHEMA, i.TABLE_NAME, i.INDEX_NAME, i.INDEX_TYPE_NAME <> 'INDEX', c.COLUMN_NAME "
+            + "FROM INFORMATION_SCHEMA.INDEXES i JOIN INFORMATION_SCHEMA.INDEX_COLUMNS c "
+            + "ON c.INDEX_SCHEMA = i.INDEX_SCHEMA AND c.INDEX_NAME = i.INDEX_NAME "
+            + "WHERE i.TABLE_SCHEMA <> 'INFORMATION_SCHEMA' "
+            + "ORDER BY i.TABLE_SCHEMA, i.TABLE_NAME, i.INDEX_NAME, c.ORDINAL_POSITION";
+    }
+
+    @Override
+    public String schemaForeignKeysQuery() {
+        return "SELECT k.TABLE_SCHEMA, k.TABLE_NAME, k.CONSTRAINT_NAME, k.COLUMN_NAME, "
+            + "u.TABLE_SCHEMA, u.TABLE_NAME, u.COLUMN_NAME "
+            + "FROM INFORMATION_SCHEMA.REFERENTIAL_CONSTRAINTS r "
+            + "JOIN INFORMATION_SCHEMA.KEY_COLUMN_USAGE k "
+            + "ON k.CONSTRAINT_SCHEMA = r.CONSTRAINT_SCHEMA AND k.CONSTRAINT_NAME = r.CONSTRAINT_NAME "
+            + "JOIN INFORMATION_SCHEMA.KEY_COLUMN_USAGE u ON u.CONSTRAINT_SCHEMA = r.UNIQUE_CONSTRAINT_SCHEMA "
+            + "AND u.CONSTRAINT_NAME = r.UNIQUE_CONSTRAINT_NAME AND u.ORDINAL_POSITION = k.POSITION_IN_UNIQUE_CONSTRAINT "
+            + "ORDER BY k.TABLE_SCHEMA, k.TABLE_NAME, k.CONSTRAINT_NAME, k.ORDINAL_POSITION";
+    }
+
+    /**
+     * H2 keeps no DDL timestamps, so the fingerprint hashes the catalog rows of columns
+     * (including defaults), constraints and indexes.
+     */
+    @Override
+    public String schemaFingerprintQuery() {
+        return "SELECT LOWER(RAWTOHEX(HASH('MD5', STRINGTOUTF8(COALESCE(LISTAGG(d, ',') WITHIN GROUP (ORDER BY d), ''))))) "
+            + "FROM (SELECT CONCAT_WS('.', 'a', TABLE_SCHEMA, TABLE_NAME, COLUMN_NAME, ORDINAL_POSITION, DATA_TYPE, "
+            + "CHARACTER_MAXIMUM_LENGTH, NUMERIC_PRECISION, NUMERIC_SCALE, DATETIME_PRECISION, IS_NULLABLE, "
+            + "COLUMN_DEFAULT) AS d FROM INFORMATION_SCHEMA.COLUMNS WHERE TABLE_SCHEMA <> 'INFORMATION_SCHEMA' "
+            + "UNION ALL SELECT CONCAT_WS('.', 'c', CONSTRAINT_SCHEMA, CONSTRAINT_NAME, CONSTRAINT_TYPE, TABLE_NAME) "
+            + "FROM INFORMATION_SCHEMA.TABLE_CONSTRAINTS WHERE CONSTRAINT_SCHEMA <> 'INFORMATION_SCHEMA' "
+            + "UNION ALL SELECT CONCAT_WS('.', 'i', INDEX_SCHEMA, INDEX_NAME, TABLE_NAME) "
+            + "FROM INFORMATION_SCHEMA.INDEXES WHERE INDEX_SCHEMA <> 'INFORMATION_SCHEMA') catalog_rows";
+    }
+}
@@ -5,10 +5,15 @@ import com.datamigration.framework.connector.DynamoDBConnector;
 import com.datamigration.framework.reporting.ComparisonReportGenerator;
 import org.testng.annotations.*;
 import org.testng.Assert;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
 
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
 
 /**
  * TestNG test for comparing DynamoDB table item counts between source and target.
@@ -72,6 +77,55 @@ public class DynamoDBComparisonTest {
         }
     }
 
+    @Test(description = "A parallel segmented scan streams every item exactly once", dependsOnMethods = "testDynamoDBConnections")
+    public void testSegmentedScan() throws Exception {
+        try (DynamoDBConnector source = new DynamoDBConnector(config, DynamoDBConnector.DynamoDBType.SOURCE)) {
+            for (String tableName : tablesToCompare) {
+                Set<Map<String, ?>> seen = ConcurrentHashMap.newKeySet();
+                long scanned = source.scanTable(tableName, seen::add);
+
+                Assert.assertEquals(seen.size(), scanned, "No item of " + tableName + " should be scanned twice");
+                Assert.assertEquals(scanned, source.scanTable(tableName).size());
+                Assert.assertEquals(source.getTableItemCount(tableName, DynamoDBConnector.CountMode.EXACT), scanned);
+            }
+        }
+    }
+
+    @Test(description = "A streamed scan yields the same items while loading pages ahead", dependsOnMethods = "testSegmentedScan")
+    public void testStreamedScan() throws Exception {
+        try (DynamoDBConnector source = new DynamoDBConnector(config, DynamoDBConnector.DynamoDBType.SOURCE)) {
+            for (String tableName : tablesToCompare) {
+                long streamed;
+                try (Stream<Map<String, AttributeValue>> items = source.streamTable(tableName)) {
+                    streamed = items.count();
+                }
+                Assert.assertEquals(streamed, source.getTableItemCount(tableName, DynamoDBConnector.CountMode.EXACT));
+
+                try (Stream<Map<String, AttributeValue>> items = source.streamTable(tableName)) {
+                    Assert.assertEquals(items.limit(1).count(), Math.min(1, streamed));
+                }
+                Assert.assertTrue(awaitStreamThreadsEnded(10_000), "Closing a partly read stream stops the scan");
+            }
+        }
+    }
+
+    /**
+     * Waits until no {@code dynamodb-stream-*} producer thread is alive.
+     *
+     * @return Whether they all ended within the timeout
+     */
+    private static boolean awaitStreamThreadsEnded(long timeoutMillis) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        while (Thread.getAllStackTraces().keySet().stream()
+                .anyMatch(thread -> thread.isAlive() && thread.getName().startsWith("dynamodb-stream-"))) {
+            if (System.currentTimeMillis() >= deadline) {
+                return false;
+            }
+            Thread.sleep(50);
+        }
+        return true;
+    }
+
     /**
      * Helper class for DynamoDB comparison.
      */
@@ -112,7 +166,8 @@ public class DynamoDBComparisonTest {
                     DynamoDBCountResult result = new DynamoDBCountResult(
                         tableName,
                         sourceCount,
-                        targetCount
+                        targetCount,
+                        source.getCountMode()
                     );
                     
                     results.add(result);
@@ -145,11 +200,14 @@ public class DynamoDBComparisonTest {
             private final String tableName;
             private final long sourceCount;
             private final long targetCount;
+            private final DynamoDBConnector.CountMode countMode;
 
-            public DynamoDBCountResult(String tableName, long sourceCount, long targetCount) {
+            public DynamoDBCountResult(String tableName, long sourceCount, long targetCount,
+                                       DynamoDBConnector.CountMode countMode) {
                 this.tableName = tableName;
                 this.sourceCount = sourceCount;
                 this.targetCount = targetCount;
+                this.countMode = countMode;
             }
 
             @Override
@@ -167,6 +225,12 @@ public class DynamoDBComparisonTest {
                 return targetCount;
             }
 
+            @Override
+            public String getDetails() {
+                return countMode == DynamoDBConnector.CountMode.FAST
+                    ? "DescribeTable item count (refreshed about every 6 hours)" : "Exact count (segmented scan)";
+            }
+
             @Override
             public boolean isMatch() {
                 return sourceCount == targetCount && sourceCount >= 0;
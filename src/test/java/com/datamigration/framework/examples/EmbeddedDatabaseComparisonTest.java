@@ -0,0 +1,826 @@
+package com.datamigration.framework.examples;
+
+import com.datamigration.framework.analyzer.CheckpointJournal;
+import com.datamigration.framework.analyzer.ChunkChecksumAnalyzer;
+import com.datamigration.framework.analyzer.ColumnMapping;
+import com.datamigration.framework.analyzer.ColumnProfileAnalyzer;
+import com.datamigration.framework.analyzer.ComparisonExecutors;
+import com.datamigration.framework.analyzer.ColumnProfileResult;
+import com.datamigration.framework.analyzer.CustomerValidationAnalyzer;
+import com.datamigration.framework.analyzer.CustomerValidationResult;
+import com.datamigration.framework.analyzer.IncrementalRowDiffAnalyzer;
+import com.datamigration.framework.analyzer.ParallelCountAnalyzer;
+import com.datamigration.framework.analyzer.QueryComparisonResult;
+import com.datamigration.framework.analyzer.QueryPairAnalyzer;
+import com.datamigration.framework.analyzer.RowDiffAnalyzer;
+import com.datamigration.framework.analyzer.RowDiffResult;
+import com.datamigration.framework.analyzer.RowDifference;
+import com.datamigration.framework.analyzer.RowMergeDiff;
+import com.datamigration.framework.analyzer.SampleComparisonResult;
+import com.datamigration.framework.analyzer.SamplingAnalyzer;
+import com.datamigration.framework.analyzer.TableCountResult;
+import com.datamigration.framework.analyzer.ValueComparator;
+import com.datamigration.framework.config.ConfigurationManager;
+import com.datamigration.framework.connector.AdaptiveConcurrencyLimiter;
+import com.datamigration.framework.connector.ColumnType;
+import com.datamigration.framework.connector.DatabaseConnector;
+import com.datamigration.framework.connector.Deadline;
+import com.datamigration.framework.connector.DeadlineExceededException;
+import com.datamigration.framework.connector.KeyRange;
+import com.datamigration.framework.connector.KeysetCursor;
+import com.datamigration.framework.connector.RowEncoder;
+import com.datamigration.framework.connector.dialect.HashColumn;
+import com.datamigration.framework.connector.dialect.SqlDialect;
+import com.datamigration.framework.connector.dialect.SqlServerDialect;
+import com.datamigration.framework.reporting.ComparisonReportGenerator;
+import com.datamigration.framework.schema.SchemaSnapshot;
+import com.datamigration.framework.schema.SchemaSnapshotLoader;
+import org.testng.Assert;
+import org.testng.SkipException;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * TestNG example that runs the row-level comparison engines against two embedded H2
+ * databases, so it needs no database server. The target is a copy of the source with
+ * one row deleted, one row added and two rows changed.
+ */
+public class EmbeddedDatabaseComparisonTest {
+
+    private static final int ROWS = 200;
+
+    private static ConfigurationManager config;
+    private static DatabaseConnector source;
+    private static DatabaseConnector target;
+
+    @BeforeClass
+    public static void setUpClass() throws Exception {
+        config = new ConfigurationManager("h2-application.yaml");
+        source = new DatabaseConnector(config, DatabaseConnector.DatabaseType.SOURCE);
+        target = new DatabaseConnector(config, DatabaseConnector.DatabaseType.TARGET);
+
+        for (DatabaseConnector connector : new DatabaseConnector[]{source, target}) {
+            connector.executeUpdate("DROP TABLE IF EXISTS ORDERS");
+            connector.executeUpdate("CREATE TABLE ORDERS (ID INT PRIMARY KEY, CUSTOMER VARCHAR(40), AMOUNT DECIMAL(10, 2))");
+            for (int id = 1; id <= ROWS; id++) {
+                connector.executeUpdate("INSERT INTO ORDERS VALUES (?, ?, ?)",
+                    id, "customer-" + (id % 17), new BigDecimal(id).movePointLeft(1));
+            }
+        }
+        target.executeUpdate("DELETE FROM ORDERS WHERE ID = ?", 5);
+        target.executeUpdate("INSERT INTO ORDERS VALUES (?, ?, ?)", 1000, "customer-new", BigDecimal.ONE);
+        target.executeUpdate("UPDATE ORDERS SET AMOUNT = AMOUNT + 1 WHERE ID IN (?, ?)", 50, 150);
+
+        // A log table without primary key; the source holds one duplicate row more than the target
+        for (DatabaseConnector connector : new DatabaseConnector[]{source, target}) {
+            connector.executeUpdate("DROP TABLE IF EXISTS ORDER_EVENTS");
+            connector.executeUpdate("CREATE TABLE ORDER_EVENTS (ORDER_ID INT, EVENT VARCHAR(20))");
+            for (int id = 1; id <= ROWS; id++) {
+                connector.executeUpdate("INSERT INTO ORDER_EVENTS VALUES (?, ?)", id, "created");
+            }
+        }
+        source.executeUpdate("INSERT INTO ORDER_EVENTS VALUES (?, ?)", 7, "created");
+        target.executeUpdate("INSERT INTO ORDER_EVENTS VALUES (?, ?)", 7, "shipped");
+    }
+
+    @AfterClass
+    public static void tearDownClass() {
+        source.close();
+        target.close();
+    }
+
+    @Test(description = "The h2 driver setting resolves to the H2 dialect registered in src/test")
+    public void testDialectResolution() {
+        SqlDialect dialect = source.getDialect();
+        Assert.assertEquals(dialect.getName(), "H2");
+        Assert.assertTrue(dialect.supports(SqlDialect.Capability.ROW_HASH));
+        Assert.assertFalse(dialect.supports(SqlDialect.Capability.TABLE_SAMPLE));
+        Assert.assertEquals(source.quoteTableName("PUBLIC.ORDERS"), "\"PUBLIC\".\"ORDERS\"");
+    }
+
+    @Test(description = "Exact counts without size hints read catalog sizes for scheduling and still count every table exactly")
+    public void testParallelExactCounts() throws Exception {
+        try (ParallelCountAnalyzer analyzer = new ParallelCountAnalyzer(config, Arrays.asList("ORDERS", "ORDER_EVENTS"))) {
+            List<TableCountResult> results = analyzer.countTables();
+            Assert.assertEquals(results.get(0).getItemName(), "ORDERS", "Results keep the order the tables were given");
+            Assert.assertEquals(results.get(0).getSourceCount(), ROWS);
+            Assert.assertEquals(results.get(0).getTargetCount(), ROWS, "One row was deleted and one added");
+            Assert.assertEquals(results.get(1).getSourceCount(), ROWS + 1);
+            Assert.assertEquals(results.get(1).getTargetCount(), ROWS + 1);
+            for (TableCountResult result : results) {
+                Assert.assertEquals(result.getCountMode(), TableCountResult.CountMode.EXACT);
+            }
+        }
+    }
+
+    @Test(description = "Merge-join row diff finds every missing, extra and changed row")
+    public void testRowDiff() throws Exception {
+        try (RowDiffAnalyzer analyzer = new RowDiffAnalyzer(config, Collections.singletonList("ORDERS"))) {
+            assertDifferences(analyzer.compare());
+        }
+    }
+
+    @Test(description = "Chunk checksums narrow the differences down to the same rows")
+    public void testChunkChecksum() throws Exception {
+        try (ChunkChecksumAnalyzer analyzer = new ChunkChecksumAnalyzer(config, Collections.singletonList("ORDERS"))) {
+            assertDifferences(analyzer.compare());
+        }
+    }
+
+    @Test(description = "Tables without primary key are diffed as multisets through spilled hash partitions")
+    public void testKeylessHashPartitionDiff() throws Exception {
+        try (RowDiffAnalyzer analyzer = new RowDiffAnalyzer(config, Collections.singletonList("ORDER_EVENTS"))) {
+            RowDiffResult result = analyzer.diffTable("ORDER_EVENTS");
+            Assert.assertNull(result.getError(), "Comparison should not fail");
+            Assert.assertEquals(result.getSourceRows(), ROWS + 1);
+            Assert.assertEquals(result.getTargetRows(), ROWS + 1);
+            Assert.assertEquals(result.getMissingInTarget(), 1, "The duplicate (7, created) exists once in the target");
+            Assert.assertEquals(result.getExtraInTarget(), 1, "(7, shipped) exists only in the target");
+            Assert.assertEquals(result.getChangedRows(), 0);
+        }
+    }
+
+    @Test(description = "Keyed tables that row diff and chunk checksums cannot merge-join fall back to hash partitions")
+    public void testKeyedHashPartitionFallback() throws Exception {
+        // The target's case-insensitive key sorts 'a' before 'B', which the merge-join cannot follow
+        source.executeUpdate("DROP TABLE IF EXISTS CODES");
+        source.executeUpdate("CREATE TABLE CODES (CODE VARCHAR(10) PRIMARY KEY, LABEL VARCHAR(20), PRICE DECIMAL(10, 2))");
+        target.executeUpdate("DROP TABLE IF EXISTS CODES");
+        target.executeUpdate("CREATE TABLE CODES (CODE VARCHAR_IGNORECASE(10) PRIMARY KEY, LABEL VARCHAR(20), PRICE DECIMAL(10, 4))");
+        source.executeUpdate("INSERT INTO CODES VALUES ('A', 'alpha', 1.50), ('b', 'beta', 2.00), ('c', 'gamma', 3.00)");
+        target.executeUpdate("INSERT INTO CODES VALUES ('a', 'alpha', 1.5000), ('B', 'beta  ', 2.0000), ('c', 'gamma', 3.5000)");
+
+        try (RowDiffAnalyzer analyzer = new RowDiffAnalyzer(config, Collections.singletonList("CODES"))) {
+            assertCodesDifferences(analyzer.diffTable("CODES"));
+        }
+        try (ChunkChecksumAnalyzer analyzer = new ChunkChecksumAnalyzer(config, Collections.singletonList("CODES"))) {
+            assertCodesDifferences(analyzer.compareTable("CODES"));
+        }
+    }
+
+    private static void assertCodesDifferences(RowDiffResult result) {
+        List<RowDifference> found = result.getSampleDifferences();
+        Assert.assertNull(result.getError(), "Comparison should not fail");
+        Assert.assertEquals(result.getMissingInTarget(), 0, "Keys differing only in case match: " + found);
+        Assert.assertEquals(result.getExtraInTarget(), 0, "Keys differing only in case match: " + found);
+        Assert.assertEquals(result.getChangedRows(), 1, "Only the price of c changed: " + found);
+        Assert.assertEquals(found.get(0).getKey()[0], "c");
+        Assert.assertEquals(found.get(0).getChangedColumns(), Collections.singletonList("PRICE"));
+    }
+
+    @Test(description = "A second incremental run re-checks only rows whose watermark moved and earlier differences")
+    public void testIncrementalRowDiff() throws Exception {
+        // VERSION is the watermark; it differs between the databases and is not compared
+        for (DatabaseConnector connector : new DatabaseConnector[]{source, target}) {
+            connector.executeUpdate("DROP TABLE IF EXISTS PAYMENTS");
+            connector.executeUpdate("CREATE TABLE PAYMENTS (ID INT PRIMARY KEY, AMOUNT INT, VERSION BIGINT)");
+            long versionOffset = connector == source ? 0 : 1000;
+            for (int id = 1; id <= 100; id++) {
+                connector.executeUpdate("INSERT INTO PAYMENTS VALUES (?, ?, ?)", id, id * 10, id + versionOffset);
+            }
+        }
+        target.executeUpdate("UPDATE PAYMENTS SET AMOUNT = 0, VERSION = 2000 WHERE ID = ?", 10);
+
+        // State is loaded when the analyzer is created, so clear it from earlier runs first
+        Path stateDir = Paths.get(config.getComparisonConfig().getIncrementalStateDir());
+        if (Files.isDirectory(stateDir)) {
+            try (Stream<Path> files = Files.list(stateDir)) {
+                for (Path file : files.collect(Collectors.toList())) {
+                    Files.delete(file);
+                }
+            }
+        }
+        try (IncrementalRowDiffAnalyzer analyzer = new IncrementalRowDiffAnalyzer(config,
+                Collections.singletonList("PAYMENTS"))) {
+            Assert.assertFalse(analyzer.supportsCheckpoints());
+            analyzer.setJobId("incremental-job");
+            Assert.assertNull(analyzer.getJobId(), "The job id is ignored");
+            RowDiffResult result = analyzer.diffTable("PAYMENTS");
+            Assert.assertNull(result.getError(), "Comparison should not fail");
+            Assert.assertEquals(result.getChangedRows(), 1, "Row 10 differs");
+            Assert.assertTrue(Files.isRegularFile(analyzer.getStateFile()), "The verdict is persisted");
+        }
+
+        target.executeUpdate("UPDATE PAYMENTS SET AMOUNT = 100, VERSION = 2001 WHERE ID = ?", 10);
+        source.executeUpdate("UPDATE PAYMENTS SET AMOUNT = 1, VERSION = 101 WHERE ID = ?", 20);
+        source.executeUpdate("INSERT INTO PAYMENTS VALUES (?, ?, ?)", 101, 1010, 102);
+        // Written without moving the watermark, so only a full diff would see it
+        target.executeUpdate("UPDATE PAYMENTS SET AMOUNT = 0 WHERE ID = ?", 30);
+        // Committed late with the source watermark the first run saved
+        source.executeUpdate("UPDATE PAYMENTS SET AMOUNT = 7, VERSION = 100 WHERE ID = ?", 40);
+
+        try (IncrementalRowDiffAnalyzer analyzer = new IncrementalRowDiffAnalyzer(config,
+                Collections.singletonList("PAYMENTS"))) {
+            RowDiffResult result = analyzer.diffTable("PAYMENTS");
+            Assert.assertNull(result.getError(), "Comparison should not fail");
+            Assert.assertEquals(result.getSourceRows(), 101);
+            Assert.assertEquals(result.getTargetRows(), 100);
+            Assert.assertEquals(result.getMissingInTarget(), 1, "Row 101 was added to the source");
+            Assert.assertEquals(result.getChangedRows(), 2,
+                "Row 10 was fixed and rows 20 and 40 changed; row 30 is not re-read");
+            Assert.assertEquals(result.getSampleDifferences().get(0).getKey()[0], 20);
+            Assert.assertEquals(result.getSampleDifferences().get(1).getKey()[0], 40, "Stamped at the saved watermark");
+        }
+
+        // Committed late with a version below the saved source watermark 102, but within the safety lag
+        source.executeUpdate("UPDATE PAYMENTS SET AMOUNT = 5, VERSION = 98 WHERE ID = ?", 50);
+        ConfigurationManager.ComparisonConfig comparisonConfig = config.getComparisonConfig();
+        comparisonConfig.setWatermarkSafetyLag(5L);
+        try (IncrementalRowDiffAnalyzer analyzer = new IncrementalRowDiffAnalyzer(config,
+                Collections.singletonList("PAYMENTS"))) {
+            RowDiffResult result = analyzer.diffTable("PAYMENTS");
+            Assert.assertNull(result.getError(), "Comparison should not fail");
+            Assert.assertEquals(result.getChangedRows(), 3, "Row 50 is read again from the lagged watermark");
+            Assert.assertEquals(result.getSampleDifferences().get(2).getKey()[0], 50);
+        } finally {
+            comparisonConfig.setWatermarkSafetyLag(null);
+        }
+    }
+
+    @Test(description = "A run with the job id of an interrupted run diffs only the key ranges not yet checkpointed")
+    public void testCheckpointResume() throws Exception {
+        String jobId = "resume-test";
+        Path checkpointDir = Paths.get(config.getComparisonConfig().getCheckpointDir());
+        Files.deleteIfExists(checkpointDir.resolve(jobId + ".journal"));
+
+        // Checkpoint left behind by a run interrupted after key 100
+        List<String> keyColumns = Collections.singletonList("ID");
+        RowDiffResult firstHalf = new RowDiffResult("ORDERS", 100);
+        firstHalf.addRowCounts(100, 99);
+        firstHalf.record(RowDifference.missingInTarget("ORDERS", keyColumns, new Object[]{5}));
+        firstHalf.record(new RowDifference("ORDERS", RowDifference.Type.CHANGED, keyColumns, new Object[]{50},
+            Collections.singletonList("AMOUNT"), Collections.singletonList(new BigDecimal("5.0")),
+            Collections.singletonList(new BigDecimal("6.0"))));
+        try (CheckpointJournal journal = CheckpointJournal.open(checkpointDir, jobId)) {
+            journal.recordRange("ORDERS", new KeyRange(null, new Object[]{100}), firstHalf);
+        }
+
+        List<RowDifference> found = Collections.synchronizedList(new ArrayList<>());
+        try (RowDiffAnalyzer analyzer = new RowDiffAnalyzer(config, Collections.singletonList("ORDERS"), found::add)) {
+            analyzer.setJobId(jobId);
+            assertDifferences(Collections.singletonList(analyzer.diffTable("ORDERS")));
+            Assert.assertEquals(found.size(), 2, "Only rows 150 and 1000 lie after the checkpoint: " + found);
+        }
+
+        found.clear();
+        try (RowDiffAnalyzer analyzer = new RowDiffAnalyzer(config, Collections.singletonList("ORDERS"), found::add)) {
+            analyzer.setJobId(jobId);
+            RowDiffResult result = analyzer.diffTable("ORDERS");
+            assertDifferences(Collections.singletonList(result));
+            Assert.assertEquals(result.getSourceRows(), ROWS);
+            Assert.assertTrue(found.isEmpty(), "The finished table is restored from the journal");
+        }
+    }
+
+    @Test(description = "Configured query pairs are compared by key or position, and a failing query is reported as error")
+    public void testQueryPairs() throws Exception {
+        try (QueryPairAnalyzer analyzer = new QueryPairAnalyzer(config)) {
+            List<QueryComparisonResult> results = analyzer.compareQueries();
+            Assert.assertEquals(results.size(), 3);
+
+            QueryComparisonResult amounts = results.get(0);
+            Assert.assertEquals(amounts.getStatus(), QueryComparisonResult.Status.FAIL);
+            Assert.assertEquals(amounts.getSourceRowCount(), ROWS);
+            Assert.assertEquals(amounts.getTargetRowCount(), ROWS);
+            Assert.assertEquals(amounts.getMissingInTarget(), 1, "Row 5 is missing in the target");
+            Assert.assertEquals(amounts.getExtraInTarget(), 1, "Row 1000 exists only in the target");
+            Assert.assertEquals(amounts.getChangedRows(), 2, "Rows 50 and 150 were changed");
+            Assert.assertEquals(amounts.getMismatchedColumns(), Collections.singletonList("AMOUNT"));
+            QueryComparisonResult.MismatchDetail changed = amounts.getMismatchDetails().get(1);
+            Assert.assertEquals(changed.getRowNumber(), 50);
+            Assert.assertEquals(changed.getDifference(), "+1.00");
+
+            Assert.assertEquals(results.get(1).getStatus(), QueryComparisonResult.Status.PASS,
+                "Rows above 150 are unchanged: " + results.get(1).getDifferences());
+            Assert.assertEquals(results.get(2).getStatus(), QueryComparisonResult.Status.ERROR);
+            Assert.assertNotNull(results.get(2).getError());
+        }
+    }
+
+    @Test(description = "Customers are validated in batches and only those owning a changed row fail")
+    public void testCustomerValidation() throws Exception {
+        try (CustomerValidationAnalyzer analyzer = new CustomerValidationAnalyzer(config)) {
+            List<CustomerValidationResult> customers = analyzer.validateCustomers();
+            Assert.assertEquals(customers.size(), 17, "customer-new exists only in the target");
+
+            List<String> failed = new ArrayList<>();
+            long orders = 0;
+            for (CustomerValidationResult customer : customers) {
+                Assert.assertEquals(customer.countByStatus(QueryComparisonResult.Status.ERROR), 0,
+                    customer.getCustomerName() + ": " + customer.getQueryResults().get(0).getDetails());
+                if (!customer.isMatch()) {
+                    failed.add(customer.getCustomerName());
+                }
+                orders += customer.getQueryResults().get(0).getSourceRowCount();
+            }
+            Assert.assertEquals(orders, ROWS);
+            Assert.assertEquals(failed, Arrays.asList("customer-14", "customer-16", "customer-5"),
+                "Row 5 of customer-5 is missing, rows 150 and 50 were changed");
+
+            CustomerValidationResult customer5 = customers.stream()
+                .filter(customer -> customer.getCustomerId().equals("customer-5")).findFirst().get();
+            Assert.assertEquals(customer5.getQueryResults().get(0).getMissingInTarget(), 1);
+            Assert.assertEquals(customer5.getQueryResults().get(1).getChangedRows(), 1, "Its order count dropped");
+        }
+    }
+
+    @Test(description = "The adaptive concurrency limit grows while latency is flat and halves on timeouts")
+    public void testAdaptiveConcurrency() throws Exception {
+        for (int i = 0; i < 20; i++) {
+            Assert.assertEquals(source.getTableRowCount("ORDERS"), ROWS);
+        }
+        AdaptiveConcurrencyLimiter.LimiterMetrics metrics = source.getConcurrencyMetrics();
+        Assert.assertNotNull(metrics, "adaptiveConcurrency is enabled for the source");
+        Assert.assertNull(target.getConcurrencyMetrics());
+        Assert.assertTrue(metrics.getSamples() >= 20, metrics.toString());
+        Assert.assertTrue(metrics.getIncreases() > 0, metrics.toString());
+        Assert.assertTrue(metrics.getLimit() <= 3, "Capped at maxConcurrency: " + metrics);
+        Assert.assertEquals(metrics.getInFlight(), 0);
+
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter("test", 1, 8, 2.0);
+        long start = System.nanoTime();
+        for (int i = 0; i < 8; i++) {
+            limiter.acquire(1000);
+            limiter.onSuccess(start);
+        }
+        Assert.assertEquals(limiter.getMetrics().getLimit(), 8, "Each busy sample adds one up to the ceiling");
+
+        long slowStart = System.nanoTime();
+        limiter.onError(slowStart, new SQLTimeoutException("Query timed out"));
+        limiter.onError(slowStart, new SQLTimeoutException("Query timed out"));
+        Assert.assertEquals(limiter.getMetrics().getLimit(), 4, "Queries running at the cut count once");
+        limiter.onError(System.nanoTime(), new SQLException("Syntax error", "42000"));
+        Assert.assertEquals(limiter.getMetrics().getLimit(), 4, "Errors unrelated to load are ignored");
+    }
+
+    @Test(description = "Parallel range diffs on an adaptive source take a slot per page, not per held cursor")
+    public void testParallelRangeDiffWithAdaptiveConcurrency() throws Exception {
+        try (ObservedRowDiffAnalyzer analyzer = new ObservedRowDiffAnalyzer(Collections.singletonList("ORDERS"));
+             KeysetCursor held = new KeysetCursor(analyzer.getSourceConnector(), "ORDERS",
+                 Collections.singletonList("ID"), Collections.singletonList("AMOUNT"), 25)) {
+            Assert.assertTrue(held.next());
+            AdaptiveConcurrencyLimiter.LimiterMetrics metrics = analyzer.getSourceConnector().getConcurrencyMetrics();
+            Assert.assertEquals(metrics.getInFlight(), 0, "An open cursor holds no slot between pages");
+
+            assertDifferences(Collections.singletonList(analyzer.diffTable("ORDERS")));
+            metrics = analyzer.getSourceConnector().getConcurrencyMetrics();
+            Assert.assertTrue(metrics.getSamples() >= 16, "Each range's pages report their latency: " + metrics);
+            Assert.assertEquals(metrics.getInFlight(), 0);
+            Assert.assertEquals(metrics.getRejections(), 0, metrics.toString());
+        }
+    }
+
+    @Test(description = "A failing key range stops the other ranges, which finish before the diff returns")
+    public void testParallelRangeDiffFailure() throws Exception {
+        for (DatabaseConnector connector : new DatabaseConnector[]{source, target}) {
+            connector.executeUpdate("DROP TABLE IF EXISTS SHIPMENTS");
+            connector.executeUpdate("CREATE TABLE SHIPMENTS (ID INT PRIMARY KEY, STATUS VARCHAR(20))");
+            connector.executeUpdate("INSERT INTO SHIPMENTS SELECT X, ? FROM SYSTEM_RANGE(1, 2000)",
+                connector == source ? "sent" : "delivered");
+        }
+        String jobId = "failing-range-test";
+        Path journalFile = Paths.get(config.getComparisonConfig().getCheckpointDir()).resolve(jobId + ".journal");
+        Files.deleteIfExists(journalFile);
+
+        // Every row differs; the range holding key 1 fails on its first difference, the others are slow
+        AtomicInteger calls = new AtomicInteger();
+        RowMergeDiff.RowDiffListener listener = difference -> {
+            calls.incrementAndGet();
+            if (((Number) difference.getKey()[0]).intValue() == 1) {
+                throw new IllegalStateException("listener failed");
+            }
+            try {
+                Thread.sleep(2);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        };
+        try (RowDiffAnalyzer analyzer = new RowDiffAnalyzer(config, Collections.singletonList("SHIPMENTS"), listener)) {
+            analyzer.setJobId(jobId);
+            RowDiffResult result = analyzer.diffTable("SHIPMENTS");
+            Assert.assertNotNull(result.getError());
+            Assert.assertTrue(result.getError().contains("listener failed"), result.getError());
+
+            int callsOnReturn = calls.get();
+            long journalSizeOnReturn = Files.size(journalFile);
+            Assert.assertTrue(callsOnReturn < 2000, "Ranges stopped early: " + callsOnReturn);
+            Thread.sleep(500);
+            Assert.assertEquals(calls.get(), callsOnReturn, "No listener call after the diff returned");
+            Assert.assertEquals(Files.size(journalFile), journalSizeOnReturn, "No journal record after the diff returned");
+        }
+    }
+
+    @Test(description = "A passed deadline stops queries up front, cancels a running one and marks the table TIMED_OUT")
+    public void testDeadlines() throws Exception {
+        Deadline expired = Deadline.after("test", 0);
+        try (Deadline.Scope ignored = expired.bind()) {
+            Assert.assertThrows(DeadlineExceededException.class, () -> source.getTableRowCount("ORDERS"));
+            try (RowDiffAnalyzer analyzer = new RowDiffAnalyzer(config, Collections.singletonList("ORDERS"))) {
+                RowDiffResult result = analyzer.diffTable("ORDERS");
+                Assert.assertTrue(result.isTimedOut(), result.toString());
+                Assert.assertFalse(result.isMatch());
+            }
+        }
+        Assert.assertFalse(Deadline.current().isBounded(), "Closing the scope unbinds the deadline");
+
+        Deadline deadline = Deadline.after("slow query", 300);
+        long start = System.nanoTime();
+        try (Deadline.Scope ignored = deadline.bind()) {
+            Assert.assertThrows(SQLException.class, () -> target.streamQuery(
+                "SELECT COUNT(*) FROM SYSTEM_RANGE(1, 100000) A, SYSTEM_RANGE(1, 100000) B", row -> { }));
+        }
+        Assert.assertTrue(deadline.isExpired());
+        Assert.assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(5), "The query was cancelled");
+        Assert.assertEquals(target.getTableRowCount("ORDERS"), ROWS, "Later queries run without the deadline");
+    }
+
+    @Test(description = "A deadline passing partway through a keyset scan stops the row diff at the next page")
+    public void testDeadlineDuringScan() throws Exception {
+        AtomicBoolean stalled = new AtomicBoolean();
+        RowMergeDiff.RowDiffListener slowListener = difference -> {
+            if (stalled.compareAndSet(false, true)) {
+                try {
+                    Thread.sleep(600);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        };
+        List<String> keys = Collections.singletonList("ID");
+        List<String> values = Arrays.asList("CUSTOMER", "AMOUNT");
+        RowMergeDiff mergeDiff = new RowMergeDiff("ORDERS", Arrays.asList("ID", "CUSTOMER", "AMOUNT"), 1, slowListener);
+        RowDiffResult result = new RowDiffResult("ORDERS", 10);
+        try (Deadline.Scope ignored = Deadline.after("scan", 300).bind();
+             KeysetCursor sourceRows = new KeysetCursor(source, "ORDERS", keys, values, 25);
+             KeysetCursor targetRows = new KeysetCursor(target, "ORDERS", keys, values, 25)) {
+            Assert.assertThrows(DeadlineExceededException.class, () -> mergeDiff.diff(sourceRows, targetRows, result));
+            Assert.assertTrue(stalled.get(), "The difference at row 5 stalls the scan");
+            Assert.assertEquals(sourceRows.getRowsRead(), 25, "The scan stops before its second page");
+        }
+    }
+
+    /**
+     * On JDK 21 the java21 profile puts the Java 21 classes first on the test classpath, so this runs on
+     * virtual threads; on older JDKs it covers the platform-thread fallback.
+     */
+    @Test(description = "Worker pools in virtual thread mode run at most their permits at once and carry the deadline")
+    public void testVirtualThreadWorkers() throws Exception {
+        ExecutorService pool = ComparisonExecutors.newWorkerPool("virtual-check", 2, true);
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        AtomicInteger virtualTasks = new AtomicInteger();
+        List<Future<Boolean>> futures = new ArrayList<>();
+        try (Deadline.Scope ignored = Deadline.after("virtual-check", 60_000).bind()) {
+            for (int i = 0; i < 20; i++) {
+                futures.add(pool.submit(() -> {
+                    maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                    if (isVirtualThread()) {
+                        virtualTasks.incrementAndGet();
+                    }
+                    Thread.sleep(10);
+                    running.decrementAndGet();
+                    return Deadline.current().isBounded();
+                }));
+            }
+            for (Future<Boolean> future : futures) {
+                Assert.assertTrue(future.get(), "Tasks run with the deadline of the submitting thread");
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        Assert.assertTrue(maxRunning.get() <= 2, "At most 2 tasks at once, got " + maxRunning.get());
+        Assert.assertEquals(virtualTasks.get(), Runtime.version().feature() >= 21 ? 20 : 0);
+    }
+
+    @Test(description = "Virtual workers waiting for an adaptive limiter slot do not pin their carrier threads")
+    public void testLimiterWithVirtualWorkers() throws Exception {
+        if (Runtime.version().feature() < 21) {
+            throw new SkipException("Virtual threads need JDK 21 and the java21 profile");
+        }
+        // Far more waiters than carriers; waiting on a monitor would pin them while the holder cannot resume
+        int workers = 400;
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter("virtual-check", 1, 1, 2.0);
+        ExecutorService pool = ComparisonExecutors.newWorkerPool("limiter-check", workers, true);
+        List<Future<?>> futures = new ArrayList<>();
+        try {
+            for (int i = 0; i < workers; i++) {
+                futures.add(pool.submit(() -> {
+                    limiter.acquire(20_000);
+                    try {
+                        Thread.sleep(1);
+                    } finally {
+                        limiter.release();
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        Assert.assertEquals(limiter.getMetrics().getRejections(), 0, limiter.getMetrics().toString());
+        Assert.assertEquals(limiter.getMetrics().getInFlight(), 0);
+    }
+
+    @Test(description = "Key lookups above the bind parameter limit are split into several queries")
+    public void testLookupRowsChunking() throws Exception {
+        List<Object[]> keys = new ArrayList<>();
+        for (int id = 1; id <= SqlDialect.MAX_BIND_PARAMETERS + 500; id++) {
+            keys.add(new Object[]{id});
+        }
+        List<Object[]> rows = source.lookupRows("ORDERS", Collections.singletonList("ID"),
+            Collections.singletonList("AMOUNT"), keys);
+        Assert.assertEquals(rows.size(), ROWS, "Every existing key is found once, missing keys are skipped");
+        Set<Integer> ids = new HashSet<>();
+        for (Object[] row : rows) {
+            Object[] key = DatabaseConnector.keyOf(row, 1);
+            Assert.assertEquals(key.length, 1);
+            ids.add(((Number) key[0]).intValue());
+        }
+        Assert.assertEquals(ids.size(), ROWS);
+    }
+
+    @Test(description = "A sample covering the whole table finds every missing and changed source row")
+    public void testSampling() throws Exception {
+        try (SamplingAnalyzer analyzer = new SamplingAnalyzer(config, Collections.singletonList("ORDERS"))) {
+            SampleComparisonResult result = analyzer.compareTable("ORDERS");
+            Assert.assertNull(result.getError(), "Comparison should not fail");
+            Assert.assertEquals(result.getComparedRows(), ROWS);
+            Assert.assertEquals(result.getMismatchedRows(), 3, "Row 5 is missing and rows 50 and 150 were changed");
+            Assert.assertTrue(result.getMismatchRate().getLower() <= 3.0 / ROWS);
+            Assert.assertTrue(result.getMismatchRate().getUpper() >= 3.0 / ROWS);
+        }
+    }
+
+    @Test(description = "A time budget used up before the sample is read reports no compared rows, not a failure")
+    public void testSamplingBudgetDuringScan() throws Exception {
+        ConfigurationManager.ComparisonConfig comparisonConfig = config.getComparisonConfig();
+        int timeBudget = comparisonConfig.getSampleTimeBudget();
+        comparisonConfig.setSampleTimeBudget(0);
+        try (SamplingAnalyzer analyzer = new SamplingAnalyzer(config, Collections.singletonList("ORDERS"))) {
+            SampleComparisonResult result = analyzer.compareTable("ORDERS");
+            Assert.assertNull(result.getError(), "An exhausted budget is not a failure");
+            Assert.assertFalse(result.isTimedOut());
+            Assert.assertTrue(result.isBudgetExhausted());
+            Assert.assertEquals(result.getComparedRows(), 0);
+            Assert.assertFalse(result.isMatch(), "A table that was not compared must not pass");
+        } finally {
+            comparisonConfig.setSampleTimeBudget(timeBudget);
+        }
+    }
+
+    @Test(description = "Column profiles expose the changed key range, amounts and customers in one scan per side")
+    public void testColumnProfile() throws Exception {
+        try (ColumnProfileAnalyzer analyzer = new ColumnProfileAnalyzer(config, Collections.singletonList("ORDERS"))) {
+            List<ColumnProfileResult> results = analyzer.profileTables();
+            Assert.assertEquals(results.size(), 1);
+            ColumnProfileResult result = results.get(0);
+            Assert.assertNull(result.getError(), "Profiling should not fail");
+            Assert.assertFalse(result.isMatch());
+            Assert.assertEquals(result.getSourceValue(), (long) ROWS);
+            Assert.assertEquals(result.getTargetValue(), (long) ROWS, "One row deleted and one added");
+
+            List<String> differing = new ArrayList<>();
+            for (ColumnProfileResult.ProfileDifference difference : result.getDifferences()) {
+                differing.add(difference.getColumn() + "." + difference.getMetric());
+            }
+            Assert.assertTrue(differing.contains("ID.MAX"), "Row 1000 raises the maximum key: " + differing);
+            Assert.assertTrue(differing.contains("AMOUNT.SUM"), "Changed amounts change the sum: " + differing);
+            Assert.assertTrue(differing.contains("CUSTOMER.DISTINCT_COUNT"), "Row 1000 adds a customer: " + differing);
+            Assert.assertFalse(differing.contains("AMOUNT.NULL_COUNT"));
+        }
+    }
+
+    @Test(description = "Column profiles ignore trailing spaces in lengths and apply column tolerances to time ranges")
+    public void testColumnProfileTolerances() throws Exception {
+        for (DatabaseConnector connector : new DatabaseConnector[]{source, target}) {
+            connector.executeUpdate("DROP TABLE IF EXISTS STAMPS");
+            connector.executeUpdate("CREATE TABLE STAMPS (ID INT PRIMARY KEY, NOTE VARCHAR(10), TAKEN TIMESTAMP(3))");
+        }
+        LocalDateTime taken = LocalDateTime.of(2024, 3, 1, 12, 0, 0, 100_000_000);
+        source.executeUpdate("INSERT INTO STAMPS VALUES (?, ?, ?)", 1, "ab  ", taken);
+        target.executeUpdate("INSERT INTO STAMPS VALUES (?, ?, ?)", 1, "ab", taken.plusNanos(2_000_000));
+
+        ConfigurationManager.ComparisonConfig comparisonConfig = config.getComparisonConfig();
+        Map<String, Double> columnTolerances = comparisonConfig.getColumnTolerances();
+        Map<String, Double> tolerances = new LinkedHashMap<>(columnTolerances);
+        tolerances.put("stamps.taken", 5.0);
+        comparisonConfig.setColumnTolerances(tolerances);
+        try (ColumnProfileAnalyzer analyzer = new ColumnProfileAnalyzer(config, Collections.singletonList("STAMPS"))) {
+            ColumnProfileResult result = analyzer.profileTables().get(0);
+            Assert.assertNull(result.getError(), "Profiling should not fail");
+            Assert.assertTrue(result.isMatch(), "Padding and 2 ms are within tolerance: " + result.getDifferences());
+        } finally {
+            comparisonConfig.setColumnTolerances(columnTolerances);
+        }
+    }
+
+    @Test(description = "Schema snapshots are reused while the fingerprint holds and reloaded after DDL, defaults included")
+    public void testSchemaSnapshotCache() throws Exception {
+        source.executeUpdate("DROP TABLE IF EXISTS GADGETS");
+        source.executeUpdate("CREATE TABLE GADGETS (ID INT PRIMARY KEY, NAME VARCHAR(20), MADE TIMESTAMP(3), QTY INT DEFAULT 1)");
+        Path cacheDir = Paths.get("target", "schema-cache-test");
+        SchemaSnapshotLoader loader = new SchemaSnapshotLoader(source, cacheDir);
+        Files.deleteIfExists(loader.getCacheFile());
+
+        SchemaSnapshot loaded = loader.load();
+        Assert.assertTrue(Files.isRegularFile(loader.getCacheFile()), "Snapshot should be cached");
+        SchemaSnapshot cached = new SchemaSnapshotLoader(source, cacheDir).load();
+        Assert.assertEquals(cached.getCapturedAt(), loaded.getCapturedAt(), "Unchanged schema is read from the cache");
+        SchemaSnapshot.Table gadgets = cached.getTable("gadgets");
+        Assert.assertEquals(gadgets.getPrimaryKey(), Collections.singletonList("ID"));
+        List<String> metadataTypes = new ArrayList<>();
+        try (ResultSet rs = source.getTableColumns("GADGETS")) {
+            while (rs.next()) {
+                metadataTypes.add(rs.getString("COLUMN_NAME") + " " + rs.getInt("DATA_TYPE") + " "
+                    + rs.getString("TYPE_NAME") + " " + rs.getObject("DECIMAL_DIGITS"));
+            }
+        }
+        List<String> snapshotTypes = new ArrayList<>();
+        for (ColumnType type : gadgets.getColumnTypes()) {
+            snapshotTypes.add(type.getName() + " " + type.getSqlType() + " " + type.getTypeName() + " " + type.getDecimalDigits());
+        }
+        Assert.assertEquals(snapshotTypes, metadataTypes, "Snapshot types should match the driver's metadata");
+
+        source.executeUpdate("ALTER TABLE GADGETS ALTER COLUMN QTY SET DEFAULT 2");
+        SchemaSnapshot reloaded = loader.load();
+        Assert.assertNotEquals(reloaded.getFingerprint(), cached.getFingerprint(), "A new default changes the fingerprint");
+        Assert.assertEquals(reloaded.getTable("GADGETS").getColumn("QTY").getDefaultValue(), "2");
+
+        Assert.assertEquals(source.getColumnTypes("GADGETS").size(), 4);
+        source.executeUpdate("ALTER TABLE GADGETS ADD COLUMN NOTE VARCHAR(10)");
+        Assert.assertEquals(source.getColumnTypes("GADGETS").size(), 5, "DDL through the connector refreshes its snapshot");
+        try (DatabaseConnector other = new DatabaseConnector(config, DatabaseConnector.DatabaseType.SOURCE)) {
+            other.executeUpdate("ALTER TABLE GADGETS ADD COLUMN COLOR VARCHAR(10)");
+        }
+        Assert.assertEquals(source.getColumnTypes("GADGETS").size(), 5, "Lookups use the snapshot until invalidated");
+        source.invalidateSchemaSnapshot();
+        Assert.assertEquals(source.getColumnTypes("GADGETS").size(), 6);
+    }
+
+    @Test(description = "Whole-number decimals read as longs encode like integers and like the same value with a scale")
+    public void testRowEncoderDecimals() throws Exception {
+        String sql = "SELECT CAST(12345 AS DECIMAL(12, 0)), CAST(12345 AS BIGINT), CAST(12345.00 AS DECIMAL(12, 2)),"
+            + " CAST(NULL AS DECIMAL(12, 0)), CAST(NULL AS BIGINT), CAST(100000000000000000000 AS DECIMAL(30, 0))";
+        long rows = source.streamQuery(sql, rs -> {
+            RowEncoder[] encoders = new RowEncoder[6];
+            for (int i = 0; i < encoders.length; i++) {
+                encoders[i] = new RowEncoder(rs.getMetaData(), i + 1, i + 1);
+                encoders[i].encode(rs);
+            }
+            Assert.assertEquals(encoders[0].getKind(0), RowEncoder.Kind.INTEGER);
+            Assert.assertEquals(encoders[0].getLong(0), 12345L);
+            Assert.assertTrue(encoders[0].hashEquals(encoders[1]), "DECIMAL(12, 0) encodes like BIGINT");
+            Assert.assertTrue(encoders[0].hashEquals(encoders[2]), "DECIMAL(12, 0) encodes like DECIMAL(12, 2)");
+            Assert.assertTrue(encoders[3].hashEquals(encoders[4]), "NULL decimals encode like NULL integers");
+            Assert.assertEquals(encoders[5].decode(0), new BigDecimal("1E+20"), "Wider decimals keep every digit");
+        });
+        Assert.assertEquals(rows, 1L);
+    }
+
+    @Test(description = "Values differing only in scale, fractional-second precision, padding or GUID case are equal")
+    public void testTypedValueComparison() throws Exception {
+        for (DatabaseConnector connector : new DatabaseConnector[]{source, target}) {
+            connector.executeUpdate("DROP TABLE IF EXISTS READINGS");
+        }
+        source.executeUpdate("CREATE TABLE READINGS (ID INT PRIMARY KEY, VAL DECIMAL(10, 4), TAKEN TIMESTAMP(3), CODE CHAR(8))");
+        target.executeUpdate("CREATE TABLE READINGS (ID INT PRIMARY KEY, VAL DECIMAL(10, 2), TAKEN TIMESTAMP(6), CODE VARCHAR(8))");
+        LocalDateTime taken = LocalDateTime.of(2024, 3, 1, 12, 0, 0, 123_000_000);
+        source.executeUpdate("INSERT INTO READINGS VALUES (?, ?, ?, ?)", 1, new BigDecimal("1.2345"), taken, "A1");
+        target.executeUpdate("INSERT INTO READINGS VALUES (?, ?, ?, ?)", 1, new BigDecimal("1.23"), taken.plusNanos(400_000), "A1");
+        source.executeUpdate("INSERT INTO READINGS VALUES (?, ?, ?, ?)", 2, new BigDecimal("2.5000"), taken, "B2");
+        target.executeUpdate("INSERT INTO READINGS VALUES (?, ?, ?, ?)", 2, new BigDecimal("2.52"), taken, "B2");
+
+        try (RowDiffAnalyzer analyzer = new RowDiffAnalyzer(config, Collections.singletonList("READINGS"))) {
+            RowDiffResult result = analyzer.diffTable("READINGS");
+            Assert.assertNull(result.getError(), "Comparison should not fail");
+            Assert.assertEquals(result.getChangedRows(), 1, "Only row 2 differs by more than half a cent");
+            Assert.assertEquals(result.getSampleDifferences().get(0).getChangedColumns(), Collections.singletonList("VAL"));
+        }
+
+        ColumnMapping mapping = new ColumnMapping("LEGACY", Collections.singletonList("ID"), Collections.singletonList("ID"),
+            Arrays.asList("PRICE", "UPDATED", "REF"), Arrays.asList("PRICE", "UPDATED", "REF"),
+            Arrays.asList(new ColumnType("PRICE", Types.DECIMAL, "money", 4),
+                new ColumnType("UPDATED", Types.TIMESTAMP, "datetime", 3),
+                new ColumnType("REF", Types.CHAR, "uniqueidentifier", 0)),
+            Arrays.asList(new ColumnType("PRICE", Types.NUMERIC, "numeric", 4),
+                new ColumnType("UPDATED", Types.TIMESTAMP, "timestamp", 6),
+                new ColumnType("REF", Types.OTHER, "uuid", 0)));
+        ConfigurationManager.ComparisonConfig comparisonConfig = new ConfigurationManager.ComparisonConfig();
+        Map<String, Double> tolerances = new LinkedHashMap<>();
+        tolerances.put("legacy.price", 0.01);
+        comparisonConfig.setColumnTolerances(tolerances);
+        ValueComparator comparator = ValueComparator.forMapping(mapping, comparisonConfig);
+
+        Assert.assertTrue(comparator.equal(0, new BigDecimal("10.0000"), new BigDecimal("10.0100")));
+        Assert.assertFalse(comparator.equal(0, new BigDecimal("10.0000"), new BigDecimal("10.0101")));
+        Assert.assertTrue(comparator.equal(1, taken.withNano(3_333_333), taken.withNano(5_000_000)),
+            "datetime rounds to 1/300 s");
+        Assert.assertFalse(comparator.equal(1, taken.withNano(0), taken.withNano(5_000_000)));
+        Assert.assertTrue(comparator.equal(2, "6F9619FF-8B86-D011-B42D-00C04FC964FF",
+            UUID.fromString("6f9619ff-8b86-d011-b42d-00c04fc964ff")));
+        Assert.assertFalse(ValueComparator.exact(3).equal(0, new BigDecimal("10.0000"), new BigDecimal("10.0100")));
+    }
+
+    @Test(description = "Chunk hashes render column pairs alike, and pairs without a common rendering diff all rows")
+    public void testChunkHashRendering() throws Exception {
+        HashColumn amount = HashColumn.forPair(new ColumnType("AMOUNT", Types.DECIMAL, "money", 4),
+            new ColumnType("AMOUNT", Types.NUMERIC, "numeric", 2));
+        Assert.assertEquals(amount.getRendering(), HashColumn.Rendering.DECIMAL);
+        Assert.assertEquals(amount.getDigits(), 4);
+        HashColumn taken = HashColumn.forPair(new ColumnType("TAKEN", Types.TIMESTAMP, "datetime2", 7),
+            new ColumnType("TAKEN", Types.TIMESTAMP, "timestamp", 6));
+        Assert.assertEquals(taken.getRendering(), HashColumn.Rendering.TIMESTAMP);
+        Assert.assertEquals(taken.getDigits(), 7);
+        Assert.assertEquals(HashColumn.forPair(new ColumnType("ACTIVE", Types.BIT, "bit", 0),
+            new ColumnType("ACTIVE", Types.BOOLEAN, "bool", 0)).getRendering(), HashColumn.Rendering.BOOLEAN);
+        Assert.assertTrue(HashColumn.forPair(new ColumnType("CODE", Types.CHAR, "char", 0),
+            new ColumnType("CODE", Types.VARCHAR, "varchar", 0)).isTrimTrailingSpaces());
+        Assert.assertNull(HashColumn.forPair(new ColumnType("RATE", Types.DOUBLE, "float", 0),
+            new ColumnType("RATE", Types.DOUBLE, "float8", 0)));
+        Assert.assertNull(HashColumn.forPair(new ColumnType("DAY", Types.DATE, "date", 0),
+            new ColumnType("DAY", Types.TIMESTAMP, "timestamp", 6)));
+
+        SqlServerDialect sqlServer = new SqlServerDialect();
+        Assert.assertFalse(sqlServer.supports(SqlDialect.Capability.ROW_HASH, 14), "UTF-8 collations need 2019");
+        Assert.assertTrue(sqlServer.supports(SqlDialect.Capability.ROW_HASH, 15));
+
+        for (DatabaseConnector connector : new DatabaseConnector[]{source, target}) {
+            connector.executeUpdate("DROP TABLE IF EXISTS RATES");
+            connector.executeUpdate("CREATE TABLE RATES (ID INT PRIMARY KEY, RATE DOUBLE PRECISION)");
+        }
+        for (int id = 1; id <= 20; id++) {
+            source.executeUpdate("INSERT INTO RATES VALUES (?, ?)", id, id / 8.0);
+            target.executeUpdate("INSERT INTO RATES VALUES (?, ?)", id, id == 7 ? 0.5 : id / 8.0);
+        }
+        try (ChunkChecksumAnalyzer analyzer = new ChunkChecksumAnalyzer(config, Collections.singletonList("RATES"))) {
+            RowDiffResult result = analyzer.compareTable("RATES");
+            Assert.assertNull(result.getError(), "Comparison should not fail");
+            Assert.assertEquals(result.getChangedRows(), 1, "Row 7 differs");
+        }
+    }
+
+    /**
+     * Row diff analyzer exposing its own source connector, whose limiter the range workers share.
+     */
+    private static class ObservedRowDiffAnalyzer extends RowDiffAnalyzer {
+        ObservedRowDiffAnalyzer(List<String> tables) {
+            super(EmbeddedDatabaseComparisonTest.config, tables);
+        }
+
+        DatabaseConnector getSourceConnector() {
+            return sourceConnector;
+        }
+    }
+
+    private static boolean isVirtualThread() throws ReflectiveOperationException {
+        if (Runtime.version().feature() < 21) {
+            return false;
+        }
+        return (Boolean) Thread.class.getMethod("isVirtual").invoke(Thread.currentThread());
+    }
+
+    private static void assertDifferences(List<ComparisonReportGenerator.ComparisonResult> results) {
+        Assert.assertEquals(results.size(), 1);
+        RowDiffResult result = (RowDiffResult) results.get(0);
+        Assert.assertNull(result.getError(), "Comparison should not fail");
+        Assert.assertFalse(result.isMatch());
+        Assert.assertEquals(result.getMissingInTarget(), 1, "Row 5 is missing in the target");
+        Assert.assertEquals(result.getExtraInTarget(), 1, "Row 1000 exists only in the target");
+        Assert.assertEquals(result.getChangedRows(), 2, "Rows 50 and 150 were changed");
+        for (RowDifference difference : result.getSampleDifferences()) {
+            if (difference.getType() == RowDifference.Type.CHANGED) {
+                Assert.assertEquals(difference.getChangedColumns(), Collections.singletonList("AMOUNT"));
+            }
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package com.datamigration.framework.examples;
 
 import com.datamigration.framework.analyzer.ComparisonAnalyzer;
+import com.datamigration.framework.analyzer.ParallelCountAnalyzer;
 import com.datamigration.framework.config.ConfigurationManager;
 import com.datamigration.framework.connector.DatabaseConnector;
 import com.datamigration.framework.reporting.ComparisonReportGenerator;
@@ -66,6 +67,20 @@ public class TableCountComparisonTest {
         analyzer.close();
     }
 
+    @Test(description = "Compare table row counts with source and target counted in parallel",
+          dependsOnMethods = "testTableCountComparison")
+    public void testParallelTableCountComparison() throws Exception {
+        try (ParallelCountAnalyzer analyzer = new ParallelCountAnalyzer(config, tablesToCompare)) {
+            List<ComparisonReportGenerator.ComparisonResult> results = analyzer.compare();
+            
+            Assert.assertEquals(results.size(), tablesToCompare.size(), "Every table should have a result");
+            for (int i = 0; i < results.size(); i++) {
+                Assert.assertEquals(results.get(i).getItemName(), tablesToCompare.get(i),
+                    "Results should keep the order the tables were given in");
+            }
+        }
+    }
+
     @Test(description = "Test database connections", dependsOnMethods = "testTableCountComparison")
     public void testDatabaseConnections() throws Exception {
         try (DatabaseConnector source = new DatabaseConnector(config, DatabaseConnector.DatabaseType.SOURCE);